@@ -2,6 +2,7 @@ package ericvh.TDT;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -134,6 +135,69 @@ public class Algorithms implements Serializable
         return sharedObjects;
     }
     
+    /** intersect: Merges two sorted arrays of unique ints, such as document
+     * numbers, and writes the elements shared by both in ascending order to an
+     * output array. Nothing is allocated. When one array is much shorter its 
+     * elements are looked up by binary search in the other.
+     * @param a : first sorted array (int[])
+     * @param b : second sorted array (int[])
+     * @param out : receives the shared elements, at least as long as the 
+     * shorter array; null to count them only (int[])
+     * @return the number of shared elements (int)
+     */
+    public static int intersect(int[] a, int[] b, int[] out)
+    {
+        if (a.length > b.length)
+        {
+            int[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+        int count = 0;
+        if (a.length * 16 < b.length)
+        {
+            int from = 0;
+            for (int i = 0; i < a.length && from < b.length; i++)
+            {
+                int found = Arrays.binarySearch(b, from, b.length, a[i]);
+                if (found >= 0)
+                {
+                    if (out != null) out[count] = a[i];
+                    count++;
+                    from = found + 1;
+                }
+                else from = -found - 1;
+            }
+            return count;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length)
+        {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else
+            {
+                if (out != null) out[count] = a[i];
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+    
+    /** intersectCount: Returns the number of elements shared by two sorted 
+     * arrays of unique ints, without allocating.
+     * @param a : first sorted array (int[])
+     * @param b : second sorted array (int[])
+     * @return the number of shared elements (int)
+     */
+    public static int intersectCount(int[] a, int[] b)
+    {
+        return intersect(a, b, null);
+    }
+    
     /** getSharedDocCount: The size of the intersection of two vertices gives 0
      * if the tokens never appeared together in their documents.
      * @param intersection : the documents shared by two vertices
@@ -204,40 +268,36 @@ public class Algorithms implements Serializable
     
     /** getSortedSubTopics: Sorts values in a map en puts the keys in an array 
      * sorted on the values. The first in the array is the key to the most 
-     * important value (map gets reversed).
+     * important value.
      * @param labelAndFrequency : labels and their frequency (Map)
      * @return array with most frequent labels (String).
      */
     public String [] getSortedSubTopics(Map labelAndFrequency)
     {
-        String [] subTopics;
-        SortedMap sortedMap;
-        Set currentSet;
-        Integer currentNumber;
-        Object [] sortedNumbers;
-        int size;
-        Iterator setIt;
-        int j=0;
-        String currentSubTopic;
-        
-        subTopics = new String[labelAndFrequency.size()];
-        
-        // Copies everything to a new map.
-        sortedMap = valueSortedMap(labelAndFrequency);
-        sortedNumbers = sortedMap.keySet().toArray();
-        size = sortedNumbers.length;
-        
-        for(int i = 0; i < size; i++)
+        return getSortedSubTopics(labelAndFrequency, 0);
+    }
+    
+    /** getSortedSubTopics: Puts the keys with the highest values of a map in
+     * an array sorted on the values, by a ranking that keeps no more than the
+     * number of keys asked. Labels with the same frequency keep the order of 
+     * the map.
+     * @param labelAndFrequency : labels and their frequency (Map)
+     * @param max : the number of labels wanted (int), 0 for all labels
+     * @return array with most frequent labels (String).
+     */
+    public String [] getSortedSubTopics(Map labelAndFrequency, int max)
+    {
+        Object [] labels = labelAndFrequency.keySet().toArray();
+        Ranking ranking = new Ranking(max);
+        for(int i = 0; i < labels.length; i++)
         {
-            currentNumber = (Integer) sortedNumbers[size-i-1];
-            currentSet = (Set) sortedMap.get(currentNumber);
-            setIt = currentSet.iterator();
-            while(setIt.hasNext())
-            {
-                currentSubTopic = (String) setIt.next();
-                subTopics[j] = currentSubTopic;
-                j++;
-            }
+            ranking.add(i, ((Number) labelAndFrequency.get(labels[i]))
+                    .doubleValue());
+        }
+        String [] subTopics = new String[ranking.size()];
+        for(int j = 0; j < subTopics.length; j++)
+        {
+            subTopics[j] = (String) labels[(int) ranking.getId(j)];
         }
         return subTopics;
     }
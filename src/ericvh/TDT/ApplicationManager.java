@@ -108,12 +108,18 @@ public class ApplicationManager extends JPanel implements Serializable
     private static Calendar limitDate = null;     // Before this date no old files are accepted.
     // Classes needed to run the application.
     private static LabelTable lt;          // LabelTable token-label is key, the id is its value.
+    private static LabelDictionary ld;     // Memory-mapped copy of the LabelTable on disk.
     private TokenCount tc;                 // TokenCount count of all tokens in every doc.
     private static VerticesTable vt;       // Table holding the individual vertices.
     private static DocTable dt;            // DocTable: document information.
     private static CollectionTable ct;     // CollectionTable: collection information.
     private static LinkTable lkt;          // LinkTable: methods to collect links per vertex.
     private NetworkBuilder gb;               // Class with methods to construct the text network.
+    private static volatile NetworkFeeder networkFeeder; // Builds the network during a fused Preprocess.
+    private PreprocessManifest manifest;     // Source files seen by an incremental Preprocess.
+    private int skippedCount = 0;            // Counts unchanged files in an incremental Preprocess.
+    private Set infoCollections;             // Collections computed by an incremental Compute Info-value.
+    private Set infoGraphFiles;              // Text graphs read by an incremental Compute Info-value.
    // private NewsParser parseDocument;          // Class with parsing methods.
     private TikaParser parseDocument;          // Class with parsing methods.
     private FacetCollector collector;     // Class consolidates topic data.
@@ -387,6 +393,32 @@ public class ApplicationManager extends JPanel implements Serializable
         showSimLabel = new JLabel("Show Results");
         coreNumber = new JTextField("5");
         coreLabel = new JLabel("Main cores to extract");
+        workerNumber = new JTextField("1");
+        workerLabel = new JLabel("Worker threads");
+        fixedIdsBx = new JCheckBox();
+        fixedIdsBx.setSelected(true);
+        fixedIdsLabel = new JLabel("Fixed ids");
+        exactSumsBx = new JCheckBox();
+        exactSumsBx.setSelected(false);
+        exactSumsLabel = new JLabel("Exact sums");
+        fastTokBx = new JCheckBox();
+        fastTokBx.setSelected(false);
+        fastTokLabel = new JLabel("Fast tokenizer");
+        streamingBx = new JCheckBox();
+        streamingBx.setSelected(false);
+        streamingLabel = new JLabel("Streaming parser");
+        incrementalBx = new JCheckBox();
+        incrementalBx.setSelected(false);
+        incrementalLabel = new JLabel("Incremental");
+        fusedBx = new JCheckBox();
+        fusedBx.setSelected(false);
+        fusedLabel = new JLabel("Fused network");
+        keepTokBx = new JCheckBox();
+        keepTokBx.setSelected(false);
+        keepTokLabel = new JLabel("Keep *.tok");
+        offHeapBx = new JCheckBox();
+        offHeapBx.setSelected(false);
+        offHeapLabel = new JLabel("Off-heap arcs");
         retrievePanel = new JPanel(new GridLayout(1, 0));
         retrieveGroup = new ButtonGroup();
         highRB = new JRadioButton();
@@ -428,12 +460,30 @@ public class ApplicationManager extends JPanel implements Serializable
         paraContent.add(showFacetLabel).setBounds(10, 110, 150, 20);
         paraContent.add(showSimBx).setBounds(148, 135, 20, 20);
         paraContent.add(showSimLabel).setBounds(10, 135, 120, 20);
+        paraContent.add(exactSumsLabel).setBounds(178, 135, 125, 20);
+        paraContent.add(exactSumsBx).setBounds(240, 135, 20, 20);
         paraContent.add(retrievePanelLabel).setBounds(82, 165, 175, 20);
         paraContent.add(retrieveLabel).setBounds(10, 184, 100, 20);
         paraContent.add(retrievePanel).setBounds(102, 185, 160, 20);
         paraContent.add(coreLabel).setBounds(10, 210, 130, 20);
         paraContent.add(coreNumber).setBounds(148, 210, 20, 20);
-        paraContent.add(confirmParaBtn).setBounds(10, 240, 80, 30);
+        paraContent.add(fixedIdsLabel).setBounds(178, 210, 125, 20);
+        paraContent.add(fixedIdsBx).setBounds(240, 210, 20, 20);
+        paraContent.add(workerLabel).setBounds(10, 235, 130, 20);
+        paraContent.add(workerNumber).setBounds(148, 235, 20, 20);
+        paraContent.add(fastTokLabel).setBounds(178, 235, 125, 20);
+        paraContent.add(fastTokBx).setBounds(240, 235, 20, 20);
+        paraContent.add(streamingLabel).setBounds(10, 260, 130, 20);
+        paraContent.add(streamingBx).setBounds(148, 260, 20, 20);
+        paraContent.add(incrementalLabel).setBounds(178, 260, 125, 20);
+        paraContent.add(incrementalBx).setBounds(240, 260, 20, 20);
+        paraContent.add(fusedLabel).setBounds(10, 285, 130, 20);
+        paraContent.add(fusedBx).setBounds(148, 285, 20, 20);
+        paraContent.add(keepTokLabel).setBounds(178, 285, 125, 20);
+        paraContent.add(keepTokBx).setBounds(240, 285, 20, 20);
+        paraContent.add(offHeapLabel).setBounds(10, 310, 130, 20);
+        paraContent.add(offHeapBx).setBounds(148, 310, 20, 20);
+        paraContent.add(confirmParaBtn).setBounds(10, 340, 80, 30);
         paraMenuItem = new JMenuItem("Set GUI-Parameters");
         paraMenuItem.addActionListener((ActionEvent event) ->
         {
@@ -1568,7 +1618,7 @@ public class ApplicationManager extends JPanel implements Serializable
      */
     private void paraMenuItemActionPerformed(ActionEvent event)
     {
-        paraFrame.setSize(300, 320);
+        paraFrame.setSize(300, 420);
         paraFrame.setVisible(true);
         paraFrame.setLocationRelativeTo(menuBar);
         paraFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
@@ -1839,8 +1889,16 @@ public class ApplicationManager extends JPanel implements Serializable
             // Array with formatting info about the files being opened.
             getFingerprint(sourceName);
             // When the task is 'Preprocess' all directories and files are deleted
-            // to prevent a mixup of new and existing data.
-            if ("Preprocess".equals(taskName))
+            // to prevent a mixup of new and existing data. An incremental run
+            // keeps them when a manifest of a previous run exists.
+            File manifestFile = new File(getWorkPath() + separator 
+                    + "Preprocess.mfst");
+            PreprocessManifest previousManifest = null;
+            if ("Preprocess".equals(taskName) && getIncrementalStatus())
+            {
+                previousManifest = loadManifest(manifestFile);
+            }
+            if ("Preprocess".equals(taskName) && previousManifest == null)
             {
                 Path pathToBeDeleted = 
                         Paths.get(dir + workFiles + separator + communityName);
@@ -1926,8 +1984,62 @@ public class ApplicationManager extends JPanel implements Serializable
                     // Other specialized parsers are possible and should be added
                     // to the Tika parser.
                     parseDocument = new TikaParser();
+                    // In the fused mode the network is built while the files 
+                    // are preprocessed.
+                    if (getFusedStatus())
+                    {
+                        dt.preparePreviousDocList();
+                        gb = new NetworkBuilder();
+                        networkFeeder = new NetworkFeeder(gb,
+                                dt.getAllDocNrs().length > 0);
+                    }
+                    // An incremental run starts from the manifest of the 
+                    // previous run.
+                    if (getIncrementalStatus())
+                    {
+                        manifest = previousManifest != null ? previousManifest
+                                : new PreprocessManifest();
+                        TikaParser.advanceDocCounter(manifest.getMaxDocNr());
+                        skippedCount = 0;
+                        // The filenames of the previous run are kept.
+                        if (previousManifest != null && mOriginalFilenames != null)
+                        {
+                            synchronized (InputOutput.allOriginalFilenames)
+                            {
+                                InputOutput.allOriginalFilenames.putAll(
+                                        mOriginalFilenames);
+                            }
+                        }
+                    }
                     // The user selects the files to be preprocessed.
-                    startFileDialog();
+                    NetworkFeeder feeder = networkFeeder;
+                    try
+                    {
+                        startFileDialog();
+                        if (manifest != null)
+                        {
+                            int retired = manifest.retireDeleted(
+                                    getCommunityDir());
+                            io.writeThisObject(manifestFile.toString(), manifest);
+                            io.writeThisObject(getWorkPath() + separator 
+                                    + "AllFilenames.nms", 
+                                    InputOutput.allOriginalFilenames);
+                            showText("* " + skippedCount + " unchanged files "
+                                    + "skipped, " + retired + " deleted files "
+                                    + "retired *", 0);
+                        }
+                    }
+                    finally
+                    {
+                        networkFeeder = null;
+                        manifest = null;
+                    }
+                    if (feeder != null && feeder.getGraphCount() > 0)
+                    {
+                        feeder.addWorkerVertices();
+                        emptyCount += feeder.getEmptyCount();
+                        completeTasks(2);
+                    }
                 }
                 case "Build Network" ->
                 {
@@ -1956,7 +2068,7 @@ public class ApplicationManager extends JPanel implements Serializable
                 case "Count Links" ->
                 {
                     myTask = 3;
-                    arcsMap = new HashMap();
+                    arcsMap = newArcsMap();
                     // Processes the selected '*.tgr'-files from disk first.
                     directoryName = getGraphPath();
                     selectFiles(myTask, directoryName);
@@ -1978,8 +2090,11 @@ public class ApplicationManager extends JPanel implements Serializable
                 {
                     myTask = 4;
 
-                    arcsMap = new HashMap();
+                    arcsMap = newArcsMap();
                     tc = new TokenCount();
+                    // An incremental run only reads the text graphs of the
+                    // collections that got new documents.
+                    setInfoCollections();
                     try
                     {
                         if (mRunBaseLineFilter)
@@ -2010,7 +2125,7 @@ public class ApplicationManager extends JPanel implements Serializable
                 {
                     myTask = 5;
 
-                    arcsMap = new HashMap();
+                    arcsMap = newArcsMap();
                     infoArcMap = new HashMap();
                     // Processes the selected '*.tgr'-files from disk first.
                     directoryName = getGraphPath();
@@ -2033,7 +2148,7 @@ public class ApplicationManager extends JPanel implements Serializable
                 {
                     myTask = 6;
 
-                    arcsMap = new HashMap();
+                    arcsMap = newArcsMap();
                     docMatrixList = new LinkedList();
                     // infoArcMap = new HashMap();
                     // assocMap = new HashMap();
@@ -2105,7 +2220,7 @@ public class ApplicationManager extends JPanel implements Serializable
                     results = new ResultExport(dt);
                     vt = new VerticesTable();
                     infoArcMap = new HashMap();
-                    arcsMap = new HashMap();
+                    arcsMap = newArcsMap();
                     try
                     {
                         // Reads a map with the results of previous retrieval
@@ -2280,13 +2395,26 @@ public class ApplicationManager extends JPanel implements Serializable
         List selectList = Arrays.asList(fileList);
         // Counts the files to process.
         filesToProcess = selectList.size();
-        Iterator select_itr = selectList.iterator();
-        while (select_itr.hasNext())
+        // Preprocessing can be spread over several worker threads.
+        if (task == PREPROCESS && getWorkerNumber() > 1)
         {
-            String thisFile = select_itr.next().toString();
-            fileCount++;
-            selectTask(task, thisFile);
-            updateStatusBar(progress, "");
+            preprocessParallel(selectList);
+        }
+        // So can the Build Network task.
+        else if (task == NETWORK && getWorkerNumber() > 1)
+        {
+            buildNetworkParallel(selectList);
+        }
+        else
+        {
+            Iterator select_itr = selectList.iterator();
+            while (select_itr.hasNext())
+            {
+                String thisFile = select_itr.next().toString();
+                fileCount++;
+                selectTask(task, thisFile);
+                updateStatusBar(progress, "");
+            }
         }
         fileCount = filesToProcess;
         showText("* File processing completed*\n*Proceeding with the "
@@ -2294,6 +2422,221 @@ public class ApplicationManager extends JPanel implements Serializable
         clearText();
     }
 
+    /**
+     * preprocessIncremental: Preprocesses one file in an incremental run. An
+     * unchanged file is skipped. The output of a changed file is retired and
+     * the file is tokenized again under its former document number; a new
+     * file gets the next number. The manifest is updated.
+     *
+     * @param filePath : the full path of the source file (String).
+     */
+    private void preprocessIncremental(String filePath) throws IOException,
+            SAXException, TikaException
+    {
+        if (manifest.isUnchanged(filePath, getCommunityDir()))
+        {
+            skippedCount++;
+            return;
+        }
+        manifest.retire(filePath, getCommunityDir());
+        int docNr = manifest.getDocNr(filePath);
+        if (docNr < 0)
+        {
+            docNr = TikaParser.reserveDocNumbers(1) + 1;
+        }
+        String output = parseDocument.parse(filePath, getDataPath(), docNr);
+        manifest.record(filePath, output, docNr);
+    }
+
+    /**
+     * loadManifest: Reads the manifest of the previous incremental Preprocess.
+     *
+     * @param manifestFile : the manifest file (File).
+     * @return the manifest, null when there is none or when it cannot be read.
+     */
+    private PreprocessManifest loadManifest(File manifestFile)
+    {
+        if (!manifestFile.exists())
+        {
+            return null;
+        }
+        try
+        {
+            return io.readManifest(manifestFile.toString());
+        } catch (Exception e)
+        {
+            showText("* The preprocess manifest could not be read, all files "
+                    + "are preprocessed *", 0);
+            e.printStackTrace(System.err);
+            return null;
+        }
+    }
+
+    /**
+     * getCommunityDir: Getter returns the directory with all the processed
+     * files of the community in use.
+     *
+     * @return the community directory (File).
+     */
+    private File getCommunityDir()
+    {
+        return new File(dir + workFiles + separator + communityName);
+    }
+
+    /**
+     * preprocessParallel: Preprocesses the selected files with the number of
+     * worker threads set in the GUI-parameters. The data directory of each file
+     * is identified beforehand on this thread, the dictionary with the internal
+     * and the original filenames is saved once all files are done. In an
+     * incremental run the unchanged files are left out and the changed files
+     * keep their document number.
+     *
+     * @param selectList : List with the Files to preprocess.
+     * @throws IOException
+     */
+    private void preprocessParallel(List selectList) throws IOException
+    {
+        List fileList = new ArrayList(selectList.size());
+        List dataPathList = new ArrayList(selectList.size());
+        List docNrList = new ArrayList(selectList.size());
+        Iterator select_itr = selectList.iterator();
+        while (select_itr.hasNext())
+        {
+            String thisFile = select_itr.next().toString();
+            int docNr = -1;
+            if (manifest != null)
+            {
+                if (manifest.isUnchanged(thisFile, getCommunityDir()))
+                {
+                    skippedCount++;
+                    setFileCount(1);
+                    continue;
+                }
+                manifest.retire(thisFile, getCommunityDir());
+                docNr = manifest.getDocNr(thisFile);
+            }
+            // Identifies the '*.tok-file directory based on the file date.
+            int start = thisFile.lastIndexOf(separator) + 1;
+            setDataPath(getDataStoreArg(Integer.valueOf(getDataLocator()),
+                    thisFile.substring(start)));
+            fileList.add(thisFile);
+            dataPathList.add(getDataPath());
+            docNrList.add(docNr);
+        }
+        // New files get the next document numbers in the order of the list.
+        int[] docNumbers = new int[fileList.size()];
+        for (int i = 0; i < docNumbers.length; i++)
+        {
+            docNumbers[i] = (Integer) docNrList.get(i);
+            if (docNumbers[i] < 0)
+            {
+                docNumbers[i] = TikaParser.reserveDocNumbers(1) + 1;
+            }
+        }
+        try
+        {
+            ParallelPreprocessor preprocessor = new ParallelPreprocessor(
+                    parseDocument, getWorkerNumber());
+            String[] outputs = preprocessor.process(fileList, dataPathList,
+                    docNumbers);
+            int failed = 0;
+            for (int i = 0; i < outputs.length; i++)
+            {
+                if (outputs[i] == null)
+                {
+                    failed++;
+                } else if (manifest != null)
+                {
+                    manifest.record((String) fileList.get(i), outputs[i],
+                            docNumbers[i]);
+                }
+            }
+            if (failed > 0)
+            {
+                showText("* " + failed + " file(s) could not be processed *", 0);
+            }
+        } catch (InterruptedException e)
+        {
+            showText("* Preprocessing interrupted *", 0);
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            // Save the dictionary with the internal and the original 
+            // filenames
+            String path = getWorkPath() + separator + "AllFilenames.nms";
+            synchronized (InputOutput.allOriginalFilenames)
+            {
+                io.writeThisObject(path, InputOutput.allOriginalFilenames);
+            }
+        }
+    }
+
+    /**
+     * buildNetworkParallel: Builds the text graphs of the selected tokenized
+     * files with the number of worker threads set in the GUI-parameters. The
+     * files are checked against the scope and get their document-id on this
+     * thread, in the order of the selection. With 'Fixed ids' selected the
+     * label indices are the same as those of a sequential build.
+     *
+     * @param selectList : List with the Files to process.
+     * @throws IOException
+     */
+    private void buildNetworkParallel(List selectList) throws IOException
+    {
+        List fileList = new ArrayList(selectList.size());
+        List graphPathList = new ArrayList(selectList.size());
+        List docNrList = new ArrayList(selectList.size());
+        Calendar fileDate = Calendar.getInstance();
+        fileDate.set(0000, 00, 00);
+        Iterator select_itr = selectList.iterator();
+        while (select_itr.hasNext())
+        {
+            String filePath = select_itr.next().toString();
+            fileDate = GraphTime.getDate(fileDate, filePath
+                    .substring(filePath.lastIndexOf(separator) + 1));
+            String suffix = filePath.substring(filePath.lastIndexOf(".") + 1);
+            if (!GraphTime.isBetweenDates(fileDate, beginDate, endDate))
+            {
+                setFileCount(1);
+            } else if (suffix.endsWith("tok"))
+            {
+                // Allocates an unique identification number to this text file.
+                docNrList.add(attributeDocId(filePath));
+                fileList.add(filePath);
+                graphPathList.add(getGraphPath() + separator
+                        + getTextGraphName(filePath));
+            } else
+            {
+                // Counts the empty files within this scope.
+                if (suffix.endsWith("emp"))
+                {
+                    emptyCount++;
+                }
+                setFileCount(1);
+            }
+        }
+        int[] docNumbers = new int[docNrList.size()];
+        for (int i = 0; i < docNumbers.length; i++)
+        {
+            docNumbers[i] = (Integer) docNrList.get(i);
+        }
+        try
+        {
+            ParallelNetworkBuilder builder = new ParallelNetworkBuilder(gb,
+                    getWorkerNumber(), getFixedIdsStatus());
+            int failed = builder.build(fileList, docNumbers, graphPathList);
+            if (failed > 0)
+            {
+                showText("* " + failed + " file(s) could not be processed *", 0);
+            }
+        } catch (InterruptedException e)
+        {
+            showText("* Building the network interrupted *", 0);
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * rescan: Documents not involved in a previous topic finding session are
      * saved separately. They get another chance in this TOPICS session (task
@@ -2408,7 +2751,7 @@ public class ApplicationManager extends JPanel implements Serializable
         {
             // Reads the infoArc map and extracts the infoArcs linked to the 
             // old doc-ids in view.
-            Map oldInfoMap = io.readMap(arcPath);
+            Map oldInfoMap = io.readArcsMap(arcPath);
             Iterator map_itr = oldInfoMap.keySet().iterator();
             while (map_itr.hasNext())
             {
@@ -2417,7 +2760,7 @@ public class ApplicationManager extends JPanel implements Serializable
                 if (docIdList.contains(docNr))
                 {
                     Integer docInt = docNr;
-                    Map thisInfoMap = (HashMap) oldInfoMap.get(docInt);
+                    LongHashMap thisInfoMap = (LongHashMap) oldInfoMap.get(docInt);
                     infoArcMap.put(docInt, thisInfoMap);
                 }
             }
@@ -2464,6 +2807,18 @@ public class ApplicationManager extends JPanel implements Serializable
         }
     }
 
+    /**
+     * newArcsMap: Returns an empty map for the arcs of all documents: an
+     * OffHeapArcStore if 'Off-heap arcs' is selected, else a HashMap.
+     *
+     * @return Map with doc-id (Integer) as key and a LongHashMap as value.
+     */
+    private Map newArcsMap()
+    {
+        if (getOffHeapStatus()) return new OffHeapArcStore();
+        return new HashMap();
+    }
+
     /**
      * processTextGraph: Assembles information from the individual text files
      * and puts it in the ArcsTable.
@@ -2484,7 +2839,7 @@ public class ApplicationManager extends JPanel implements Serializable
                 // a map.
                 TextGraph tg = io.readTextGraph(filePath);
                 int docNr = tg.getGraphDocNr();
-                Map thisArcsMap = tg.getFullArcsMap();
+                LongHashMap thisArcsMap = tg.getFullArcsMap();
                 if (!thisArcsMap.isEmpty())
                 {
                     Integer docInt = docNr;
@@ -2525,7 +2880,7 @@ public class ApplicationManager extends JPanel implements Serializable
             {
                 if (suffix.endsWith("arcs"))
                 {
-                    Map tmpArcMap = io.readMap(filePath);
+                    Map tmpArcMap = io.readArcsMap(filePath);
                     Iterator doc_itr = tmpArcMap.keySet().iterator();
                     while (doc_itr.hasNext())
                     {
@@ -2578,11 +2933,19 @@ public class ApplicationManager extends JPanel implements Serializable
                     int start = filePath.lastIndexOf(separator) + 1;
                     setDataPath(getDataStoreArg(Integer.valueOf(getDataLocator()),
                             filePath.substring(start)));
-                    parseDocument.parse(filePath);
+                    // An incremental run only parses new and changed files.
+                    if (manifest != null)
+                    {
+                        preprocessIncremental(filePath);
+                    }
+                    else
+                    {
+                        parseDocument.parse(filePath);
+                    }
 
                     // Processes all files in the directory when the source is 
                     // undefined.
-                    if (sourceName.equals("Undefined"))
+                    if (manifest == null && sourceName.equals("Undefined"))
                     {
                         System.out.println("Start undefined");
                         parseDocument.parse(filePath);
@@ -2610,7 +2973,10 @@ public class ApplicationManager extends JPanel implements Serializable
                     // Save the dictionary with the internal and the original 
                     // filenames
                     String path = getWorkPath() + separator + "AllFilenames.nms";
-                     io.writeThisObject(path, InputOutput.allOriginalFilenames);
+                    synchronized (InputOutput.allOriginalFilenames)
+                    {
+                        io.writeThisObject(path, InputOutput.allOriginalFilenames);
+                    }
                      
                 } catch (NumberFormatException | PatternSyntaxException e)
                 {
@@ -2736,7 +3102,9 @@ public class ApplicationManager extends JPanel implements Serializable
                         // TextGraph-suffix.
                         String suffix = filePath.substring(filePath
                                 .lastIndexOf(".") + 1);
-                        if (suffix.endsWith("tgr"))
+                        if (suffix.endsWith("tgr") && (infoGraphFiles == null
+                                || infoGraphFiles.contains(filePath.substring(
+                                filePath.lastIndexOf(separator) + 1))))
                         {
                             TextGraph tg = io.readTextGraph(filePath);
                             int docNr = tg.getGraphDocNr();
@@ -2854,7 +3222,7 @@ public class ApplicationManager extends JPanel implements Serializable
                             {
                                 if (suffix.endsWith("arcs"))
                                 {
-                                    infoArcMap = io.readMap(filePath);
+                                    infoArcMap = io.readArcsMap(filePath);
                                 } // Reads the associations map.
                                 else
                                 {
@@ -3038,6 +3406,10 @@ public class ApplicationManager extends JPanel implements Serializable
                     // explicitly removed.
                     lt = gb.getLabelTable();
                     io.writeThisObject(ltName, lt);
+                    // Writes the labels to the memory-mapped dictionary used by
+                    // the queries.
+                    LabelDictionary.save(new File(getWorkPath() + separator 
+                            + "AllLabels.dict"), lt);
                     gb.release(lt);
                     // Writes the VerticesTable. The vertices in the NetworkBuilder 
                     // are explicitly removed.
@@ -3118,6 +3490,8 @@ public class ApplicationManager extends JPanel implements Serializable
                     lkt = new LinkTable(vt, at, dt);
                     // Calculates the info values of all the token-types.
                     InfoValueCalculator ivc = new InfoValueCalculator(tc);
+                    if (infoCollections != null) 
+                        ivc.setIncremental(infoCollections);
                     ivc.computeVertexInfoValue();
                     ct = ivc.getCollectionTable();
                     // Disposes of the TokenCount table after info calculation.
@@ -3257,9 +3631,9 @@ public class ApplicationManager extends JPanel implements Serializable
                     {
                         vt = io.readVTable(getWorkPath() + separator + scope
                                 + "_Vertices.vrtx");
-                        infoArcMap = io.readMap(getWorkPath() + separator + scope
+                        infoArcMap = io.readArcsMap(getWorkPath() + separator + scope
                                 + "_InfoArc.arcs");
-                        arcsMap = io.readMap(getWorkPath() + separator + scope
+                        arcsMap = io.readArcsMap(getWorkPath() + separator + scope
                                 + "_FullArc.alls");
                     } catch (Exception e)
                     {
@@ -3504,9 +3878,9 @@ public class ApplicationManager extends JPanel implements Serializable
                         }             
                         vt = io.readVTable(getWorkPath() + separator + scope
                                 + "_Vertices.vrtx");
-                        infoArcMap = io.readMap(getWorkPath() + separator + scope
+                        infoArcMap = io.readArcsMap(getWorkPath() + separator + scope
                                 + "_InfoArc.arcs");
-                        arcsMap = io.readMap(getWorkPath() + separator + scope
+                        arcsMap = io.readArcsMap(getWorkPath() + separator + scope
                                 + "_FullArc.alls");
                         
                         if (vt == null || vt.isEmpty() || infoArcMap == null 
@@ -3894,6 +4268,33 @@ public class ApplicationManager extends JPanel implements Serializable
         graphPath = pathToGraph.toString();
     }
 
+    /**
+     * getGraphPathOf: Getter returns the path of the TextGraph directory of
+     * the data store with this tokenized data directory, the pair that the
+     * Build Network task uses.
+     *
+     * @param dataPath : the path of a tokenized data (*.tok) directory.
+     * @return the path of the TextGraph directory (String), the current one
+     * when the data directory belongs to no data store.
+     */
+    public static String getGraphPathOf(String dataPath)
+    {
+        String dataStoreName = new File(dataPath).getName();
+        Iterator store_itr = dataFileList.iterator();
+        while (store_itr.hasNext())
+        {
+            String[] store = (String[]) store_itr.next();
+            if (store[2].equals(dataStoreName))
+            {
+                File pathToGraph = new File(dir + workFiles + separator
+                        + communityName + separator + store[3] + separator);
+                pathToGraph.mkdir();
+                return pathToGraph.toString();
+            }
+        }
+        return graphPath;
+    }
+
     /**
      * resetProgressText: Resets the text previously in the progressLabel.
      */
@@ -3908,7 +4309,7 @@ public class ApplicationManager extends JPanel implements Serializable
      * @param text : to print in the message panel (String).
      * @param tab : the index of the tabbedPane where this text should go (int).
      */
-    public static void showText(String text, int tab)
+    public static synchronized void showText(String text, int tab)
     {
         try
         {
@@ -3925,7 +4326,7 @@ public class ApplicationManager extends JPanel implements Serializable
     /**
      * clearText: Empties the myText String for the showText method.
      */
-    public static void clearText()
+    public static synchronized void clearText()
     {     
        myText = "";    
     }
@@ -4055,6 +4456,30 @@ public class ApplicationManager extends JPanel implements Serializable
         return lt;
     }
 
+    /**
+     * getLabelDictionary: Getter returns the memory-mapped label dictionary of
+     * the work directory. The dictionary is opened again when the file changed
+     * or a new generation was written since the last call; it is made from the
+     * LabelTable when a network built by an earlier version has no dictionary
+     * yet.
+     *
+     * @return the LabelDictionary
+     * @throws Exception when the labels cannot be read
+     */
+    public static synchronized LabelDictionary getLabelDictionary() 
+            throws Exception
+    {
+        File dictFile = new File(getWorkPath() + separator + "AllLabels.dict");
+        if (ld != null && ld.isCurrent(dictFile)) return ld;
+        if (!LabelDictionary.current(dictFile).isFile())
+        {
+            LabelDictionary.save(dictFile, io.readLTable(getWorkPath() 
+                    + separator + "AllLabels.lbls"));
+        }
+        ld = LabelDictionary.open(LabelDictionary.current(dictFile));
+        return ld;
+    }
+
     /**
      * getLinkTable: Getter returns a LinkTable instance to allow the counting
      * of the links of a vertex by the InfoValueCalculator.
@@ -4077,6 +4502,33 @@ public class ApplicationManager extends JPanel implements Serializable
         return unusedList;
     }
 
+    /**
+     * setInfoCollections: Sets the collections and text graphs of an 
+     * incremental Compute Info-value: the collections in the scope that got
+     * new documents since the sums per vertex were kept, and their text 
+     * graphs. Both are null in a full run.
+     */
+    private void setInfoCollections()
+    {
+        infoCollections = null;
+        infoGraphFiles = null;
+        if (!getIncrementalStatus()) return;
+        infoCollections = ct.getChangedCollectionKeys();
+        infoGraphFiles = new HashSet();
+        Iterator coll_itr = infoCollections.iterator();
+        while (coll_itr.hasNext())
+        {
+            int[] docNrs = ct.getDocNrArray(coll_itr.next().toString());
+            for (int i = 0; i < docNrs.length; i++)
+            {
+                infoGraphFiles.add(dt.getFilename(docNrs[i]) + ".tgr");
+            }
+        }
+        showText("* Incremental: " + infoCollections.size() + " of " 
+                + ct.getScopeCollectionKeys().size() + " collections "
+                + "computed *", 0);
+    }
+
     /**
      * getTextGraphName: Constructs a filename and filepath for a text graph.
      *
@@ -4405,6 +4857,24 @@ public class ApplicationManager extends JPanel implements Serializable
         return Integer.parseInt(coreNumber.getText());
     }
 
+    /**
+     * getWorkerNumber: The number of worker threads used by the Preprocess,
+     * Build Network and Compute Info-value tasks.
+     *
+     * @return the number of worker threads (int) as set by the user in the
+     * parameter settings, '1' when the setting is not a valid number.
+     */
+    public static int getWorkerNumber()
+    {
+        try
+        {
+            return Math.max(1, Integer.parseInt(workerNumber.getText().trim()));
+        } catch (NumberFormatException e)
+        {
+            return 1;
+        }
+    }
+
     /**
      * getCommunity: Getter returns the community name.
      *
@@ -4538,6 +5008,117 @@ public class ApplicationManager extends JPanel implements Serializable
         return showAssocBx.isSelected();
     }
 
+    /**
+     * getStreamingStatus: Returns status of the user selection 'Streaming
+     * parser'. If 'true' the Preprocess task streams the parsed text into the
+     * Tokenizer instead of building the whole document text first. Default is
+     * 'false'.
+     *
+     * @return true or false
+     */
+    public static boolean getStreamingStatus()
+    {
+        return streamingBx.isSelected();
+    }
+
+    /**
+     * getFastTokenizerStatus: Returns status of the user selection 'Fast
+     * tokenizer'. If 'true' the Tokenizer finds the word boundaries with its
+     * fast scanner instead of the BreakIterator. Default is 'false'.
+     *
+     * @return true or false
+     */
+    public static boolean getFastTokenizerStatus()
+    {
+        return fastTokBx.isSelected();
+    }
+
+    /**
+     * getFixedIdsStatus: Returns status of the user selection 'Fixed ids'. If
+     * 'true' a Build Network task with several worker threads gives the labels
+     * the same indices as a build with one thread. Default is 'true'.
+     *
+     * @return true or false
+     */
+    public static boolean getFixedIdsStatus()
+    {
+        return fixedIdsBx.isSelected();
+    }
+
+    /**
+     * getExactSumsStatus: Returns status of the user selection 'Exact sums'.
+     * If 'true' a Compute Info-value task with several worker threads adds 
+     * the info values of a collection in the order of a run with one thread,
+     * giving the same cutOff values to the last bit. Default is 'false'.
+     *
+     * @return true or false
+     */
+    public static boolean getExactSumsStatus()
+    {
+        return exactSumsBx.isSelected();
+    }
+
+    /**
+     * getIncrementalStatus: Returns status of the user selection 'Incremental'.
+     * If 'true' the Preprocess task keeps the files of the previous run and
+     * only parses the new and changed source files, the Compute Info-value 
+     * task only computes the collections that got new documents. Default is
+     * 'false'.
+     *
+     * @return true or false
+     */
+    public static boolean getIncrementalStatus()
+    {
+        return incrementalBx.isSelected();
+    }
+
+    /**
+     * getFusedStatus: Returns status of the user selection 'Fused network'. If
+     * 'true' the Preprocess task also builds the network and writes the text
+     * graphs; the tokenized files are skipped unless 'Keep *.tok' is selected.
+     * Default is 'false'.
+     *
+     * @return true or false
+     */
+    public static boolean getFusedStatus()
+    {
+        return fusedBx.isSelected();
+    }
+
+    /**
+     * getKeepTokStatus: Returns status of the user selection 'Keep *.tok'. If
+     * 'true' the fused mode writes the tokenized files as well. Default is
+     * 'false'.
+     *
+     * @return true or false
+     */
+    public static boolean getKeepTokStatus()
+    {
+        return keepTokBx.isSelected();
+    }
+
+    /**
+     * getOffHeapStatus: Returns status of the user selection 'Off-heap arcs'.
+     * If 'true' the tasks that read all text graphs keep their arcs in an
+     * OffHeapArcStore, in columns outside the Java heap. Default is 'false'.
+     *
+     * @return true or false
+     */
+    public static boolean getOffHeapStatus()
+    {
+        return offHeapBx.isSelected();
+    }
+
+    /**
+     * getNetworkFeeder: Returns the NetworkFeeder of a fused Preprocess task.
+     *
+     * @return the NetworkFeeder, null when the fused mode is not running.
+     */
+    public static NetworkFeeder getNetworkFeeder()
+    {
+        return networkFeeder;
+    }
+
     /**
      * getShowLinksStatus: Returns status of the user selection 'Show Links'. If
      * 'true' the incoming and outgoing links are shown. Default is 'false'.
@@ -4737,7 +5318,7 @@ public class ApplicationManager extends JPanel implements Serializable
         // Central repository for all the labels used in this dataGraph with 
         // an id (integer) and the name (string) of every token-type encountered
         // in the corpus in view.
-        LabelTable labels = new LabelTable();
+        LabelDictionary labels = null;
         // Counters
         int zeroLabel = 0;
         int tokenCount = 0;
@@ -4766,7 +5347,7 @@ public class ApplicationManager extends JPanel implements Serializable
         // Comparing the words used in this session with the common word list.
         try
         {
-            labels = io.readLTable(getWorkPath() + separator + "AllLabels.lbls");
+            labels = getLabelDictionary();
         } catch (IOException ex)
         {
             ex.printStackTrace(System.err);
@@ -4992,6 +5573,7 @@ public class ApplicationManager extends JPanel implements Serializable
     private final JTextField lookUpQuery;
     private final JTextField lookUpAnswer;
     private static JTextField coreNumber;
+    private static JTextField workerNumber;
     private final ButtonGroup retrieveGroup;
     private static JRadioButton middleRB;
     private static JRadioButton lowRB;
@@ -4999,6 +5581,14 @@ public class ApplicationManager extends JPanel implements Serializable
     private static JRadioButton highRB;
     private final JCheckBox allDateBx;
     private static JCheckBox showLinkBx;
+    private static JCheckBox streamingBx;
+    private static JCheckBox fusedBx;
+    private static JCheckBox incrementalBx;
+    private static JCheckBox keepTokBx;
+    private static JCheckBox offHeapBx;
+    private static JCheckBox fastTokBx;
+    private static JCheckBox fixedIdsBx;
+    private static JCheckBox exactSumsBx;
     private static JCheckBox showAssocBx;
     private static JCheckBox showAssocCountBx;
     private static JCheckBox showInfoTBx;
@@ -5032,6 +5622,15 @@ public class ApplicationManager extends JPanel implements Serializable
     private final JLabel queryLabel;
     private final JLabel answerLabel;
     private final JLabel coreLabel;
+    private final JLabel workerLabel;
+    private final JLabel streamingLabel;
+    private final JLabel fusedLabel;
+    private final JLabel incrementalLabel;
+    private final JLabel keepTokLabel;
+    private final JLabel offHeapLabel;
+    private final JLabel fastTokLabel;
+    private final JLabel fixedIdsLabel;
+    private final JLabel exactSumsLabel;
     private final JLabel baseLineLbl;
     private final JButton cancelBtn;
     private final JButton startBtn;
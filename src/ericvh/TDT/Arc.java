@@ -14,6 +14,9 @@ import java.io.Serializable;
  */
 public class Arc implements Serializable
 {
+    // Fixed to the value of the earlier versions: the arcs saved by them stay
+    // readable.
+    private static final long serialVersionUID = -6744566279467686151L;
     private int mVertex1Idx;    // First vertex (point) left of the arc 
     //(directed link or line).
     private int mVertex2Idx;    // Second vertex (point) to the right of the arc.
@@ -59,11 +62,11 @@ public class Arc implements Serializable
     }
     
     /** getArcId: Getter returns the key of this arc.
-     * @return the key identifying this arc (String).
+     * @return the key identifying this arc (long), see ArcKey.
      */
-    public String getArcId()
+    public long getArcId()
     {
-        return getVertex1Index() + "*" + getVertex2Index();
+        return ArcKey.makeKey(mVertex1Idx, mVertex2Idx);
     }
     
     /** getArcDocNr: Getter returns the unique document number of this arc.
@@ -0,0 +1,353 @@
+package ericvh.TDT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/** Class ArcIndex holds the arcs of one document sorted on their position in
+ * the text, with the position, the vertex-ids and the weight of every arc in
+ * parallel arrays, and an index from a vertex-id to the arcs it is part of.
+ * An arc is found on its position by a binary search. The
+ * index keeps the ordinals (places in the sorted arcs) per vertex in two
+ * compressed lists: the arcs with the vertex at the first (left) position and
+ * the arcs with the vertex at the second (right) position. The ordinals of a
+ * vertex are in ascending order, so the arcs come in the order of the text.
+ * An arc is found on its key through the arcs of its first vertex.
+ * The index is made by the ArcsTable when a document is asked for, or by an
+ * OffHeapArcStore from its columns, and is not changed afterwards; the
+ * ArcsTable drops it when an arc of the document is removed or its weight is
+ * adjusted. The index remembers the map or store its arcs came from with its
+ * change count, so the ArcsTable also makes it again after other changes.
+ */
+public class ArcIndex
+{
+    // The arcs sorted on position.
+    private final Arc[] mArcs;
+    // Position, vertex-ids and weight of the arcs, parallel to mArcs.
+    private final int[] mPositions;
+    private final int[] mVertex1;
+    private final int[] mVertex2;
+    private final double[] mWeights;
+    // Sorted vertex-ids of the document.
+    private final int[] mVertices;
+    // Ordinals of the arcs with vertex mVertices[i] at the first position,
+    // from mFirstStart[i] up to mFirstStart[i + 1].
+    private final int[] mFirstStart;
+    private final int[] mFirstOrdinals;
+    // Ordinals of the arcs with the vertex at the second position.
+    private final int[] mSecondStart;
+    private final int[] mSecondOrdinals;
+    // The map or store the arcs were read from and its change at that time.
+    private Object mSource;
+    private long mChange;
+
+    /** Constructor
+     * Sorts the arcs of a document and indexes their vertices.
+     * @param arcMap : the arcs of the document with their arc key
+     * (LongHashMap)
+     */
+    public ArcIndex(LongHashMap arcMap)
+    {
+        this(sortArcs(arcMap));
+    }
+
+    /** Constructor
+     * Indexes the vertices of arcs that are sorted on their position.
+     * @param arcs : the arcs of the document in the order of the text (Arc[])
+     */
+    ArcIndex(Arc[] arcs)
+    {
+        mArcs = arcs;
+        mPositions = new int[mArcs.length];
+        mVertex1 = new int[mArcs.length];
+        mVertex2 = new int[mArcs.length];
+        mWeights = new double[mArcs.length];
+        // Vertex-ids of every arc, left and right.
+        int[] vertices = new int[2 * mArcs.length];
+        for (int a = 0; a < mArcs.length; a++)
+        {
+            mPositions[a] = mArcs[a].getArcPosition();
+            mVertex1[a] = mArcs[a].getVertex1Index();
+            mVertex2[a] = mArcs[a].getVertex2Index();
+            mWeights[a] = mArcs[a].getArcWeight();
+            vertices[2 * a] = mVertex1[a];
+            vertices[2 * a + 1] = mVertex2[a];
+        }
+        Arrays.sort(vertices);
+        int distinct = 0;
+        for (int i = 0; i < vertices.length; i++)
+        {
+            if (i == 0 || vertices[i] != vertices[i - 1])
+            {
+                vertices[distinct++] = vertices[i];
+            }
+        }
+        mVertices = Arrays.copyOf(vertices, distinct);
+        mFirstStart = new int[distinct + 1];
+        mSecondStart = new int[distinct + 1];
+        mFirstOrdinals = new int[mArcs.length];
+        mSecondOrdinals = new int[mArcs.length];
+        // Counts the arcs per vertex, then places the ordinals in the order
+        // of the arcs.
+        int[] first = new int[mArcs.length];
+        int[] second = new int[mArcs.length];
+        for (int a = 0; a < mArcs.length; a++)
+        {
+            first[a] = Arrays.binarySearch(mVertices, mVertex1[a]);
+            second[a] = Arrays.binarySearch(mVertices, mVertex2[a]);
+            mFirstStart[first[a] + 1]++;
+            mSecondStart[second[a] + 1]++;
+        }
+        for (int v = 0; v < distinct; v++)
+        {
+            mFirstStart[v + 1] += mFirstStart[v];
+            mSecondStart[v + 1] += mSecondStart[v];
+        }
+        int[] firstFill = Arrays.copyOf(mFirstStart, distinct);
+        int[] secondFill = Arrays.copyOf(mSecondStart, distinct);
+        for (int a = 0; a < mArcs.length; a++)
+        {
+            mFirstOrdinals[firstFill[first[a]]++] = a;
+            mSecondOrdinals[secondFill[second[a]]++] = a;
+        }
+    }
+
+    /** sortArcs: Returns the arcs of a map sorted on their position.
+     * @param arcMap : the arcs of the document with their arc key
+     * (LongHashMap)
+     * @return the arcs in the order of the text (Arc[])
+     */
+    private static Arc[] sortArcs(LongHashMap arcMap)
+    {
+        List arcs = ArcsTable.sortArcsOnPosition(arcMap.values());
+        return (Arc[]) arcs.toArray(new Arc[arcs.size()]);
+    }
+
+    /** size: Returns the number of arcs in the index.
+     * @return the number of arcs (int)
+     */
+    public int size()
+    {
+        return mArcs.length;
+    }
+
+    /** getArc: Getter returns the arc at this place in the order of the text.
+     * @param ordinal : the place of the arc (int)
+     * @return the arc (Arc)
+     */
+    public Arc getArc(int ordinal)
+    {
+        return mArcs[ordinal];
+    }
+
+    /** getPosition: Getter returns the position in the text of the arc at this
+     * place.
+     * @param ordinal : the place of the arc (int)
+     * @return the position (int)
+     */
+    public int getPosition(int ordinal)
+    {
+        return mPositions[ordinal];
+    }
+
+    /** getVertex1: Getter returns the first (left) vertex-id of the arc at
+     * this place.
+     * @param ordinal : the place of the arc (int)
+     * @return the vertex-id (int)
+     */
+    public int getVertex1(int ordinal)
+    {
+        return mVertex1[ordinal];
+    }
+
+    /** getVertex2: Getter returns the second (right) vertex-id of the arc at
+     * this place.
+     * @param ordinal : the place of the arc (int)
+     * @return the vertex-id (int)
+     */
+    public int getVertex2(int ordinal)
+    {
+        return mVertex2[ordinal];
+    }
+
+    /** getWeight: Getter returns the weight of the arc at this place when the
+     * index was made.
+     * @param ordinal : the place of the arc (int)
+     * @return the weight (double)
+     */
+    public double getWeight(int ordinal)
+    {
+        return mWeights[ordinal];
+    }
+
+    /** indexOfPosition: Returns the place of the arc on this position in the
+     * text, by a binary search.
+     * @param position : location in the text (int)
+     * @return the place of the arc (int) or -1 if no arc is on the position.
+     */
+    public int indexOfPosition(int position)
+    {
+        int ordinal = Arrays.binarySearch(mPositions, position);
+        return ordinal < 0 ? -1 : ordinal;
+    }
+
+    /** getArcOnPosition: Getter returns the arc on this position in the text.
+     * @param position : location in the text (int)
+     * @return the arc (Arc) or null if no arc is on the position.
+     */
+    public Arc getArcOnPosition(int position)
+    {
+        int ordinal = indexOfPosition(position);
+        return ordinal < 0 ? null : mArcs[ordinal];
+    }
+
+    /** getArcs: Returns all arcs in the order of the text.
+     * @return ArrayList with the arcs (Arc).
+     */
+    public List getArcs()
+    {
+        return new ArrayList(Arrays.asList(mArcs));
+    }
+
+    /** getFirstArc: Getter returns the first arc in the text with this vertex
+     * at its first (left) position.
+     * @param vrtxIdx : the vertex-id (int)
+     * @return the arc (Arc) or null if the vertex is never at the left.
+     */
+    public Arc getFirstArc(int vrtxIdx)
+    {
+        int v = Arrays.binarySearch(mVertices, vrtxIdx);
+        if (v < 0 || mFirstStart[v] == mFirstStart[v + 1]) return null;
+        return mArcs[mFirstOrdinals[mFirstStart[v]]];
+    }
+
+    /** getArcWithKey: Getter returns the arc with this key: the arc from the
+     * first to the second vertex of the key.
+     * @param arcKey : the arc key (long)
+     * @return the arc (Arc) or null if the arc is not in the document.
+     */
+    public Arc getArcWithKey(long arcKey)
+    {
+        int v = Arrays.binarySearch(mVertices, ArcKey.getVertex1(arcKey));
+        if (v < 0) return null;
+        int vertex2 = ArcKey.getVertex2(arcKey);
+        for (int i = mFirstStart[v]; i < mFirstStart[v + 1]; i++)
+        {
+            if (mVertex2[mFirstOrdinals[i]] == vertex2)
+            {
+                return mArcs[mFirstOrdinals[i]];
+            }
+        }
+        return null;
+    }
+
+    /** addArcsWithVertex: Adds the arcs with this vertex at one or both
+     * positions to a list, in the order of the text. An arc with the vertex
+     * on both sides is added once.
+     * @param vrtxIdx : the vertex-id (int)
+     * @param arcList : receives the arcs (List)
+     */
+    public void addArcsWithVertex(int vrtxIdx, List arcList)
+    {
+        int[] ordinals = getOrdinals(vrtxIdx, vrtxIdx);
+        for (int i = 0; i < ordinals.length; i++) arcList.add(mArcs[ordinals[i]]);
+    }
+
+    /** getArcsWithVertices: Returns the arcs with one or both of these
+     * vertices, in the order of the text. Every arc is in the list once.
+     * @param vrtxIdx1 : the first vertex-id (int)
+     * @param vrtxIdx2 : the second vertex-id (int)
+     * @return ArrayList with the arcs (Arc).
+     */
+    public List getArcsWithVertices(int vrtxIdx1, int vrtxIdx2)
+    {
+        int[] ordinals = getOrdinals(vrtxIdx1, vrtxIdx2);
+        List arcList = new ArrayList(ordinals.length);
+        for (int i = 0; i < ordinals.length; i++) arcList.add(mArcs[ordinals[i]]);
+        return arcList;
+    }
+
+    /** getOrdinals: Returns the sorted ordinals of the arcs with one or both
+     * of these vertices at either position, without doubles.
+     * @param vrtxIdx1 : the first vertex-id (int)
+     * @param vrtxIdx2 : the second vertex-id (int)
+     * @return the ordinals (int[])
+     */
+    private int[] getOrdinals(int vrtxIdx1, int vrtxIdx2)
+    {
+        int v1 = Arrays.binarySearch(mVertices, vrtxIdx1);
+        int v2 = vrtxIdx2 == vrtxIdx1 ? -1 
+                : Arrays.binarySearch(mVertices, vrtxIdx2);
+        int size = 0;
+        if (v1 >= 0) size += mFirstStart[v1 + 1] - mFirstStart[v1]
+                + mSecondStart[v1 + 1] - mSecondStart[v1];
+        if (v2 >= 0) size += mFirstStart[v2 + 1] - mFirstStart[v2]
+                + mSecondStart[v2 + 1] - mSecondStart[v2];
+        int[] ordinals = new int[size];
+        int n = 0;
+        if (v1 >= 0) n = copyOrdinals(v1, ordinals, n);
+        if (v2 >= 0) n = copyOrdinals(v2, ordinals, n);
+        Arrays.sort(ordinals);
+        int distinct = 0;
+        for (int i = 0; i < n; i++)
+        {
+            if (i == 0 || ordinals[i] != ordinals[i - 1])
+            {
+                ordinals[distinct++] = ordinals[i];
+            }
+        }
+        return distinct == n ? ordinals : Arrays.copyOf(ordinals, distinct);
+    }
+
+    /** copyOrdinals: Copies the first and second position ordinals of a
+     * vertex.
+     * @param v : the place of the vertex in mVertices (int)
+     * @param ordinals : receives the ordinals (int[])
+     * @param n : the first free place in ordinals (int)
+     * @return the next free place (int)
+     */
+    private int copyOrdinals(int v, int[] ordinals, int n)
+    {
+        int first = mFirstStart[v + 1] - mFirstStart[v];
+        System.arraycopy(mFirstOrdinals, mFirstStart[v], ordinals, n, first);
+        int second = mSecondStart[v + 1] - mSecondStart[v];
+        System.arraycopy(mSecondOrdinals, mSecondStart[v], ordinals, n + first,
+                second);
+        return n + first + second;
+    }
+
+    /** setSource: Remembers the map or store the arcs were read from and its
+     * change count at that time.
+     * @param source : the arcs map of the document or the store (Object)
+     * @param change : the change count of the source (long)
+     */
+    void setSource(Object source, long change)
+    {
+        mSource = source;
+        mChange = change;
+    }
+
+    /** isCurrent: Returns 'true' if the arcs were read from this map or store
+     * and it did not change since.
+     * @param source : the arcs map of the document or the store (Object)
+     * @param change : the change count of the source now (long)
+     * @return boolean 'true' if the index is current.
+     */
+    boolean isCurrent(Object source, long change)
+    {
+        return source != null && source == mSource && change == mChange;
+    }
+
+    /** getMemorySize: Returns an estimate of the bytes used by the index,
+     * not counting the arcs themselves.
+     * @return the number of bytes (long)
+     */
+    public long getMemorySize()
+    {
+        return 10 * 16L + 16L * mArcs.length + 4L * (mVertices.length
+                + mFirstStart.length + mSecondStart.length
+                + mFirstOrdinals.length + mSecondOrdinals.length
+                + mPositions.length + mVertex1.length + mVertex2.length);
+    }
+}
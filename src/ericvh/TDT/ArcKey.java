@@ -0,0 +1,113 @@
+package ericvh.TDT;
+
+import java.util.Iterator;
+import java.util.Map;
+
+
+/** Class ArcKey makes the key identifying an arc by its two vertices. The
+ * vertex-id to the left of the arc goes in the high 32 bits of a long, the
+ * vertex-id to the right in the low 32 bits. The key is used by the
+ * LongHashMap holding the arcs of a document.
+ * Arc keys written by earlier versions are Strings "v1*v2". They are turned
+ * into a long key by valueOf when a key set or an arc map is read back; the
+ * String form of a key is only made again for display.
+ */
+public final class ArcKey
+{
+    /** Constructor, no instances.
+     */
+    private ArcKey()
+    { }
+
+    /** makeKey: Returns the key of the arc between these two vertices.
+     * @param vrtxIndx1 : first (left) point of the arc (int)
+     * @param vrtxIndx2 : second (right) point of the arc (int)
+     * @return the arc key (long)
+     */
+    public static long makeKey(int vrtxIndx1, int vrtxIndx2)
+    {
+        return ((long) vrtxIndx1 << 32) | (vrtxIndx2 & 0xFFFFFFFFL);
+    }
+
+    /** getVertex1: Getter returns the first (left) vertex-id of an arc key.
+     * @param arcKey : the arc key (long)
+     * @return the vertex-id (int)
+     */
+    public static int getVertex1(long arcKey)
+    {
+        return (int) (arcKey >>> 32);
+    }
+
+    /** getVertex2: Getter returns the second (right) vertex-id of an arc key.
+     * @param arcKey : the arc key (long)
+     * @return the vertex-id (int)
+     */
+    public static int getVertex2(long arcKey)
+    {
+        return (int) arcKey;
+    }
+
+    /** valueOf: Returns the key held by an element of a key set or a map: a
+     * Long, or a String "v1*v2" written by an earlier version.
+     * @param key : the arc key (Long or String)
+     * @return the arc key (long)
+     */
+    public static long valueOf(Object key)
+    {
+        if (key instanceof Long) return ((Long) key);
+        String arcKey = key.toString();
+        int star = arcKey.indexOf('*');
+        return makeKey(Integer.parseInt(arcKey.substring(0, star)),
+                Integer.parseInt(arcKey.substring(star + 1)));
+    }
+
+    /** toString: Returns the key in the "v1*v2" notation of the arc keys.
+     * @param arcKey : the arc key (long)
+     * @return the arc key as a String
+     */
+    public static String toString(long arcKey)
+    {
+        return getVertex1(arcKey) + "*" + getVertex2(arcKey);
+    }
+
+    /** toArcMaps: Makes every arc map in a map with the arcs per document a
+     * LongHashMap. The arc maps with String keys of an earlier version are
+     * converted in place, the others are kept.
+     * @param arcsMap : doc-id (Integer) as key and an arc map as value (Map)
+     * @return the same map, with a LongHashMap as value.
+     */
+    public static Map toArcMaps(Map arcsMap)
+    {
+        if (arcsMap == null) return null;
+        // The arcs outside the heap are stored in LongHashMaps already.
+        if (arcsMap instanceof OffHeapArcStore) return arcsMap;
+        Iterator doc_itr = arcsMap.entrySet().iterator();
+        while (doc_itr.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) doc_itr.next();
+            if (!(entry.getValue() instanceof LongHashMap))
+            {
+                entry.setValue(toArcMap(entry.getValue()));
+            }
+        }
+        return arcsMap;
+    }
+
+    /** toArcMap: Returns the arcs of one document in a LongHashMap.
+     * @param arcs : a LongHashMap, or a Map with String keys (Object)
+     * @return LongHashMap with the arc key as key and the arc (Arc) as value.
+     */
+    public static LongHashMap toArcMap(Object arcs)
+    {
+        if (arcs instanceof LongHashMap) return (LongHashMap) arcs;
+        Map legacy = (Map) arcs;
+        LongHashMap arcMap = new LongHashMap(legacy.size());
+        Iterator arc_itr = legacy.entrySet().iterator();
+        while (arc_itr.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) arc_itr.next();
+            arcMap.put(valueOf(entry.getKey()), entry.getValue());
+        }
+        return arcMap;
+    }
+}
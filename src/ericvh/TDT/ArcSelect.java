@@ -6,7 +6,6 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -46,7 +45,7 @@ public class ArcSelect
      * lengths. Vertices are sent along aswell.
      * @param docInt : identification (Integer) from the document in view.
      * @return Array with two sets: one with a counted number of valuable 
-     * arc keys (String) and a second with the vertices (Integer) from the 
+     * arc keys (Long) and a second with the vertices (Integer) from the 
      * arcs from the second document.
      */
     public Object[] selectArcs( Integer docInt)
@@ -74,11 +73,9 @@ public class ArcSelect
         Set queryVertices = getQueryVertices();
         SortedSet docVertices = new TreeSet();
         Object[] arcsAndVertices = new Object[2];
-        // Location of the arcs in a document.
-        SortedMap positionMap = getInfoArcTable().getArcPositions(docInt);
         // All the arcs in this document.
-        Map thisArcMap = (HashMap) getAllArcMap().get(docInt);
-        Set arcs = new HashSet(thisArcMap.keySet());
+        LongHashMap thisArcMap = (LongHashMap) getAllArcMap().get(docInt);
+        Set arcs = thisArcMap.keySet();
         // The average informative value of a document.
         int arcCount = arcs.size();
         if(plainDoc) meanValue = (getInfoArcTable()
@@ -87,7 +84,7 @@ public class ArcSelect
         Iterator arc_itr = arcs.iterator();
         while(arc_itr.hasNext())
         {
-            String thisKey = (String) arc_itr.next();
+            Long thisKey = (Long) arc_itr.next();
             boolean keyAdded = false;
             tmpArcSet.add(thisKey);
             tmpVertices = getInfoArcTable().getVertexIds(tmpArcSet, docInt);
@@ -119,15 +116,18 @@ public class ArcSelect
                 int thisPosition = thisArc.getArcPosition();
                 for(int i = 1; i < extraArcs; i++)
                 {
-                    if(positionMap.containsKey(thisPosition - i))
+                    // The arcs at this distance to the left and the right.
+                    Arc leftArc = getInfoArcTable().getArcOnPosition(docInt, 
+                            thisPosition - i);
+                    if(leftArc != null)
                     {
-                        Arc leftArc = (Arc) positionMap.get(thisPosition - i);
                         newArcSet.add(leftArc.getArcId());
                         totCount++;
                     }
-                    if(positionMap.containsKey(thisPosition + i))
+                    Arc rightArc = getInfoArcTable().getArcOnPosition(docInt, 
+                            thisPosition + i);
+                    if(rightArc != null)
                     {
-                        Arc rightArc = (Arc) positionMap.get(thisPosition + i);
                         newArcSet.add(rightArc.getArcId());
                         totCount++;
                     }
@@ -168,9 +168,9 @@ public class ArcSelect
         mAllArcMap = mInfoArcTable.getFullArcsMap();
     }
     
-    /** getAllArcMap: map with arcs from one document.
-     *  @return map (HashMap) with arcKey (String) as key and arc (Arc) as
-     * value of the document  in view.
+    /** getAllArcMap: map with the arcs of all documents.
+     *  @return map (HashMap) with doc-id (Integer) as key and as value a
+     * LongHashMap with arcKey (long) as key and arc (Arc) as value.
      */
     private Map getAllArcMap()
     {
@@ -208,7 +208,7 @@ public class ArcSelect
     }
     
     /** getConnectedArcs: a set of arcs forming a walk.
-     * @param arcSet Set with Strings
+     * @param arcSet Set with arc keys (Long)
      * @param docInt Integer
      * @param walk the minimum number of connected arcs expected to be 
      * recognized as a walk (int)
@@ -1,33 +1,68 @@
 package ericvh.TDT;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 
 /** Class ArcsTable adds all arcs found in this dataGraph. It can search the 
  * arcsmap with indices, document numbers or vertices. Arcsmap set info weights 
  * on arcs and helps the linkTable in counting incoming and outgoing links to vertices.
+ * The arcs of a document are kept in a LongHashMap with the ArcKey of the arc
+ * as key. Sets of arc keys hold Long values; elements of older sets in the
+ * "v1*v2" String form are read with ArcKey.valueOf.
+ * Searches for the arcs of a vertex or a position in a document, and the arcs
+ * of a document in the order of the text, use an ArcIndex of that
+ * document, made when first asked and again when the arcs map of the 
+ * document, or the store, changed since. The indices are kept while their 
+ * estimated size stays under a sixteenth of the maximum heap; above that the 
+ * least recently used indices are dropped. They are not saved with the table.
+ * The arcs map can be an OffHeapArcStore that keeps the arcs in columns 
+ * outside the heap and makes the arcs of a document when asked; the changes 
+ * of this table are then stored again in the columns. The arcs of such a 
+ * store are then found on their key in the ArcIndex of the document, made 
+ * from the columns, so a lookup does not make the map of the document.
+ * The value of a vertex in a document is read from a VertexWeightTable made
+ * in one pass over all arcs when first asked or when the arc weights are 
+ * adjusted, and dropped when an arc or its weight changes.
+ * A table saved by an earlier version is read with the same serialVersionUID;
+ * its arc maps with String keys are converted when it is read.
  * @author  Eric Van Horenbeeck
  * Created on 16 september 2004, 15:16
  */
 public class ArcsTable implements Serializable
 {
-    // Map with arc index as key and the arc as value.
+    // Map with doc-id (Integer) as key and as value a LongHashMap with the arc 
+    // key (long) and the arc.
     private Map mArcsMap;
+    private static final long serialVersionUID = 3605602361179755831L;
+    // The highest estimated size of all the arc indices together in bytes.
+    private static final long INDEX_BUDGET = Runtime.getRuntime().maxMemory() 
+            / 16;
     // Map with as key: vertex index (Integer) and as value a vertex.
     private final Map mVrtxMap;
+    // The VerticesTable of mVrtxMap, that finds the index of a vertex. It is
+    // not saved: a table that is read gets one on its own mVrtxMap.
+    private transient VerticesTable mVerticesTable;
+    // Map with doc-id (Integer) as key and the ArcIndex of the document as 
+    // value, in the order of their last use.
+    private transient LinkedHashMap mArcIndexMap;
+    // The estimated size of the arc indices in bytes.
+    private transient long mIndexSize;
+    // The weight of every vertex per document, made when first asked.
+    private transient VertexWeightTable mVertexWeights;
     
     /** Constructor.
      * @param vt : an instance of VerticesTable, holding the vertices for the 
@@ -36,72 +71,98 @@ public class ArcsTable implements Serializable
     public ArcsTable(VerticesTable vt)
     {
         mVrtxMap = vt.getFullVerticesMap();
+        mVerticesTable = vt;
     }
     
     /** addFullArcsMap: Adds the full map with all arcs over all documents. 
-     * Key: docNr, value: an arcsMap.
-     * @param am : HashMap with doc-id (Integer) as key and a HashMap as value 
-     * with an arcKey(String) as key and an Arc as value.
+     * Key: docNr, value: an arcsMap. An OffHeapArcStore is used as it is, 
+     * its arcs stay outside the heap.
+     * @param am : HashMap with doc-id (Integer) as key and a LongHashMap as 
+     * value with an arcKey (long) as key and an Arc as value. Arc maps with
+     * String keys of an earlier version are converted.
      */
     public void addFullArcsMap(Map am)
     {
+        dropArcIndex();
+        mVertexWeights = null;
+        if(am instanceof OffHeapArcStore)
+        {
+            mArcsMap = am;
+            return;
+        }
         mArcsMap = new HashMap();
-        mArcsMap.putAll(am);
+        Iterator doc_itr = am.keySet().iterator();
+        while(doc_itr.hasNext())
+        {
+            Object docInt = doc_itr.next();
+            mArcsMap.put(docInt, ArcKey.toArcMap(am.get(docInt)));
+        }
+    }
+    
+    /** readObject: Reads a saved table. The arc maps of an earlier version,
+     * HashMaps with the arc key as a "v1*v2" String, are made LongHashMaps.
+     * @param in : the stream with the table (ObjectInputStream)
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException, 
+            ClassNotFoundException
+    {
+        in.defaultReadObject();
+        mArcsMap = ArcKey.toArcMaps(mArcsMap);
+        mVerticesTable = new VerticesTable(mVrtxMap);
     }
     
-    /** containsArcIndex: Returns true if the arc map contains an element 
-     * identified by this index.
-     * @param arcIdx : the arc index (String).
+    /** containsArcIndex: Returns true if the arc map of a document contains an
+     * element identified by this index.
+     * @param arcIdx : the arc index (long).
      * @return boolean 'true' if map contains this arc.
      */
-    public boolean containsArcIndex(String arcIdx)
+    public boolean containsArcIndex(long arcIdx)
     {
-        return mArcsMap.containsKey(arcIdx);
+        // Arcs outside the heap are found in the columns, without their maps.
+        if(mArcsMap instanceof OffHeapArcStore) 
+            return ((OffHeapArcStore) mArcsMap).containsArc(arcIdx);
+        Iterator doc_itr = mArcsMap.values().iterator();
+        while(doc_itr.hasNext())
+        {
+            if(((LongHashMap) doc_itr.next()).containsKey(arcIdx)) return true;
+        }
+        return false;
     }
     
     /** getArcKey: Returns the key of this arc in this document.
      * @param docNr : the unique document identifier (int).
      * @param arc : Arc being processed.
-     * @return the arc key (String).
+     * @return the arc key (long) or -1 if this arc is not in the document.
      */
-    public String getArcKey(int docNr, Arc arc)
+    public long getArcKey(int docNr, Arc arc)
     {
         Integer docInt = docNr;
-        Arc currentArc;
-        String key = "";
-        Map tmpMap = (HashMap) mArcsMap.get(docInt);
-        Iterator arc_itr = tmpMap.keySet().iterator();
-        search:
-            while(arc_itr.hasNext())
-            {
-            key = arc_itr.next().toString();
-            currentArc = (Arc) mArcsMap.get(key);
-            if(arc.equals(currentArc)) break;
-            else key ="";
-            }
-        return key;
+        long key = arc.getArcId();
+        Arc stored = findArc(docInt, key);
+        if(arc.equals(stored)) return key;
+        // Arcs outside the heap are made again when their document is asked:
+        // the same arc can be another object with the same position.
+        if(mArcsMap instanceof OffHeapArcStore && stored != null 
+                && stored.getArcPosition() == arc.getArcPosition()) return key;
+        else return -1;
     }
     
     /** getAllArcKeysInDoc: Returns a set with all the arc keys in this document.
      * @param docInt : the unique document identifier (Integer).
-     * @return HashSet with arc keys (String) from this document.
+     * @return HashSet with arc keys (Long) from this document.
      */
     public Set getAllArcKeysInDoc(Integer docInt)
     {
-        Set arcKeySet = new HashSet();
-        Map tmpMap = (HashMap) mArcsMap.get(docInt);
-        Iterator arc_itr = tmpMap.keySet().iterator();
-        while(arc_itr.hasNext())
-        {
-            arcKeySet.add(arc_itr.next().toString());
-        }
-        return arcKeySet;
+        LongHashMap tmpMap = (LongHashMap) mArcsMap.get(docInt);
+        return tmpMap.keySet();
     }
     
     /** getArcKeyList: Returns a list with the arc keys associated with these arcs.
      * @param arcs : ArrayList with arcs (Arc).
      * @param docNr : the unique document identifier (int)
-     * @return ArrayList with arc keys (String).
+     * @return ArrayList with arc keys (Long).
      */
     public List getArcKeyList(List arcs, int docNr)
     {
@@ -118,28 +179,59 @@ public class ArcsTable implements Serializable
     /** getArcWithKey: Getter returns the arc identified by this arc-index in 
      * this document.
      * @param docNr : the unique document identifier (int).
-     * @param arcIdx : the arc index (String).
+     * @param arcIdx : the arc index (long).
      * @return an arc (Arc) identified by its index.
      */
-    public Arc getArcWithKey(int docNr, String arcIdx)
+    public Arc getArcWithKey(int docNr, long arcIdx)
     {
         Integer docInt = docNr;
-        Map tmpMap = (HashMap) mArcsMap.get(docInt);
-        return (Arc) tmpMap.get(arcIdx);
+        return findArc(docInt, arcIdx);
+    }
+    
+    /** findArc: Finds the arc with this key in a document: in the arc map of
+     * the document, or for arcs outside the heap in the ArcIndex of the 
+     * document.
+     * @param docInt : the unique document identifier (Integer).
+     * @param arcKey : the arc key (long).
+     * @return the arc (Arc) or null if it is not in the document.
+     */
+    private Arc findArc(Integer docInt, long arcKey)
+    {
+        if(mArcsMap instanceof OffHeapArcStore) 
+            return getArcIndex(docInt).getArcWithKey(arcKey);
+        LongHashMap tmpMap = (LongHashMap) mArcsMap.get(docInt);
+        return (Arc) tmpMap.get(arcKey);
     }
     
     /** getAllArcIndices: Getter of all arc keys in this arcsMap over all
      * documents in every Collection.
-     * @return ArrayList with all the arc keys (String) attributed so far.
+     * @return ArrayList with all the arc keys (Long) attributed so far.
      */
     public List getAllArcIndices()
     {
         List tmpArray = new ArrayList();
+        if(mArcsMap instanceof OffHeapArcStore)
+        {
+            // The keys are made from the vertex columns of every document.
+            Iterator doc_itr = mArcsMap.keySet().iterator();
+            while(doc_itr.hasNext())
+            {
+                Integer docInt = (Integer) doc_itr.next();
+                int[] vertex1 = new int[getArcsCountInDoc(docInt)];
+                int[] vertex2 = new int[vertex1.length];
+                int count = ((OffHeapArcStore) mArcsMap).readColumns(docInt, 
+                        new int[vertex1.length], vertex1, vertex2, 
+                        new double[vertex1.length]);
+                for(int i = 0; i < count; i++) 
+                    tmpArray.add(ArcKey.makeKey(vertex1[i], vertex2[i]));
+            }
+            return tmpArray;
+        }
         Iterator arc_itr = mArcsMap.values().iterator();
         while( arc_itr.hasNext())
         {
-            Map tmpMap = (HashMap) arc_itr.next();
-            tmpArray.addAll(tmpMap.keySet());
+            long[] keys = ((LongHashMap) arc_itr.next()).keys();
+            for(int i = 0; i < keys.length; i++) tmpArray.add(keys[i]);
         }
         return tmpArray;
     }
@@ -157,12 +249,17 @@ public class ArcsTable implements Serializable
      */
     public int getArcsMapSize()
     {
-        return getAllArcIndices().size();
+        if(mArcsMap instanceof OffHeapArcStore)
+            return (int) ((OffHeapArcStore) mArcsMap).getArcCount();
+        int size = 0;
+        Iterator arc_itr = mArcsMap.values().iterator();
+        while(arc_itr.hasNext()) size += ((LongHashMap) arc_itr.next()).size();
+        return size;
     }
     
     /** getFullArcsMap: Getter returns all the arcs in this graph (all documents).
-     * Key: docNr, value: an arcsMap. Structure of the arcsMap: HashMap with 
-     * arc index as key (String) and the arc (Arc) as value.
+     * Key: docNr, value: an arcsMap. Structure of the arcsMap: LongHashMap with 
+     * arc index as key (long) and the arc (Arc) as value.
      * @return HashMap with arcs (directed edges) collected per document.
      */
     public Map getFullArcsMap()
@@ -170,18 +267,6 @@ public class ArcsTable implements Serializable
         return mArcsMap;
     }
     
-    /** makeArcKey: Makes the key of an arc with the indices of the two 
-     * connecting vertices.
-     * @param vrtxIndx1 : first (left) point of the arc (int).
-     * @param vrtxIndx2 : second (right) point of the arc (int).
-     * @return key (String)
-     */
-    private String makeArcKey(int vrtxIndx1, int vrtxIndx2)
-    {
-        String key = vrtxIndx1 + "*" + vrtxIndx2;
-        return key;
-    }
-    
     /** getArc: Getter returns an arc in this graph identified by its vertices 
      * or null.
      * @param docNr : the unique document identifier (int).
@@ -192,24 +277,21 @@ public class ArcsTable implements Serializable
     public Arc getArc(int docNr, int vrtxIndx1, int vrtxIndx2)
     {
         Integer docInt = docNr;
-        String key = makeArcKey(vrtxIndx1, vrtxIndx2);
-        Map tmpMap = (HashMap) mArcsMap.get(docInt);
-        if(tmpMap.containsKey(key)) return ((Arc) tmpMap.get(key));
-        else return null;
+        return findArc(docInt, ArcKey.makeKey(vrtxIndx1, vrtxIndx2));
     }
     
     /** getArcList: Returns a list with arcs from a set with arc keys.
-     * @param arcKeys : set with arc keys (String).
+     * @param arcKeys : set with arc keys (Long).
      * @param docInt : the document-id of the arcs-set (Integer).
      * @return ArrayList with the arcs (Arc) linked to these keys.
      */
     public List getArcList(Set arcKeys, Integer docInt)
     {
         List arcList = new ArrayList();
-        Map arcsMap = (HashMap) mArcsMap.get(docInt);
         // Fills a list with the arcs retrieved by their keys.
         Iterator key_itr = arcKeys.iterator();
-        while(key_itr.hasNext()) arcList.add(arcsMap.get(key_itr.next().toString()));
+        while(key_itr.hasNext()) arcList.add(findArc(docInt, ArcKey.valueOf(
+                key_itr.next())));
         return arcList;
     }
     
@@ -231,48 +313,26 @@ public class ArcsTable implements Serializable
         return a.getVertex2Index();
     }
     
-    /** getLeftArc: Returns the arc that has a vertex with this key at 
-     * its left position.
+    /** getLeftArc: Returns the first arc in the text that has a vertex with 
+     * this key at its left position.
      * @param docNr : the unique document number (int).
      * @param leftKey : the key of a vertex (int).
-     * @return Arc having a vertex with this key at its left position.
+     * @return Arc having a vertex with this key at its left position, or null.
      */
     public Arc getLeftArc(int docNr, int leftKey)
     {
-        Arc thisArc = null;
-        List arcs = getArcsInDoc(mArcsMap, docNr);
-        // Sorts the arcs.
-        List sortedArcs = sortArcsOnPosition(arcs);
-        // Adds the indices to a set, no duplicates here.
-        Iterator arcs_itr = sortedArcs.iterator();
-        search:
-            while (arcs_itr.hasNext())
-            {
-            thisArc = (Arc) arcs_itr.next();
-            if(thisArc.containsIndexFirst(leftKey)) break;
-            }
-        return thisArc;
+        Integer docInt = docNr;
+        return getArcIndex(docInt).getFirstArc(leftKey);
     }
     
-    /** getVertexIndex: Getter returns the index that identifies this vertex.
+    /** getVertexIndex: Getter returns the index that identifies this vertex,
+     * from the reverse map of the VerticesTable.
      * @param v : this vertex (Vertex).
-     * @return the index of this vertex (Integer).
+     * @return the index of this vertex (int) or -1 if it is not in this table.
      */
-    private Integer getVertexIndex(Vertex v)
+    public int getVertexIndex(Vertex v)
     {
-        Integer key = null;
-        Iterator vertx_itr = mVrtxMap.keySet().iterator();
-        search:
-            while(vertx_itr.hasNext())
-            {
-            key = (Integer) vertx_itr.next();
-            if(mVrtxMap.get(key).equals(v))
-            {
-                break;
-            }
-            else key = null;
-            }
-        return key;
+        return mVerticesTable.getVertexId(v);
     }
     
     /** adjustThisArcWeight: The arcWeight of this arc is the average info value
@@ -283,40 +343,49 @@ public class ArcsTable implements Serializable
     public void adjustThisArcWeight(Arc a)
     {
         String collKey = a.getArcCollection();
-        double value1 = 0.0;
-        double value2 = 0.0;
-        Vertex v1;
-        Vertex v2;
-        Integer key1 = getVertex1Key(a);
-        Integer key2 = getVertex2Key(a);
-        if(key1 > 0)
-        {
-            v1 = (Vertex) mVrtxMap.get(key1);
-            value1 = v1.getInfoValue(collKey);
-        }
-        if(key2 > 0)
-        {
-            v2 = (Vertex) mVrtxMap.get(key2);
-            value2 = v2.getInfoValue(collKey);
-        }
+        double value1 = getInfoValue(getVertex1Key(a), collKey);
+        double value2 = getInfoValue(getVertex2Key(a), collKey);
         // The info value of the arc is the sum of the info value of both its 
         // vertices.
         a.addWeight((value1 + value2));
+        // Arcs outside the heap are copies: the new weight is stored again.
+        if(mArcsMap instanceof OffHeapArcStore) 
+            ((OffHeapArcStore) mArcsMap).updateArc(a);
+        mVertexWeights = null;
+        dropArcIndex(a.getArcDocNr());
+    }
+    
+    /** getInfoValue: Getter returns the info value of a vertex in a 
+     * collection, 0 for the vertex-id 0 (dummy).
+     * @param vrtxIdx : the vertex-id (int).
+     * @param collKey : the collection key (String).
+     * @return the info value (double).
+     */
+    private double getInfoValue(int vrtxIdx, String collKey)
+    {
+        if(vrtxIdx <= 0) return 0.0;
+        return ((Vertex) mVrtxMap.get(vrtxIdx)).getInfoValue(collKey);
     }
     
     /** adjustAllArcWeights: Adjusting in one step the weight (info value) of 
      * all the arcs in this graph with the info weight of the two constituting
      * vertices of the arc. Called by the GraphAnalyser after collecting infoArcs.
+     * The arcs outside the heap are adjusted in the columns of each document.
      */
     public void adjustAllArcWeights()
     {
+        if(mArcsMap instanceof OffHeapArcStore)
+        {
+            adjustStoredArcWeights((OffHeapArcStore) mArcsMap);
+            return;
+        }
         Arc currentArc;
         // Iterates over all arcs to adjust their weight
         Iterator arcs_itr = mArcsMap.keySet().iterator();
         while(arcs_itr.hasNext())
         {
             Integer thisDocNr = (Integer) arcs_itr.next();
-            Map tmpMap = (HashMap) mArcsMap.get(thisDocNr);
+            LongHashMap tmpMap = (LongHashMap) mArcsMap.get(thisDocNr);
             Iterator tmpArc_itr = tmpMap.values().iterator();
             while(tmpArc_itr.hasNext())
             {
@@ -324,11 +393,52 @@ public class ArcsTable implements Serializable
                 adjustThisArcWeight(currentArc);
             }
         }
+        // The vertex values follow from the adjusted weights.
+        mVertexWeights = new VertexWeightTable(mArcsMap);
+    }
+    
+    /** adjustStoredArcWeights: Adjusts the weight of all the arcs outside the 
+     * heap as adjustThisArcWeight does, document by document on the columns of
+     * the store, without making the arcs.
+     * @param store : the arcs of this table (OffHeapArcStore).
+     */
+    private void adjustStoredArcWeights(OffHeapArcStore store)
+    {
+        CollectionTable collTable = ApplicationManager.getCollTable();
+        int[] positions = new int[0];
+        int[] vertex1 = positions;
+        int[] vertex2 = positions;
+        double[] weights = new double[0];
+        Iterator doc_itr = store.keySet().iterator();
+        while(doc_itr.hasNext())
+        {
+            Integer docInt = (Integer) doc_itr.next();
+            int count = store.getArcCount(docInt);
+            if(positions.length < count)
+            {
+                positions = new int[count];
+                vertex1 = new int[count];
+                vertex2 = new int[count];
+                weights = new double[count];
+            }
+            store.readColumns(docInt, positions, vertex1, vertex2, weights);
+            String collKey = collTable.getDocsCollectionKey(docInt);
+            // The weights array now receives the info value added to each arc.
+            for(int i = 0; i < count; i++)
+            {
+                weights[i] = getInfoValue(vertex1[i], collKey) 
+                        + getInfoValue(vertex2[i], collKey);
+            }
+            store.addWeights(docInt, weights);
+        }
+        dropArcIndex();
+        // The vertex values follow from the adjusted weights.
+        mVertexWeights = new VertexWeightTable(mArcsMap);
     }
     
     /** summedArcWeights: Returns the summed weight (info value) of the 
      * non-zero arcs from a set of arc keys.
-     * @param arcSet : a set with arc-keys (String) from a document.
+     * @param arcSet : a set with arc-keys (Long) from a document.
      * @param docInt : the document-id of the arcs-set (Integer).
      * @return the summed info value of the non-zero arcs (double).
      */
@@ -338,8 +448,8 @@ public class ArcsTable implements Serializable
         Iterator arc_itr = arcSet.iterator();
         while(arc_itr.hasNext())
         {
-            String arcKey = arc_itr.next().toString();
-            weight += getArcValue(arcKey, docInt);
+            long arcKey = ArcKey.valueOf(arc_itr.next());
+            weight += findArc(docInt, arcKey).getArcWeight();
         }
         return weight;
     }
@@ -363,18 +473,18 @@ public class ArcsTable implements Serializable
     }
     
     /** getArcValue: Returns the value of this arc.
-     * @param arcKey : the key to an arc (String)
+     * @param arcKey : the key to an arc (long)
      * @param docInt : the document-id of the arcs-set (Integer).
      * @return the value associated with this arc (double).
      */
-    public double getArcValue(String arcKey, Integer docInt)
+    public double getArcValue(long arcKey, Integer docInt)
     {
         Arc thisArc = getArcWithKey(docInt, arcKey);
         return thisArc.getArcWeight();
     }
     
     /** getArcListIfContains: Returns list with arc(s) with one or both 
-     * of these vertices in this document.
+     * of these vertices in this document, in the order of the text.
      * @param docNr : the unique document identifier (int).
      * @param v1 : the first vertex (Vertex).
      * @param v2 : the second vertex (Vertex).
@@ -382,22 +492,23 @@ public class ArcsTable implements Serializable
      * vertices as element.
      */
     public List getArcListIfContains(int docNr, Vertex v1, Vertex v2)
+    {
+        return getArcListIfContains(docNr, getVertexIndex(v1), 
+                getVertexIndex(v2));
+    }
+    
+    /** getArcListIfContains: Returns list with arc(s) with one or both 
+     * of these vertex-ids in this document, in the order of the text.
+     * @param docNr : the unique document identifier (int).
+     * @param v1Idx : the first vertex-id (int), -1 for none.
+     * @param v2Idx : the second vertex-id (int), -1 for none.
+     * @return ArrayList with arc(s) (Arc) having one or both of these 
+     * vertices as element.
+     */
+    public List getArcListIfContains(int docNr, int v1Idx, int v2Idx)
     {
         Integer docInt = docNr;
-        int v1Idx = -1;
-        int v2Idx = -1;
-        if(mVrtxMap.containsValue(v1)) v1Idx = getVertexIndex(v1);
-        if(mVrtxMap.containsValue(v2)) v2Idx = getVertexIndex(v2);
-        List arcList = new ArrayList();
-        Map tmpMap = (HashMap) mArcsMap.get(docInt);
-        Iterator arc_itr = tmpMap.values().iterator();
-        while(arc_itr.hasNext())
-        {
-            Arc currentArc = (Arc) arc_itr.next();
-            if(currentArc.containsVertex(v1Idx) || currentArc.containsVertex(v2Idx))
-                arcList.add(currentArc);
-        }
-        return arcList;
+        return getArcIndex(docInt).getArcsWithVertices(v1Idx, v2Idx);
     }
     
     /** containsVertex: Returns 'true' if this infoArcTable contains an 
@@ -410,89 +521,143 @@ public class ArcsTable implements Serializable
         return mVrtxMap.containsKey(vertexKey);
     }
     
-    /** getVertexValue: Returns the infovalue of the first vertex that matches 
-     * this key. Method to be used only in the case of a document retrieval 
-     * where the vertex comes from an external document not seen by this 
-     * application before and a suitable replacement value has to be found.
+    /** getVertexValue: Returns the infovalue of a vertex: the weight of the
+     * first arc in the text of the document with the vertex at one of its 
+     * sides. Without a known document the value comes from the document with 
+     * the lowest number that has the vertex. Method to be used only in the 
+     * case of a document retrieval where the vertex comes from an external 
+     * document not seen by this application before and a suitable replacement
+     * value has to be found.
      * @param vertexKey : the key (Integer) to a vertex.
-     * @param docNr : the unique document identifier (int).
-     * @return informative value of this vertex (double).
+     * @param docNr : the unique document identifier (int), 0 or less when 
+     * unknown.
+     * @return informative value of this vertex (double), 0 if the vertex is 
+     * not in the document.
      */
     public double getVertexValue(Integer vertexKey, int docNr)
     {
-        double value = 0.0;
-        if(containsVertex(vertexKey))
+        if(!containsVertex(vertexKey)) return 0.0;
+        VertexWeightTable weights = getVertexWeights();
+        if(docNr > 0) return weights.getWeight(docNr, vertexKey);
+        return weights.getAnyWeight(vertexKey);
+    }
+    
+    /** getVertexWeights: Getter returns the weights of the vertices per 
+     * document, made from the arcs if needed.
+     * @return the vertex weights (VertexWeightTable).
+     */
+    private synchronized VertexWeightTable getVertexWeights()
+    {
+        if(mVertexWeights == null) 
         {
-            // Searches for a suitable arcKey in the document collection of 
-            // the arcsMap.
-            Iterator doc_itr = mArcsMap.keySet().iterator();
-            search:
-                while(doc_itr.hasNext())
-                {
-                Integer docInt;
-                // Proceeds directly to the right document if the docId is known,
-                // else iterates.
-                if(docNr > 0) docInt = docNr;
-                else docInt = (Integer) doc_itr.next();
-                Map allArcs = (HashMap) mArcsMap.get(docInt);
-                Iterator arc_itr = allArcs.keySet().iterator();
-                while(arc_itr.hasNext())
-                {
-                    String arcKey = arc_itr.next().toString();
-                    // Adapts the arcKey string so that the pattern matcher is 
-                    // sure to find only the full key and not a similar digit 
-                    // sequence inside a larger number.
-                    String arcString = "*" + arcKey  + "*";
-                    // Regex pattern: the key between two nondigit characters.
-                    String key = "\\D" + vertexKey.toString() + "\\D";
-                    Matcher match = Pattern.compile(key).matcher(arcString);
-                    if(match.find())
-                    {
-                        // Retrieves the arc value if this arc contains the 
-                        // target key. The arc value is half the value of its 
-                        // two constituent vertices.
-                        value = getArcValue(arcKey, docInt);
-                        break search;
-                    }
-                }
-                }
+            mVertexWeights = new VertexWeightTable(mArcsMap);
         }
-        return value;
+        return mVertexWeights;
     }
     
-    /** getArcsWithKey: Returns list with arc(s) having this vertex in this document.
+    /** getArcsWithKey: Returns list with arc(s) having this vertex in this 
+     * document, in the order of the text.
      * @param docInt : the unique document identifier (Integer).
-     * @param vKey : the vertex key (int)?
+     * @param vKey : the vertex key (int).
      * @return ArrayList with arc(s) having this vertex.
      */
     public List getArcsWithKey(Integer docInt, int vKey)
     {
         List arcList = new ArrayList();
-        Map tmpMap = (HashMap) mArcsMap.get(docInt);
-        Iterator arc_itr = tmpMap.values().iterator();
-        while(arc_itr.hasNext())
+        getArcIndex(docInt).addArcsWithVertex(vKey, arcList);
+        return arcList;
+    }
+    
+    /** getArcIndex: Getter returns the ArcIndex of this document. The index 
+     * is made when there is none or when its source changed: the arcs map of
+     * the document was replaced or changed (any put or remove, also of an arc
+     * under a key it had), or the store changed the arcs of the document. The
+     * weight of an arc changed on the Arc itself is not seen, it is changed 
+     * with adjustThisArcWeight. The least recently used indices are dropped 
+     * when the indices outgrow their budget. The index holds the arcs of the 
+     * document in the order of the text; for arcs outside the heap it is made
+     * from the columns.
+     * @param docInt : the unique document identifier (Integer).
+     * @return the ArcIndex (ArcIndex) of the document.
+     */
+    public synchronized ArcIndex getArcIndex(Integer docInt)
+    {
+        if(mArcIndexMap == null) mArcIndexMap = new LinkedHashMap(16, 0.75f, 
+                true);
+        ArcIndex index = (ArcIndex) mArcIndexMap.get(docInt);
+        Object source;
+        long change;
+        if(mArcsMap instanceof OffHeapArcStore) 
         {
-            Arc currentArc = (Arc) arc_itr.next();
-            if(currentArc.containsVertex(vKey)) arcList.add(currentArc);
+            source = mArcsMap;
+            change = ((OffHeapArcStore) mArcsMap).getChange(docInt);
         }
-        return arcList;
+        else
+        {
+            source = mArcsMap.get(docInt);
+            change = ((LongHashMap) source).getModCount();
+        }
+        if(index != null && index.isCurrent(source, change)) return index;
+        if(index != null) dropArcIndex(docInt);
+        if(mArcsMap instanceof OffHeapArcStore) 
+            index = ((OffHeapArcStore) mArcsMap).makeArcIndex(docInt);
+        else index = new ArcIndex((LongHashMap) source);
+        index.setSource(source, change);
+        mArcIndexMap.put(docInt, index);
+        mIndexSize += index.getMemorySize();
+        // Drops the least recently used indices, never the new one.
+        Iterator index_itr = mArcIndexMap.values().iterator();
+        while(mIndexSize > INDEX_BUDGET && mArcIndexMap.size() > 1)
+        {
+            mIndexSize -= ((ArcIndex) index_itr.next()).getMemorySize();
+            index_itr.remove();
+        }
+        return index;
+    }
+    
+    /** dropArcIndex: Drops the ArcIndex of this document, if any.
+     * @param docInt : the unique document identifier (Integer).
+     */
+    private synchronized void dropArcIndex(Integer docInt)
+    {
+        if(mArcIndexMap == null) return;
+        ArcIndex index = (ArcIndex) mArcIndexMap.remove(docInt);
+        if(index != null) mIndexSize -= index.getMemorySize();
+    }
+    
+    /** dropArcIndex: Drops the arc indices of all documents, to free memory.
+     * They are made again when asked for.
+     */
+    public synchronized void dropArcIndex()
+    {
+        mArcIndexMap = null;
+        mIndexSize = 0;
+    }
+    
+    /** getArcIndexSize: Getter returns the estimated size of the arc indices 
+     * kept by this table.
+     * @return the number of bytes (long).
+     */
+    public synchronized long getArcIndexSize()
+    {
+        return mIndexSize;
     }
     
     /** getArcPositions: Returns a sorted map with the positions of the arcs 
-     * in this doc.
+     * in this doc. The arcs are also found on their position with 
+     * getArcOnPosition, or in order with the ArcIndex of the document, without
+     * making a map.
      * @param docInt : the unique document identifier (Integer).
      * @return SortedMap with arc position (int) as key and the arc (Arc) as value.
      */
     public SortedMap getArcPositions(Integer docInt)
     {
+        if(!mArcsMap.containsKey(docInt)) return null;
         SortedMap arcPositionMap = new TreeMap();
-        Map tmpMap = (HashMap) mArcsMap.get(docInt);
-        if(tmpMap == null) return null;
-        Iterator arc_itr = tmpMap.values().iterator();
-        while(arc_itr.hasNext())
+        ArcIndex index = getArcIndex(docInt);
+        for(int i = 0; i < index.size(); i++)
         {
-            Arc currentArc = (Arc) arc_itr.next();
-            arcPositionMap.put(currentArc.getArcPosition(), currentArc);
+            arcPositionMap.put(index.getPosition(i), index.getArc(i));
         }
         return arcPositionMap;
     }
@@ -505,14 +670,8 @@ public class ArcsTable implements Serializable
      */
     public Arc getArcOnPosition(Integer docInt, int position)
     {
-        SortedMap arcs = getArcPositions(docInt);
-        Iterator pos_itr = arcs.keySet().iterator();
-        while(pos_itr.hasNext())
-        {
-            int thisPosition = ((Integer) pos_itr.next());
-            if(thisPosition == position) return (Arc) arcs.get(thisPosition);
-        }
-        return null;
+        if(!mArcsMap.containsKey(docInt)) return null;
+        return getArcIndex(docInt).getArcOnPosition(position);
     }
     
     /** removeArc: Removes from this table this arc identified by its key.
@@ -522,9 +681,15 @@ public class ArcsTable implements Serializable
     public void removeArc(int docNr, Arc a)
     {
         Integer docInt = docNr;
-        String key = getArcKey(docNr, a);
-        Map tmpMap = (HashMap) mArcsMap.get(docInt);
-        tmpMap.remove(key);
+        long key = getArcKey(docNr, a);
+        LongHashMap tmpMap = (LongHashMap) mArcsMap.get(docInt);
+        if(key >= 0)
+        {
+            tmpMap.remove(key);
+            if(mArcsMap instanceof OffHeapArcStore) mArcsMap.put(docInt, tmpMap);
+            dropArcIndex(docInt);
+            mVertexWeights = null;
+        }
     }
     
     /** removeArcs: Removes from this graph a list of arcs.
@@ -548,7 +713,7 @@ public class ArcsTable implements Serializable
     }
     
     /** getArcsInDoc: Returns all the arcs contained in this document 
-     * in this graph.
+     * in this graph, in the order of the text.
      * @param docNr : the unique document number (int).
      * @param arcsMap : HashMap with all the arcs (Arc) of this dataGraph.
      * @return ArrayList with arcs (Arc) in this document.
@@ -556,15 +721,10 @@ public class ArcsTable implements Serializable
     public List getArcsInDoc(Map arcsMap, int docNr)
     {
         Integer docInt = docNr;
-        List arcsInDoc = new ArrayList();
-        Map tmpMap = (HashMap)arcsMap.get(docInt);
-        Iterator arcs_itr = tmpMap.values().iterator();
-        while (arcs_itr.hasNext())
-        {
-            Arc currentArc = (Arc) arcs_itr.next();
-            arcsInDoc.add(currentArc);
-        }
-        return arcsInDoc;
+        // The arcs of this table are already sorted in their index.
+        if(arcsMap == mArcsMap) return getArcIndex(docInt).getArcs();
+        LongHashMap tmpMap = (LongHashMap)arcsMap.get(docInt);
+        return sortArcsOnPosition(tmpMap.values());
     }
     
     /** getArcsCountInDoc: Returns the number of arcs in this document.
@@ -573,13 +733,15 @@ public class ArcsTable implements Serializable
      */
     public int getArcsCountInDoc(Integer docInt)
     {
-        Map tmpMap = (HashMap)mArcsMap.get(docInt);
-        return tmpMap.keySet().size();
+        if(mArcsMap instanceof OffHeapArcStore) 
+            return ((OffHeapArcStore) mArcsMap).getArcCount(docInt);
+        LongHashMap tmpMap = (LongHashMap)mArcsMap.get(docInt);
+        return tmpMap.size();
     }
     
     /** getVertexIds: Delivers a set with all the non-zero vertex-ids retrieved
      * from this set of arc-keys.
-     * @param arcKeys : HashSet with arc-keys (String).
+     * @param arcKeys : HashSet with arc-keys (Long).
      * @param docInt : the unique document number (Integer).
      * @return HashSet with vertex-ids (Integer) in this document.
      */
@@ -589,10 +751,10 @@ public class ArcsTable implements Serializable
         Iterator aKeys_itr = arcKeys.iterator();
         while (aKeys_itr.hasNext())
         {
-            String currentArcKey = aKeys_itr.next().toString();
-            Arc thisArc = getArcWithKey(docInt, currentArcKey);
-            vertexIdSet.add(thisArc.getVertex1Index());
-            vertexIdSet.add(thisArc.getVertex2Index());
+            // The vertex-ids are in the key itself.
+            long currentArcKey = ArcKey.valueOf(aKeys_itr.next());
+            vertexIdSet.add(ArcKey.getVertex1(currentArcKey));
+            vertexIdSet.add(ArcKey.getVertex2(currentArcKey));
         }
         try
         {
@@ -609,7 +771,7 @@ public class ArcsTable implements Serializable
      * a document. An arc is connected to another arc when there is no more than
      * one point distance between them. Only walks with a given minimal length 
      * are considered.
-     * @param arcKeys : HashSet with arc keys (String).
+     * @param arcKeys : HashSet with arc keys (Long).
      * @param docInt : the unique document number (Integer).
      * @param minLength : the minimal acceptable dimension of the walk (int).
      * @return LinkedSet with LinkedSet(s) of arcs (Arc).
@@ -659,8 +821,9 @@ public class ArcsTable implements Serializable
     }
     
     /** makeLabelList: Returns a list with the labels from the vertices in this
-     * set of arc keys.
-     * @param arcSet : HashSet with arc keys (String).
+     * set of arc keys. A set element can also be a single vertex-id.
+     * @param arcSet : HashSet with arc keys (Long, or String from an earlier
+     * version) or vertex-ids (Integer).
      * @return an ArrayList with labels (String).
      */
     public List makeLabelList(Set arcSet)
@@ -671,25 +834,27 @@ public class ArcsTable implements Serializable
         Iterator arc_itr = arcSet.iterator();
         while (arc_itr.hasNext())
         {
-            String arcKey = arc_itr.next().toString();
+            Object key = arc_itr.next();
             // Two vertex-ids representing the left and right vertex of this arc.
-            Integer vrtxA;
-            Integer vrtxB;
-            try
+            int vrtxA;
+            int vrtxB;
+            // A key that is not an arc.
+            if(key instanceof Integer || (key instanceof String 
+                    && key.toString().indexOf('*') < 0))
             {
-                vrtxA = Integer.valueOf(arcKey.substring(0, arcKey.indexOf("*")));
-                vrtxB = Integer.valueOf(arcKey.substring(arcKey.indexOf("*") + 1));
+                vrtxA = Integer.parseInt(key.toString());
+                if(vrtxA > 0) labelList.add(allLabels.getVertexLabel(vrtxA));
+            }
+            else
+            {
+                long arcKey = ArcKey.valueOf(key);
+                vrtxA = ArcKey.getVertex1(arcKey);
+                vrtxB = ArcKey.getVertex2(arcKey);
                 if(vrtxA > 0 && vrtxB > 0) labelList.add(allLabels.
                         getVertexLabel(vrtxA) + blank + allLabels.getVertexLabel(vrtxB));
                 else if(vrtxA > 0) labelList.add(allLabels.getVertexLabel(vrtxA));
                 else if(vrtxB > 0) labelList.add(allLabels.getVertexLabel(vrtxB));
             }
-            // Catches a key that is not an arc.
-            catch (StringIndexOutOfBoundsException oe)
-            {
-                vrtxA = Integer.valueOf(arcKey);
-                if(vrtxA > 0) labelList.add(allLabels.getVertexLabel(vrtxA));
-            }
         }
         return labelList;
     }    
@@ -47,9 +47,9 @@ public class Associations implements Serializable
      * Arcs keys are added according to their position in the text. LinkedLists are 
      * used to keep this order.
      * @param docNr : the unique document identifier (int)
-     * @param arcKey : key to the special arc to be added to the map (String)
+     * @param arcKey : key to the special arc to be added to the map (long)
      */
-    public void addAssociations(int docNr, String arcKey)
+    public void addAssociations(int docNr, long arcKey)
     {
         Integer docInt = docNr;
         LinkedList arcList = new LinkedList();
@@ -80,7 +80,7 @@ public class Associations implements Serializable
             Iterator arc_itr = arcList.iterator();
             while(arc_itr.hasNext())
             {
-                String arcKey = arc_itr.next().toString();
+                long arcKey = ((Long) arc_itr.next());
                 Arc a = mNewArcsTable.getArcWithKey(docInt, arcKey);
                 Integer aIdx1 = a.getVertex1Index();
                 Integer aIdx2 = a.getVertex2Index();
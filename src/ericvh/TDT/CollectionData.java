@@ -1,6 +1,8 @@
 package ericvh.TDT;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -12,19 +14,40 @@ import java.util.TreeSet;
  * the vertices. The infovalue is used to discriminate between common words
  * and informative words. A second set keeps the unique document numbers and 
  * members. Instances of CollStats are stored in a CollectionTable.
+ * For an incremental Compute Info-value the collection keeps the sums that
+ * gave the info value of every vertex: the documents of the vertex in this
+ * collection, its summed link frequency and the summed maximum links of these
+ * documents. A collection that did not get new documents since then takes
+ * the info values from these sums, without reading its text graphs.
  * @author Eric Van Horenbeeck
  * Created on 12 augustus 2004, 0:49
  * Revision: Sep 26, 2006
  */
 public class CollectionData implements Serializable
 {
+    private static final long serialVersionUID = -5338941305328741893L;
     // Info value components for this collection.
     private final double[] mCollWeightArray;
     // Document nrs, members of this collection.
     private final SortedSet mDocNrSet;
+    // The same document nrs in a sorted array, made when first asked for.
+    private transient int[] mDocNrArray;
     // Background noise: simulating a random loss of information. Arbitrarely 
     // set at 5% in the Constructor.
     private final double backgroundNoise;
+    // The smallest info value of the running sums; mCollWeightArray[4] holds
+    // the background noise made from it once the cutOff value is set.
+    private double mMinInfoValue;
+    // 'true' when mCollWeightArray[4] holds the background noise.
+    private boolean mCutOffSet;
+    // The number of documents when the sums per vertex were kept, 0 if none.
+    private int mInfoDocCount;
+    // Sums per vertex: sorted vertex ids, and in parallel the documents of the
+    // vertex, the summed link (or token) frequency and the summed maximum.
+    private int[] mStatVertices;
+    private int[] mStatDocs;
+    private int[] mStatFreq;
+    private int[] mStatMax;
     
     /** Constructor
      * Instances of this class have two containers: one for the info value 
@@ -44,7 +67,7 @@ public class CollectionData implements Serializable
      */
     public void addDocNr(int docNr)
     {
-        mDocNrSet.add(docNr);
+        if (mDocNrSet.add(docNr)) mDocNrArray = null;
     }
     
     /** getDocNrSet: Getter returns a set with document numbers populating 
@@ -56,6 +79,25 @@ public class CollectionData implements Serializable
         return mDocNrSet;
     }
     
+    /** getDocNrArray: Getter returns the document numbers populating this 
+     * collection in a sorted array. The array is kept until a document is 
+     * added and must not be changed.
+     * @return sorted array with docNrs (int[]) in this collection
+     */
+    public int[] getDocNrArray()
+    {
+        int[] docNrs = mDocNrArray;
+        if (docNrs == null)
+        {
+            docNrs = new int[mDocNrSet.size()];
+            int i = 0;
+            Iterator docNr_itr = mDocNrSet.iterator();
+            while (docNr_itr.hasNext()) docNrs[i++] = (Integer) docNr_itr.next();
+            mDocNrArray = docNrs;
+        }
+        return docNrs;
+    }
+    
     /** getDocCount: Getter returns of the size of this collection 
      * (number of documents).
      * @return number of files in this collection (int)
@@ -87,6 +129,7 @@ public class CollectionData implements Serializable
             if(mCollWeightArray [2] == 0)
             {
                 // Initializes running totals and counter.
+                mCutOffSet = false;
                 // Sum of the individual TfIdf scores.
                 mCollWeightArray [0] = sum;      
                 // Sum squared.
@@ -115,6 +158,40 @@ public class CollectionData implements Serializable
         }
     }
     
+    /** addCollectionWeights: Adds the info values summed by one worker of a
+     * parallel computation, as if its values were added one by one after the
+     * values already in the array. The partial array has five elements: the 
+     * sum of the info values; the sum of the squared values; the counter; the 
+     * first value and the smallest value above 0.001 of the other values 
+     * (9999.9 if none).
+     * @param partial : the partial sums of a worker (double[])
+     */
+    public void addCollectionWeights(double[] partial)
+    {
+        if(partial [2] == 0) return;
+        if(mCollWeightArray [2] == 0)
+        {
+            mCutOffSet = false;
+            mCollWeightArray [0] = partial [0];
+            mCollWeightArray [1] = partial [1];
+            mCollWeightArray [2] = partial [2];
+            mCollWeightArray [3] = 0;
+            mCollWeightArray [4] = partial [4];
+            mCollWeightArray [5] = 0;
+        }
+        else
+        {
+            mCollWeightArray [0] += partial [0];
+            mCollWeightArray [1] += partial [1];
+            mCollWeightArray [2] += partial [2];
+            // The first value of the worker is not the first of the collection.
+            if(partial [3] > 0.001 && partial [3] < mCollWeightArray [4]) 
+                mCollWeightArray [4] = partial [3];
+            if(partial [4] < mCollWeightArray [4]) 
+                mCollWeightArray [4] = partial [4];
+        }
+    }
+    
     /** setFinalInfoValue: Calculates the normalized cutOff value to 
      * discriminate between common words and informative tokens in this 
      * collection. The cutOff value is the mean of the summed info value of the 
@@ -130,9 +207,12 @@ public class CollectionData implements Serializable
         double mean = totSum / totCnt;
         // The cutOff value is the mean.
         mCollWeightArray[3] =  mean;                 
-        // Background noise.
-        mCollWeightArray [4] = mCollWeightArray [4] * 
+        // Background noise, made from the smallest value of the running sums
+        // also when the cutOff value is set again without new values.
+        if(!mCutOffSet) mMinInfoValue = mCollWeightArray [4];
+        mCollWeightArray [4] = mMinInfoValue * 
                 (1 + backgroundNoise * StrictMath.random());
+        mCutOffSet = true;
       //  mCollWeightArray [4] = mCollWeightArray [4] * 1.10;
         // The Standard Deviation.
         mCollWeightArray[5] = StrictMath.sqrt(totSqrSum / totCnt - mean * mean);
@@ -173,4 +253,53 @@ public class CollectionData implements Serializable
         mCollWeightArray [2] = 0;
     }
     
+    /** setInfoStats: Keeps the sums that gave the info value of every vertex
+     * in this collection, for the present number of documents.
+     * @param vertices : the sorted vertex ids (int[])
+     * @param docs : the number of documents of every vertex (int[])
+     * @param freq : the summed link frequency of every vertex (int[])
+     * @param max : the summed maximum links of the documents (int[])
+     */
+    public void setInfoStats(int[] vertices, int[] docs, int[] freq, int[] max)
+    {
+        mStatVertices = vertices;
+        mStatDocs = docs;
+        mStatFreq = freq;
+        mStatMax = max;
+        mInfoDocCount = getDocCount();
+    }
+    
+    /** clearInfoStats: Removes the sums per vertex.
+     */
+    public void clearInfoStats()
+    {
+        mStatVertices = null;
+        mStatDocs = null;
+        mStatFreq = null;
+        mStatMax = null;
+        mInfoDocCount = 0;
+    }
+    
+    /** hasCurrentInfoStats: Returns 'true' if the sums per vertex were kept 
+     * and no documents were added to this collection since.
+     * @return boolean 'true' when the info values can be taken from the sums.
+     */
+    public boolean hasCurrentInfoStats()
+    {
+        return mStatVertices != null && mInfoDocCount == getDocCount();
+    }
+    
+    /** getInfoStats: Getter returns the sums of a vertex in this collection.
+     * @param vertexId : the vertex id (int)
+     * @return array with the documents of the vertex, its summed frequency
+     * and the summed maximum (int[3]), or null for an unknown vertex.
+     */
+    public int[] getInfoStats(int vertexId)
+    {
+        if (mStatVertices == null) return null;
+        int i = Arrays.binarySearch(mStatVertices, vertexId);
+        if (i < 0) return null;
+        return new int[] {mStatDocs[i], mStatFreq[i], mStatMax[i]};
+    }
+    
 }
@@ -1,8 +1,11 @@
 package ericvh.TDT;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -25,6 +28,7 @@ import java.util.SortedSet;
  */
 public class CollectionTable implements Serializable
 {
+    private static final long serialVersionUID = -5509724833972467171L;
     // The map with info on all collections.
     private final Map mCollections;
     // Set with collection keys that have info values.
@@ -32,6 +36,10 @@ public class CollectionTable implements Serializable
     // Map with all docs-ids of a scope and the set of vertices used in those 
     // documents.
     private Map mDocVertices;
+    // The collection key of every document, indexed by the document number;
+    // null for an unknown document. Rebuilt when a table of an earlier 
+    // version is read.
+    private String[] mDocCollections;
     
     /** Constructor
      * Creates a map with the collKey as collection key and an instance of 
@@ -41,6 +49,7 @@ public class CollectionTable implements Serializable
     {
         mCollections = new HashMap();
         mDocVertices = new HashMap();
+        mDocCollections = new String[0];
     }
     
     /** addInfoValue: Adds info value (weight) to the collectionData of this 
@@ -63,6 +72,79 @@ public class CollectionTable implements Serializable
         tmpCD.addCollectionWeight(value);
     }
     
+    /** addInfoValues: Adds the info values summed by one worker of a parallel
+     * computation to the collectionData of this collection, see 
+     * CollectionData.addCollectionWeights.
+     * @param collKey : the collection key (String).
+     * @param partial : the partial sums of a worker (double[]).
+     */
+    public void addInfoValues(String collKey, double[] partial)
+    {
+        CollectionData tmpCD = (CollectionData) mCollections.get(collKey);
+        if(mOldValueSet.contains(collKey))
+        {
+            tmpCD.removeOldValues();
+            mOldValueSet.remove(collKey);
+        }
+        tmpCD.addCollectionWeights(partial);
+    }
+    
+    /** getChangedCollectionKeys: Getter of a set with the collection keys 
+     * inside the scope of this session that need their info values computed
+     * from the text graphs: the collections without sums per vertex and the
+     * collections that got new documents since the sums were kept.
+     * @return HashSet with collection keys (String).
+     */
+    public Set getChangedCollectionKeys()
+    {
+        Set changedSet = new HashSet();
+        Iterator coll_itr = getScopeCollectionKeys().iterator();
+        while(coll_itr.hasNext())
+        {
+            String collKey = coll_itr.next().toString();
+            CollectionData tmpCD = (CollectionData) mCollections.get(collKey);
+            if(!tmpCD.hasCurrentInfoStats()) changedSet.add(collKey);
+        }
+        return changedSet;
+    }
+    
+    /** setInfoStats: Keeps the sums that gave the info value of every vertex
+     * in a collection, see CollectionData.setInfoStats.
+     * @param collKey : the collection key (String).
+     * @param vertices : the sorted vertex ids (int[])
+     * @param docs : the number of documents of every vertex (int[])
+     * @param freq : the summed link frequency of every vertex (int[])
+     * @param max : the summed maximum links of the documents (int[])
+     */
+    public void setInfoStats(String collKey, int[] vertices, int[] docs, 
+            int[] freq, int[] max)
+    {
+        CollectionData tmpCD = (CollectionData) mCollections.get(collKey);
+        tmpCD.setInfoStats(vertices, docs, freq, max);
+    }
+    
+    /** clearInfoStats: Removes the sums per vertex of a collection.
+     * @param collKey : the collection key (String).
+     */
+    public void clearInfoStats(String collKey)
+    {
+        CollectionData tmpCD = (CollectionData) mCollections.get(collKey);
+        if(tmpCD != null) tmpCD.clearInfoStats();
+    }
+    
+    /** getInfoStats: Getter returns the sums of a vertex in a collection.
+     * @param collKey : the collection key (String).
+     * @param vertexId : the vertex id (int)
+     * @return array with the documents of the vertex, its summed frequency
+     * and the summed maximum (int[3]), or null when not kept.
+     */
+    public int[] getInfoStats(String collKey, int vertexId)
+    {
+        CollectionData tmpCD = (CollectionData) mCollections.get(collKey);
+        if(tmpCD == null) return null;
+        return tmpCD.getInfoStats(vertexId);
+    }
+    
     /** setOldValues: Gets collection keys in the sope of this session that 
      * could have their old info values removed prior to adding new ones.
      * Called by the InfoValueCalculator.
@@ -141,6 +223,23 @@ public class CollectionTable implements Serializable
             mCollData.addDocNr(docNr);
             mCollections.put(collKey, mCollData);
         }
+        setDocsCollectionKey(docNr, collKey);
+    }
+    
+    /** setDocsCollectionKey: Records the collection key of a document in the
+     * index by document number.
+     * @param docNr : the unique document number (int).
+     * @param collKey : the collection key (String).
+     */
+    private void setDocsCollectionKey(int docNr, String collKey)
+    {
+        if (docNr < 0) return;
+        if (docNr >= mDocCollections.length)
+        {
+            mDocCollections = Arrays.copyOf(mDocCollections, 
+                    Math.max(docNr + 1, mDocCollections.length * 2));
+        }
+        mDocCollections[docNr] = collKey;
     }
     
     /** getCollectionDocCount: Getter of the number of documents that are part 
@@ -243,6 +342,21 @@ public class CollectionTable implements Serializable
         else return null;
     }
     
+    /** getDocNrArray: Getter of a sorted array with all the document numbers
+     * in this collection, to intersect with the documents of a vertex. The 
+     * array must not be changed. Not restricted to the collections inside the
+     * scope of this session.
+     * @param collKey : the key (String) to the collection.
+     * @return sorted array with the document numbers (int[]) of this 
+     * collection, or null for an unknown collection.
+     */
+    public int[] getDocNrArray(String collKey)
+    {
+        CollectionData tmpCD = (CollectionData) mCollections.get(collKey);
+        if (tmpCD == null) return null;
+        return tmpCD.getDocNrArray();
+    }
+    
     /** getScopeCollectionKeys: Getter of a set with all the collection keys 
      * in this dataGraph inside the scope of this session.
      * @return HashSet with all the collection keys (String) relevant for this
@@ -304,25 +418,9 @@ public class CollectionTable implements Serializable
      */
     public String getDocsCollectionKey(int docNr)
     {
-        Integer aDocNr = docNr;
-        String collectionKey = "";
-        // Set with the collection keys.
-        Set collKeys = getAllCollectionKeys();
-        // Set with document numbers.
-        Set docNrsSet;
-        Iterator keys_itr = collKeys.iterator();
-        search:
-        while (keys_itr.hasNext())
-        {
-            String thisKey = keys_itr.next().toString();
-            docNrsSet = getDocsInCollection(thisKey);
-            if (docNrsSet.contains(aDocNr))
-            {
-                collectionKey = thisKey;
-                break;  // Early exit.
-            }
-        }
-        return collectionKey;
+        if (docNr < 0 || docNr >= mDocCollections.length) return "";
+        String collectionKey = mDocCollections[docNr];
+        return collectionKey == null ? "" : collectionKey;
     }
     
     /** getSourceName: Getter of the source of this document as recorded in
@@ -366,22 +464,22 @@ public class CollectionTable implements Serializable
     public Map sortDocuments(Set docSet)
     {
         Map documentMap = new HashMap();
-        Iterator collKey_itr = getAllCollectionKeys().iterator();
-        while(collKey_itr.hasNext())
+        // Iterates over the doc-set and adds the id-number to the list of the
+        // collection it belongs to.
+        Iterator docs_itr = docSet.iterator();
+        while(docs_itr.hasNext())
         {
+            Integer docInt = (Integer)docs_itr.next();
+            String collKey = getDocsCollectionKey(docInt);
+            if(collKey.isEmpty()) continue;
             // Array to hold the documents per collection.
-            List docList = new ArrayList();
-            String collKey = collKey_itr.next().toString();
-            // Iterates over the doc-set and adds the id-number to the temporary
-            // list if it is a member of the collection in view.
-            Iterator docs_itr = docSet.iterator();
-            while(docs_itr.hasNext())
+            List docList = (List) documentMap.get(collKey);
+            if(docList == null)
             {
-                Integer docInt = (Integer)docs_itr.next();
-                if(getDocsInCollection(collKey).contains(docInt)) 
-                    docList.add(docInt);
+                docList = new ArrayList();
+                documentMap.put(collKey, docList);
             }
-            if(!docList.isEmpty()) documentMap.put(collKey, docList);
+            docList.add(docInt);
         }
         return documentMap;
     }
@@ -465,4 +563,28 @@ public class CollectionTable implements Serializable
         return collectionInfo;
     }
     
+    /** readObject: Reads the table and makes the index of the collection key
+     * per document when the table was written by an earlier version.
+     * @param in : the input stream (ObjectInputStream)
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException,
+            ClassNotFoundException
+    {
+        in.defaultReadObject();
+        if (mDocCollections != null) return;
+        mDocCollections = new String[0];
+        Iterator coll_itr = mCollections.keySet().iterator();
+        while(coll_itr.hasNext())
+        {
+            String collKey = coll_itr.next().toString();
+            int[] docNrs = getDocNrArray(collKey);
+            for (int d = 0; d < docNrs.length; d++)
+            {
+                setDocsCollectionKey(docNrs[d], collKey);
+            }
+        }
+    }
+    
 }
@@ -0,0 +1,175 @@
+package ericvh.TDT;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/** Class DegreeBench is a stand-alone benchmark of the DegreeTable on a
+ * synthetic corpus. The tokens of every document are drawn from a Gaussian
+ * over the token-types, consecutive tokens make an arc. The one pass of the
+ * DegreeTable is compared with the former count of the LinkTable, that
+ * scanned all arcs of a document for every vertex and every document of the
+ * vertex; both must give the same links per vertex and per document. The
+ * documents of the vertices are collected before the timing starts.
+ * Run it with: java ericvh.TDT.DegreeBench [documents] [tokens] [types]
+ */
+public class DegreeBench
+{
+    /** main: Entry point of the benchmark.
+     * @param args : the number of documents (default 100000), tokens per
+     * document (default 40) and token-types (default 30000) (String).
+     */
+    public static void main(String[] args)
+    {
+        int docs = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int tokens = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int types = args.length > 2 ? Integer.parseInt(args[2]) : 30000;
+        Map arcsMap = makeCorpus(new Random(5), docs, tokens, types);
+        ArcsTable at = new ArcsTable(new VerticesTable());
+        at.addFullArcsMap(arcsMap);
+        long start = System.nanoTime();
+        DegreeTable degrees = new DegreeTable(at);
+        long onePass = System.nanoTime() - start;
+        long[] scan = new long[1];
+        int differences = compareScan(at, degrees, docs, scan);
+        System.out.println(docs + " documents of " + tokens + " tokens, "
+                + at.getArcsMapSize() + " arcs");
+        System.out.println("DegreeTable one pass: " + onePass / 1000000L + " ms");
+        System.out.println("Scan per vertex and document: " + scan[0] / 1000000L
+                + " ms");
+        System.out.println(differences == 0 ? "Same links" : differences
+                + " documents differ");
+        if (differences > 0) System.exit(1);
+    }
+
+    /** makeCorpus: Makes the arcs of a synthetic corpus. Documents are
+     * numbered from 1, an arc is kept at the first position of its pair of
+     * vertices.
+     * @param random : source of the tokens (Random)
+     * @param docs : the number of documents (int)
+     * @param tokens : the number of tokens per document (int)
+     * @param types : the number of token-types (int)
+     * @return map with doc-id (Integer) as key and a LongHashMap with the
+     * arcs of the document as value (Map)
+     */
+    static Map makeCorpus(Random random, int docs, int tokens, int types)
+    {
+        Map arcsMap = new HashMap();
+        for (int d = 1; d <= docs; d++)
+        {
+            LongHashMap arcs = new LongHashMap();
+            int previous = -1;
+            for (int i = 0; i < tokens; i++)
+            {
+                int token = 1 + (int) Math.min(types - 1,
+                        Math.abs(random.nextGaussian() * types / 6));
+                if (previous > 0)
+                {
+                    long key = ArcKey.makeKey(previous, token);
+                    if (!arcs.containsKey(key))
+                    {
+                        arcs.put(key, new Arc(i, previous, token, d, 1.0));
+                    }
+                }
+                previous = token;
+            }
+            arcsMap.put(d, arcs);
+        }
+        return arcsMap;
+    }
+
+    /** compareScan: Counts the links as the former LinkTable did: for every
+     * vertex and every document of the vertex, the arcs of the document with
+     * the vertex are collected by a scan over all arcs of the document and
+     * counted. The counts are compared with the DegreeTable.
+     * @param at : the ArcsTable with all arcs (ArcsTable)
+     * @param degrees : the DegreeTable of the ArcsTable (DegreeTable)
+     * @param docs : the number of documents (int)
+     * @param time : receives the time of the count in nanoseconds (long[])
+     * @return the number of documents with different links (int)
+     */
+    private static int compareScan(ArcsTable at, DegreeTable degrees, int docs,
+            long[] time)
+    {
+        Map arcsMap = at.getFullArcsMap();
+        // The documents of every vertex, in ascending order.
+        Map vertexDocs = new TreeMap();
+        for (int d = 1; d <= docs; d++)
+        {
+            long[] keys = ((LongHashMap) arcsMap.get(d)).keys();
+            for (int k = 0; k < keys.length; k++)
+            {
+                addDoc(vertexDocs, ArcKey.getVertex1(keys[k]), d);
+                addDoc(vertexDocs, ArcKey.getVertex2(keys[k]), d);
+            }
+        }
+        long start = System.nanoTime();
+        int[] totLinks = new int[docs + 1];
+        boolean[] differs = new boolean[docs + 1];
+        Iterator vrtx_itr = vertexDocs.entrySet().iterator();
+        while (vrtx_itr.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) vrtx_itr.next();
+            int vrtxIdx = (Integer) entry.getKey();
+            Iterator doc_itr = ((Set) entry.getValue()).iterator();
+            while (doc_itr.hasNext())
+            {
+                int docNr = (Integer) doc_itr.next();
+                // The former ArcsTable.getArcsWithKey.
+                List arcList = new ArrayList();
+                Iterator arc_itr = ((LongHashMap) arcsMap.get(docNr)).values()
+                        .iterator();
+                while (arc_itr.hasNext())
+                {
+                    Arc currentArc = (Arc) arc_itr.next();
+                    if (currentArc.containsVertex(vrtxIdx)) arcList.add(currentArc);
+                }
+                int inLinks = 0;
+                int outLinks = 0;
+                for (int a = 0; a < arcList.size(); a++)
+                {
+                    Arc currentArc = (Arc) arcList.get(a);
+                    // Vertex at the left of the arc: outgoing link.
+                    if (currentArc.containsIndexFirst(vrtxIdx)) outLinks++;
+                    // Vertex at the right of the arc: incoming link.
+                    else if (currentArc.containsIndexSecond(vrtxIdx)) inLinks++;
+                }
+                totLinks[docNr] += inLinks + outLinks;
+                if (inLinks != degrees.getInLinks(docNr, vrtxIdx)
+                        || outLinks != degrees.getOutLinks(docNr, vrtxIdx))
+                {
+                    differs[docNr] = true;
+                }
+            }
+        }
+        time[0] = System.nanoTime() - start;
+        int differences = 0;
+        for (int d = 1; d <= docs; d++)
+        {
+            if (differs[d] || totLinks[d] != degrees.getTotalLinks(d)) differences++;
+        }
+        return differences;
+    }
+
+    /** addDoc: Adds a document to the sorted documents of a vertex.
+     * @param vertexDocs : vertex-id (Integer) and its documents (Map)
+     * @param vrtxIdx : the vertex-id (int)
+     * @param docNr : the document number (int)
+     */
+    private static void addDoc(Map vertexDocs, int vrtxIdx, int docNr)
+    {
+        Set docNrs = (Set) vertexDocs.get(vrtxIdx);
+        if (docNrs == null)
+        {
+            docNrs = new TreeSet();
+            vertexDocs.put(vrtxIdx, docNrs);
+        }
+        docNrs.add(docNr);
+    }
+}
@@ -0,0 +1,235 @@
+package ericvh.TDT;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+
+/** Class DegreeTable holds the number of incoming and outgoing links of every
+ * vertex in every document. It is made in one pass over all the arcs of the
+ * ArcsTable: the vertex to the left of an arc gets an outgoing link, the
+ * vertex to the right an incoming link (an arc from a vertex to itself counts
+ * as an outgoing link only, as in the LinkTable).
+ * The degrees are kept in rows per document: the documents are sorted, every
+ * row holds the sorted vertex-ids of a document with their in- and outgoing
+ * links in parallel arrays. The total number of links in a document and the
+ * highest link count of a single vertex are kept per document.
+ * The table is not changed after its construction.
+ */
+public class DegreeTable
+{
+    // Sorted document numbers.
+    private final int[] mDocNrs;
+    // Start of the row of every document; the row of document i ends at
+    // mRowStart[i + 1].
+    private final int[] mRowStart;
+    // Vertex-ids, sorted within every row.
+    private final int[] mVertices;
+    // Incoming and outgoing links, parallel to mVertices.
+    private final int[] mInLinks;
+    private final int[] mOutLinks;
+    // The total number of links and the maximum links of one vertex per
+    // document, parallel to mDocNrs.
+    private final int[] mTotLinks;
+    private final int[] mMaxLinks;
+    // The highest vertex-id plus one.
+    private final int mVertexBound;
+
+    /** Constructor
+     * Counts the links of the vertices in all documents of the ArcsTable.
+     * @param at : the ArcsTable with all arcs (ArcsTable)
+     */
+    public DegreeTable(ArcsTable at)
+    {
+        Map arcsMap = at.getFullArcsMap();
+        int docs = arcsMap == null ? 0 : arcsMap.size();
+        mDocNrs = new int[docs];
+        int entries = 0;
+        if (docs > 0)
+        {
+            int d = 0;
+            Iterator doc_itr = arcsMap.entrySet().iterator();
+            while (doc_itr.hasNext())
+            {
+                Map.Entry entry = (Map.Entry) doc_itr.next();
+                mDocNrs[d++] = (Integer) entry.getKey();
+                // A document has at most two vertices per arc.
+                entries += 2 * ((LongHashMap) entry.getValue()).size();
+            }
+            Arrays.sort(mDocNrs);
+        }
+        mRowStart = new int[docs + 1];
+        mTotLinks = new int[docs];
+        mMaxLinks = new int[docs];
+        int[] vertices = new int[entries];
+        int[] inLinks = new int[entries];
+        int[] outLinks = new int[entries];
+        // Links of the vertices of the current document, by vertex-id, and the
+        // vertices seen in the document.
+        int[] inCount = new int[1024];
+        int[] outCount = new int[1024];
+        boolean[] seen = new boolean[1024];
+        int[] touched = new int[64];
+        int size = 0;
+        int bound = 0;
+        for (int d = 0; d < docs; d++)
+        {
+            long[] keys = ((LongHashMap) arcsMap.get(mDocNrs[d])).keys();
+            int touchedSize = 0;
+            for (int k = 0; k < keys.length; k++)
+            {
+                int first = ArcKey.getVertex1(keys[k]);
+                int second = ArcKey.getVertex2(keys[k]);
+                int high = Math.max(first, second);
+                if (high >= seen.length)
+                {
+                    int capacity = Math.max(seen.length * 2, high + 1);
+                    inCount = Arrays.copyOf(inCount, capacity);
+                    outCount = Arrays.copyOf(outCount, capacity);
+                    seen = Arrays.copyOf(seen, capacity);
+                }
+                if (touchedSize + 2 > touched.length)
+                {
+                    touched = Arrays.copyOf(touched, touched.length * 2);
+                }
+                if (!seen[first])
+                {
+                    seen[first] = true;
+                    touched[touchedSize++] = first;
+                }
+                outCount[first]++;
+                if (second != first)
+                {
+                    if (!seen[second])
+                    {
+                        seen[second] = true;
+                        touched[touchedSize++] = second;
+                    }
+                    inCount[second]++;
+                }
+            }
+            // Moves the counts of this document to its row and clears them.
+            Arrays.sort(touched, 0, touchedSize);
+            mRowStart[d] = size;
+            for (int t = 0; t < touchedSize; t++)
+            {
+                int v = touched[t];
+                vertices[size] = v;
+                inLinks[size] = inCount[v];
+                outLinks[size] = outCount[v];
+                int links = inCount[v] + outCount[v];
+                mTotLinks[d] += links;
+                if (links > mMaxLinks[d]) mMaxLinks[d] = links;
+                if (v >= bound) bound = v + 1;
+                inCount[v] = 0;
+                outCount[v] = 0;
+                seen[v] = false;
+                size++;
+            }
+        }
+        mRowStart[docs] = size;
+        mVertices = Arrays.copyOf(vertices, size);
+        mInLinks = Arrays.copyOf(inLinks, size);
+        mOutLinks = Arrays.copyOf(outLinks, size);
+        mVertexBound = bound;
+    }
+
+    /** getVertexBound: Getter returns the highest vertex-id with links plus
+     * one, the size of an array indexed by vertex-id.
+     * @return the vertex bound (int)
+     */
+    public int getVertexBound()
+    {
+        return mVertexBound;
+    }
+
+    /** containsDoc: Returns 'true' if this document has an arcs map.
+     * @param docNr : the unique document identifier (int)
+     * @return boolean 'true' when the document is in the table.
+     */
+    public boolean containsDoc(int docNr)
+    {
+        return Arrays.binarySearch(mDocNrs, docNr) >= 0;
+    }
+
+    /** getInLinks: Getter returns the number of incoming links of a vertex in
+     * a document.
+     * @param docNr : the unique document identifier (int)
+     * @param vrtxIdx : the vertex-id (int)
+     * @return the incoming links (int), 0 if the vertex has no links in this
+     * document.
+     */
+    public int getInLinks(int docNr, int vrtxIdx)
+    {
+        int i = indexOf(docNr, vrtxIdx);
+        return i < 0 ? 0 : mInLinks[i];
+    }
+
+    /** getOutLinks: Getter returns the number of outgoing links of a vertex in
+     * a document.
+     * @param docNr : the unique document identifier (int)
+     * @param vrtxIdx : the vertex-id (int)
+     * @return the outgoing links (int), 0 if the vertex has no links in this
+     * document.
+     */
+    public int getOutLinks(int docNr, int vrtxIdx)
+    {
+        int i = indexOf(docNr, vrtxIdx);
+        return i < 0 ? 0 : mOutLinks[i];
+    }
+
+    /** getTotalLinks: Getter returns the total number of links of all vertices
+     * in a document.
+     * @param docNr : the unique document identifier (int)
+     * @return the total links (int), 0 for an unknown document.
+     */
+    public int getTotalLinks(int docNr)
+    {
+        int d = Arrays.binarySearch(mDocNrs, docNr);
+        return d < 0 ? 0 : mTotLinks[d];
+    }
+
+    /** getMaxLinks: Getter returns the highest number of links of a single
+     * vertex in a document.
+     * @param docNr : the unique document identifier (int)
+     * @return the maximum links (int), 0 for an unknown document.
+     */
+    public int getMaxLinks(int docNr)
+    {
+        int d = Arrays.binarySearch(mDocNrs, docNr);
+        return d < 0 ? 0 : mMaxLinks[d];
+    }
+
+    /** sumDocLinks: Adds the links of all vertices of a document to two
+     * arrays indexed by vertex-id.
+     * @param docNr : the unique document identifier (int)
+     * @param inLinks : the incoming links per vertex-id, of size
+     * getVertexBound() (int[])
+     * @param outLinks : the outgoing links per vertex-id, of size
+     * getVertexBound() (int[])
+     */
+    public void sumDocLinks(int docNr, int[] inLinks, int[] outLinks)
+    {
+        int d = Arrays.binarySearch(mDocNrs, docNr);
+        if (d < 0) return;
+        for (int i = mRowStart[d]; i < mRowStart[d + 1]; i++)
+        {
+            inLinks[mVertices[i]] += mInLinks[i];
+            outLinks[mVertices[i]] += mOutLinks[i];
+        }
+    }
+
+    /** indexOf: Returns the place of a vertex in the row of a document.
+     * @param docNr : the unique document identifier (int)
+     * @param vrtxIdx : the vertex-id (int)
+     * @return the index in mVertices (int) or -1.
+     */
+    private int indexOf(int docNr, int vrtxIdx)
+    {
+        int d = Arrays.binarySearch(mDocNrs, docNr);
+        if (d < 0) return -1;
+        int i = Arrays.binarySearch(mVertices, mRowStart[d], mRowStart[d + 1],
+                vrtxIdx);
+        return i < 0 ? -1 : i;
+    }
+}
@@ -0,0 +1,266 @@
+package ericvh.TDT;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Class DocCompareBench is a stand-alone benchmark of the vertex values that
+ * DocCompare.docSimilarity looks up for every pair of retained documents: the
+ * summed weights of the retained and shared vertices and the weakly connected
+ * vertices of the walks (SimilarityCalc). The pair loop is run on a synthetic
+ * corpus with the ArcsTable and with the former lookup of getVertexValue,
+ * that kept the arcs of a document in a HashMap with "v1*v2" String keys and
+ * matched every key with a regular expression compiled for it until the
+ * vertex was found. The values of the ArcsTable are checked against the
+ * weight of the first arc in the text with the vertex.
+ * DocCompare itself needs the TopicRetriever and the GUI, so its pair loop is
+ * not run: the loop here is a copy of its vertex value lookups, without the
+ * arc sets, the facets and the similarity matrix. The times compare the
+ * lookups, not docSimilarity as a whole.
+ * Run it with: java ericvh.TDT.DocCompareBench [documents] [tokens]
+ */
+public class DocCompareBench
+{
+    // The number of retained vertices per document, as DocSelect keeps them.
+    private static final int RETAINED = 60;
+    // The number of walks per document and of arcs per walk.
+    private static final int WALKS = 6;
+    private static final int WALK_LENGTH = 4;
+
+    /** Class FormerArcsTable looks up the value of a vertex with the code of
+     * the ArcsTable before the VertexWeightTable and the long arc keys: the
+     * arcs of a document are in a HashMap with "v1*v2" String keys, and every
+     * key is matched with a pattern compiled for it until one has the vertex;
+     * the value is the weight of that arc.
+     */
+    private static class FormerArcsTable extends ArcsTable
+    {
+        // Map with doc-id (Integer) as key and a HashMap with the String arc
+        // key and the arc as value, the arcs map of the former version.
+        private final Map mStringArcsMap = new HashMap();
+
+        /** Constructor
+         * @param vt : the vertices of the arcs (VerticesTable)
+         * @param arcsMap : doc-id (Integer) and the arcs of the document
+         * (LongHashMap) (Map)
+         */
+        FormerArcsTable(VerticesTable vt, Map arcsMap)
+        {
+            super(vt);
+            addFullArcsMap(arcsMap);
+            Iterator doc_itr = arcsMap.entrySet().iterator();
+            while (doc_itr.hasNext())
+            {
+                Map.Entry entry = (Map.Entry) doc_itr.next();
+                LongHashMap arcs = (LongHashMap) entry.getValue();
+                Map stringArcs = new HashMap();
+                long[] arcKeys = arcs.keys();
+                for (int i = 0; i < arcKeys.length; i++)
+                {
+                    stringArcs.put(ArcKey.toString(arcKeys[i]), arcs.get(
+                            arcKeys[i]));
+                }
+                mStringArcsMap.put(entry.getKey(), stringArcs);
+            }
+        }
+
+        /** getVertexValue: The former lookup for a known document. The former
+         * code kept asking the same document when no key matched; here 0.0 is
+         * returned, the benchmark only asks vertices of the document.
+         */
+        @Override
+        public double getVertexValue(Integer vertexKey, int docNr)
+        {
+            double value = 0.0;
+            if (containsVertex(vertexKey))
+            {
+                Integer docInt = docNr;
+                Map allArcs = (HashMap) mStringArcsMap.get(docInt);
+                Iterator arc_itr = allArcs.keySet().iterator();
+                while (arc_itr.hasNext())
+                {
+                    String arcKey = arc_itr.next().toString();
+                    String arcString = "*" + arcKey + "*";
+                    String key = "\\D" + vertexKey.toString() + "\\D";
+                    Matcher match = Pattern.compile(key).matcher(arcString);
+                    if (match.find())
+                    {
+                        Arc thisArc = (Arc) allArcs.get(arcKey);
+                        value = thisArc.getArcWeight();
+                        break;
+                    }
+                }
+            }
+            return value;
+        }
+    }
+
+    /** main: Entry point of the benchmark.
+     * @param args : the number of documents (default 150) and tokens per
+     * document (default 2000) (String).
+     */
+    public static void main(String[] args)
+    {
+        int docs = args.length > 0 ? Integer.parseInt(args[0]) : 150;
+        int tokens = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        Random random = new Random(3);
+        Map vertices = new HashMap();
+        Map arcsMap = new HashMap();
+        Map recall = new HashMap();
+        for (int d = 1; d <= docs; d++)
+        {
+            LongHashMap arcs = new LongHashMap();
+            List arcList = new ArrayList();
+            int previous = 0;
+            for (int i = 0; i < tokens; i++)
+            {
+                int token = 1 + (int) Math.abs(random.nextGaussian() * tokens / 4);
+                if (!vertices.containsKey(token)) vertices.put(token, new Vertex());
+                long key = ArcKey.makeKey(previous, token);
+                if (!arcs.containsKey(key))
+                {
+                    Arc arc = new Arc(i, previous, token, d, random.nextDouble());
+                    arcs.put(key, arc);
+                    arcList.add(arc);
+                }
+                previous = token;
+            }
+            arcsMap.put(d, arcs);
+            recall.put(d, retain(random, arcList));
+        }
+        VerticesTable vt = new VerticesTable();
+        vt.addVerticesMap(vertices);
+        ArcsTable table = new ArcsTable(vt);
+        table.addFullArcsMap(arcsMap);
+        ArcsTable former = new FormerArcsTable(vt, arcsMap);
+        System.out.println(docs + " documents of " + tokens + " tokens, "
+                + table.getArcsMapSize() + " arcs");
+        comparePairs("ArcsTable", table, recall);
+        comparePairs("Former lookup", former, recall);
+        int mismatches = checkValues(table, arcsMap);
+        System.out.println(mismatches == 0 ? "Same vertex values" : mismatches
+                + " vertex values differ");
+        if (mismatches > 0) System.exit(1);
+    }
+
+    /** retain: Picks the retained vertices and the walks of a document.
+     * @param random : source of the choices (Random)
+     * @param arcList : the arcs of the document in the order of the text (List)
+     * @return the retained vertices (SortedSet) and the walks
+     * (LinkedHashSet of LinkedHashSets of arcs) (Object[])
+     */
+    private static Object[] retain(Random random, List arcList)
+    {
+        SortedSet vertexSet = new TreeSet();
+        while (vertexSet.size() < RETAINED)
+        {
+            Arc arc = (Arc) arcList.get(random.nextInt(arcList.size()));
+            vertexSet.add(arc.getVertex2Index());
+        }
+        LinkedHashSet walkSet = new LinkedHashSet();
+        for (int w = 0; w < WALKS; w++)
+        {
+            int start = random.nextInt(arcList.size() - WALK_LENGTH);
+            LinkedHashSet walk = new LinkedHashSet(arcList.subList(start,
+                    start + WALK_LENGTH));
+            walkSet.add(walk);
+        }
+        Object[] retained = {vertexSet, walkSet};
+        return retained;
+    }
+
+    /** comparePairs: Runs the vertex value lookups of docSimilarity over all
+     * pairs of documents and prints the time.
+     * @param name : the name of the lookup (String)
+     * @param table : the arcs with their weights (ArcsTable)
+     * @param recall : doc-id (Integer) and its retained vertices and walks
+     * (Map)
+     */
+    private static void comparePairs(String name, ArcsTable table, Map recall)
+    {
+        SimilarityCalc simCalc = new SimilarityCalc(table);
+        Object[] docLoop = new TreeSet(recall.keySet()).toArray();
+        double total = 0.0;
+        int pairs = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < docLoop.length; i++)
+        {
+            Integer firstDoc = (Integer) docLoop[i];
+            Object[] first = (Object[]) recall.get(firstDoc);
+            Set firstVSet = (Set) first[0];
+            total += table.summedVertexWeights(firstVSet, firstDoc);
+            for (int j = i + 1; j < docLoop.length; j++)
+            {
+                Integer secondDoc = (Integer) docLoop[j];
+                Object[] second = (Object[]) recall.get(secondDoc);
+                Set secondVSet = (Set) second[0];
+                Set sharedVSet = new TreeSet(Algorithms.intersect(firstVSet,
+                        secondVSet));
+                if (sharedVSet.size() <= 1) continue;
+                pairs++;
+                total += table.summedVertexWeights(sharedVSet, secondDoc);
+                total += table.summedVertexWeights(secondVSet, secondDoc);
+                total += simCalc.weaklyConnected(sharedVSet,
+                        (LinkedHashSet) first[1], firstDoc);
+                total += simCalc.weaklyConnected(sharedVSet,
+                        (LinkedHashSet) second[1], secondDoc);
+                total += simCalc.getWeakVertexWeight();
+                simCalc.resetWeakVertexWeight();
+            }
+        }
+        long time = System.nanoTime() - start;
+        System.out.println(name + ": " + time / 1000000L + " ms for " + pairs
+                + " related pairs (total value " + total + ")");
+    }
+
+    /** checkValues: Compares the value of every vertex in every document with
+     * the weight of the first arc in the text of the document that has the
+     * vertex.
+     * @param table : the arcs with their weights (ArcsTable)
+     * @param arcsMap : doc-id (Integer) and the arcs of the document (Map)
+     * @return the number of different values (int)
+     */
+    private static int checkValues(ArcsTable table, Map arcsMap)
+    {
+        int mismatches = 0;
+        Iterator doc_itr = arcsMap.keySet().iterator();
+        while (doc_itr.hasNext())
+        {
+            Integer docInt = (Integer) doc_itr.next();
+            List arcs = ArcsTable.sortArcsOnPosition(((LongHashMap) arcsMap
+                    .get(docInt)).values());
+            Map firstWeights = new HashMap();
+            for (int a = 0; a < arcs.size(); a++)
+            {
+                Arc arc = (Arc) arcs.get(a);
+                if (!firstWeights.containsKey(arc.getVertex1Index()))
+                {
+                    firstWeights.put(arc.getVertex1Index(), arc.getArcWeight());
+                }
+                if (!firstWeights.containsKey(arc.getVertex2Index()))
+                {
+                    firstWeights.put(arc.getVertex2Index(), arc.getArcWeight());
+                }
+            }
+            Iterator vrtx_itr = firstWeights.entrySet().iterator();
+            while (vrtx_itr.hasNext())
+            {
+                Map.Entry entry = (Map.Entry) vrtx_itr.next();
+                Integer vertexKey = (Integer) entry.getKey();
+                double expected = table.containsVertex(vertexKey)
+                        ? (Double) entry.getValue() : 0.0;
+                if (table.getVertexValue(vertexKey, docInt) != expected) mismatches++;
+            }
+        }
+        return mismatches;
+    }
+}
@@ -123,7 +123,7 @@ public class DocRetrieval
      * @param docMap : HashMap with docId (Integer) as key and a SortedSet of 
      * facetKeys (Integer) as value.
      * @return ArrayList with an ArrayList for every docId(Integer) at index '0'
-     * and a LinkedHashSet of common arc keys (String) at index '1'.
+     * and a LinkedHashSet of common arc keys (Long) at index '1'.
      */
     private List fillBasket(Map docMap)
     {
@@ -200,12 +200,12 @@ public class DocRetrieval
      * this doc and the query. Uses facetArcMap, a SortedMap with with as key 
      * the count class (sorted from high to low) and as value a HashMap with 
      * the global facet key (Integer) as key and a LinkedHashSet as value with
-     * arc-keys (String) that defined the topical facet.
+     * arc-keys (Long) that defined the topical facet.
      * @param docId : the identification of the document in view (Integer).
      * @param facetSet : SortedSet with global facet keys (Integer) from one 
      * document.
      * @return ArrayList with the docId (Integer) and a LinkedHashSet of common 
-     * arc keys (String).
+     * arc keys (Long).
      */
     private List getSharedArcs(Integer docId, SortedSet facetSet)
     {
@@ -267,7 +267,7 @@ public class DocRetrieval
      * the doc-by-doc similarity with a group of selected documents.
      * @param docGroup : the frequency identification (int) of a document set.
      * @return ArrayList with ArrayLists with the doc-id (Integer) and a
-     * LinkedList of arc-keys (String)).
+     * LinkedList of arc-keys (Long)).
      */
     public List getDocGroup(int docGroup)
     {
@@ -203,7 +203,7 @@ public class DocSelect
      * DocCompare class and one value expressing the similarity of a document
      * with the query as represented by the prototype document.
      * @param docInt : the id (Integer) of the retained document.
-     * @param arcSet : a SortedSet with arc keys (String) from this retained 
+     * @param arcSet : a SortedSet with arc keys (Long) from this retained 
      * document.
      * @param vertexSet : a SortedSet with vertices (Integer).
      * @param walkSet : LinkedHashSet with 'walk' (String).
@@ -2,8 +2,6 @@ package ericvh.TDT;
 
 import java.io.Serializable;
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -12,7 +10,6 @@ import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
-import java.util.TreeMap;
 import java.util.TreeSet;
 import javax.swing.JOptionPane;
 
@@ -80,11 +77,11 @@ public class FacetMaker implements Serializable
      */
     public void constructFacets()
     {
-        Map tempArcDocMap = new HashMap();
+        LongHashMap tempArcDocMap = new LongHashMap();
         // List with unused docs to be rescanned and inserted by the ApplicationManager
         mUnusedDocList = ApplicationManager.getUnusedList();       
         // ArcsMap key: docNr, value: an arcsMap with all the arcs. Key of the
-        // second arcsMap: the arc key (String); value: arc.
+        // second arcsMap: the arc key (long); value: arc.
         mInfoArcMap = mInfoArcTable.getFullArcsMap();         
         // Makes a map with an informative arc as key and all its document-ids as value.
         Iterator docs_itr = mInfoArcMap.keySet().iterator();
@@ -92,14 +89,14 @@ public class FacetMaker implements Serializable
         {
             Integer docInt = (Integer) docs_itr.next();
             // Iterates over the informative arcs in this document.
-            Map arcsMap = (HashMap) mInfoArcMap.get(docInt);
-            Iterator arcs_itr = arcsMap.keySet().iterator();
-            while (arcs_itr.hasNext())
+            LongHashMap arcsMap = (LongHashMap) mInfoArcMap.get(docInt);
+            long[] arcKeys = arcsMap.keys();
+            for (int i = 0; i < arcKeys.length; i++)
             {
-                String arcKey = arcs_itr.next().toString();
+                long arcKey = arcKeys[i];
                 // Checks if this arc has a dummy vertex member.
                 boolean containsDummy =
-                    mInfoArcTable.getArcWithKey(docInt, arcKey).containsDummy();
+                    ((Arc) arcsMap.get(arcKey)).containsDummy();
                 // Dummy arcs are left out: they diminish the descriptive quality
                 // of a topical facet.
                 if(!containsDummy)
@@ -125,25 +122,24 @@ public class FacetMaker implements Serializable
      * This method is not restricted to collections inside the scope of this
      * session: previously unused documents with dates before the current scope 
      * are rescanned and linked to a facet if they are semantically relevant.
-     * @param arcMap : HashMap with arc key (String) as key; value: SortedSet 
+     * @param arcMap : LongHashMap with arc key (long) as key; value: SortedSet 
      * with doc-ids (Integer).
      */
-    private void performAnalysis(Map arcMap)
+    private void performAnalysis(LongHashMap arcMap)
     {
         // SemanticUnit instance to hold the doc-ids, arcs and their info-value.
         mSemanticUnit = new SemanticUnit();
         // Computes the compounded info-value of each arc from high to low
         // over all documents used in this session.
-        LinkedHashMap weightMap = infoWeight(arcMap);
+        Ranking weightRanking = infoWeight(arcMap);
         // A sequential number to synchronize the maps. It starts the counting
         // where the previous session stopped.
         int unitKeyCount = 0;
-        // Iterates over the weightMap to get the arcs with the highest 
+        // Iterates over the ranking to get the arcs with the highest 
         // info-value first.
-        Iterator arc_itr = weightMap.keySet().iterator();
-        while(arc_itr.hasNext())
+        for(int rank = 0; rank < weightRanking.size(); rank++)
         {
-            String arcKey = arc_itr.next().toString();
+            long arcKey = weightRanking.getId(rank);
             // The docSet is retrieved from the arcMap.
             SortedSet docSet = (TreeSet) arcMap.get(arcKey);
             double arcValue;
@@ -153,7 +149,7 @@ public class FacetMaker implements Serializable
             LinkedHashSet arcSet = new LinkedHashSet();
             arcSet.add(arcKey);
             // Gets the info-value for this arc.
-            arcValue = ((Double) weightMap.get(arcKey));
+            arcValue = weightRanking.getScore(rank);
             // Makes no new entries if this docSet is already registered. 
             // Only the new arc key is added and the info-value of the set is
             // adjusted with the new arc value.
@@ -190,22 +186,23 @@ public class FacetMaker implements Serializable
         setUnusedDocSet();
     }
     
-    /** infoWeight: Map of arcs ranked according to their info-value from high 
+    /** infoWeight: Ranking of arcs according to their info-value from high 
      * to low. This is the mean of all arc info-values in the documents where 
-     * the arc was involved in.
-     * @param arcMap : HashMap with arc key (String) as key; value: SortedSet 
+     * the arc was involved in. Arcs with an equal info-value are ranked on 
+     * their arc key. The ranking is ordered as far as it is read.
+     * @param arcMap : LongHashMap with arc key (long) as key; value: SortedSet 
      * of doc-ids (Integer).
-     * @return a LinkedHashMap with the arc key (String) as key and the info 
-     * value (Double) of that arc as value.
+     * @return a Ranking with the arc key (long) as identifier and the info 
+     * value (double) of that arc as score.
      */
-    private LinkedHashMap infoWeight(Map arcMap)
+    private Ranking infoWeight(LongHashMap arcMap)
     {
-        Map weightMap = new HashMap();
-        Iterator arc_itr = arcMap.keySet().iterator();
-        while(arc_itr.hasNext())
+        Ranking weightRanking = new Ranking(0);
+        long[] arcKeys = arcMap.keys();
+        for(int i = 0; i < arcKeys.length; i++)
         {
             double arcWeight = 0;
-            String arcKey = arc_itr.next().toString();
+            long arcKey = arcKeys[i];
             SortedSet tmpDocSet = (TreeSet) arcMap.get(arcKey);
             int count = 0;
             // Iterates over the whole docMap.
@@ -220,43 +217,11 @@ public class FacetMaker implements Serializable
             // Computes the mean info-value for this arc over all the documents
             // it is involved in.
             arcWeight = arcWeight / count;
-            if(arcWeight > 0)
-            {
-                // Puts the info-value and the arc key in a map. Changes equal 
-                // keys slightly with a small random number to avoid data loss.
-                if(weightMap.containsKey(arcWeight))
-                {
-                    double n = Math.random() / 100000;
-                    arcWeight += n;
-                }
-                weightMap.put(arcWeight, arcKey);
-            }
+            if(arcWeight > 0) weightRanking.add(arcKey, arcWeight);
         }
-        // Sorts the weightMap from high to low by the 'infoValue' comparator.
-        TreeMap tm = new TreeMap(infoValue);
-        tm.putAll(weightMap);
-        // Reversing the map while observing the ordering to get the arc key 
-        // in front as key.
-        LinkedHashMap newMap = new LinkedHashMap();
-        Iterator tree_itr = tm.keySet().iterator();
-        while(tree_itr.hasNext())
-        {
-            Double arcValue = (Double) tree_itr.next();
-            String arcKey = tm.get(arcValue).toString();
-            newMap.put(arcKey, arcValue);
-        }
-        return newMap;
+        return weightRanking;
     }
     
-    /** Comparator sorts the weight map on the info-value from high to low.
-     */
-    private final Comparator infoValue = (Comparator) (Object o1, Object o2) ->
-    {
-        Double w1 = (Double) o1;
-        Double w2 = (Double) o2;
-        return w2.compareTo(w1);
-    };
-    
     /** showTopics: Calls the FacetViewer to prepare the results of the topic
      * selection for presentation in the GUI.
      * @param noLabels : if boolean 'true' no labels will be retrieved.
@@ -365,7 +330,7 @@ public class FacetMaker implements Serializable
     /** getArcSets: Returns a map with for every unitKey a set of arcs that 
      * defined a topical facet.
      * @return LinkedHashMap with a topical facet key (Integer) and a 
-     * LinkedHashSet of arc keys (String) as value.
+     * LinkedHashSet of arc keys (Long) as value.
      */
     public LinkedHashMap getArcSets()
     {
@@ -691,7 +691,7 @@ public final class FinalViewer extends JPanel
     
     /** prepareKeywords: Returns a selected maximum of keywords typical 
      * for a semantic cluster.
-     * @param arcSet : HashSet with arc-keys (String) to be rendered as labels.
+     * @param arcSet : HashSet with arc-keys (Long) to be rendered as labels.
      * @return String with keywords.
      */
     private String prepareKeywords(Set arcSet)
@@ -716,7 +716,7 @@ public final class FinalViewer extends JPanel
      * These are arcs that appear in as many documents as possible.
      * @param clusterSet : HashSet of doc-ids (Integer) that make up a cluster.
      * @param maxWords : the maximum number (int) of arcs to return.
-     * @return a List with arc-keys (String) to be rendered as labels and 
+     * @return a List with arc-keys (Long) to be rendered as labels and 
      * shown in the GUI.
      */
     private List selectArcs(Set clusterSet, int maxWords)
@@ -743,8 +743,8 @@ public final class FinalViewer extends JPanel
         // low frequency up to the maximum allowed.
         for(int i = 0; i < maxWords && !tmpList.isEmpty(); i++)
         {
-            String highArc = getHighFrequent(tmpList);
-            if(!highArc.equals("")) arcList.add(i, highArc);
+            Object highArc = getHighFrequent(tmpList);
+            if(highArc != null) arcList.add(i, highArc);
             List thisString = new ArrayList();
             thisString.add(highArc);
             tmpList.removeAll(thisString);
@@ -754,17 +754,17 @@ public final class FinalViewer extends JPanel
     
     /** getHighFrequent: Return the arcKey with the highest frequency in this 
      * list.
-     * @param arcList : ArrayList with arckeys (String);
-     * @return arc (String) with the highest frequency in this list.
+     * @param arcList : ArrayList with arckeys (Long);
+     * @return arc key (Long) with the highest frequency in this list or null.
      */
-    private String getHighFrequent(List arcList)
+    private Object getHighFrequent(List arcList)
     {
         int high = 0;
-        String arc = "";
+        Object arc = null;
         Iterator arc_itr = arcList.listIterator();
         while(arc_itr.hasNext())
         {
-            String arcKey = arc_itr.next().toString();
+            Object arcKey = arc_itr.next();
             int freq = Collections.frequency(arcList, arcKey);
             if(freq > high)
             {
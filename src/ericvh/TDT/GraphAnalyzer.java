@@ -9,7 +9,6 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.TreeSet;
 
 
@@ -99,7 +98,7 @@ public class GraphAnalyzer implements Serializable
         {
             int docNr = ((Integer)docNrs_itr.next());
             // Sorts the info arcsMap on the final value of the document.
-            Map newArcMap = constructImportantArcs(docNr);
+            LongHashMap newArcMap = constructImportantArcs(docNr);
             if(!newArcMap.isEmpty()) mInfoArcs.put(docNr, newArcMap);
             // Updates progressbar on the GUI.
             ApplicationManager.setFileCount(1);
@@ -183,34 +182,31 @@ public class GraphAnalyzer implements Serializable
      * but not in another; vertices can also be present in one document but 
      * not in another of the same collection.
      * @param docNr : the unique document number (int)
-     * @return HashMap with informative arcs in this document
+     * @return LongHashMap with informative arcs in this document
      */
-    private Map constructImportantArcs(int docNr)
+    private LongHashMap constructImportantArcs(int docNr)
     {
         // The collection key for this document.
         String collKey = ct.getDocsCollectionKey(docNr);
         // Map with all the informative vertices in this collection.
         Map vertexMap = (HashMap) mInfoVertexMap.get(collKey);
         // Map to collect the newly formed informative arcs.
-        Map allInfoArcs = new HashMap();
+        LongHashMap allInfoArcs = new LongHashMap();
         // Temporary list to collect all full arcs (having a real vertex on 
         // both sides).
         List tmpFullArcList = new ArrayList();
-        // Iterates over the sortedMap with arc postions in this document 
-        // as key and the arc as value.
-        SortedMap positionMap = mArcTable.getArcPositions(docNr);
-        Iterator pos_itr = positionMap.keySet().iterator();
-        while(pos_itr.hasNext())
+        // Iterates over the arcs of this document in the order of their 
+        // position in the text.
+        ArcIndex arcIndex = mArcTable.getArcIndex(docNr);
+        for(int i = 0; i < arcIndex.size(); i++)
         {
             boolean isInfoArc = true;
             // The position of this arc in the text.
-            Integer position = (Integer) pos_itr.next();
-            // Retrieves the existing arc at this position in this doc.
-            Arc currentArc = (Arc) positionMap.get(position);
+            int position = arcIndex.getPosition(i);
             // Checks if one or both of the two vertices of this arc is an 
             // infoVertex.
-            int firstIdx = currentArc.getVertex1Index();
-            int secondIdx = currentArc.getVertex2Index();
+            int firstIdx = arcIndex.getVertex1(i);
+            int secondIdx = arcIndex.getVertex2(i);
             boolean first = vertexMap.containsKey(firstIdx);
             boolean second = vertexMap.containsKey(secondIdx);
             // Both elements of the arc are infoVertices.
@@ -236,7 +232,7 @@ public class GraphAnalyzer implements Serializable
             if(isInfoArc)
             {
                 Arc newArc = new Arc(position, firstIdx, secondIdx, docNr, 0);
-                String arcKey = firstIdx + "*" + secondIdx;
+                long arcKey = ArcKey.makeKey(firstIdx, secondIdx);
                 // Adjust the informative arc value with the info value of 
                 // its vertices.
                 newArcsTable.adjustThisArcWeight(newArc);
@@ -335,8 +331,8 @@ public class GraphAnalyzer implements Serializable
     
     /** getFinalArcsMap: Getter returns infoArcMap, a map with the final 
      * informative arcs.
-     * @return HashMap with for every docNr (Integer) a HashMap as value with 
-     * an arc key (String) and the arcs (Arc) with an informative content.
+     * @return HashMap with for every docNr (Integer) a LongHashMap as value with 
+     * an arc key (long) and the arcs (Arc) with an informative content.
      */
     public Map getFinalArcsMap()
     {
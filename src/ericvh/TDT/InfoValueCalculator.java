@@ -1,12 +1,15 @@
 package ericvh.TDT;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 
 /** Class InfoValueCalculator computes the informative weight of a token and the
@@ -23,14 +26,23 @@ import java.util.SortedSet;
  * used frequently in other texts carry less information on a specific subject. 
  * Words with a high TfIdf mark are relatively rare in a given collection and 
  * thus tend to tell something about the content of that text. 
+ * With more than one worker thread the vertices are divided in ranges over a
+ * fork/join pool. Every range sums the info values per collection on its own;
+ * the sums of the ranges are added in the order of the ranges before the 
+ * cutOff values are set. With 'Exact sums' the ranges keep the values 
+ * instead and these are added one by one in the order of a sequential run, 
+ * so the sums are the same to the last bit.
+ * In an incremental run only the collections with new documents are computed
+ * from the text graphs. The sums behind the info value of a vertex (its 
+ * documents, summed link frequency and summed maximum links) are kept in the
+ * CollectionData; the other collections take their info values from these
+ * sums and keep their running totals.
  * @author  Eric Van Horenbeeck
  * Created on 14 juli 2004, 18:47
  * Revision: Sep 26, 2006
  */
 public class InfoValueCalculator implements Serializable
 {
-    // Vertex a point in this graph.
-    private Vertex mCurrentVertex;
     // Table with collections and its members.
     private final CollectionTable mCollT;
     // Table with information on documents.
@@ -44,6 +56,9 @@ public class InfoValueCalculator implements Serializable
     // Flag to choose between the classic token frequency or the token link
     // based frequency.
     private final boolean classic;
+    // The collection keys computed from the text graphs in an incremental 
+    // run, null when all collections are computed.
+    private Set mChangedCollections;
     
     
     /** Constructor
@@ -65,6 +80,18 @@ public class InfoValueCalculator implements Serializable
         classic = false;
     }
     
+    /** setIncremental: Computes only the collections in the set from the text
+     * graphs. The other collections in the scope take their info values from
+     * the sums kept by the previous run. The sums of the computed collections
+     * are kept for the next run.
+     * @param changedCollections : the collection keys with new documents 
+     * (Set)
+     */
+    public void setIncremental(Set changedCollections)
+    {
+        mChangedCollections = changedCollections;
+    }
+    
     /** computeVertexInfoValue: Scans over documents in every collection of this 
      * dataGraph to calculate and set the final info value of every vertex. 
      * Arc weights are left as they are at this stage: a common vertex in an 
@@ -76,116 +103,445 @@ public class InfoValueCalculator implements Serializable
     {
         // Map holding all the vertices in this dataGraph.
         Map mVertexMap = ApplicationManager.getVerticesTable().getFullVerticesMap();
-        // Calculates the vertex weights (informative TFIDF value inside this
-        // dataGraph).
-        Iterator vertex_itr = mVertexMap.keySet().iterator();
-        while(vertex_itr.hasNext())
+        int workers = ApplicationManager.getWorkerNumber();
+        if (workers > 1 && mVertexMap.size() > 1)
+        {
+            computeParallel(mVertexMap, workers, 
+                    ApplicationManager.getExactSumsStatus());
+        }
+        else
         {
-            Integer vertexId = (Integer) vertex_itr.next();
-            mCurrentVertex = (Vertex) mVertexMap.get(vertexId);
-            // Digits can be excluded from further participation.
-            // if(!mLabelT.isDigit(vertexId)
-            computeInfoValue(vertexId);
+            // Receives the docs shared by a vertex and a collection.
+            int[] docBuffer = new int[0];
+            // Calculates the vertex weights (informative TFIDF value inside this
+            // dataGraph).
+            Iterator vertex_itr = mVertexMap.keySet().iterator();
+            while(vertex_itr.hasNext())
+            {
+                Integer vertexId = (Integer) vertex_itr.next();
+                Vertex vertex = (Vertex) mVertexMap.get(vertexId);
+                // Digits can be excluded from further participation.
+                // if(!mLabelT.isDigit(vertexId)
+                if (docBuffer.length < vertex.getDocNrs().length) docBuffer = 
+                        new int[vertex.getDocNrs().length];
+                Set collectionSet = new HashSet(vertex.getAllCollectionKeys());
+                Iterator collection_itr = collectionSet.iterator();
+                while (collection_itr.hasNext())
+                {
+                    String collectionKey = (String) collection_itr.next();
+                    // Unchanged collections keep their running totals.
+                    if (!isChanged(collectionKey))
+                    {
+                        restoreInfoValue(vertexId, vertex, collectionKey);
+                        continue;
+                    }
+                    double tfIdf = computeInfoValue(vertexId, vertex, 
+                            collectionKey, docBuffer);
+                    mCollT.addInfoValue(collectionKey, tfIdf);
+                }
+            }
         }
+        // Indexes the vertices of every collection for the selection of the
+        // informative tokens.
+        ApplicationManager.getVerticesTable().indexCollections();
+        // Keeps the sums per vertex of the computed collections for the next
+        // incremental run, or drops the sums that are no longer current.
+        keepInfoStats(mVertexMap);
         // Instructs the CollectionData class to calculate the final cutOff value
         // for every collection in this dataGraph that is used in the scope of 
         // this session.
         mCollT.setCutOff();
     }
     
-    /** computeInfoValue: Computes a modified TfIdf metric for this vertex over
-     * all the collections it is involved in. The info value is copied to the 
-     * tokenWeight map of the vertex where it replaces the temporary figure. 
-     * The value is also passed to collectionData to compute the overall cutOff 
-     * value (division between common tokens and the informative ones) and the 
-     * normalization factor that allows to compare infovalues from different 
-     * collections.
+    /** computeParallel: Computes the info values of all vertices on a 
+     * fork/join pool and adds the results of the ranges to the 
+     * collectionTable in the order of the vertices.
+     * @param vertexMap : the vertices of this dataGraph (Map)
+     * @param workers : the number of worker threads (int)
+     * @param exact : 'true' to add the values one by one in the order of a 
+     * sequential run (boolean)
      */
-    private void computeInfoValue(Integer vertexId)
+    private void computeParallel(Map vertexMap, int workers, boolean exact)
     {
-        // Visits every collection where this vertex is used.
-        Set collectionSet = new HashSet(mCurrentVertex.getAllCollectionKeys());
-        Iterator collection_itr = collectionSet.iterator();
-        while (collection_itr.hasNext())
+        // The vertex ids in the order of a sequential run.
+        Integer[] vertexIds = (Integer[]) vertexMap.keySet().toArray(
+                new Integer[vertexMap.size()]);
+        // Makes the lazily built tables before the workers share them.
+        Iterator coll_itr = mCollT.getAllCollectionKeys().iterator();
+        while (coll_itr.hasNext()) mCollT.getDocNrArray(coll_itr.next()
+                .toString());
+        if (classic) mTokenCount.freeze();
+        int leafSize = Math.max(64, vertexIds.length / (workers * 8));
+        InfoValueTask root = new InfoValueTask(vertexMap, vertexIds, 0,
+                vertexIds.length, leafSize, exact);
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try
         {
-            // Token or Link frequency.
-            double tokenFreq;       
-            // Relative frequency: TF over all tokens in this document.
-            double meanTokenFreq = 0.0;   
-            // The mean highest frequency or number of links in a document.
-            double meanMaxFreq = 0.0;    
-            // The mean of all tokens in the documents in a collection.
-            double meanTotalTokens = 0.0; 
-             // Modified TFIDF.
-            double tfIdf;          
-            
-            String collectionKey = (String) collection_itr.next();
-            // Gets all the document numbers in this collection.
-            SortedSet allCollectionDocs = mCollT
-                    .getDocsInCollection(collectionKey);
-            // Gets all the document numbers of this Vertex.
-            SortedSet allVertexDocs = mCurrentVertex.getAllVertexDocNrs();
-            // Intersection gives the docs of this vertex in this collection.
-            Set vertexDocSet = Algorithms.intersect(allCollectionDocs
-                    , allVertexDocs);
-            int vertexDocs = vertexDocSet.size();
-            // The number of documents in this collection.
-            int totalDocs = allCollectionDocs.size();
-            // Calculating the modified tf and the modified idf. Sums the term 
-            // frequencies from all relevant docs of this collection 
-            // (see Thorsten Joachims).
-            Iterator docNr_itr = vertexDocSet.iterator();
-            while(docNr_itr.hasNext())
+            pool.invoke(root);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        Iterator sum_itr = root.mSums.entrySet().iterator();
+        while (sum_itr.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) sum_itr.next();
+            String collectionKey = (String) entry.getKey();
+            double[] sums = (double[]) entry.getValue();
+            if (exact)
             {
-                Integer docInt = (Integer)docNr_itr.next();
-                int thisDoc = docInt;
-                // Frequency of this token (or its incoming and outgoing links)
-                // in this document.
-                int thisTokenFreq;
-                // Maximum number of tokens or maximum number of links observed 
-                // in this document.
-                int maxTokenFreq;
-                // Classic token frequency in this document.
-                if(classic)
+                for (int i = 1; i <= (int) sums[0]; i++) 
+                    mCollT.addInfoValue(collectionKey, sums[i]);
+            }
+            else mCollT.addInfoValues(collectionKey, sums);
+        }
+    }
+    
+    /** Inner class InfoValueTask computes the info values of a range of 
+     * vertices. A large range is split in two halves; when both are done 
+     * the sums of the second half are added to those of the first. 
+     */
+    private class InfoValueTask extends RecursiveAction
+    {
+        // The vertices of this dataGraph.
+        private final Map mVertexMap;
+        // The vertex ids in the order of a sequential run.
+        private final Integer[] mVertexIds;
+        // The range of this task in mVertexIds.
+        private final int mStart;
+        private final int mEnd;
+        // The largest range computed without splitting.
+        private final int mLeafSize;
+        // 'true' to keep the values instead of their sums.
+        private final boolean mExact;
+        // The results per collection key (String). Partial sums: the sum, the
+        // sum of the squares, the counter, the first value and the smallest 
+        // other value above 0.001 (double[5], see 
+        // CollectionData.addCollectionWeights); exact: the number of values 
+        // followed by the values (double[]).
+        private Map mSums;
+        
+        /** Constructor
+         * @param vertexMap : the vertices of this dataGraph (Map)
+         * @param vertexIds : the vertex ids in a fixed order (Integer[])
+         * @param start : first index of the range (int)
+         * @param end : index after the range (int)
+         * @param leafSize : the largest range computed without splitting (int)
+         * @param exact : 'true' to keep the values (boolean)
+         */
+        InfoValueTask(Map vertexMap, Integer[] vertexIds, int start, int end,
+                int leafSize, boolean exact)
+        {
+            mVertexMap = vertexMap;
+            mVertexIds = vertexIds;
+            mStart = start;
+            mEnd = end;
+            mLeafSize = leafSize;
+            mExact = exact;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if (mEnd - mStart > mLeafSize)
+            {
+                int middle = (mStart + mEnd) >>> 1;
+                InfoValueTask first = new InfoValueTask(mVertexMap, mVertexIds,
+                        mStart, middle, mLeafSize, mExact);
+                InfoValueTask second = new InfoValueTask(mVertexMap, mVertexIds,
+                        middle, mEnd, mLeafSize, mExact);
+                invokeAll(first, second);
+                mSums = first.mSums;
+                Iterator sum_itr = second.mSums.entrySet().iterator();
+                while (sum_itr.hasNext())
                 {
-                    thisTokenFreq = mTokenCount.getTokenCount(thisDoc, vertexId);
-                    // Normalizer is the maximum token count observed in 
-                    // this document.
-                    maxTokenFreq = mDocT.getMaxFrequency(thisDoc);
+                    Map.Entry entry = (Map.Entry) sum_itr.next();
+                    double[] sums = (double[]) mSums.get(entry.getKey());
+                    double[] added = (double[]) entry.getValue();
+                    if (sums == null) mSums.put(entry.getKey(), added);
+                    else if (mExact) mSums.put(entry.getKey(), 
+                            appendValues(sums, added));
+                    else addSums(sums, added);
                 }
-                // Token Link Frequency based on the number of links in this 
-                // document (default).
-                else
+                return;
+            }
+            mSums = new HashMap();
+            // Receives the docs shared by a vertex and a collection.
+            int[] docBuffer = new int[0];
+            for (int i = mStart; i < mEnd; i++)
+            {
+                Integer vertexId = mVertexIds[i];
+                Vertex vertex = (Vertex) mVertexMap.get(vertexId);
+                if (docBuffer.length < vertex.getDocNrs().length) docBuffer = 
+                        new int[vertex.getDocNrs().length];
+                Set collectionSet = new HashSet(vertex.getAllCollectionKeys());
+                Iterator collection_itr = collectionSet.iterator();
+                while (collection_itr.hasNext())
                 {
-                    thisTokenFreq = getVertexLinks(docInt, vertexId);
-                    // Normalizer is the maximum number of links observed in
-                    // this document.
-                    maxTokenFreq = mDocT.getMaxLinks(thisDoc); 
+                    String collectionKey = (String) collection_itr.next();
+                    if (!isChanged(collectionKey))
+                    {
+                        restoreInfoValue(vertexId, vertex, collectionKey);
+                        continue;
+                    }
+                    double tfIdf = computeInfoValue(vertexId, vertex, 
+                            collectionKey, docBuffer);
+                    double[] sums = (double[]) mSums.get(collectionKey);
+                    if (mExact)
+                    {
+                        if (sums == null) sums = new double[16];
+                        else if ((int) sums[0] + 1 == sums.length) 
+                            sums = Arrays.copyOf(sums, sums.length * 2);
+                        sums[(int) ++sums[0]] = tfIdf;
+                        mSums.put(collectionKey, sums);
+                    }
+                    else
+                    {
+                        if (sums == null)
+                        {
+                            sums = new double[5];
+                            mSums.put(collectionKey, sums);
+                        }
+                        addValue(sums, tfIdf);
+                    }
                 }
-                // Summed token frequency or token link frequency over all the 
-                // docs in this collection.
-                meanTokenFreq += (double) thisTokenFreq;
-                meanMaxFreq += (double) maxTokenFreq;
             }
-            // The mean TF over all the documents in this collection, normalized
-            // for document length withthe mean maximum frequency observed. 
-            // TF = 0.5 + (0.5 * TF) / maxTF.
-            meanMaxFreq = meanMaxFreq / vertexDocs;
-            meanTokenFreq = meanTokenFreq / vertexDocs;
-            tokenFreq = 0.5 + (0.5 * meanTokenFreq) / meanMaxFreq;
-            // Modified TFIDF
-            if(tokenFreq > 0.001) tfIdf = tokenFreq 
-                    * (StrictMath.log10(totalDocs / vertexDocs));
-            else tfIdf = 0;
-            // Transfers the resulting metric to the info value table of this 
-            // vertex and to the collectionTable. The value is truncated at the
-            // 5th decimal place.
-            double trunc = StrictMath.ceil(tfIdf * 100000);
-            tfIdf = trunc/ 100000;         
-            mCurrentVertex.setInfoValue(collectionKey, tfIdf);
-            mCollT.addInfoValue(collectionKey, tfIdf);         
-            // ...and the same calculation over again for the next collection 
-            // of this vertex.
+        }
+    }
+    
+    /** addValue: Adds an info value to the partial sums of a collection, 
+     * as CollectionData.addCollectionWeight does. Values that are not 
+     * positive are left out.
+     * @param sums : the partial sums (double[5])
+     * @param value : the info value of a vertex (double)
+     */
+    private static void addValue(double[] sums, double value)
+    {
+        if (value <= 0) return;
+        if (sums[2] == 0)
+        {
+            sums[3] = value;
+            sums[4] = 9999.9;
+        }
+        else if (value > 0.001 && value < sums[4]) sums[4] = value;
+        sums[0] += value;
+        sums[1] += value * value;
+        sums[2] += 1;
+    }
+    
+    /** addSums: Adds the partial sums of a later range to those of an 
+     * earlier range.
+     * @param sums : the partial sums of the earlier range (double[5])
+     * @param added : the partial sums of the later range (double[5])
+     */
+    private static void addSums(double[] sums, double[] added)
+    {
+        if (added[2] == 0) return;
+        if (sums[2] == 0)
+        {
+            System.arraycopy(added, 0, sums, 0, sums.length);
+            return;
+        }
+        sums[0] += added[0];
+        sums[1] += added[1];
+        sums[2] += added[2];
+        if (added[3] > 0.001 && added[3] < sums[4]) sums[4] = added[3];
+        if (added[4] < sums[4]) sums[4] = added[4];
+    }
+    
+    /** appendValues: Appends the values of a later range to those of an 
+     * earlier range.
+     * @param values : the number of values and the values of the earlier 
+     * range (double[])
+     * @param added : the number of values and the values of the later range
+     * (double[])
+     * @return the number of values and the values of both ranges (double[])
+     */
+    private static double[] appendValues(double[] values, double[] added)
+    {
+        int count = (int) values[0];
+        int addedCount = (int) added[0];
+        double[] all = values.length > count + addedCount ? values 
+                : Arrays.copyOf(values, count + addedCount + 1);
+        System.arraycopy(added, 1, all, count + 1, addedCount);
+        all[0] = count + addedCount;
+        return all;
+    }
+    
+    /** computeInfoValue: Computes a modified TfIdf metric for this vertex in 
+     * one of the collections it is involved in. The info value is copied to 
+     * the tokenWeight map of the vertex where it replaces the temporary figure.
+     * The value is returned to be passed to collectionData to compute the 
+     * overall cutOff value (division between common tokens and the informative
+     * ones) and the normalization factor that allows to compare infovalues 
+     * from different collections.
+     * @param vertexId : the identifier of the vertex (Integer)
+     * @param vertex : the vertex (Vertex)
+     * @param collectionKey : a collection of the vertex (String)
+     * @param docBuffer : receives the docs shared by the vertex and the 
+     * collection, at least as long as the posting list of the vertex (int[])
+     * @return the info value (double)
+     */
+    private double computeInfoValue(Integer vertexId, Vertex vertex, 
+            String collectionKey, int[] docBuffer)
+    {
+        // Relative frequency: TF over all tokens in this document.
+        double meanTokenFreq = 0.0;   
+        // The mean highest frequency or number of links in a document.
+        double meanMaxFreq = 0.0;    
+         // Modified TFIDF.
+        double tfIdf;          
+        
+        // Gets all the document numbers in this collection.
+        int[] allCollectionDocs = mCollT.getDocNrArray(collectionKey);
+        // Gets all the document numbers of this Vertex.
+        int[] allVertexDocs = vertex.getDocNrs();
+        // Intersection gives the docs of this vertex in this collection.
+        int vertexDocs = Algorithms.intersect(allCollectionDocs
+                , allVertexDocs, docBuffer);
+        // The number of documents in this collection.
+        int totalDocs = allCollectionDocs.length;
+        // Calculating the modified tf and the modified idf. Sums the term 
+        // frequencies from all relevant docs of this collection 
+        // (see Thorsten Joachims).
+        for (int d = 0; d < vertexDocs; d++)
+        {
+            int thisDoc = docBuffer[d];
+            Integer docInt = thisDoc;
+            // Frequency of this token (or its incoming and outgoing links)
+            // in this document.
+            int thisTokenFreq;
+            // Maximum number of tokens or maximum number of links observed 
+            // in this document.
+            int maxTokenFreq;
+            // Classic token frequency in this document.
+            if(classic)
+            {
+                thisTokenFreq = mTokenCount.getTokenCount(thisDoc, vertexId);
+                // Normalizer is the maximum token count observed in 
+                // this document.
+                maxTokenFreq = mDocT.getMaxFrequency(thisDoc);
+            }
+            // Token Link Frequency based on the number of links in this 
+            // document (default).
+            else
+            {
+                thisTokenFreq = getVertexLinks(docInt, vertexId);
+                // Normalizer is the maximum number of links observed in
+                // this document.
+                maxTokenFreq = mDocT.getMaxLinks(thisDoc); 
+            }
+            // Summed token frequency or token link frequency over all the 
+            // docs in this collection.
+            meanTokenFreq += (double) thisTokenFreq;
+            meanMaxFreq += (double) maxTokenFreq;
+        }
+        if (mChangedCollections != null) vertex.setInfoStats(collectionKey,
+                vertexDocs, (int) meanTokenFreq, (int) meanMaxFreq);
+        // Transfers the resulting metric to the info value table of this 
+        // vertex.
+        tfIdf = tfIdf(meanTokenFreq, meanMaxFreq, vertexDocs, totalDocs);
+        vertex.setInfoValue(collectionKey, tfIdf);
+        return tfIdf;
+    }
+    
+    /** tfIdf: Computes the modified TfIdf metric from the sums of a vertex in
+     * a collection. The value is truncated at the 5th decimal place.
+     * @param sumTokenFreq : the summed token (link) frequency (double)
+     * @param sumMaxFreq : the summed maximum frequency of the documents 
+     * (double)
+     * @param vertexDocs : the documents of the vertex in the collection (int)
+     * @param totalDocs : the documents in the collection (int)
+     * @return the info value (double)
+     */
+    private static double tfIdf(double sumTokenFreq, double sumMaxFreq, 
+            int vertexDocs, int totalDocs)
+    {
+        // Token or Link frequency.
+        double tokenFreq;
+         // Modified TFIDF.
+        double tfIdf;          
+        // The mean TF over all the documents in this collection, normalized
+        // for document length withthe mean maximum frequency observed. 
+        // TF = 0.5 + (0.5 * TF) / maxTF.
+        double meanMaxFreq = sumMaxFreq / vertexDocs;
+        double meanTokenFreq = sumTokenFreq / vertexDocs;
+        tokenFreq = 0.5 + (0.5 * meanTokenFreq) / meanMaxFreq;
+        // Modified TFIDF
+        if(tokenFreq > 0.001) tfIdf = tokenFreq 
+                * (StrictMath.log10(totalDocs / vertexDocs));
+        else tfIdf = 0;
+        double trunc = StrictMath.ceil(tfIdf * 100000);
+        return trunc/ 100000;         
+    }
+    
+    /** isChanged: Returns 'true' if the info values of this collection are 
+     * computed from the text graphs.
+     * @param collectionKey : a collection key (String)
+     * @return boolean 'true' for a full run or a collection with new 
+     * documents.
+     */
+    private boolean isChanged(String collectionKey)
+    {
+        return mChangedCollections == null 
+                || mChangedCollections.contains(collectionKey);
+    }
+    
+    /** restoreInfoValue: Sets the info value of a vertex in an unchanged 
+     * collection from the sums kept in the collectionTable. The value is not
+     * added to the running totals of the collection, these are kept as well.
+     * @param vertexId : the identifier of the vertex (Integer)
+     * @param vertex : the vertex (Vertex)
+     * @param collectionKey : a collection of the vertex (String)
+     */
+    private void restoreInfoValue(Integer vertexId, Vertex vertex, 
+            String collectionKey)
+    {
+        int[] stats = mCollT.getInfoStats(collectionKey, vertexId);
+        if (stats == null) stats = new int[3];
+        vertex.setInfoStats(collectionKey, stats[0], stats[1], stats[2]);
+        vertex.setInfoValue(collectionKey, tfIdf(stats[1], stats[2], stats[0],
+                mCollT.getDocNrArray(collectionKey).length));
+    }
+    
+    /** keepInfoStats: Moves the sums per vertex of the collections computed 
+     * in an incremental run from the vertices to the collectionTable. After a
+     * full run the sums of the collections in the scope are removed.
+     * @param vertexMap : the vertices of this dataGraph (Map)
+     */
+    private void keepInfoStats(Map vertexMap)
+    {
+        if (mChangedCollections == null)
+        {
+            Iterator coll_itr = mCollT.getScopeCollectionKeys().iterator();
+            while (coll_itr.hasNext()) 
+                mCollT.clearInfoStats(coll_itr.next().toString());
+            return;
+        }
+        // The vertices of every collection come sorted from the index.
+        VerticesTable vt = ApplicationManager.getVerticesTable();
+        Iterator coll_itr = mChangedCollections.iterator();
+        while (coll_itr.hasNext())
+        {
+            String collectionKey = coll_itr.next().toString();
+            int[] vertexIds = vt.getCollectionVertices(collectionKey);
+            int[][] stats = new int[4][vertexIds.length];
+            int n = 0;
+            for (int i = 0; i < vertexIds.length; i++)
+            {
+                Vertex vertex = (Vertex) vertexMap.get(vertexIds[i]);
+                int[] vertexStats = vertex.getInfoStats(collectionKey);
+                if (vertexStats == null) continue;
+                stats[0][n] = vertexIds[i];
+                stats[1][n] = vertexStats[0];
+                stats[2][n] = vertexStats[1];
+                stats[3][n] = vertexStats[2];
+                n++;
+            }
+            mCollT.setInfoStats(collectionKey, Arrays.copyOf(stats[0], n), 
+                    Arrays.copyOf(stats[1], n), Arrays.copyOf(stats[2], n),
+                    Arrays.copyOf(stats[3], n));
         }
     }
     
@@ -5,13 +5,20 @@ import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 /** Class InformativeTokens selects the informative tokens by comparing the 
@@ -19,6 +26,9 @@ import java.util.SortedMap;
  * its collection. The cutOff value range is a zone plus or minus the standard 
  * deviation around the mean of the summed weight (info value) of all token-types
  * in a collection.
+ * Every collection is scanned over its own vertices only, taken from the 
+ * collection index of the VerticesTable. With more than one worker thread the
+ * collections are selected in parallel.
  * @author  Eric Van Horenbeeck
  * Created on 16 september 2004, 0:06
  * Revision: Sep 27, 2006
@@ -31,16 +41,13 @@ public class InformativeTokens implements Serializable
     private Map mInformativeTokenMap;
     // Map holding the rejected token-types per collection in this dataGraph.
     private Map mRejectedTokenMap;
-    private Map mRejectedMap;
     // Map with token count per collection.
     private Map mTokenCountMap;
     // CollectionTable with information on the collection level of this dataGraph.
     private final CollectionTable mCollTable;
-    // Baseline contains an array of approx. 250 common words in the language 
+    // Baseline contains the ids of approx. 250 common words in the language 
     // of the current session.
-    private final ArrayList<Integer> mBaseLineArray;
-    // Instance of the Algorithms class with frequently used general methods.
-    private final Algorithms alg = new Algorithms();
+    private final BitSet mBaseLine;
     // Using the common words baseline filter as set by the user.
     private final boolean mUseBaseLIne;
     
@@ -56,7 +63,13 @@ public class InformativeTokens implements Serializable
     {
         mVerticesTable = ApplicationManager.getVerticesTable();
         mCollTable = ApplicationManager.getCollTable();
-        mBaseLineArray = ApplicationManager.getBaseLine();
+        mBaseLine = new BitSet();
+        ArrayList<Integer> baseLineArray = ApplicationManager.getBaseLine();
+        for (int i = 0; i < baseLineArray.size(); i++)
+        {
+            // The array starts with a placeholder -1.
+            if (baseLineArray.get(i) >= 0) mBaseLine.set(baseLineArray.get(i));
+        }
         mUseBaseLIne = runBaseline;
     }
     
@@ -72,12 +85,70 @@ public class InformativeTokens implements Serializable
         //Selects informative tokens in each collection inside the scope of
         // this session.
         Set collectionKeys = mCollTable.getScopeCollectionKeys();
+        int workers = ApplicationManager.getWorkerNumber();
+        if (workers > 1 && collectionKeys.size() > 1)
+        {
+            collectParallel(collectionKeys, workers);
+            return;
+        }
         Iterator coll_itr = collectionKeys.iterator();
         while(coll_itr.hasNext())
         {
             String collKey = coll_itr.next().toString();
-            mInformativeTokenMap.put(collKey, setInformativeTokens(collKey));
-            mRejectedTokenMap.put(collKey, getRejectedTokens());
+            Map nonInfoMap = new HashMap();
+            mInformativeTokenMap.put(collKey, setInformativeTokens(collKey, 
+                    nonInfoMap));
+            mRejectedTokenMap.put(collKey, nonInfoMap);
+            mTokenCountMap.put(collKey, 
+                    mVerticesTable.getCollectionVertices(collKey).length);
+        }
+    }
+    
+    /** collectParallel: Selects the informative and rejected tokens of the 
+     * collections on a pool of worker threads. The results are put in the 
+     * maps by the calling thread.
+     * @param collectionKeys : the collection keys in the scope (Set)
+     * @param workers : the number of worker threads (int)
+     */
+    private void collectParallel(Set collectionKeys, int workers)
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try
+        {
+            Map results = new HashMap();
+            Iterator coll_itr = collectionKeys.iterator();
+            while(coll_itr.hasNext())
+            {
+                final String collKey = coll_itr.next().toString();
+                final Map nonInfoMap = new HashMap();
+                Callable task = () -> setInformativeTokens(collKey, nonInfoMap);
+                results.put(collKey, new Object[] {pool.submit(task), 
+                    nonInfoMap});
+            }
+            Iterator result_itr = results.entrySet().iterator();
+            while(result_itr.hasNext())
+            {
+                Map.Entry entry = (Map.Entry) result_itr.next();
+                String collKey = (String) entry.getKey();
+                Object[] result = (Object[]) entry.getValue();
+                mInformativeTokenMap.put(collKey, ((Future) result[0]).get());
+                mRejectedTokenMap.put(collKey, result[1]);
+                mTokenCountMap.put(collKey, 
+                        mVerticesTable.getCollectionVertices(collKey).length);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            throw new RuntimeException(e.getCause());
+        }
+        finally
+        {
+            pool.shutdown();
         }
     }
     
@@ -116,131 +187,123 @@ public class InformativeTokens implements Serializable
     }
     
     /** getSortedInfoMap: Returns a map sorted on the info weight of the 
-     * token-types for this collection. Key: sorted infoweight (Double),
-     * value: the token-id (Integer).
+     * token-types for this collection, from low to high. Key: infoweight 
+     * (Double), value: the set of token-ids (Integer) with that weight. The 
+     * order is taken from a Ranking of the token-ids.
      * @param collKey : this collection key (String).
      * @param infoTokens : boolean 'true' expects infoTokens, 'false' expects 
      * rejected tokens.
      * @return reversed map sorted on the info weight of the token-types for 
      * this collection
      */
-    private SortedMap getSortedInfoMap(String collKey, boolean infoTokens)
+    private Map getSortedInfoMap(String collKey, boolean infoTokens)
     {
-        SortedMap sortedInfoMap = alg.valueSortedMap(getCollectionTokenMap(collKey, 
-                infoTokens));
+        Map tokenMap = getCollectionTokenMap(collKey, infoTokens);
+        Ranking ranking = new Ranking(0);
+        Iterator token_itr = tokenMap.entrySet().iterator();
+        while(token_itr.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) token_itr.next();
+            ranking.add((Integer) entry.getKey(), (Double) entry.getValue());
+        }
+        long[] tokenIds = ranking.getIds();
+        double[] weights = ranking.getScores();
+        Map sortedInfoMap = new LinkedHashMap();
+        Set tokenSet = null;
+        for(int r = tokenIds.length - 1; r >= 0; r--)
+        {
+            if(r == tokenIds.length - 1
+                    || Double.compare(weights[r], weights[r + 1]) != 0)
+            {
+                tokenSet = new LinkedHashSet();
+                sortedInfoMap.put(weights[r], tokenSet);
+            }
+            tokenSet.add((int) tokenIds[r]);
+        }
         return sortedInfoMap;
     }
     
     /** setInformativeTokens: Selects the token-types of high informative value
-     * for this collection. Rejected tokens are saved for inspection in the 
-     * mRejectedTokenMap with the same structure as the mInformativeTokenMap.
+     * for this collection. Rejected tokens are put in the nonInfoMap, which is
+     * saved for inspection in the mRejectedTokenMap with the same structure as
+     * the mInformativeTokenMap. Only the vertices of this collection are
+     * visited.
      * @param collKey : key to this collection (String).
+     * @param nonInfoMap : receives the rejected token-types (Integer) with 
+     * their info values (Double) (Map).
      * @return Hashmap with the informative token-types (Integer) from this 
      * collection with their info values (double).
      */
-    private Map setInformativeTokens(String collKey)
+    private Map setInformativeTokens(String collKey, Map nonInfoMap)
     {
-        int count = 0;
         String collectionKey = collKey;
         // Motivation for setting an upper and lower boundary is that labels 
         // in the middle of the links-curve are more informative than at the 
         // extremes. See Small World texts.
         double[] boundArray = getInfoRange(collectionKey);
         double vrtxValue;
-        double noise;
+        // Background noise is subtracted from the info value.
+        double noise = mCollTable.getBackgroundNoise(collKey);
         Map tempTokenMap = new HashMap();
-        Map nonInfoMap = new HashMap();
         Vertex currentVertex;
-        Map vertices = mVerticesTable.getFullVerticesMap();
         // Iterates over all vertices in this collection.
-        Iterator vertex_itr = vertices.keySet().iterator();
-        while (vertex_itr.hasNext())
+        int[] vertexIds = mVerticesTable.getCollectionVertices(collectionKey);
+        for (int i = 0; i < vertexIds.length; i++)
         {
-            Integer vKey = (Integer) vertex_itr.next();
-            currentVertex = (Vertex) vertices.get(vKey);
-            // Checks first if this vertex is a member of this collection.
-            if (currentVertex.getAllCollectionKeys().contains(collectionKey))
+            Integer vKey = vertexIds[i];
+            currentVertex = mVerticesTable.getThisVertex(vKey);
+            vrtxValue = currentVertex.getInfoValue(collectionKey) - noise;
+            // Puts informative tokens (index) and their info values in a
+            // temporary map.
+            // If the BaseLineArray is used, the following happens:
+            if (mUseBaseLIne)
             {
-                // Background noise is subtracted from the info value.
-                noise = mCollTable.getBackgroundNoise(collKey);
-                //  System.out.println("Noise: " + noise);
-                vrtxValue = currentVertex.getInfoValue(collectionKey) - noise;
-                // Puts informative tokens (index) and their info values in a
-                // temporary map.
-                // If the BaseLineArray is used, the following happens:
-                if (mUseBaseLIne)
+                // Collecting of rejected tokens: all the words found in the
+                // BaseLineArray, regardless of their calculated values.
+                if (mBaseLine.get(vertexIds[i]))
                 {
-                    // Collecting of rejected tokens: all the words found in the
-                    // BaseLineArray, regardless of their calculated values.
-                    if (mBaseLineArray.contains(vKey))
-                    {
-                        // Rejected tokens get the lower bound value minus an
-                        // arbitrarily small decimal putting them under the low 
-                        // boundary.
-                        nonInfoMap.put(vKey, boundArray[2] - 0.01);
-                    } else // Words not in the BaseLineArray...
-                    {
-                        // .. with a value > the lower threshold, keep their 
-                        // calculated value.
-                        if (vrtxValue >= boundArray[2])
-                        {
-                            tempTokenMap.put(vKey, vrtxValue);
-                        } // Not in the BaseLineArray with a low value, due to their 
-                        // high frequency in this collection and for that reason 
-                        // presumed informative...
-                        else
-                        {
-                            // are getting the mean value.
-                            tempTokenMap.put(vKey, boundArray[0]);
-                        }
-
-                    }
-                // Using the normal calculation when the corpus is well-balanced,
-                // i.e., containing documents on a variety of general subjects.
-                // The vertices keep their values as calculated by the 
-                // InfoValueCalculator class if the vrtxValue is greater than
-                // boundArray[2], the lower bound.
-                } else
+                    // Rejected tokens get the lower bound value minus an
+                    // arbitrarily small decimal putting them under the low 
+                    // boundary.
+                    nonInfoMap.put(vKey, boundArray[2] - 0.01);
+                } else // Words not in the BaseLineArray...
                 {
-                    if (vrtxValue > boundArray[2])
+                    // .. with a value > the lower threshold, keep their 
+                    // calculated value.
+                    if (vrtxValue >= boundArray[2])
                     {
                         tempTokenMap.put(vKey, vrtxValue);
-                    } else
+                    } // Not in the BaseLineArray with a low value, due to their 
+                    // high frequency in this collection and for that reason 
+                    // presumed informative...
+                    else
                     {
-                        nonInfoMap.put(vKey, vrtxValue);
+                        // are getting the mean value.
+                        tempTokenMap.put(vKey, boundArray[0]);
                     }
+
+                }
+            // Using the normal calculation when the corpus is well-balanced,
+            // i.e., containing documents on a variety of general subjects.
+            // The vertices keep their values as calculated by the 
+            // InfoValueCalculator class if the vrtxValue is greater than
+            // boundArray[2], the lower bound.
+            } else
+            {
+                if (vrtxValue > boundArray[2])
+                {
+                    tempTokenMap.put(vKey, vrtxValue);
+                } else
+                {
+                    nonInfoMap.put(vKey, vrtxValue);
                 }
-                count++;
             }
         }
-        // Keeps the number of token-types seen per collection.
-        mTokenCountMap.put(collKey, count);
         // Returns the temporay map after processing all vertices of this 
         // collection.
-        setRejectedTokens(nonInfoMap);
         return tempTokenMap;
     }
     
-    /** setRejectedTokens: Vertices from one collection that did not meet the
-     * info value limit.
-     * @param rejectedMap : HashMap with vertex-ids as key (Integer) and info 
-     * values as value (Double).
-     */
-    private void setRejectedTokens(Map rejectedMap)
-    {
-        mRejectedMap = rejectedMap;
-    }
-    
-    /** getRejectedTokens: Returns map with vertices under the info value limit 
-     * from one collection.
-     * @return HashMap with vertex-ids as key (Integer) and the info values as 
-     * value (Double).
-     */
-    private Map getRejectedTokens()
-    {
-        return mRejectedMap;
-    }
-    
     /** getInformativeTokenString: Shows all the informative tokens in this 
      * dataGraph on screen.
      * @param countOnly : boolean 'true' will give only the number of tokens 
@@ -281,7 +344,7 @@ public class InformativeTokens implements Serializable
         Iterator collection_itr =  tokenMap.keySet().iterator();
         while(collection_itr.hasNext())
         {
-            SortedMap sortTokenMap;
+            Map sortTokenMap;
             String collKey = collection_itr.next().toString();
             sortTokenMap = getSortedInfoMap(collKey, infoTokens);
             tokenString += tokensToString(collKey, sortTokenMap, nf, countOnly,
@@ -18,7 +18,6 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.SortedSet;
@@ -37,16 +36,13 @@ import org.apache.commons.io.FilenameUtils;
 public class InputOutput implements Serializable
 {
     private final String separator = System.getProperty("file.separator");
-    private final String newline = "\n";
-    // Regex patterns.
+    // Regex pattern for the tokenized files in text format.
     private final Pattern stringP = Pattern.compile("\\s(.*?)\\s |(\\d)+");
-    private final Pattern countP = Pattern.compile("\\,");
-    // The highest frequency of a token in a textfile.
-    private int mMaxFrequency = 0;
     // Instance of DocStats holds some simple statistics on a file.
     private DocStats docData;
-    // Dictionary with the internal filename (Key) and the original filename (Value).
-    public static TreeMap allOriginalFilenames = new TreeMap();
+    // Dictionary with the internal filename (Key) and the original filename 
+    // (Value). Preprocessing workers synchronize on this map.
+    public static final TreeMap allOriginalFilenames = new TreeMap();
     
     /** Default Constructor called by the ApplicationManager.
      */
@@ -64,13 +60,24 @@ public class InputOutput implements Serializable
      * holding for every token a label-id, its position in the document and a 
      * source-date key of the collection it belongs to, the data for the
      * docTable and a collectionKey. GraphBuilder will distribute this information
-     * to all the classes concerned.
+     * to all the classes concerned. A file in the binary format gives a 
+     * TokenSegment instead of the list with TextTokens.
      * @throws Exception not specified
      */
     public List makeTokenArray(String filePath, int docNr) throws Exception
     {
         // The path to the file to be processed.
         File fullFilePath = new File(filePath);
+        // Binary tokenized files are decoded without TextToken objects.
+        if(fullFilePath.canRead() && TokenSegment.isBinary(fullFilePath))
+        {
+            TokenSegment segment = TokenSegment.read(fullFilePath);
+            List dataPackage = new ArrayList(3);
+            dataPackage.add(segment);
+            dataPackage.add(segment.getDocStats(fullFilePath.getName()));
+            dataPackage.add(setCollectionKey(filePath));
+            return dataPackage;
+        }
         // Array to hold all textTokens
         List text_tokens = new ArrayList();
         // Key to the collection this file belongs to.
@@ -153,7 +160,7 @@ public class InputOutput implements Serializable
      * @param path : the full file path (String)
      * @return the collectionKey (String)
      */
-    private String setCollectionKey(String path)
+    public String setCollectionKey(String path)
     {
         StringBuilder sourceDate = new StringBuilder();
         String tmpFile = path.substring(path.lastIndexOf(separator) + 1,
@@ -245,6 +252,19 @@ public class InputOutput implements Serializable
         return map;
     }
     
+    /** readArcsMap: Reads a map with the arcs per document from a file on
+     * disk. The arc maps of an earlier version, with String keys "v1*v2", are
+     * converted to a LongHashMap with the ArcKey.
+     * @param filePath : the full path to the file (String)
+     * @throws Exception not specified
+     * @return the map from disk, doc-id (Integer) as key and a LongHashMap as
+     * value.
+     */
+    public Map readArcsMap(String filePath) throws Exception
+    {
+        return ArcKey.toArcMaps(readMap(filePath));
+    }
+    
      /** readTreeMap: Reads a TreeMap from a file on disk.
      * @param filePath : the full path to the file (String)
      * @throws Exception not specified
@@ -275,6 +295,21 @@ public class InputOutput implements Serializable
         return map;
     }
     
+    /** readManifest: Reads the PreprocessManifest from a file on disk.
+     * @param filePath : the full path to the file (String)
+     * @throws Exception not specified
+     * @return the manifest from disk
+     */
+    public PreprocessManifest readManifest(String filePath) throws Exception
+    {
+        PreprocessManifest manifest;
+        try (FileInputStream inStream = new FileInputStream(filePath)) {
+            ObjectInputStream in = new ObjectInputStream(inStream);
+            manifest = (PreprocessManifest) in.readObject();
+        }
+        return manifest;
+    }
+    
     /** readLinkedHashMap: Reads a LinkedHashMap from a file on disk.
      * @param filePath : the full path to the file (String)
      * @throws Exception not specified
@@ -397,74 +432,54 @@ public class InputOutput implements Serializable
         }
     }
     
+    /** addOriginalFilename: Adds a preprocessed file to the dictionary with 
+     * the filename used in this application (Key) and the orginal filename 
+     * (Value). Called by the WorkFiles Class, also when no tokenized file is 
+     * written.
+     * @param outFile : the internal filename (String)
+     * @param sourcePath : full path of the original file (String)
+     */
+    public static void addOriginalFilename(String outFile, String sourcePath)
+    {
+        int index = sourcePath.lastIndexOf("\\");
+        String orgFilename = sourcePath.substring(index + 1);
+        synchronized (allOriginalFilenames)
+        {
+            allOriginalFilenames.put(FilenameUtils.removeExtension(outFile),
+                    orgFilename);
+        }
+    }
+    
     /** writeTokenizedText: Writes the parsed and tokenized text file with its 
-     * indices (positions) to disk. The last record gives maximum token frequency,
-     * total tokens and total token-types. Called by the WorkFiles Class at 
-     * the end of the Preprocessing Task.
+     * indices (positions) to disk in the binary format of TokenSegment. The
+     * trailer gives maximum token frequency, total tokens and total 
+     * token-types. Called by the WorkFiles Class at the end of the 
+     * Preprocessing Task. Safe to call from several 
+     * preprocessing workers at the same time.
      * @param outMap : the text file after preprocessing (Map)
+     * @param outDir : destination directory (String)
      * @param outFile : destination filename (String)
      * @param totTokens : total number of tokens in this document (int)
      * @param totTypes : tot number of token-types in this document (int)
      * @throws IOException
      */
-    public void writeTokenizedText(Map outMap, String outFile, int totTokens, 
-            int totTypes) throws IOException
+    public void writeTokenizedText(Map outMap, String outDir, String outFile, 
+            int totTokens, int totTypes) throws IOException
     {
-        String fileName = ApplicationManager.getDataPath() + separator + outFile;
-        String fullPath = TikaParser.getPath();
-        int index = fullPath.lastIndexOf("\\");
-        
-        // Dictionary with filename used in this application (Key) and the 
-        // orginal filename (Value)       
-        String orgFilename = fullPath.substring(index + 1);
-        allOriginalFilenames.put(FilenameUtils.removeExtension(outFile),orgFilename);
-        
-      //  File file = new File(fileName);
+        String fileName = outDir + separator + outFile;
         if(!outMap.isEmpty())
         {
-            try ( PrintWriter out = new PrintWriter(fileName)) {
-                List types = new ArrayList(outMap.keySet());
-                ListIterator iter = types.listIterator();
-                while (iter.hasNext()) {
-                    Object elem = iter.next();
-                    String occurr = outMap.get(elem).toString();
-                    // Looks for the maximum token-frequency.
-                    countFrequency(occurr);
-                    out.println(" " + elem + "  " + occurr + newline);
-                }
-                // The last line holds the file statistics. It starts with a 
-                // non-alphabetic character ("]") to put this data appart from
-                // the rest of the file.
-                out.println("]" + mMaxFrequency + "," + totTokens + "," + totTypes);
-                out.close();
-                mMaxFrequency = 0;
+            try
+            {
+                TokenSegment.write(outMap, fileName, totTokens, totTypes);
             }
             catch(IOException ioe)
             {
                 ioe.printStackTrace(System.err);
                 ApplicationManager.showText("Saving the file to disk did not succeed", 0);             
             }
-            catch(Exception e)
-            {
-                e.printStackTrace(System.err);
-                ApplicationManager.showText("Non-IO exception while saving a file", 0); 
-            }
         }
         else ApplicationManager.showText("Trying to save an empty file", 0);
     }
-    
-    /** countFrequency: Searches for the highest frequency of a token in a text.
-     * This is done here in the writeTokenizedText method because the tokenized
-     * file is scanned from record to record while saving it to disk.
-     * @param s : String with the occurrences of one token
-     */
-    private void countFrequency(String s)
-    {
-        int freqCount = 1;
-        // Gets the matcher object ',' comma.
-        Matcher m = countP.matcher(s);
-        while(m.find()) freqCount++;
-        if (freqCount > mMaxFrequency) mMaxFrequency = freqCount;
-    }
 }
 
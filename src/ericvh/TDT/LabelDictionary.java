@@ -0,0 +1,595 @@
+package ericvh.TDT;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+
+/** Class LabelDictionary is a read-only copy of the LabelTable on disk
+ * (AllLabels.dict) that is memory-mapped and queried in place, without reading
+ * the whole table in the heap. It finds the index of a label and the label of
+ * an index, as the LabelTable does.
+ * The labels are sorted on their UTF-8 bytes and front coded in blocks of 16:
+ * the first label of a block is written in full, the next ones as the number
+ * of bytes shared with the label before and the remaining bytes. Every label
+ * is followed by its index. A table of block offsets allows a binary search on
+ * the first labels, a table with the sorted rank of every index leads to the
+ * label of an index.
+ * Labels added by a later Build Network task are appended at the end of the
+ * file and kept in a map when the file is opened; the labels are written again
+ * when the appended labels grow too many. A file that is written again gets
+ * the next generation number in its name (AllLabels.1.dict, AllLabels.2.dict,
+ * ...) and a mapped file is never replaced, as a file with an open mapping
+ * cannot be replaced on every platform. The dictionary is opened by current,
+ * older generations are deleted when they are no longer mapped.
+ */
+public class LabelDictionary
+{
+    // First int of a dictionary file ("LBLD").
+    public static final int MAGIC = 0x4C424C44;
+    // Version of the file format.
+    public static final int VERSION = 1;
+    // The number of labels in a front coded block.
+    private static final int BLOCK_SIZE = 16;
+    // The size of the header in bytes.
+    private static final int HEADER = 24;
+
+    // The mapped file.
+    private final MappedByteBuffer mBuffer;
+    // The number of sorted labels.
+    private final int mCount;
+    // The number of indices in the rank table.
+    private final int mIdCount;
+    // Start of the rank table and of the front coded data.
+    private final int mRankStart;
+    private final int mDataStart;
+    // The labels appended after the sorted part: label (Key) and index (Value).
+    private final Map mAppended;
+    // The appended labels by index.
+    private final Map mAppendedIds;
+    // The highest index in the dictionary.
+    private int mLastId;
+    // The mapped file, its length and modification time when it was opened.
+    private final File mFile;
+    private final long mLength;
+    private final long mModified;
+
+    /** Constructor
+     * Maps a dictionary file and reads its appended labels.
+     * @param file : the dictionary file (File)
+     * @throws IOException when the file is not a label dictionary
+     */
+    private LabelDictionary(File file) throws IOException
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                FileChannel channel = raf.getChannel())
+        {
+            mFile = file;
+            mLength = channel.size();
+            mModified = file.lastModified();
+            mBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, mLength);
+        }
+        if (mLength < HEADER || mBuffer.getInt(0) != MAGIC)
+        {
+            throw new IOException("Not a label dictionary: " + file);
+        }
+        if (mBuffer.getInt(4) != VERSION)
+        {
+            throw new IOException("Unknown label dictionary version "
+                    + mBuffer.getInt(4) + ": " + file);
+        }
+        mCount = mBuffer.getInt(8);
+        mIdCount = mBuffer.getInt(12);
+        int dataLength = mBuffer.getInt(16);
+        mLastId = mBuffer.getInt(20);
+        int blocks = (mCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        mRankStart = HEADER + 4 * blocks;
+        mDataStart = mRankStart + 4 * mIdCount;
+        mAppended = new HashMap();
+        mAppendedIds = new HashMap();
+        readAppended(mDataStart + dataLength);
+    }
+
+    /** open: Opens a dictionary file.
+     * @param file : the dictionary file (File)
+     * @return the dictionary (LabelDictionary)
+     * @throws IOException when the file cannot be read or is no dictionary
+     */
+    public static LabelDictionary open(File file) throws IOException
+    {
+        return new LabelDictionary(file);
+    }
+
+    /** current: Returns the latest generation of a dictionary file.
+     * @param file : the dictionary file of generation 0 (File)
+     * @return the file with the highest generation number, the file itself
+     * when there is no later generation (File)
+     */
+    public static File current(File file)
+    {
+        int last = lastGeneration(file);
+        return last == 0 ? file : generation(file, last);
+    }
+
+    /** generation: Returns the name of a generation of a dictionary file: the
+     * number is put before the suffix.
+     * @param file : the dictionary file of generation 0 (File)
+     * @param number : the generation number (int)
+     * @return the file of the generation (File)
+     */
+    private static File generation(File file, int number)
+    {
+        if (number == 0) return file;
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot < 0) dot = name.length();
+        return new File(file.getParentFile(), name.substring(0, dot) + "."
+                + number + name.substring(dot));
+    }
+
+    /** lastGeneration: Returns the highest generation number of a dictionary
+     * file in its directory.
+     * @param file : the dictionary file of generation 0 (File)
+     * @return the highest generation number, 0 when there is none (int)
+     */
+    private static int lastGeneration(File file)
+    {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot < 0) dot = name.length();
+        String prefix = name.substring(0, dot) + ".";
+        String suffix = name.substring(dot);
+        int last = 0;
+        String[] names = file.getAbsoluteFile().getParentFile().list();
+        if (names == null) return last;
+        for (int i = 0; i < names.length; i++)
+        {
+            if (!names[i].startsWith(prefix) || !names[i].endsWith(suffix)
+                    || names[i].length() <= prefix.length() + suffix.length())
+            {
+                continue;
+            }
+            String number = names[i].substring(prefix.length(),
+                    names[i].length() - suffix.length());
+            try
+            {
+                last = Math.max(last, Integer.parseInt(number));
+            }
+            catch (NumberFormatException e)
+            {
+                // Not a generation of this file.
+            }
+        }
+        return last;
+    }
+
+    /** isCurrent: Returns 'true' if this is the latest generation of the
+     * dictionary file and it did not change since it was opened.
+     * @param file : the dictionary file of generation 0 (File)
+     * @return boolean 'true' when the file is unchanged.
+     */
+    public boolean isCurrent(File file)
+    {
+        File latest = current(file);
+        return latest.equals(mFile) && latest.length() == mLength
+                && latest.lastModified() == mModified;
+    }
+
+    /** getVertexIndex: Getter returns the index for this label.
+     * @param label : the String identifying a token-type
+     * @return the index (Integer) for this vertex, null for an unknown label.
+     */
+    public Integer getVertexIndex(String label)
+    {
+        Integer appended = (Integer) mAppended.get(label);
+        if (appended != null) return appended;
+        byte[] key = label.getBytes(StandardCharsets.UTF_8);
+        // Finds the last block with a first label not above the key.
+        int low = 0;
+        int high = (mCount + BLOCK_SIZE - 1) / BLOCK_SIZE - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int cmp = compareFirst(mid, key);
+            if (cmp == 0) return readFirstId(mid);
+            if (cmp < 0) low = mid + 1;
+            else high = mid - 1;
+        }
+        if (high < 0) return null;
+        // Decodes the block and compares every label with the key.
+        int pos = mDataStart + mBuffer.getInt(HEADER + 4 * high);
+        int entries = Math.min(BLOCK_SIZE, mCount - high * BLOCK_SIZE);
+        byte[] current = new byte[64];
+        int length = 0;
+        for (int e = 0; e < entries; e++)
+        {
+            int shared = readVarInt(pos);
+            pos += varIntSize(shared);
+            int suffix = readVarInt(pos);
+            pos += varIntSize(suffix);
+            length = shared + suffix;
+            if (length > current.length) current = Arrays.copyOf(current,
+                    Math.max(length, current.length * 2));
+            for (int i = 0; i < suffix; i++) current[shared + i] = mBuffer.get(pos + i);
+            pos += suffix;
+            int id = readVarInt(pos);
+            pos += varIntSize(id);
+            int cmp = Arrays.compareUnsigned(current, 0, length, key, 0,
+                    key.length);
+            if (cmp == 0) return id;
+            if (cmp > 0) return null;
+        }
+        return null;
+    }
+
+    /** getVertexLabel: Getter returns the label for this vertex index.
+     * @param vrtxId : index identifying this vertex (int)
+     * @return the label (String) for this vertex, empty when the index is not
+     * in use.
+     */
+    public String getVertexLabel(int vrtxId)
+    {
+        if (vrtxId >= 0 && vrtxId < mIdCount)
+        {
+            int rank = mBuffer.getInt(mRankStart + 4 * vrtxId);
+            if (rank >= 0) return readLabel(rank);
+        }
+        String appended = (String) mAppendedIds.get(vrtxId);
+        return appended == null ? "" : appended;
+    }
+
+    /** returnLabelList: Returns a list with labels (Strings) from a list with
+     * vertex Integer indices, as the LabelTable does.
+     * @param idxs : List with vertex indices (Integer)
+     * @return ArrayList with labels (String)
+     */
+    public List returnLabelList(List idxs)
+    {
+        List tmpList = new ArrayList(idxs.size());
+        Iterator idxs_itr = idxs.iterator();
+        while (idxs_itr.hasNext())
+        {
+            String label = getVertexLabel((Integer) idxs_itr.next());
+            if (label.equals("dDummy")) label = "=";
+            tmpList.add(label);
+        }
+        return tmpList;
+    }
+
+    /** getLastId: Returns the last identification number attributed to a
+     * token-type (label).
+     * @return the last id (int).
+     */
+    public int getLastId()
+    {
+        return mLastId;
+    }
+
+    /** getTableSize: Returns the total number of token-types in the dictionary.
+     * @return the number of labels (int).
+     */
+    public int getTableSize()
+    {
+        return mCount + mAppended.size();
+    }
+
+    /** getAppendedSize: Returns the number of labels appended after the sorted
+     * part.
+     * @return the number of appended labels (int).
+     */
+    public int getAppendedSize()
+    {
+        return mAppended.size();
+    }
+
+    /** compareFirst: Compares the first label of a block with a key.
+     * @param block : the block number (int)
+     * @param key : the UTF-8 bytes of a label (byte[])
+     * @return negative, zero or positive as the label is below, equal to or
+     * above the key (int).
+     */
+    private int compareFirst(int block, byte[] key)
+    {
+        // The first label of a block shares no bytes.
+        int pos = mDataStart + mBuffer.getInt(HEADER + 4 * block) + 1;
+        int length = readVarInt(pos);
+        pos += varIntSize(length);
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++)
+        {
+            int cmp = (mBuffer.get(pos + i) & 0xFF) - (key[i] & 0xFF);
+            if (cmp != 0) return cmp;
+        }
+        return length - key.length;
+    }
+
+    /** readFirstId: Reads the index of the first label of a block.
+     * @param block : the block number (int)
+     * @return the index (int)
+     */
+    private int readFirstId(int block)
+    {
+        int pos = mDataStart + mBuffer.getInt(HEADER + 4 * block) + 1;
+        int length = readVarInt(pos);
+        pos += varIntSize(length) + length;
+        return readVarInt(pos);
+    }
+
+    /** readLabel: Decodes the label with this rank in the sorted order.
+     * @param rank : the rank of the label (int)
+     * @return the label (String)
+     */
+    private String readLabel(int rank)
+    {
+        int block = rank / BLOCK_SIZE;
+        int pos = mDataStart + mBuffer.getInt(HEADER + 4 * block);
+        byte[] current = new byte[64];
+        int length = 0;
+        for (int e = block * BLOCK_SIZE; e <= rank; e++)
+        {
+            int shared = readVarInt(pos);
+            pos += varIntSize(shared);
+            int suffix = readVarInt(pos);
+            pos += varIntSize(suffix);
+            length = shared + suffix;
+            if (length > current.length) current = Arrays.copyOf(current,
+                    Math.max(length, current.length * 2));
+            for (int i = 0; i < suffix; i++) current[shared + i] = mBuffer.get(pos + i);
+            pos += suffix;
+            pos += varIntSize(readVarInt(pos));
+        }
+        return new String(current, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /** readAppended: Reads the labels appended after the sorted part: the
+     * index, the length and the UTF-8 bytes of every label. An incomplete last
+     * record is ignored.
+     * @param pos : the start of the appended labels (int)
+     */
+    private void readAppended(int pos)
+    {
+        ByteBuffer buffer = mBuffer.duplicate();
+        while (pos < mLength)
+        {
+            try
+            {
+                int id = readVarInt(pos);
+                pos += varIntSize(id);
+                int length = readVarInt(pos);
+                pos += varIntSize(length);
+                if (pos + length > mLength) return;
+                byte[] bytes = new byte[length];
+                buffer.position(pos);
+                buffer.get(bytes);
+                pos += length;
+                String label = new String(bytes, StandardCharsets.UTF_8);
+                mAppended.put(label, id);
+                mAppendedIds.put(id, label);
+                if (id > mLastId) mLastId = id;
+            }
+            catch (IndexOutOfBoundsException e)
+            {
+                return;
+            }
+        }
+    }
+
+    /** readVarInt: Reads an int written in 7-bit groups at a position.
+     * @param pos : the position in the mapped file (int)
+     * @return the value (int)
+     */
+    private int readVarInt(int pos)
+    {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do
+        {
+            b = mBuffer.get(pos++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /** varIntSize: Returns the number of bytes of an int written in 7-bit
+     * groups.
+     * @param value : the value (int)
+     * @return the number of bytes (int)
+     */
+    private static int varIntSize(int value)
+    {
+        int size = 1;
+        while ((value & ~0x7F) != 0)
+        {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /** save: Writes the labels of a LabelTable to a dictionary file. When the
+     * latest generation of the file holds the labels of an earlier table, only
+     * the labels with a higher index are appended; the labels are written to
+     * the next generation when the appended labels would pass an eighth of the
+     * sorted ones. The earlier generations are deleted if they can be.
+     * @param file : the dictionary file of generation 0 (File)
+     * @param labels : the labels (LabelTable)
+     * @throws IOException
+     */
+    public static void save(File file, LabelTable labels) throws IOException
+    {
+        int last = lastGeneration(file);
+        File latest = generation(file, last);
+        LabelDictionary old = null;
+        if (latest.isFile())
+        {
+            try
+            {
+                old = open(latest);
+            }
+            catch (IOException e)
+            {
+                old = null;
+            }
+        }
+        Map labelMap = labels.getLabelMap();
+        if (old != null)
+        {
+            int added = labelMap.size() - old.getTableSize();
+            if (added >= 0 && (old.getAppendedSize() + added) * 8 <= old.mCount
+                    && old.isAppendable(labels))
+            {
+                append(latest, labels, old.getLastId());
+                return;
+            }
+        }
+        int next = latest.isFile() ? last + 1 : last;
+        File target = generation(file, next);
+        File tmp = new File(target.getPath() + ".tmp");
+        write(tmp, labelMap);
+        Files.move(tmp.toPath(), target.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        // An earlier generation that is still mapped stays until a later save.
+        for (int g = 0; g < next; g++) generation(file, g).delete();
+    }
+
+    /** isAppendable: Returns 'true' if a LabelTable holds the labels of this
+     * dictionary with the same indices, together with labels of a higher index
+     * only.
+     * @param labels : the labels (LabelTable)
+     * @return boolean 'true' when the new labels can be appended.
+     */
+    private boolean isAppendable(LabelTable labels)
+    {
+        int newer = 0;
+        Iterator label_itr = labels.getLabelMap().entrySet().iterator();
+        while (label_itr.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) label_itr.next();
+            int id = (Integer) entry.getValue();
+            if (id > mLastId) newer++;
+            else if (!entry.getKey().equals(getVertexLabel(id))) return false;
+        }
+        return labels.getTableSize() - newer == getTableSize();
+    }
+
+    /** append: Appends the labels with an index above lastId to the file.
+     * @param file : the dictionary file (File)
+     * @param labels : the labels (LabelTable)
+     * @param lastId : the highest index in the file (int)
+     * @throws IOException
+     */
+    private static void append(File file, LabelTable labels, int lastId)
+            throws IOException
+    {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file, true))))
+        {
+            for (int id = lastId + 1; id <= labels.getLastId(); id++)
+            {
+                String label = labels.getVertexLabel(id);
+                if (label.isEmpty()) continue;
+                byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                TokenSegment.writeVarInt(out, id);
+                TokenSegment.writeVarInt(out, bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    /** write: Writes a map with labels and indices as a new dictionary file.
+     * @param file : the dictionary file (File)
+     * @param labelMap : labels (String) and their indices (Integer) (Map)
+     * @throws IOException
+     */
+    private static void write(File file, Map labelMap) throws IOException
+    {
+        int count = labelMap.size();
+        byte[][] keys = new byte[count][];
+        int[] ids = new int[count];
+        Integer[] order = new Integer[count];
+        int lastId = 0;
+        int n = 0;
+        Iterator label_itr = labelMap.entrySet().iterator();
+        while (label_itr.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) label_itr.next();
+            keys[n] = entry.getKey().toString().getBytes(StandardCharsets.UTF_8);
+            ids[n] = (Integer) entry.getValue();
+            if (ids[n] > lastId) lastId = ids[n];
+            order[n] = n;
+            n++;
+        }
+        Arrays.sort(order, (Integer a, Integer b) -> Arrays.compareUnsigned(
+                keys[a], keys[b]));
+        int blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int[] offsets = new int[blocks];
+        int[] ranks = new int[lastId + 1];
+        Arrays.fill(ranks, -1);
+        // First pass: the size of every entry gives the block offsets.
+        int dataLength = 0;
+        for (int r = 0; r < count; r++)
+        {
+            int i = order[r];
+            if (r % BLOCK_SIZE == 0) offsets[r / BLOCK_SIZE] = dataLength;
+            int shared = r % BLOCK_SIZE == 0 ? 0 : sharedPrefix(keys[order[r - 1]],
+                    keys[i]);
+            int suffix = keys[i].length - shared;
+            dataLength += varIntSize(shared) + varIntSize(suffix) + suffix
+                    + varIntSize(ids[i]);
+            ranks[ids[i]] = r;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file), 65536)))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeInt(lastId + 1);
+            out.writeInt(dataLength);
+            out.writeInt(lastId);
+            for (int b = 0; b < blocks; b++) out.writeInt(offsets[b]);
+            for (int id = 0; id <= lastId; id++) out.writeInt(ranks[id]);
+            for (int r = 0; r < count; r++)
+            {
+                int i = order[r];
+                int shared = r % BLOCK_SIZE == 0 ? 0 : sharedPrefix(
+                        keys[order[r - 1]], keys[i]);
+                TokenSegment.writeVarInt(out, shared);
+                TokenSegment.writeVarInt(out, keys[i].length - shared);
+                out.write(keys[i], shared, keys[i].length - shared);
+                TokenSegment.writeVarInt(out, ids[i]);
+            }
+        }
+    }
+
+    /** sharedPrefix: Returns the number of leading bytes two labels share.
+     * @param a : the UTF-8 bytes of the first label (byte[])
+     * @param b : the UTF-8 bytes of the second label (byte[])
+     * @return the number of shared bytes (int)
+     */
+    private static int sharedPrefix(byte[] a, byte[] b)
+    {
+        int n = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < n && a[i] == b[i]) i++;
+        return i;
+    }
+}
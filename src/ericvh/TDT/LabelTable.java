@@ -1,7 +1,10 @@
 package ericvh.TDT;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -13,13 +16,21 @@ import java.util.TreeMap;
 /** Class LabelTable is the central repository for all the labels used in this 
  * dataGraph. Vertices and arcs are identified by integer indices. 
  * Only when displaying data these labels are retrieved.
+ * Next to the map from label to index the table keeps an array with the label
+ * of every index, so a label is found without searching the map. Tables saved
+ * without the array get it when they are read.
  * @author  Eric Van Horenbeeck
  * Created on 16 september 2004, 13:47
  */
 public class LabelTable implements Serializable
 {
+    private static final long serialVersionUID = 7204708045721071374L;
     // SortedMap to hold the labels identifying all token-types in this datagraph.
     private final SortedMap mLabelMap;
+    // The label (String) of every vertex index, null for an unused index.
+    private String[] mIdLabels;
+    // The highest index in use.
+    private int mLastId;
     
     /** Constructor
      * The labelMap has one default label: the dummy vertex label 'dDummy' 
@@ -28,7 +39,33 @@ public class LabelTable implements Serializable
     public LabelTable()
     {
         mLabelMap = new TreeMap();
-        mLabelMap.put("dDummy", 0);
+        mIdLabels = new String[16];
+        addLabel("dDummy", 0);
+    }
+    
+    /** addLabel: Adds a label with its index to the map and to the array.
+     * @param label : the label (String)
+     * @param index : the vertex index (int)
+     */
+    private void addLabel(String label, int index)
+    {
+        Integer previous = (Integer) mLabelMap.put(label, index);
+        if (previous != null && previous != index
+                && label.equals(mIdLabels[previous])) mIdLabels[previous] = null;
+        setIdLabel(label, index);
+    }
+    
+    /** setIdLabel: Puts a label in the array at its index, the array grows 
+     * when needed.
+     * @param label : the label (String)
+     * @param index : the vertex index (int)
+     */
+    private void setIdLabel(String label, int index)
+    {
+        if (index >= mIdLabels.length) mIdLabels = Arrays.copyOf(mIdLabels,
+                Math.max(index + 1, mIdLabels.length * 2));
+        mIdLabels[index] = label;
+        if (index > mLastId) mLastId = index;
     }
     
     /** addLabelMap: Adds a full map with labels for this dataGraph. Key: label,
@@ -37,16 +74,22 @@ public class LabelTable implements Serializable
      */
     public void addLabelMap(Map labelMap)
     {
-        mLabelMap.putAll(labelMap);
+        Iterator label_itr = labelMap.entrySet().iterator();
+        while (label_itr.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) label_itr.next();
+            addLabel((String) entry.getKey(), (Integer) entry.getValue());
+        }
     }
     
     /** getLabelMap: Returns a sorted map with labels for this dataGraph.
-     * Key: label (String); value: vertex-id (Integer).
+     * Key: label (String); value: vertex-id (Integer). The map cannot be
+     * changed, labels are added with addLabelMap.
      * @return labelMap
      */
     public SortedMap getLabelMap()
     {
-        return mLabelMap;
+        return Collections.unmodifiableSortedMap(mLabelMap);
     }
     
     /** getVertexIndex: Getter returns the index for this label.
@@ -64,17 +107,19 @@ public class LabelTable implements Serializable
      */
     public String getVertexLabel(Integer vrtxId)
     {
-        String label = "";
-        Iterator label_itr = mLabelMap.keySet().iterator();
-        search:
-            while(label_itr.hasNext())
-            {
-            label = label_itr.next().toString();
-            Integer index = (Integer) mLabelMap.get(label);
-            if(index.equals(vrtxId)) break;
-            else label = "";
-            }
-        return label;
+        return getVertexLabel(vrtxId.intValue());
+    }
+    
+    /** getVertexLabel: Getter returns the label for this vertex index.
+     * @param vrtxId : index identifying this vertex (int)
+     * @return the label (String) for this vertex, empty when the index is not
+     * in use.
+     */
+    public String getVertexLabel(int vrtxId)
+    {
+        if (vrtxId < 0 || vrtxId >= mIdLabels.length) return "";
+        String label = mIdLabels[vrtxId];
+        return label == null ? "" : label;
     }
     
     /** isDigit: Getter returns 'true' when the label of this vertex is a digit,
@@ -115,12 +160,8 @@ public class LabelTable implements Serializable
      */
     public Integer getLastId()
     {
-        Iterator labelId_itr = mLabelMap.values().iterator();
-        List idList = new ArrayList(Algorithms.iteratorToLinkedList(labelId_itr));
-        Collections.sort(idList);
-        int size = idList.size();
-        if(size >= 1) return (Integer) idList.get(size - 1);
-        return null;
+        if (mLabelMap.isEmpty()) return null;
+        return mLastId;
     }
     
     /** getTableSize: Returns the total number of token-types stored in this table.
@@ -140,4 +181,25 @@ public class LabelTable implements Serializable
         return mLabelMap.keySet().size() == 1;
     }
     
+    /** readObject: Reads a label table. The array with the label of every 
+     * index is made for a table saved by an earlier version.
+     * @param in : the input stream (ObjectInputStream)
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException,
+            ClassNotFoundException
+    {
+        in.defaultReadObject();
+        if (mIdLabels != null) return;
+        mIdLabels = new String[16];
+        mLastId = 0;
+        Iterator label_itr = mLabelMap.entrySet().iterator();
+        while (label_itr.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) label_itr.next();
+            setIdLabel((String) entry.getKey(), (Integer) entry.getValue());
+        }
+    }
+    
 }
@@ -7,7 +7,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedSet;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
@@ -32,9 +31,9 @@ public class LinkTable extends JPanel
     private final DocTable mDocTable;
     // Map to collect in- and outgoing links.
     private final Map mLinkDataMap;
-    // Map to collect the total number of links in a document and the maximum
-    // number of links seen.
-    private final Map mDocLinkMap;
+    // In- and outgoing links of every vertex per document, counted in one 
+    // pass over the arcs when first needed.
+    private DegreeTable mDegrees;
     // String with the name of the collection now being processed.
     private String mCollKey;
     // 2D-table with for every vertex the number of incoming and outgoing
@@ -57,7 +56,6 @@ public class LinkTable extends JPanel
         mArcTable = at;
         mDocTable = dt;
         mLinkDataMap = new HashMap();
-        mDocLinkMap = new HashMap();
     }
     
     /** Inner class LinkTableModel translates data into a table.
@@ -117,86 +115,50 @@ public class LinkTable extends JPanel
         ApplicationManager.addLinkTable(tabbedPane, 7);
     }
     
+    /** getDegrees: Getter returns the in- and outgoing links of all vertices 
+     * in all documents. The table is made at the first call.
+     * @return the DegreeTable of the ArcsTable.
+     */
+    private synchronized DegreeTable getDegrees()
+    {
+        if (mDegrees == null) mDegrees = new DegreeTable(mArcTable);
+        return mDegrees;
+    }
+    
     /** countInOutLinks: Constructs a map with the vertex indices as key and an 
      * array as value. This array has two elements: first the number of incoming 
      * links and secondly the number of outgoing links to that vertex (int) inside a
-     * collection.
-     * @param allDocSet : a set with all the document numbers of a collection
+     * collection. The links of every document are added from the DegreeTable.
+     * @param allDocs : sorted array with all the document numbers of a 
+     * collection (int[])
      * @return map (HashMap) with all vertices of one collection and the number of 
      * incoming and outgoing links of every vertex.
      */
-    private Map countInOutLinks(Set allDocSet)
+    private Map countInOutLinks(int[] allDocs)
     {
         Map connectionMap = new HashMap();
-        // Iterates over all vertices in this dataGraph
-        Iterator vertex_itr = mVrtxMap.keySet().iterator();
-        while(vertex_itr.hasNext())
+        DegreeTable degrees = getDegrees();
+        // Links of this collection per vertex-id.
+        int[] inLinks = new int[degrees.getVertexBound()];
+        int[] outLinks = new int[degrees.getVertexBound()];
+        for (int d = 0; d < allDocs.length; d++)
         {
-            List connectionList = new ArrayList(2);
-            int inLink = 0;
-            int outLink = 0;
-            Integer vrtxInt = (Integer) vertex_itr.next();
-            Vertex v = (Vertex) mVrtxMap.get(vrtxInt);
-            // SortedSet with all documents over all collections of this vertex.
-            SortedSet vertexDocSet = v.getAllVertexDocNrs();
-            // Intersection gives the docs of this collection for this vertex.
-            Set docSet = Algorithms.intersect(allDocSet, vertexDocSet);
-            // Iterates over docs and collects the arcs of this vertex.
-            Iterator docs_itr = docSet.iterator();
-            while(docs_itr.hasNext())
-            {
-                Integer docInt = (Integer) docs_itr.next();
-                // Gets the incoming an outgoing links for this vertex in this 
-                // document.
-                List tmpList = getVertexLinks(docInt, vrtxInt);
-                int thisInLink = ((Integer) tmpList.get(0));
-                int thisOutLink = ((Integer) tmpList.get(1));
-                inLink += thisInLink;
-                outLink += thisOutLink;
-                // Collects the links of this vertex in this document.
-                addDocLinks(docInt, thisInLink + thisOutLink);
-            }
-            // Puts the incoming and outgoing links in an array if both are non-zero.
-            // Then makes a connectionMap with the total links per vertex for all 
-            // docs in this collection with the vertex as key and the array as value.
-            connectionList.add(0, inLink);
-            if (inLink > 0 || outLink > 0)
-            {
-                connectionList.add(1, outLink);
-                connectionMap.put(vrtxInt, connectionList);
-            }
+            degrees.sumDocLinks(allDocs[d], inLinks, outLinks);
         }
-        return connectionMap;
-    }
-    
-    /** addDocLinks: While counting the in- and outlinks of the vertices, the total 
-     * number of links of a document is computed together with the maximum number of 
-     * links attributed to some token. This is the equivalent of the maximum token 
-     * frequency and used to normalize the link frequency of individual tokens. 
-     * The data are collected in a HasMap with docInt as key and as value an array 
-     * with the total number of links and the maximum link count. The map is 
-     * transferred to the dataTable and ultimately to the docStat instance of every 
-     * document.
-     * @param docInt : the document identifier (Integer) for a vertex.
-     * @param thisLinks : the sum of in- and outlinks of a single vertex (int).
-     */
-    private void addDocLinks(Integer docInt, int thisLinks)
-    {
-        int[] linkArray;
-        if(mDocLinkMap.containsKey(docInt))
-        {
-            linkArray = (int[]) mDocLinkMap.get(docInt);
-            linkArray[0] += thisLinks;
-            int maxLink = ((Integer) linkArray[1]);
-            if(thisLinks > maxLink) linkArray[1] = thisLinks;
-        }
-        else
+        // Makes a connectionMap with the total links per vertex for all docs in 
+        // this collection with the vertex as key and a list with the incoming 
+        // and outgoing links as value, if both are non-zero.
+        for (int v = 0; v < inLinks.length; v++)
         {
-            linkArray = new int[2];
-            linkArray[0] = thisLinks;
-            linkArray[1] = thisLinks;
+            if (inLinks[v] == 0 && outLinks[v] == 0) continue;
+            Integer vrtxInt = v;
+            if (!mVrtxMap.containsKey(vrtxInt)) continue;
+            List connectionList = new ArrayList(2);
+            connectionList.add(0, inLinks[v]);
+            connectionList.add(1, outLinks[v]);
+            connectionMap.put(vrtxInt, connectionList);
         }
-        mDocLinkMap.put(docInt, linkArray);
+        return connectionMap;
     }
     
     /** putLinksInTable: Scans over all arcs of every collection to make a table of 
@@ -214,10 +176,12 @@ public class LinkTable extends JPanel
         while(coll_itr.hasNext())
         {
             String collectionKey = coll_itr.next().toString();
-            // Set with all the doc-ids that populate this collection.
-            Set docSet = collTable.getDocsInCollection(collectionKey);
+            // Sorted array with all the doc-ids that populate this collection.
+            int[] docNrs = collTable.getDocNrArray(collectionKey);
             // Iterates over all vertices to collect links to and from a vertex.
-            Map inOutMap = countInOutLinks(docSet);
+            Map inOutMap = countInOutLinks(docNrs);
+            // Updates the docTable with link information.
+            setDocLinks(docNrs);
             // LinkDataMap is saved on disk.
             mLinkDataMap.put(collectionKey, inOutMap);
             // Data are shown on screen, when so requested by the user (GUI parameter
@@ -251,21 +215,24 @@ public class LinkTable extends JPanel
                 addTable(collectionKey);
             }
         }
-        // Updates the docTable with link information.
-        setDocLinks();
     }
     
-    /** setDocLinks: Transfers general link information to the docTable.
+    /** setDocLinks: Transfers general link information to the docTable: the 
+     * total number of links of a document together with the maximum number of 
+     * links attributed to some token. This is the equivalent of the maximum 
+     * token frequency and used to normalize the link frequency of individual 
+     * tokens.
+     * @param allDocs : sorted array with all the document numbers of a 
+     * collection (int[])
      */
-    private void setDocLinks()
+    private void setDocLinks(int[] allDocs)
     {
-        Iterator link_itr = mDocLinkMap.keySet().iterator();
-        while(link_itr.hasNext())
+        DegreeTable degrees = getDegrees();
+        for (int d = 0; d < allDocs.length; d++)
         {
-            Integer docInt = (Integer) link_itr.next();
-            int[] linkArray = (int[]) mDocLinkMap.get(docInt);
-            mDocTable.setTotLinks(docInt, linkArray[0]);
-            mDocTable.setMaxLinks(docInt, linkArray[1]);
+            if (!degrees.containsDoc(allDocs[d])) continue;
+            mDocTable.setTotLinks(allDocs[d], degrees.getTotalLinks(allDocs[d]));
+            mDocTable.setMaxLinks(allDocs[d], degrees.getMaxLinks(allDocs[d]));
         }
     }
     
@@ -279,24 +246,9 @@ public class LinkTable extends JPanel
     public List getVertexLinks(Integer docInt, Integer vrtxInt)
     {
         List linkList = new ArrayList(2);
-        int inLink = 0;
-        int outLink = 0;
-        int vrtxIdx = vrtxInt;
-        // List with all arcs having this vertex in this document
-        List arcList = mArcTable.getArcsWithKey(docInt, vrtxIdx);
-        // Iterates over the arcs in this doc and counts the incoming and outgoing 
-        // links.
-        Iterator arcs_itr = arcList.iterator();
-        while(arcs_itr.hasNext())
-        {
-            Arc currentArc = (Arc) arcs_itr.next();
-            // Vertex at the left of the arc: outgoing link;
-            if(currentArc.containsIndexFirst(vrtxIdx)) outLink++;
-            // Vertex at the right of the arc: incoming link.
-            else if(currentArc.containsIndexSecond(vrtxIdx)) inLink++;
-        }
-        linkList.add(0, inLink);
-        linkList.add(1, outLink);
+        DegreeTable degrees = getDegrees();
+        linkList.add(0, degrees.getInLinks(docInt, vrtxInt));
+        linkList.add(1, degrees.getOutLinks(docInt, vrtxInt));
         return linkList;
     }
     
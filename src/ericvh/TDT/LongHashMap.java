@@ -0,0 +1,289 @@
+package ericvh.TDT;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/** Class LongHashMap is a hash map with primitive long keys, used for the arcs
+ * of a document with their ArcKey. Keys and values are kept in two parallel
+ * arrays with open addressing and linear probing; no entry objects and no
+ * boxed keys are made. A null value marks a free slot, so null values are not
+ * allowed. Serialized, the map holds only its size, the keys and the values.
+ */
+public class LongHashMap implements Serializable
+{
+    // The keys, parallel to the values.
+    private transient long[] mKeys;
+    // The values, null for a free slot.
+    private transient Object[] mValues;
+    // The number of entries.
+    private transient int mSize;
+    // mKeys.length - 1, the length is a power of 2.
+    private transient int mMask;
+    // The number of puts and removes, also of replaced values.
+    private transient int mModCount;
+
+    /** Constructor
+     */
+    public LongHashMap()
+    {
+        this(8);
+    }
+
+    /** Constructor
+     * @param expected : the number of entries expected (int)
+     */
+    public LongHashMap(int expected)
+    {
+        allocate(expected);
+    }
+
+    /** allocate: Makes empty arrays large enough for this number of entries,
+     * the map is kept at most half full.
+     * @param expected : the number of entries expected (int)
+     */
+    private void allocate(int expected)
+    {
+        int capacity = 8;
+        while (capacity < expected * 2) capacity <<= 1;
+        mKeys = new long[capacity];
+        mValues = new Object[capacity];
+        mMask = capacity - 1;
+        mSize = 0;
+    }
+
+    /** slot: Returns the first slot to probe for this key.
+     * @param key : the key (long)
+     * @return the slot (int)
+     */
+    private int slot(long key)
+    {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mMask;
+    }
+
+    /** indexOf: Returns the slot holding this key or -1.
+     * @param key : the key (long)
+     * @return the slot (int) or -1 if the key is not in the map.
+     */
+    private int indexOf(long key)
+    {
+        int i = slot(key);
+        while (mValues[i] != null)
+        {
+            if (mKeys[i] == key) return i;
+            i = (i + 1) & mMask;
+        }
+        return -1;
+    }
+
+    /** get: Getter returns the value of this key.
+     * @param key : the key (long)
+     * @return the value or null if the key is not in the map.
+     */
+    public Object get(long key)
+    {
+        int i = indexOf(key);
+        return i < 0 ? null : mValues[i];
+    }
+
+    /** containsKey: Returns 'true' if the map has this key.
+     * @param key : the key (long)
+     * @return boolean 'true' if the key is in the map.
+     */
+    public boolean containsKey(long key)
+    {
+        return indexOf(key) >= 0;
+    }
+
+    /** put: Adds a key with its value or replaces the value of a key.
+     * @param key : the key (long)
+     * @param value : the value, not null (Object)
+     * @return the previous value or null.
+     */
+    public Object put(long key, Object value)
+    {
+        if (value == null) throw new IllegalArgumentException("Null value for key "
+                + key);
+        int i = slot(key);
+        while (mValues[i] != null)
+        {
+            if (mKeys[i] == key)
+            {
+                Object previous = mValues[i];
+                mValues[i] = value;
+                mModCount++;
+                return previous;
+            }
+            i = (i + 1) & mMask;
+        }
+        mKeys[i] = key;
+        mValues[i] = value;
+        mModCount++;
+        if (++mSize * 2 > mKeys.length) rehash();
+        return null;
+    }
+
+    /** putAll: Adds all the entries of another map.
+     * @param other : the entries to add (LongHashMap)
+     */
+    public void putAll(LongHashMap other)
+    {
+        for (int i = 0; i < other.mValues.length; i++)
+        {
+            if (other.mValues[i] != null) put(other.mKeys[i], other.mValues[i]);
+        }
+    }
+
+    /** remove: Removes a key and its value. The entries following it in the
+     * probe sequence are moved back, so no deleted markers are needed.
+     * @param key : the key (long)
+     * @return the removed value or null.
+     */
+    public Object remove(long key)
+    {
+        int i = indexOf(key);
+        if (i < 0) return null;
+        Object removed = mValues[i];
+        mValues[i] = null;
+        mSize--;
+        mModCount++;
+        int j = (i + 1) & mMask;
+        while (mValues[j] != null)
+        {
+            int home = slot(mKeys[j]);
+            // The entry in j may fill the gap in i if its home slot is not in
+            // the cyclic range (i, j].
+            if (((j - home) & mMask) >= ((j - i) & mMask))
+            {
+                mKeys[i] = mKeys[j];
+                mValues[i] = mValues[j];
+                mValues[j] = null;
+                i = j;
+            }
+            j = (j + 1) & mMask;
+        }
+        return removed;
+    }
+
+    /** rehash: Doubles the arrays and puts the entries again.
+     */
+    private void rehash()
+    {
+        long[] keys = mKeys;
+        Object[] values = mValues;
+        allocate(mSize + 1);
+        for (int i = 0; i < values.length; i++)
+        {
+            if (values[i] != null) put(keys[i], values[i]);
+        }
+    }
+
+    /** size: Getter returns the number of entries.
+     * @return the number of entries (int)
+     */
+    public int size()
+    {
+        return mSize;
+    }
+
+    /** getModCount: Returns the number of changes made to the map. Every put,
+     * also one that replaces the value of a key, and every remove counts, so
+     * a copy of the entries is current as long as this number is the same.
+     * @return int with the number of changes.
+     */
+    public int getModCount()
+    {
+        return mModCount;
+    }
+
+    /** isEmpty: Returns 'true' if the map has no entries.
+     * @return boolean 'true' if empty.
+     */
+    public boolean isEmpty()
+    {
+        return mSize == 0;
+    }
+
+    /** keys: Returns the keys of the map.
+     * @return array with the keys (long[])
+     */
+    public long[] keys()
+    {
+        long[] keys = new long[mSize];
+        int k = 0;
+        for (int i = 0; i < mValues.length; i++)
+        {
+            if (mValues[i] != null) keys[k++] = mKeys[i];
+        }
+        return keys;
+    }
+
+    /** keySet: Returns a new set with the keys as Long, for the callers that
+     * keep arc keys in a Set.
+     * @return HashSet with the keys (Long)
+     */
+    public Set keySet()
+    {
+        Set keySet = new HashSet(mSize * 2);
+        for (int i = 0; i < mValues.length; i++)
+        {
+            if (mValues[i] != null) keySet.add(mKeys[i]);
+        }
+        return keySet;
+    }
+
+    /** values: Returns a new list with the values of the map.
+     * @return ArrayList with the values.
+     */
+    public List values()
+    {
+        List values = new ArrayList(mSize);
+        for (int i = 0; i < mValues.length; i++)
+        {
+            if (mValues[i] != null) values.add(mValues[i]);
+        }
+        return values;
+    }
+
+    /** writeObject: Writes the size, all the keys and then the values in the
+     * same order. The keys go together in the block data of the stream.
+     * @param out : the output stream (ObjectOutputStream)
+     * @throws IOException
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        out.defaultWriteObject();
+        out.writeInt(mSize);
+        for (int i = 0; i < mValues.length; i++)
+        {
+            if (mValues[i] != null) out.writeLong(mKeys[i]);
+        }
+        for (int i = 0; i < mValues.length; i++)
+        {
+            if (mValues[i] != null) out.writeObject(mValues[i]);
+        }
+    }
+
+    /** readObject: Reads the map written by writeObject.
+     * @param in : the input stream (ObjectInputStream)
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException,
+            ClassNotFoundException
+    {
+        in.defaultReadObject();
+        int size = in.readInt();
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) keys[i] = in.readLong();
+        allocate(size);
+        for (int i = 0; i < size; i++) put(keys[i], in.readObject());
+    }
+}
@@ -3,10 +3,11 @@ package ericvh.TDT;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /** Class NetworkBuilder builds a network representation containing all the 
@@ -18,30 +19,23 @@ import java.util.TreeMap;
  * that define together a collection (collectionTable) and that holds 
  * information on collection level. DataGraph, docTable and collectionTable 
  * are saved to disk.
+ * The labels get their index from a concurrent dictionary, so the text graphs
+ * of several documents can be built at the same time by the workers of a 
+ * ParallelNetworkBuilder, each with its own map of vertices.
  * @author Eric Van Horenbeeck
  */
 public class NetworkBuilder implements Serializable
 {
-    // DocNumber is the unique document identifier attributed by the ApplicationManager.
-    private int mDocNr = 0;
     // Current identification number for a vertex label (token-type).
-    private int mMainVertexIndex = 0;
+    private final AtomicInteger mMainVertexIndex = new AtomicInteger();
     // Last identification number attributed to a token-type in a previous session.
     private Integer mAttributedId = null;
-    // Position index of an arc in a document.
-    private int mArcPosition;
-    // The last vertex processed so far.
-    private Vertex mLastVertex;
-    // The last index (label identification) processed so far.
-    private int mLastIndex;
     // Map with token-type as key and an integer index as value. 
     // Goes into the LabelTable.
-    private SortedMap mLabelMap;
+    private final Map mLabelMap;
     // Map to hold the vertices created in this method. Goes to the VertexTable 
     // when ready.
     private final Map mVerticesMap;
-    // Instance of the Textgraph class, a representation of a textfile as a graph.
-    private TextGraph mNewGraph;
     // Instance of the LabelTable class with all labels (token-types) in use in
     // this community.
     private LabelTable mLabelTable;
@@ -60,7 +54,7 @@ public class NetworkBuilder implements Serializable
      */
     public NetworkBuilder()
     {
-        mLabelMap = new TreeMap();
+        mLabelMap = new ConcurrentHashMap();
         mVerticesMap = new HashMap();
         mCollTable = ApplicationManager.getCollTable();
         mDocTable = ApplicationManager.getDocTable();
@@ -68,8 +62,8 @@ public class NetworkBuilder implements Serializable
         mAttributedId = mLabelTable.getLastId();
         if(mAttributedId != null)
         {
-            mMainVertexIndex = mAttributedId;
-            mLabelMap = mLabelTable.getLabelMap();
+            mMainVertexIndex.set(mAttributedId);
+            mLabelMap.putAll(mLabelTable.getLabelMap());
         }
     }
     
@@ -78,46 +72,117 @@ public class NetworkBuilder implements Serializable
      * instance of the TextToken class. It has the label of  the token, 
      * its position in the text and the key to the collection (source and 
      * date String) it  belongs to.
-     * @param dataPackage : array with text_tokens (List), docData (DocStats) 
-     * and a collectionKey (String).
+     * @param dataPackage : array with text_tokens (List) or a TokenSegment, 
+     * docData (DocStats) and a collectionKey (String).
      * @param docNumber : the unique serial number of a document (int).
      * @return a new textGraph from this textfile. TextGraph has the arcs and 
      * the token count. It is saved on disk for further processing.
      */
     public TextGraph textToGraph(List dataPackage, int docNumber)
     {
-        // Array to hold all textTokens of this document.
-        List text_tokens;
-        // Statistical info about this document.
-        DocStats docData;        
+        addDocument(dataPackage, docNumber);
+        return buildGraph(dataPackage, docNumber, mVerticesMap);
+    }
+    
+    /** addDocument: Registers a document with its statistics in the docTable
+     * and with its collection in the collectionTable. The parallel build calls
+     * it in the order of the file selection.
+     * @param dataPackage : the tokens, docData (DocStats) and a collectionKey 
+     * (String) of the document (List).
+     * @param docNumber : the unique serial number of a document (int).
+     */
+    public void addDocument(List dataPackage, int docNumber)
+    {
+        mDocTable.addDocInfo(docNumber, (DocStats) dataPackage.get(1));
+        mCollTable.addDocNrToCollection((String) dataPackage.get(2), docNumber);
+    }
+    
+    /** buildGraph: Makes the text graph of a document and adds its tokens as 
+     * vertices with their neighbors to a map of vertices. Workers building
+     * graphs at the same time each pass their own map.
+     * @param dataPackage : array with text_tokens (List) or a TokenSegment, 
+     * docData (DocStats) and a collectionKey (String).
+     * @param docNumber : the unique serial number of a document (int).
+     * @param vertices : the vertex index (Integer) and the Vertex (Map)
+     * @return a new textGraph from this textfile.
+     */
+    public TextGraph buildGraph(List dataPackage, int docNumber, Map vertices)
+    {
+        GraphState state = new GraphState(docNumber, vertices);
         // Key to the collection this document belongs to.
-        String collKey;
-        // TextToken now being processed.
-        TextToken currentTextToken;
-        // Last node of the graph processed so far. 
-        Vertex mThisLastVertex = null;  
-        // The unique document number.
-        mDocNr = docNumber;      
-        // A TextGraph instance.
-        mNewGraph = new TextGraph(mDocNr); 
-        // Positions an arc in the text.
-        mArcPosition = 0;    
-        // Counter.
-        int i = 0;                           
-        
-        text_tokens = (ArrayList) dataPackage.get(0);
-        docData = (DocStats) dataPackage.get(1);
-        collKey = (String) dataPackage.get(2);
-        mDocTable.addDocInfo(mDocNr, docData);
-        mCollTable.addDocNrToCollection(collKey, mDocNr);
+        String collKey = (String) dataPackage.get(2);
+        // A binary tokenized file comes as a position-ordered array.
+        if (dataPackage.get(0) instanceof TokenSegment)
+        {
+            addTokenSegment(state, (TokenSegment) dataPackage.get(0), collKey);
+            return state.mNewGraph;
+        }
+        // Array to hold all textTokens of this document.
+        List text_tokens = (ArrayList) dataPackage.get(0);
         // Transforming the array with the textTokens into a graph.
-        while (i < text_tokens.size())
+        for (int i = 0; i < text_tokens.size(); i++)
+        {
+            addTextToken(state, (TextToken) text_tokens.get(i));
+        }
+        return state.mNewGraph;
+    }
+    
+    /** addLabels: Gives the new labels of a document their index in the order
+     * of the first occurrence of the tokens, as textToGraph would. Called for
+     * the documents in the order of the file selection, it makes the indices 
+     * of a parallel build the same as those of a sequential build.
+     * @param dataPackage : array with text_tokens (List) or a TokenSegment, 
+     * docData (DocStats) and a collectionKey (String).
+     */
+    public void addLabels(List dataPackage)
+    {
+        if (dataPackage.get(0) instanceof TokenSegment)
+        {
+            TokenSegment segment = (TokenSegment) dataPackage.get(0);
+            int[] typeIds = segment.getTypeIds();
+            String[] types = segment.getTypes();
+            boolean[] seen = new boolean[types.length];
+            for (int i = 0; i < typeIds.length; i++)
+            {
+                if (seen[typeIds[i]]) continue;
+                seen[typeIds[i]] = true;
+                getLabelIndex(types[typeIds[i]]);
+            }
+            return;
+        }
+        List text_tokens = (ArrayList) dataPackage.get(0);
+        for (int i = 0; i < text_tokens.size(); i++)
+        {
+            getLabelIndex(((TextToken) text_tokens.get(i)).getToken());
+        }
+    }
+    
+    /** addVertices: Adds the vertices built by a worker to the vertices of 
+     * this network. A vertex seen by one worker only is taken over, otherwise
+     * its neighbors and info values are added to the existing vertex. Workers
+     * may add their maps at the same time when each takes a different part of
+     * the vertex indices.
+     * @param vertices : the vertex index (Integer) and the Vertex of a worker
+     * (Map)
+     * @param part : the part of the indices to add, index % parts (int)
+     * @param parts : the number of parts (int)
+     */
+    public void addVertices(Map vertices, int part, int parts)
+    {
+        Iterator vrtx_itr = vertices.entrySet().iterator();
+        while (vrtx_itr.hasNext())
         {
-            currentTextToken = (TextToken) text_tokens.get(i);
-            addTextToken(currentTextToken);
-            i++;
+            Map.Entry entry = (Map.Entry) vrtx_itr.next();
+            Integer index = (Integer) entry.getKey();
+            if (index % parts != part) continue;
+            Vertex added = (Vertex) entry.getValue();
+            Vertex existing;
+            synchronized (mVerticesMap)
+            {
+                existing = (Vertex) mVerticesMap.putIfAbsent(index, added);
+            }
+            if (existing != null) existing.merge(added);
         }
-        return mNewGraph;
     }
     
     /** addTextToken: Processes one textToken at a time, creating a vertex and 
@@ -130,61 +195,103 @@ public class NetworkBuilder implements Serializable
      * this will be adjusted when all files have been processed. Arcs (directed
      * links between vertices) get an initial weight of 0.
      * @ToDo: add end-of-line (EOF) token.
+     * @param state : the document being built (GraphState)
      * @param currentTextToken : the textToken now being handled
      */
-    private void addTextToken(TextToken currentTextToken)
+    private void addTextToken(GraphState state, TextToken currentTextToken)
+    {
+        addVertexIndex(state, getLabelIndex(currentTextToken.getToken()),
+                currentTextToken.getCollectionKey());
+    }
+    
+    /** addTokenSegment: Processes the tokens of a binary tokenized file in 
+     * the order of their position. The label index of a token-type is looked
+     * up once, at its first occurrence, so the labels get the same new 
+     * indices as with the TextToken list.
+     * @param state : the document being built (GraphState)
+     * @param segment : the decoded tokenized file (TokenSegment)
+     * @param collectionKey : key to the collection of this document (String)
+     */
+    private void addTokenSegment(GraphState state, TokenSegment segment,
+            String collectionKey)
+    {
+        int[] typeIds = segment.getTypeIds();
+        String[] types = segment.getTypes();
+        int[] labelIndex = new int[types.length];
+        for (int i = 0; i < typeIds.length; i++)
+        {
+            int typeId = typeIds[i];
+            // Label indices start at 1, 0 marks a type not yet looked up.
+            if (labelIndex[typeId] == 0)
+                labelIndex[typeId] = getLabelIndex(types[typeId]);
+            addVertexIndex(state, labelIndex[typeId], collectionKey);
+        }
+    }
+    
+    /** getLabelIndex: Returns the integer that identifies this label. A new 
+     * entry is added to the labelMap if this label is new. The next index is
+     * taken atomically, a label looked up by two workers at once gets one 
+     * index.
+     * @param currentToken : the label of a token (String)
+     * @return the label index (int)
+     */
+    private int getLabelIndex(String currentToken)
     {
-        int currentIndex;
-        Vertex currentVertex;
-        String currentToken = currentTextToken.getToken();
-        String collectionKey = currentTextToken.getCollectionKey();
-        
         // Checks if this token is already known. Retrieves the corresponding 
         // vertex if one exists with the integer that identifies its label.
-        if(mLabelMap.containsKey(currentToken))
-            currentIndex = ((Integer) mLabelMap.get(currentToken));
+        Integer currentIndex = (Integer) mLabelMap.get(currentToken);
+        if (currentIndex != null) return currentIndex;
         // Adds a new entry to the labelmap if this label is new.
-        else
-        {
-            mMainVertexIndex++;
-            currentIndex = mMainVertexIndex;
-            mLabelMap.put(currentToken, currentIndex);
-        }
-        if(mVerticesMap.containsKey(currentIndex))
-            currentVertex = (Vertex) mVerticesMap.get(currentIndex);
+        return (Integer) mLabelMap.computeIfAbsent(currentToken,
+                (Object label) -> mMainVertexIndex.incrementAndGet());
+    }
+    
+    /** addVertexIndex: Adds one token, identified by its label index, to the
+     * textGraph as described in addTextToken.
+     * @param state : the document being built (GraphState)
+     * @param currentIndex : the label index of the token (int)
+     * @param collectionKey : key to the collection of this document (String)
+     */
+    private void addVertexIndex(GraphState state, int currentIndex,
+            String collectionKey)
+    {
+        Vertex currentVertex;
+        if(state.mVertices.containsKey(currentIndex))
+            currentVertex = (Vertex) state.mVertices.get(currentIndex);
         // Creates a new vertex and puts it in the verticesMap.
         else
         {
             currentVertex = new Vertex();
-            mVerticesMap.put(currentIndex, currentVertex);
+            state.mVertices.put(currentIndex, currentVertex);
         }
         // Checks if an arc exists with this vertex otherwise creates a new one.
         // Adds neighbors to this vertex starting with the second token of the
         // document.
-        if (mArcPosition > 0)
+        if (state.mArcPosition > 0)
         {
             // Registers the previous token as neighbor to the current token
             // and registers the current token as neighbor to the previous token.
-            currentVertex.addAdjVertex(mLastIndex, mDocNr);
-            mLastVertex.addAdjVertex(currentIndex, mDocNr);
+            currentVertex.addAdjVertex(state.mLastIndex, state.mDocNr);
+            state.mLastVertex.addAdjVertex(currentIndex, state.mDocNr);
             // Creates arc index and adds it to the textGraph.
-            String arcIndex = "" + mLastIndex + "*" + currentIndex;
+            long arcIndex = ArcKey.makeKey(state.mLastIndex, currentIndex);
             // Forms an arc between the current and last vertex.
-            if(!mNewGraph.containsArcIndex(arcIndex)) mNewGraph.addArc(arcIndex,
-                    new Arc(mArcPosition, mLastIndex, currentIndex, mDocNr, 0));
+            if(!state.mNewGraph.containsArcIndex(arcIndex)) state.mNewGraph
+                    .addArc(arcIndex, new Arc(state.mArcPosition,
+                    state.mLastIndex, currentIndex, state.mDocNr, 0));
         }
         
         // The temporary placeholder value will be recalculated after processing
         // the dataGraph.
         currentVertex.setInfoValue(collectionKey, -1);
         // The textGraph counts each of its tokens.
-        mNewGraph.addTokenCount(currentIndex);
+        state.mNewGraph.addTokenCount(currentIndex);
         // The arc position allows sorting the arcs and to reconstruct the
         // original text.
-        mArcPosition++;
+        state.mArcPosition++;
         // Currentvertex is now the last new vertex added to the graph so far.
-        mLastVertex = currentVertex;
-        mLastIndex = currentIndex;
+        state.mLastVertex = currentVertex;
+        state.mLastIndex = currentIndex;
     }
     
     /** getLabelTable: Returns the labelTable, an instance of the LabelTable 
@@ -206,6 +313,9 @@ public class NetworkBuilder implements Serializable
      */
     public VerticesTable getFullVerticesTable()
     {
+        // The network is built, the neighbors of the vertices are frozen.
+        Iterator vrtx_itr = mVerticesMap.values().iterator();
+        while (vrtx_itr.hasNext()) ((Vertex) vrtx_itr.next()).freeze();
         VerticesTable vt = new VerticesTable();
         vt.addAllVertices(mVerticesMap);
         return vt;
@@ -241,4 +351,35 @@ public class NetworkBuilder implements Serializable
         o = null;
     }
     
+    /** Class GraphState holds the text graph of the document being built and 
+     * the position reached in it.
+     */
+    private static final class GraphState
+    {
+        // DocNumber is the unique document identifier.
+        private final int mDocNr;
+        // Instance of the Textgraph class, a representation of a textfile as
+        // a graph.
+        private final TextGraph mNewGraph;
+        // Map receiving the vertices of this document.
+        private final Map mVertices;
+        // Position index of an arc in a document.
+        private int mArcPosition;
+        // The last vertex processed so far.
+        private Vertex mLastVertex;
+        // The last index (label identification) processed so far.
+        private int mLastIndex;
+        
+        /** Constructor
+         * @param docNr : the unique document number (int)
+         * @param vertices : the map receiving the vertices (Map)
+         */
+        GraphState(int docNr, Map vertices)
+        {
+            mDocNr = docNr;
+            mNewGraph = new TextGraph(docNr);
+            mVertices = vertices;
+        }
+    }
+    
 }
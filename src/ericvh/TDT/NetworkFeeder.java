@@ -0,0 +1,246 @@
+package ericvh.TDT;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/** Class NetworkFeeder joins the Preprocess and the Build Network tasks. The
+ * token map of a document goes straight from the Tokenizer to the
+ * NetworkBuilder and only the text graph (*.tgr) is written to disk. The
+ * collection key, the document statistics, the scope check and the document
+ * ids are the same as when the tokenized files are read back by the Build
+ * Network task, and a text graph goes to the graph directory of the data
+ * store of its tokenized file.
+ * Documents arrive one at a time, also from several preprocessing workers.
+ * When the order of the selection is given by expect, the documents get their
+ * id in that order: a worker waits for the documents before its own to have
+ * their id, builds the graph with its own vertex map and saves it without
+ * holding the feeder. A document is registered in the docTable and the
+ * collectionTable once its graph is saved. The vertex maps of the workers are
+ * added to the network by addWorkerVertices.
+ */
+public class NetworkFeeder
+{
+    private final String separator = System.getProperty("file.separator");
+    // The builder of the text network.
+    private final NetworkBuilder mBuilder;
+    // 'true' when the DocTable has doc-ids from a previous session.
+    private final boolean mDocListExists;
+    // The graph directory of each data directory.
+    private final Map mGraphPaths = new HashMap();
+    // The rank in the selection of each expected document number.
+    private final Map mRanks = new HashMap();
+    // 'true' for the ranks that had their turn.
+    private boolean[] mPassed = new boolean[0];
+    // The rank of the next document to get its id.
+    private int mTurn;
+    // The vertex map of every worker thread.
+    private final List mWorkerVertices = new ArrayList();
+    private final ThreadLocal mVertices;
+    // Counts the empty documents.
+    private int mEmptyCount;
+    // Counts the text graphs written.
+    private int mGraphCount;
+
+    /** Constructor
+     * @param builder : the NetworkBuilder of this session (NetworkBuilder)
+     * @param docListExists : 'true' when doc-ids were attributed in a
+     * previous session (boolean)
+     */
+    public NetworkFeeder(NetworkBuilder builder, boolean docListExists)
+    {
+        this.mBuilder = builder;
+        this.mDocListExists = docListExists;
+        this.mVertices = ThreadLocal.withInitial(() ->
+        {
+            Map vertices = new HashMap();
+            synchronized (mWorkerVertices)
+            {
+                mWorkerVertices.add(vertices);
+            }
+            return vertices;
+        });
+    }
+
+    /** expect: Sets the order of the selection. The documents with these
+     * numbers get their id in the order of the array; every number must be
+     * passed, by addDocument or by pass.
+     * @param docNumbers : the document numbers of the preprocessor in the
+     * order of the selection (int[])
+     */
+    public synchronized void expect(int[] docNumbers)
+    {
+        mRanks.clear();
+        for (int i = 0; i < docNumbers.length; i++) mRanks.put(docNumbers[i], i);
+        mPassed = new boolean[docNumbers.length];
+        mTurn = 0;
+        notifyAll();
+    }
+
+    /** addDocument: Turns the token map of one document into a text graph and
+     * saves it. Documents outside the scope of this session are left out,
+     * empty documents are counted.
+     * @param wordMap : token-type (Key) and PositionList (Value) (Map)
+     * @param dataPath : the directory of the tokenized files (String)
+     * @param fileName : the name of the tokenized file (String)
+     * @param docNumber : the document number of the preprocessor (int)
+     * @param totTokens : total number of tokens in this document (int)
+     * @param totTypes : total number of token-types in this document (int)
+     * @throws IOException
+     */
+    public void addDocument(Map wordMap, String dataPath, String fileName,
+            int docNumber, int totTokens, int totTypes) throws IOException
+    {
+        List dataPackage = null;
+        String docName = null;
+        Calendar fileDate = Calendar.getInstance();
+        fileDate.set(0000, 00, 00);
+        fileDate = GraphTime.getDate(fileDate, fileName);
+        boolean inScope = GraphTime.isBetweenDates(fileDate,
+                ApplicationManager.getBeginDate(), ApplicationManager.getEndDate());
+        boolean empty = inScope && fileName.endsWith("emp");
+        // No tokenized file would have been written for an empty map.
+        if (inScope && !empty && !wordMap.isEmpty())
+        {
+            docName = fileName.substring(0, fileName.lastIndexOf('.'));
+            TokenSegment segment = TokenSegment.fromMap(wordMap, totTokens,
+                    totTypes);
+            dataPackage = new ArrayList(3);
+            dataPackage.add(segment);
+            dataPackage.add(segment.getDocStats(fileName));
+            dataPackage.add(new InputOutput().setCollectionKey(dataPath
+                    + separator + fileName));
+        }
+        int docId;
+        try
+        {
+            awaitTurn(docNumber);
+            synchronized (this)
+            {
+                if (empty) mEmptyCount++;
+                if (dataPackage == null) return;
+                docId = attributeDocId(docName);
+            }
+        }
+        finally
+        {
+            pass(docNumber);
+        }
+        TextGraph graph = mBuilder.buildGraph(dataPackage, docId,
+                (Map) mVertices.get());
+        new InputOutput().writeThisObject(getGraphPath(dataPath) + separator
+                + docName + ".tgr", graph);
+        synchronized (this)
+        {
+            mBuilder.addDocument(dataPackage, docId);
+            mGraphCount++;
+        }
+    }
+
+    /** pass: Ends the turn of a document in the order of the selection, also
+     * when it could not be processed. Passing a document twice has no effect.
+     * @param docNumber : the document number of the preprocessor (int)
+     */
+    public synchronized void pass(int docNumber)
+    {
+        Integer rank = (Integer) mRanks.get(docNumber);
+        if (rank == null || mPassed[rank]) return;
+        mPassed[rank] = true;
+        while (mTurn < mPassed.length && mPassed[mTurn]) mTurn++;
+        notifyAll();
+    }
+
+    /** awaitTurn: Waits until the documents before this one in the order of
+     * the selection had their turn. Returns at once for a document without a
+     * rank.
+     * @param docNumber : the document number of the preprocessor (int)
+     * @throws InterruptedIOException when the worker is interrupted
+     */
+    private synchronized void awaitTurn(int docNumber)
+            throws InterruptedIOException
+    {
+        Integer rank = (Integer) mRanks.get(docNumber);
+        if (rank == null) return;
+        try
+        {
+            while (mTurn < rank) wait();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Building the network interrupted");
+        }
+    }
+
+    /** attributeDocId: Attributes an unique identification number to a
+     * document, as the ApplicationManager does for the Build Network task.
+     * @param docName : the filename without suffix (String)
+     * @return a document identification (int)
+     */
+    private int attributeDocId(String docName)
+    {
+        int docNr = -1;
+        DocTable dt = ApplicationManager.getDocTable();
+        // If this document was seen before the existing document-id is retrieved.
+        if (mDocListExists) docNr = dt.getDocNr(docName);
+        // When no existing identification was found, the last id + 1 is returned
+        // by the DocTable.
+        if (docNr == -1) docNr = dt.getNextId();
+        return docNr;
+    }
+
+    /** getGraphPath: Getter returns the graph directory of the data store of
+     * a data directory, as the Build Network task pairs them.
+     * @param dataPath : the directory of the tokenized files (String)
+     * @return the directory of the text graphs (String)
+     */
+    private String getGraphPath(String dataPath)
+    {
+        synchronized (mGraphPaths)
+        {
+            String graphPath = (String) mGraphPaths.get(dataPath);
+            if (graphPath == null)
+            {
+                graphPath = ApplicationManager.getGraphPathOf(dataPath);
+                mGraphPaths.put(dataPath, graphPath);
+            }
+            return graphPath;
+        }
+    }
+
+    /** addWorkerVertices: Adds the vertex maps of all workers to the network.
+     * Called once all documents are added.
+     */
+    public void addWorkerVertices()
+    {
+        synchronized (mWorkerVertices)
+        {
+            for (int i = 0; i < mWorkerVertices.size(); i++)
+            {
+                mBuilder.addVertices((Map) mWorkerVertices.get(i), 0, 1);
+            }
+            mWorkerVertices.clear();
+        }
+    }
+
+    /** getEmptyCount: Getter returns the number of empty documents.
+     * @return count of empty documents (int)
+     */
+    public synchronized int getEmptyCount()
+    {
+        return mEmptyCount;
+    }
+
+    /** getGraphCount: Getter returns the number of text graphs written.
+     * @return count of text graphs (int)
+     */
+    public synchronized int getGraphCount()
+    {
+        return mGraphCount;
+    }
+}
@@ -0,0 +1,741 @@
+package ericvh.TDT;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+/** Class OffHeapArcStore keeps the arcs of all documents in columns outside
+ * the Java heap: the position, the two vertex-ids, the document number and
+ * the weight of every arc. The columns are split in chunks of direct buffers
+ * of CHUNK_SIZE arcs (6 MB); the arcs of a document sit next to each other,
+ * sorted on their position, from a start found in a per-document offset
+ * table.
+ * An arc then costs 24 bytes outside the heap instead of an Arc object and a
+ * map entry, so a large scope no longer fills the heap with long living
+ * objects that the garbage collector has to trace.
+ * The store is a Map with the doc-id (Integer) as key and the arcs of the
+ * document in a LongHashMap as value, as the arcs map of the ArcsTable, and
+ * can take its place. A LongHashMap asked with get is made from the columns
+ * with new Arc objects; the maps of the most recently asked documents are
+ * kept, as is the map last stored with put. The ArcsTable reads the arcs of a
+ * document through an ArcIndex made by makeArcIndex straight from the
+ * columns, which it keeps, so its lookups make no map. Passes over all arcs
+ * read the columns of a document with readColumns and change the weights of
+ * all its arcs with addWeights, also without a map. A changed map is stored
+ * again with put; an arc with a changed weight is stored again with
+ * updateArc. The ArcsTable does both for its own changes. Changes to a map
+ * that is not stored again do not reach the columns; getChange tells when
+ * the arcs of a document were last stored or changed.
+ * A document stored again with no more arcs than before keeps its place in
+ * the columns, else its arcs are appended. When the unused places pass a
+ * quarter of the columns (and at least a chunk), the arcs are moved down
+ * over them and the chunks left empty are freed.
+ * The direct buffers are freed when the store is released or no longer
+ * reachable; their total size is limited by -XX:MaxDirectMemorySize.
+ */
+public class OffHeapArcStore extends AbstractMap implements Serializable
+{
+    private static final long serialVersionUID = 2914586305727163854L;
+    // The number of arcs in a chunk of the columns.
+    private static final int CHUNK_SHIFT = 18;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    // Offsets of the columns in a chunk: four int columns and the weights.
+    private static final int POSITION = 0;
+    private static final int VERTEX1 = 4 * CHUNK_SIZE;
+    private static final int VERTEX2 = 8 * CHUNK_SIZE;
+    private static final int DOC = 12 * CHUNK_SIZE;
+    private static final int WEIGHT = 16 * CHUNK_SIZE;
+    private static final int CHUNK_BYTES = 24 * CHUNK_SIZE;
+    // The number of documents of which the arc maps are kept.
+    private static final int CACHED_DOCS = 64;
+    // The chunks of the columns, direct buffers.
+    private transient ByteBuffer[] mChunks;
+    // The number of arc places used in the columns.
+    private transient long mUsed;
+    // Per-document offset table: document number, start of its arcs in the
+    // columns and number of arcs, by the slot of the document.
+    private transient int[] mDocNrs;
+    private transient long[] mStart;
+    private transient int[] mCount;
+    private transient int mSlots;
+    // The change of the arcs of a document, by its slot: a number from
+    // mChanges taken when they were last stored or changed.
+    private transient long[] mChanged;
+    // The number of changes of the store.
+    private transient long mChanges;
+    // Map with doc-id (Integer) as key and the slot (Integer) as value.
+    private transient Map mSlotMap;
+    // The number of arcs of all documents.
+    private transient long mArcCount;
+    // Arc maps of the most recently asked documents, doc-id (Integer) as key.
+    private transient LinkedHashMap mCache;
+
+    /** Constructor
+     */
+    public OffHeapArcStore()
+    {
+        init();
+    }
+
+    /** init: Makes an empty store.
+     */
+    private void init()
+    {
+        mChunks = new ByteBuffer[0];
+        mDocNrs = new int[64];
+        mStart = new long[64];
+        mCount = new int[64];
+        mChanged = new long[64];
+        mSlotMap = new HashMap();
+        mCache = new LinkedHashMap(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry eldest)
+            {
+                return size() > CACHED_DOCS;
+            }
+        };
+    }
+
+    /** put: Stores the arcs of a document in the columns, sorted on their
+     * position. Arcs stored before for this document are replaced.
+     * @param key : the unique document identifier (Integer)
+     * @param value : the arcs of the document with their arc key, a
+     * LongHashMap or a Map with String keys of an earlier version (Object)
+     * @return the arcs stored before (LongHashMap), the kept map or else made
+     * from the columns, null for a new document.
+     */
+    @Override
+    public synchronized Object put(Object key, Object value)
+    {
+        Integer docInt = (Integer) key;
+        LongHashMap arcMap = ArcKey.toArcMap(value);
+        List arcs = ArcsTable.sortArcsOnPosition(arcMap.values());
+        Integer slotInt = (Integer) mSlotMap.get(docInt);
+        LongHashMap previous = null;
+        int slot;
+        if (slotInt == null)
+        {
+            slot = addSlot(docInt);
+        }
+        else
+        {
+            slot = slotInt;
+            previous = (LongHashMap) mCache.get(docInt);
+            if (previous == null) previous = toArcMap(readArcs(slot));
+            mArcCount -= mCount[slot];
+        }
+        // A document that grew is appended.
+        if (slotInt == null || arcs.size() > mCount[slot])
+        {
+            mStart[slot] = reserve(arcs.size());
+        }
+        mCount[slot] = arcs.size();
+        mChanged[slot] = ++mChanges;
+        mArcCount += arcs.size();
+        long place = mStart[slot];
+        for (int i = 0; i < arcs.size(); i++)
+        {
+            Arc arc = (Arc) arcs.get(i);
+            ByteBuffer chunk = mChunks[(int) (place >>> CHUNK_SHIFT)];
+            int offset = (int) (place & CHUNK_MASK);
+            chunk.putInt(POSITION + 4 * offset, arc.getArcPosition());
+            chunk.putInt(VERTEX1 + 4 * offset, arc.getVertex1Index());
+            chunk.putInt(VERTEX2 + 4 * offset, arc.getVertex2Index());
+            chunk.putInt(DOC + 4 * offset, docInt);
+            chunk.putDouble(WEIGHT + 8 * offset, arc.getArcWeight());
+            place++;
+        }
+        // The map stored is the map of the document from now on.
+        mCache.put(docInt, arcMap);
+        compactIfWasted();
+        return previous;
+    }
+
+    /** get: Getter returns the arcs of a document, made from the columns.
+     * @param key : the unique document identifier (Integer)
+     * @return LongHashMap with the arc key (long) as key and the arc (Arc) as
+     * value, or null for an unknown document.
+     */
+    @Override
+    public synchronized Object get(Object key)
+    {
+        LongHashMap arcMap = (LongHashMap) mCache.get(key);
+        if (arcMap != null) return arcMap;
+        Integer slotInt = (Integer) mSlotMap.get(key);
+        if (slotInt == null) return null;
+        arcMap = toArcMap(readArcs(slotInt));
+        mCache.put(key, arcMap);
+        return arcMap;
+    }
+
+    /** makeArcIndex: Makes the ArcIndex of a document. The arcs are made from
+     * the columns, already in the order of the text, without a map; the arcs
+     * of a kept map are used as they are.
+     * @param docInt : the unique document identifier (Integer)
+     * @return the ArcIndex (ArcIndex) or null for an unknown document.
+     */
+    public synchronized ArcIndex makeArcIndex(Integer docInt)
+    {
+        LongHashMap arcMap = (LongHashMap) mCache.get(docInt);
+        if (arcMap != null) return new ArcIndex(arcMap);
+        Integer slotInt = (Integer) mSlotMap.get(docInt);
+        if (slotInt == null) return null;
+        return new ArcIndex(readArcs(slotInt));
+    }
+
+    /** getChange: Getter returns the change of the arcs of a document: a
+     * number that is new every time they are stored with put or their weights
+     * change with updateArc or addWeights. An ArcIndex of the document is
+     * current as long as this number is the same.
+     * @param docInt : the unique document identifier (Integer)
+     * @return the change (long), -1 for an unknown document.
+     */
+    public synchronized long getChange(Integer docInt)
+    {
+        Integer slotInt = (Integer) mSlotMap.get(docInt);
+        return slotInt == null ? -1 : mChanged[slotInt];
+    }
+
+    /** getArcCount: Getter returns the number of arcs of a document.
+     * @param docInt : the unique document identifier (Integer)
+     * @return the number of arcs (int), 0 for an unknown document.
+     */
+    public synchronized int getArcCount(Integer docInt)
+    {
+        Integer slotInt = (Integer) mSlotMap.get(docInt);
+        return slotInt == null ? 0 : mCount[slotInt];
+    }
+
+    /** readColumns: Copies the columns of the arcs of a document to arrays,
+     * in the order of the text. The arrays hold at least getArcCount(docInt)
+     * arcs.
+     * @param docInt : the unique document identifier (Integer)
+     * @param positions : receives the positions (int[])
+     * @param vertex1 : receives the first vertex-ids (int[])
+     * @param vertex2 : receives the second vertex-ids (int[])
+     * @param weights : receives the weights (double[])
+     * @return the number of arcs copied (int), 0 for an unknown document.
+     */
+    public synchronized int readColumns(Integer docInt, int[] positions,
+            int[] vertex1, int[] vertex2, double[] weights)
+    {
+        Integer slotInt = (Integer) mSlotMap.get(docInt);
+        if (slotInt == null) return 0;
+        int slot = slotInt;
+        long place = mStart[slot];
+        for (int i = 0; i < mCount[slot]; i++)
+        {
+            ByteBuffer chunk = mChunks[(int) (place >>> CHUNK_SHIFT)];
+            int offset = (int) (place & CHUNK_MASK);
+            positions[i] = chunk.getInt(POSITION + 4 * offset);
+            vertex1[i] = chunk.getInt(VERTEX1 + 4 * offset);
+            vertex2[i] = chunk.getInt(VERTEX2 + 4 * offset);
+            weights[i] = chunk.getDouble(WEIGHT + 8 * offset);
+            place++;
+        }
+        return mCount[slot];
+    }
+
+    /** addWeights: Adds a weight to every arc of a document, in the order of
+     * readColumns. The kept map of the document, with the old weights, is
+     * dropped.
+     * @param docInt : the unique document identifier (Integer)
+     * @param added : the weight added to each arc (double[])
+     * @return boolean 'true' if the document is in the store.
+     */
+    public synchronized boolean addWeights(Integer docInt, double[] added)
+    {
+        Integer slotInt = (Integer) mSlotMap.get(docInt);
+        if (slotInt == null) return false;
+        int slot = slotInt;
+        long place = mStart[slot];
+        for (int i = 0; i < mCount[slot]; i++)
+        {
+            ByteBuffer chunk = mChunks[(int) (place >>> CHUNK_SHIFT)];
+            int offset = (int) (place & CHUNK_MASK);
+            chunk.putDouble(WEIGHT + 8 * offset, chunk.getDouble(WEIGHT
+                    + 8 * offset) + added[i]);
+            place++;
+        }
+        mChanged[slot] = ++mChanges;
+        mCache.remove(docInt);
+        return true;
+    }
+
+    /** containsArc: Returns 'true' if an arc with this key is in any document,
+     * by a scan over the vertex columns.
+     * @param arcKey : the arc key (long)
+     * @return boolean 'true' when a document has the arc.
+     */
+    public synchronized boolean containsArc(long arcKey)
+    {
+        int first = ArcKey.getVertex1(arcKey);
+        int second = ArcKey.getVertex2(arcKey);
+        for (int slot = 0; slot < mSlots; slot++)
+        {
+            long place = mStart[slot];
+            for (int i = 0; i < mCount[slot]; i++)
+            {
+                ByteBuffer chunk = mChunks[(int) (place >>> CHUNK_SHIFT)];
+                int offset = (int) (place & CHUNK_MASK);
+                if (chunk.getInt(VERTEX1 + 4 * offset) == first
+                        && chunk.getInt(VERTEX2 + 4 * offset) == second)
+                {
+                    return true;
+                }
+                place++;
+            }
+        }
+        return false;
+    }
+
+    /** readArcs: Makes the arcs of a document from the columns.
+     * @param slot : the slot of the document (int)
+     * @return the arcs in the order of the text (Arc[])
+     */
+    private Arc[] readArcs(int slot)
+    {
+        Arc[] arcs = new Arc[mCount[slot]];
+        long place = mStart[slot];
+        for (int i = 0; i < arcs.length; i++)
+        {
+            ByteBuffer chunk = mChunks[(int) (place >>> CHUNK_SHIFT)];
+            int offset = (int) (place & CHUNK_MASK);
+            arcs[i] = new Arc(chunk.getInt(POSITION + 4 * offset),
+                    chunk.getInt(VERTEX1 + 4 * offset),
+                    chunk.getInt(VERTEX2 + 4 * offset),
+                    chunk.getInt(DOC + 4 * offset),
+                    chunk.getDouble(WEIGHT + 8 * offset));
+            place++;
+        }
+        return arcs;
+    }
+
+    /** toArcMap: Puts arcs in a LongHashMap with their arc key.
+     * @param arcs : the arcs (Arc[])
+     * @return LongHashMap with the arc key (long) as key and the arc (Arc) as
+     * value.
+     */
+    private static LongHashMap toArcMap(Arc[] arcs)
+    {
+        LongHashMap arcMap = new LongHashMap(arcs.length);
+        for (int i = 0; i < arcs.length; i++)
+        {
+            arcMap.put(ArcKey.makeKey(arcs[i].getVertex1Index(),
+                    arcs[i].getVertex2Index()), arcs[i]);
+        }
+        return arcMap;
+    }
+
+    /** updateArc: Stores the weight of an arc again, after it was changed.
+     * The arc is found on its position by a binary search in the arcs of its
+     * document.
+     * @param a : the arc (Arc)
+     * @return boolean 'true' if the arc is in the store.
+     */
+    public synchronized boolean updateArc(Arc a)
+    {
+        Integer docInt = a.getArcDocNr();
+        Integer slotInt = (Integer) mSlotMap.get(docInt);
+        if (slotInt == null) return false;
+        int slot = slotInt;
+        int low = 0;
+        int high = mCount[slot] - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            long place = mStart[slot] + mid;
+            ByteBuffer chunk = mChunks[(int) (place >>> CHUNK_SHIFT)];
+            int offset = (int) (place & CHUNK_MASK);
+            int position = chunk.getInt(POSITION + 4 * offset);
+            if (position < a.getArcPosition()) low = mid + 1;
+            else if (position > a.getArcPosition()) high = mid - 1;
+            else
+            {
+                if (chunk.getInt(VERTEX1 + 4 * offset) != a.getVertex1Index()
+                        || chunk.getInt(VERTEX2 + 4 * offset)
+                        != a.getVertex2Index()) return false;
+                chunk.putDouble(WEIGHT + 8 * offset, a.getArcWeight());
+                mChanged[slot] = ++mChanges;
+                // A kept map holds other Arc objects than this one.
+                LongHashMap arcMap = (LongHashMap) mCache.get(docInt);
+                if (arcMap != null && arcMap.get(ArcKey.makeKey(
+                        a.getVertex1Index(), a.getVertex2Index())) != a)
+                {
+                    mCache.remove(docInt);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** remove: Removes the arcs of a document. Their place in the columns
+     * is unused until the columns are compacted.
+     * @param key : the unique document identifier (Integer)
+     * @return the arcs removed (LongHashMap), the kept map or else made from
+     * the columns, null for an unknown document.
+     */
+    @Override
+    public synchronized Object remove(Object key)
+    {
+        Integer slotInt = (Integer) mSlotMap.remove(key);
+        if (slotInt == null) return null;
+        LongHashMap previous = (LongHashMap) mCache.remove(key);
+        if (previous == null) previous = toArcMap(readArcs(slotInt));
+        mArcCount -= mCount[slotInt];
+        mCount[slotInt] = -1;
+        compactIfWasted();
+        return previous;
+    }
+
+    /** containsKey: Returns 'true' if the arcs of this document are stored.
+     * @param key : the unique document identifier (Integer)
+     * @return boolean 'true' when the document is in the store.
+     */
+    @Override
+    public synchronized boolean containsKey(Object key)
+    {
+        return mSlotMap.containsKey(key);
+    }
+
+    /** size: Returns the number of documents in the store.
+     * @return the number of documents (int)
+     */
+    @Override
+    public synchronized int size()
+    {
+        return mSlotMap.size();
+    }
+
+    /** clear: Removes all documents and frees the columns.
+     */
+    @Override
+    public synchronized void clear()
+    {
+        release();
+    }
+
+    /** getArcCount: Getter returns the number of arcs of all documents.
+     * @return the number of arcs (long)
+     */
+    public synchronized long getArcCount()
+    {
+        return mArcCount;
+    }
+
+    /** getMemorySize: Returns the bytes of the columns outside the heap.
+     * @return the number of bytes (long)
+     */
+    public synchronized long getMemorySize()
+    {
+        return (long) mChunks.length * CHUNK_BYTES;
+    }
+
+    /** release: Frees the columns and empties the store. It can be used
+     * again afterwards.
+     */
+    public synchronized void release()
+    {
+        init();
+        mUsed = 0;
+        mSlots = 0;
+        mArcCount = 0;
+    }
+
+    /** entrySet: Returns the documents of the store. The arcs of a document
+     * are made from the columns when the value of its entry is asked.
+     * @return Set with an entry (Map.Entry) per document.
+     */
+    @Override
+    public Set entrySet()
+    {
+        return new AbstractSet()
+        {
+            @Override
+            public int size()
+            {
+                return OffHeapArcStore.this.size();
+            }
+
+            @Override
+            public Iterator iterator()
+            {
+                return new EntryIterator(liveDocNrs());
+            }
+        };
+    }
+
+    /** liveDocNrs: Returns the numbers of the stored documents in the order
+     * they were first stored.
+     * @return the document numbers (int[])
+     */
+    private synchronized int[] liveDocNrs()
+    {
+        int[] docNrs = new int[mSlotMap.size()];
+        int d = 0;
+        for (int slot = 0; slot < mSlots; slot++)
+        {
+            if (mCount[slot] >= 0) docNrs[d++] = mDocNrs[slot];
+        }
+        return docNrs;
+    }
+
+    /** addSlot: Adds a document to the offset table.
+     * @param docInt : the unique document identifier (Integer)
+     * @return the slot of the document (int)
+     */
+    private int addSlot(Integer docInt)
+    {
+        if (mSlots == mDocNrs.length)
+        {
+            mDocNrs = Arrays.copyOf(mDocNrs, mSlots * 2);
+            mStart = Arrays.copyOf(mStart, mSlots * 2);
+            mCount = Arrays.copyOf(mCount, mSlots * 2);
+            mChanged = Arrays.copyOf(mChanged, mSlots * 2);
+        }
+        mDocNrs[mSlots] = docInt;
+        mSlotMap.put(docInt, mSlots);
+        return mSlots++;
+    }
+
+    /** reserve: Reserves places for a number of arcs at the end of the
+     * columns and adds the chunks needed.
+     * @param arcs : the number of arcs (int)
+     * @return the first place (long)
+     */
+    private long reserve(int arcs)
+    {
+        long start = mUsed;
+        mUsed += arcs;
+        int chunks = (int) ((mUsed + CHUNK_MASK) >>> CHUNK_SHIFT);
+        if (chunks > mChunks.length)
+        {
+            int old = mChunks.length;
+            mChunks = Arrays.copyOf(mChunks, chunks);
+            for (int c = old; c < chunks; c++)
+            {
+                mChunks[c] = ByteBuffer.allocateDirect(CHUNK_BYTES)
+                        .order(ByteOrder.nativeOrder());
+            }
+        }
+        return start;
+    }
+
+    /** compactIfWasted: Compacts the columns when the unused places pass a
+     * quarter of the places used and at least a chunk.
+     */
+    private void compactIfWasted()
+    {
+        long unused = mUsed - mArcCount;
+        if (unused > CHUNK_SIZE && unused > mUsed / 4) compact();
+    }
+
+    /** compact: Moves the arcs of the documents down over the unused places,
+     * in the order of their place, and frees the chunks left empty. The slots
+     * of removed documents are dropped; the other documents keep their order.
+     */
+    private void compact()
+    {
+        Integer[] order = new Integer[mSlotMap.size()];
+        int n = 0;
+        for (int slot = 0; slot < mSlots; slot++)
+        {
+            if (mCount[slot] >= 0) order[n++] = slot;
+        }
+        Arrays.sort(order, (Integer a, Integer b) -> Long.compare(mStart[a],
+                mStart[b]));
+        // A document never moves up, so the arcs are copied from the front.
+        long free = 0;
+        for (int i = 0; i < order.length; i++)
+        {
+            int slot = order[i];
+            if (mStart[slot] != free)
+            {
+                for (int a = 0; a < mCount[slot]; a++)
+                {
+                    copyArc(mStart[slot] + a, free + a);
+                }
+                mStart[slot] = free;
+            }
+            free += mCount[slot];
+        }
+        int[] docNrs = new int[Math.max(64, order.length)];
+        long[] starts = new long[docNrs.length];
+        int[] counts = new int[docNrs.length];
+        long[] changed = new long[docNrs.length];
+        int live = 0;
+        for (int slot = 0; slot < mSlots; slot++)
+        {
+            if (mCount[slot] < 0) continue;
+            docNrs[live] = mDocNrs[slot];
+            starts[live] = mStart[slot];
+            counts[live] = mCount[slot];
+            changed[live] = mChanged[slot];
+            mSlotMap.put(mDocNrs[slot], live);
+            live++;
+        }
+        mDocNrs = docNrs;
+        mStart = starts;
+        mCount = counts;
+        mChanged = changed;
+        mSlots = live;
+        mUsed = free;
+        int chunks = (int) ((mUsed + CHUNK_MASK) >>> CHUNK_SHIFT);
+        if (chunks < mChunks.length) mChunks = Arrays.copyOf(mChunks, chunks);
+    }
+
+    /** copyArc: Copies the columns of an arc to another place.
+     * @param from : the place of the arc (long)
+     * @param to : the new place (long)
+     */
+    private void copyArc(long from, long to)
+    {
+        ByteBuffer source = mChunks[(int) (from >>> CHUNK_SHIFT)];
+        int s = (int) (from & CHUNK_MASK);
+        ByteBuffer target = mChunks[(int) (to >>> CHUNK_SHIFT)];
+        int t = (int) (to & CHUNK_MASK);
+        target.putInt(POSITION + 4 * t, source.getInt(POSITION + 4 * s));
+        target.putInt(VERTEX1 + 4 * t, source.getInt(VERTEX1 + 4 * s));
+        target.putInt(VERTEX2 + 4 * t, source.getInt(VERTEX2 + 4 * s));
+        target.putInt(DOC + 4 * t, source.getInt(DOC + 4 * s));
+        target.putDouble(WEIGHT + 8 * t, source.getDouble(WEIGHT + 8 * s));
+    }
+
+    /** writeObject: Writes the documents with the columns of their arcs.
+     * @param out : the output stream (ObjectOutputStream)
+     * @throws IOException
+     */
+    private synchronized void writeObject(ObjectOutputStream out)
+            throws IOException
+    {
+        out.defaultWriteObject();
+        out.writeInt(mSlotMap.size());
+        for (int slot = 0; slot < mSlots; slot++)
+        {
+            if (mCount[slot] < 0) continue;
+            out.writeInt(mDocNrs[slot]);
+            out.writeInt(mCount[slot]);
+            long place = mStart[slot];
+            for (int i = 0; i < mCount[slot]; i++)
+            {
+                ByteBuffer chunk = mChunks[(int) (place >>> CHUNK_SHIFT)];
+                int offset = (int) (place & CHUNK_MASK);
+                out.writeInt(chunk.getInt(POSITION + 4 * offset));
+                out.writeInt(chunk.getInt(VERTEX1 + 4 * offset));
+                out.writeInt(chunk.getInt(VERTEX2 + 4 * offset));
+                out.writeDouble(chunk.getDouble(WEIGHT + 8 * offset));
+                place++;
+            }
+        }
+    }
+
+    /** readObject: Reads the documents and puts their arcs in new columns.
+     * @param in : the input stream (ObjectInputStream)
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException,
+            ClassNotFoundException
+    {
+        in.defaultReadObject();
+        init();
+        int docs = in.readInt();
+        for (int d = 0; d < docs; d++)
+        {
+            Integer docInt = in.readInt();
+            int count = in.readInt();
+            int slot = addSlot(docInt);
+            mStart[slot] = reserve(count);
+            mCount[slot] = count;
+            mArcCount += count;
+            long place = mStart[slot];
+            for (int i = 0; i < count; i++)
+            {
+                ByteBuffer chunk = mChunks[(int) (place >>> CHUNK_SHIFT)];
+                int offset = (int) (place & CHUNK_MASK);
+                chunk.putInt(POSITION + 4 * offset, in.readInt());
+                chunk.putInt(VERTEX1 + 4 * offset, in.readInt());
+                chunk.putInt(VERTEX2 + 4 * offset, in.readInt());
+                chunk.putInt(DOC + 4 * offset, docInt);
+                chunk.putDouble(WEIGHT + 8 * offset, in.readDouble());
+                place++;
+            }
+        }
+    }
+
+    /** Class EntryIterator runs over the stored documents; the arcs of a
+     * document are made when the value of its entry is asked.
+     */
+    private class EntryIterator implements Iterator
+    {
+        // The document numbers at the start of the iteration.
+        private final int[] mIterDocNrs;
+        // The next document.
+        private int mNext;
+
+        /** Constructor
+         * @param docNrs : the document numbers (int[])
+         */
+        EntryIterator(int[] docNrs)
+        {
+            mIterDocNrs = docNrs;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return mNext < mIterDocNrs.length;
+        }
+
+        @Override
+        public Object next()
+        {
+            if (!hasNext()) throw new NoSuchElementException();
+            final Integer docInt = mIterDocNrs[mNext++];
+            return new Map.Entry()
+            {
+                @Override
+                public Object getKey()
+                {
+                    return docInt;
+                }
+
+                @Override
+                public Object getValue()
+                {
+                    return get(docInt);
+                }
+
+                @Override
+                public Object setValue(Object value)
+                {
+                    return put(docInt, value);
+                }
+            };
+        }
+
+        @Override
+        public void remove()
+        {
+            if (mNext == 0) throw new IllegalStateException();
+            OffHeapArcStore.this.remove(mIterDocNrs[mNext - 1]);
+        }
+    }
+}
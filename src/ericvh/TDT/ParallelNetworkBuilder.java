@@ -0,0 +1,280 @@
+package ericvh.TDT;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/** Class ParallelNetworkBuilder runs the Build Network task on a pool of worker
+ * threads. Every tokenized file is read, turned into a text graph and saved by
+ * one worker. The labels get their index from the concurrent dictionary of the
+ * NetworkBuilder; each worker keeps the vertices of its documents in its own
+ * map, these maps are added to the network at the end. Documents are
+ * registered in the docTable and the collectionTable in the order of the file
+ * selection, once their graph is saved.
+ * With fixed ids the new labels of the documents are given their index in the
+ * order of the selection before the graphs are built, batch by batch, so the
+ * label indices are the same as those of a sequential build. Otherwise the
+ * workers give the indices in the order they meet the labels.
+ * Called by the ApplicationManager when more than one worker thread is set in
+ * the GUI-parameters.
+ */
+public class ParallelNetworkBuilder
+{
+    // The builder of the text network.
+    private final NetworkBuilder mBuilder;
+    // Number of worker threads.
+    private final int mWorkers;
+    // 'true' to give the label indices in the order of the selection.
+    private final boolean mFixedIds;
+    // The vertex map of every worker thread.
+    private final List mWorkerVertices;
+    private final ThreadLocal mVertices;
+
+    /** Constructor
+     * @param builder : the NetworkBuilder of this session (NetworkBuilder)
+     * @param workers : the number of worker threads (int)
+     * @param fixedIds : 'true' for the label indices of a sequential build
+     * (boolean)
+     */
+    public ParallelNetworkBuilder(NetworkBuilder builder, int workers,
+            boolean fixedIds)
+    {
+        this.mBuilder = builder;
+        this.mWorkers = Math.max(1, workers);
+        this.mFixedIds = fixedIds;
+        this.mWorkerVertices = new ArrayList(mWorkers);
+        this.mVertices = ThreadLocal.withInitial(() ->
+        {
+            Map vertices = new HashMap();
+            synchronized (mWorkerVertices)
+            {
+                mWorkerVertices.add(vertices);
+            }
+            return vertices;
+        });
+    }
+
+    /** build: Builds and saves the text graphs of the tokenized files in the
+     * list. The file at index i gets the document number at index i. The
+     * progress bar of the GUI is updated each time a file is ready. An
+     * interrupt of the calling thread (the 'cancel' button) stops all workers.
+     * @param fileList : the full paths of the tokenized files (List)
+     * @param docNumbers : the document number of each file (int[])
+     * @param graphPathList : the full path of the text graph of each file (List)
+     * @return the number of files that could not be processed (int)
+     * @throws InterruptedException
+     */
+    public int build(List fileList, int[] docNumbers, List graphPathList)
+            throws InterruptedException
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(mWorkers);
+        try
+        {
+            int failed = mFixedIds
+                    ? buildFixed(pool, fileList, docNumbers, graphPathList)
+                    : buildFree(pool, fileList, docNumbers, graphPathList);
+            addWorkerVertices(pool);
+            return failed;
+        }
+        catch (InterruptedException e)
+        {
+            pool.shutdownNow();
+            throw e;
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /** buildFree: Reads and builds every file in one task; the labels get
+     * their index from the worker that meets them first.
+     * @param pool : the worker threads (ExecutorService)
+     * @param fileList : the full paths of the tokenized files (List)
+     * @param docNumbers : the document number of each file (int[])
+     * @param graphPathList : the full path of the text graph of each file (List)
+     * @return the number of files that could not be processed (int)
+     * @throws InterruptedException
+     */
+    private int buildFree(ExecutorService pool, List fileList, int[] docNumbers,
+            List graphPathList) throws InterruptedException
+    {
+        List results = new ArrayList(fileList.size());
+        for (int i = 0; i < fileList.size(); i++)
+        {
+            final String filePath = (String) fileList.get(i);
+            final String graphPath = (String) graphPathList.get(i);
+            final int docNumber = docNumbers[i];
+            Callable task = () ->
+            {
+                List dataPackage = new InputOutput().makeTokenArray(filePath,
+                        docNumber);
+                saveGraph(dataPackage, docNumber, graphPath);
+                return dataPackage;
+            };
+            results.add(pool.submit(task));
+        }
+        int failed = 0;
+        // Registers the documents in the order of the selection.
+        for (int i = 0; i < results.size(); i++)
+        {
+            List dataPackage = waitFor((Future) results.get(i));
+            if (dataPackage == null) failed++;
+            else mBuilder.addDocument(dataPackage, docNumbers[i]);
+            ApplicationManager.setFileCount(1);
+        }
+        return failed;
+    }
+
+    /** buildFixed: Reads the files of a batch in parallel, gives the new labels
+     * their index in the order of the selection and builds the graphs of the
+     * batch in parallel. A document is registered once its graph is saved.
+     * The next batch is read while a batch is built.
+     * @param pool : the worker threads (ExecutorService)
+     * @param fileList : the full paths of the tokenized files (List)
+     * @param docNumbers : the document number of each file (int[])
+     * @param graphPathList : the full path of the text graph of each file (List)
+     * @return the number of files that could not be processed (int)
+     * @throws InterruptedException
+     */
+    private int buildFixed(ExecutorService pool, List fileList, int[] docNumbers,
+            List graphPathList) throws InterruptedException
+    {
+        int batchSize = mWorkers * 8;
+        int failed = 0;
+        List reads = submitReads(pool, fileList, docNumbers, 0, batchSize);
+        for (int start = 0; start < fileList.size(); start += batchSize)
+        {
+            int end = Math.min(start + batchSize, fileList.size());
+            List nextReads = submitReads(pool, fileList, docNumbers, end,
+                    batchSize);
+            List builds = new ArrayList(end - start);
+            List buildNumbers = new ArrayList(end - start);
+            for (int i = start; i < end; i++)
+            {
+                final List dataPackage = waitFor((Future) reads.get(i - start));
+                if (dataPackage == null)
+                {
+                    failed++;
+                    continue;
+                }
+                mBuilder.addLabels(dataPackage);
+                final String graphPath = (String) graphPathList.get(i);
+                final int docNumber = docNumbers[i];
+                Callable task = () ->
+                {
+                    saveGraph(dataPackage, docNumber, graphPath);
+                    return dataPackage;
+                };
+                builds.add(pool.submit(task));
+                buildNumbers.add(docNumber);
+            }
+            // Registers the documents with a saved graph in the order of the
+            // selection.
+            for (int i = 0; i < builds.size(); i++)
+            {
+                List dataPackage = waitFor((Future) builds.get(i));
+                if (dataPackage == null) failed++;
+                else mBuilder.addDocument(dataPackage, (Integer) buildNumbers.get(i));
+            }
+            ApplicationManager.setFileCount(end - start);
+            reads = nextReads;
+        }
+        return failed;
+    }
+
+    /** submitReads: Submits the reading of a batch of tokenized files.
+     * @param pool : the worker threads (ExecutorService)
+     * @param fileList : the full paths of the tokenized files (List)
+     * @param docNumbers : the document number of each file (int[])
+     * @param start : index of the first file of the batch (int)
+     * @param batchSize : the number of files in a batch (int)
+     * @return the Futures of the data packages of the files (List)
+     */
+    private List submitReads(ExecutorService pool, List fileList,
+            int[] docNumbers, int start, int batchSize)
+    {
+        int end = Math.min(start + batchSize, fileList.size());
+        List reads = new ArrayList(Math.max(0, end - start));
+        for (int i = start; i < end; i++)
+        {
+            final String filePath = (String) fileList.get(i);
+            final int docNumber = docNumbers[i];
+            Callable task = () -> new InputOutput().makeTokenArray(filePath,
+                    docNumber);
+            reads.add(pool.submit(task));
+        }
+        return reads;
+    }
+
+    /** saveGraph: Builds the text graph of a document with the vertex map of
+     * this worker and writes it to disk. The tokens are released afterwards.
+     * @param dataPackage : the tokens, docData and collectionKey (List)
+     * @param docNumber : the document number (int)
+     * @param graphPath : the full path of the text graph (String)
+     * @throws Exception
+     */
+    private void saveGraph(List dataPackage, int docNumber, String graphPath)
+            throws Exception
+    {
+        TextGraph graph = mBuilder.buildGraph(dataPackage, docNumber,
+                (Map) mVertices.get());
+        new InputOutput().writeThisObject(graphPath, graph);
+        dataPackage.set(0, null);
+    }
+
+    /** waitFor: Waits for the result of a task.
+     * @param result : the pending result (Future)
+     * @return the data package of the file, null if it could not be processed
+     * @throws InterruptedException
+     */
+    private List waitFor(Future result) throws InterruptedException
+    {
+        try
+        {
+            return (List) result.get();
+        }
+        catch (ExecutionException e)
+        {
+            ApplicationManager.showText("* Exception encountered while "
+                    + "building the network *", 0);
+            e.getCause().printStackTrace(System.err);
+            return null;
+        }
+    }
+
+    /** addWorkerVertices: Adds the vertex maps of all workers to the network.
+     * Every worker takes a part of the vertex indices, so no vertex is joined
+     * by two workers.
+     * @param pool : the worker threads (ExecutorService)
+     * @throws InterruptedException
+     */
+    private void addWorkerVertices(ExecutorService pool)
+            throws InterruptedException
+    {
+        List joins = new ArrayList(mWorkers);
+        for (int part = 0; part < mWorkers; part++)
+        {
+            final int thisPart = part;
+            Callable task = () ->
+            {
+                for (int i = 0; i < mWorkerVertices.size(); i++)
+                {
+                    mBuilder.addVertices((Map) mWorkerVertices.get(i), thisPart,
+                            mWorkers);
+                }
+                return null;
+            };
+            joins.add(pool.submit(task));
+        }
+        for (int i = 0; i < joins.size(); i++) waitFor((Future) joins.get(i));
+        mWorkerVertices.clear();
+    }
+}
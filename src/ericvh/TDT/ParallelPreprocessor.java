@@ -0,0 +1,113 @@
+package ericvh.TDT;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/** Class ParallelPreprocessor runs the Preprocess task on a pool of worker
+ * threads. Every source file is parsed, tokenized and saved by one worker; the
+ * TikaParser instance is shared. Document numbers are reserved in advance and
+ * attributed in the order of the file selection, so the names of the
+ * tokenized files do not depend on the order in which the workers finish.
+ * In the fused mode the NetworkFeeder gives the document ids in the same
+ * order.
+ * Called by the ApplicationManager when more than one worker thread is set in
+ * the GUI-parameters.
+ */
+public class ParallelPreprocessor
+{
+    // The parser shared by all workers.
+    private final TikaParser mParser;
+    // Number of worker threads.
+    private final int mWorkers;
+
+    /** Constructor
+     * @param parser : the TikaParser doing the work (TikaParser)
+     * @param workers : the number of worker threads (int)
+     */
+    public ParallelPreprocessor(TikaParser parser, int workers)
+    {
+        this.mParser = parser;
+        this.mWorkers = Math.max(1, workers);
+    }
+
+    /** process: Preprocesses the files in the list with the next document
+     * numbers, attributed in the order of the list.
+     * @param fileList : the full paths of the source files (List)
+     * @param dataPathList : the data directory of each file (List)
+     * @return the path of the tokenized file of each source file, null when
+     * a file could not be processed (String[])
+     * @throws InterruptedException
+     */
+    public String[] process(List fileList, List dataPathList)
+            throws InterruptedException
+    {
+        int base = TikaParser.reserveDocNumbers(fileList.size());
+        int[] docNumbers = new int[fileList.size()];
+        for (int i = 0; i < docNumbers.length; i++) docNumbers[i] = base + i + 1;
+        return process(fileList, dataPathList, docNumbers);
+    }
+
+    /** process: Preprocesses the files in the list. The file at index i goes to
+     * the data directory at index i of the second list and gets the document
+     * number at index i. The progress bar of the GUI is updated each time a
+     * file is ready. An interrupt of the calling thread (the 'cancel' button)
+     * stops all workers.
+     * @param fileList : the full paths of the source files (List)
+     * @param dataPathList : the data directory of each file (List)
+     * @param docNumbers : the document number of each file (int[])
+     * @return the path of the tokenized file of each source file, null when
+     * a file could not be processed (String[])
+     * @throws InterruptedException
+     */
+    public String[] process(List fileList, List dataPathList, int[] docNumbers)
+            throws InterruptedException
+    {
+        String[] outputs = new String[fileList.size()];
+        NetworkFeeder feeder = ApplicationManager.getNetworkFeeder();
+        if (feeder != null) feeder.expect(docNumbers);
+        ExecutorService pool = Executors.newFixedThreadPool(mWorkers);
+        List results = new ArrayList(fileList.size());
+        try
+        {
+            for (int i = 0; i < fileList.size(); i++)
+            {
+                final String filePath = (String) fileList.get(i);
+                final String dataPath = (String) dataPathList.get(i);
+                final int docNumber = docNumbers[i];
+                Callable task = () -> mParser.parse(filePath, dataPath, docNumber);
+                results.add(pool.submit(task));
+            }
+            pool.shutdown();
+            // Waits for the files in the order of the selection.
+            for (int i = 0; i < results.size(); i++)
+            {
+                Future result = (Future) results.get(i);
+                try
+                {
+                    outputs[i] = (String) result.get();
+                }
+                catch (ExecutionException e)
+                {
+                    ApplicationManager.showText("* Exception encountered during "
+                            + "the parsing task *", 0);
+                    e.getCause().printStackTrace(System.err);
+                }
+                // A file that never reached the feeder passes its turn.
+                if (feeder != null) feeder.pass(docNumbers[i]);
+                ApplicationManager.setFileCount(1);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            pool.shutdownNow();
+            throw e;
+        }
+        return outputs;
+    }
+}
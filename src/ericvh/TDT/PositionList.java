@@ -0,0 +1,81 @@
+package ericvh.TDT;
+
+
+/** Class PositionList is a growable array of primitive int positions of one
+ * token in a text. Used by the Tokenizer as value in the map of token-types.
+ * The toString method gives the positions separated by a comma and a blank,
+ * the format of the tokenized (*.tok) files.
+ */
+public class PositionList
+{
+    // The positions in the order they were added.
+    private int[] mPositions;
+    // The number of positions in use.
+    private int mSize;
+
+    /** Constructor
+     */
+    public PositionList()
+    {
+        mPositions = new int[4];
+    }
+
+    /** add: Adds a position at the end of the list, the array doubles in size
+     * when full.
+     * @param position : position of a token in the text (int)
+     */
+    public void add(int position)
+    {
+        if (mSize == mPositions.length)
+        {
+            int[] grown = new int[mSize * 2];
+            System.arraycopy(mPositions, 0, grown, 0, mSize);
+            mPositions = grown;
+        }
+        mPositions[mSize++] = position;
+    }
+
+    /** get: Getter returns the position at this index.
+     * @param index : index in the list (int)
+     * @return the position (int)
+     */
+    public int get(int index)
+    {
+        if (index >= mSize) throw new IndexOutOfBoundsException("Index: " + index);
+        return mPositions[index];
+    }
+
+    /** size: Getter returns the number of positions, the frequency of the token.
+     * @return number of positions (int)
+     */
+    public int size()
+    {
+        return mSize;
+    }
+
+    /** toArray: Returns a copy of the positions.
+     * @return array with the positions (int[])
+     */
+    public int[] toArray()
+    {
+        int[] copy = new int[mSize];
+        System.arraycopy(mPositions, 0, copy, 0, mSize);
+        return copy;
+    }
+
+    /** toString: Returns the positions separated by ", " as they were kept
+     * in the former StringBuffer format.
+     * @return the positions as a String
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder(mSize * 6);
+        for (int i = 0; i < mSize; i++)
+        {
+            if (i > 0) sb.append(", ");
+            sb.append(mPositions[i]);
+        }
+        return sb.toString();
+    }
+}
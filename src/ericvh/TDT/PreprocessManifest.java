@@ -0,0 +1,226 @@
+package ericvh.TDT;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+
+/** Class PreprocessManifest remembers for every preprocessed source file its
+ * size, last modified time and content hash, together with the tokenized file
+ * it produced and its document number. An incremental Preprocess task uses it
+ * to skip the unchanged files, to tokenize the changed files again under their
+ * old document number and to retire the output of deleted files. The manifest
+ * is saved in the WorkFiles directory of a community.
+ */
+public class PreprocessManifest implements Serializable
+{
+    // The source path (Key) and its Entry (Value).
+    private final Map mEntries;
+    // The highest document number attributed so far.
+    private int mMaxDocNr;
+
+    /** Class Entry holds the manifest data of one source file.
+     */
+    private static class Entry implements Serializable
+    {
+        private long mSize;
+        private long mModified;
+        private String mHash;
+        private String mOutputPath;
+        private int mDocNr;
+    }
+
+    /** Constructor
+     */
+    public PreprocessManifest()
+    {
+        mEntries = new HashMap();
+    }
+
+    /** isUnchanged: Returns 'true' if this source file was preprocessed before
+     * and did not change. Its output must still be there: the tokenized file,
+     * or the text graph with the same name in one of the directories of the
+     * community, the only output of a fused Preprocess that does not keep the
+     * tokenized files. Size and modified time are compared first; the content
+     * hash decides when only the time changed (a copy or a touch).
+     * @param path : the full path of the source file (String)
+     * @param communityDir : the directory of the community (File)
+     * @return boolean 'true' when the file can be skipped.
+     * @throws IOException
+     */
+    public synchronized boolean isUnchanged(String path, File communityDir)
+            throws IOException
+    {
+        Entry entry = (Entry) mEntries.get(path);
+        if (entry == null || !hasOutput(entry, communityDir)) return false;
+        File file = new File(path);
+        if (file.length() != entry.mSize) return false;
+        if (file.lastModified() == entry.mModified) return true;
+        if (getContentHash(file).equals(entry.mHash))
+        {
+            entry.mModified = file.lastModified();
+            return true;
+        }
+        return false;
+    }
+
+    /** getDocNr: Getter returns the document number of a source file seen
+     * before.
+     * @param path : the full path of the source file (String)
+     * @return the document number (int) or '-1' for a new file.
+     */
+    public synchronized int getDocNr(String path)
+    {
+        Entry entry = (Entry) mEntries.get(path);
+        if (entry == null) return -1;
+        return entry.mDocNr;
+    }
+
+    /** getMaxDocNr: Getter returns the highest document number in use.
+     * @return the document number (int)
+     */
+    public synchronized int getMaxDocNr()
+    {
+        return mMaxDocNr;
+    }
+
+    /** record: Adds or replaces the entry of a source file after it was
+     * tokenized.
+     * @param path : the full path of the source file (String)
+     * @param outputPath : the full path of the tokenized file (String)
+     * @param docNr : the document number (int)
+     * @throws IOException
+     */
+    public void record(String path, String outputPath, int docNr)
+            throws IOException
+    {
+        File file = new File(path);
+        Entry entry = new Entry();
+        entry.mSize = file.length();
+        entry.mModified = file.lastModified();
+        entry.mHash = getContentHash(file);
+        entry.mOutputPath = outputPath;
+        entry.mDocNr = docNr;
+        synchronized (this)
+        {
+            mEntries.put(path, entry);
+            if (docNr > mMaxDocNr) mMaxDocNr = docNr;
+        }
+    }
+
+    /** retire: Removes the output of a source file seen before: its tokenized
+     * file and the text graphs with the same name in the directories of this
+     * community. The entry itself is kept until the file is recorded again.
+     * @param path : the full path of the source file (String)
+     * @param communityDir : the directory of the community (File)
+     */
+    public synchronized void retire(String path, File communityDir)
+    {
+        Entry entry = (Entry) mEntries.get(path);
+        if (entry == null) return;
+        File output = new File(entry.mOutputPath);
+        output.delete();
+        File[] stores = communityDir.listFiles();
+        if (stores != null)
+        {
+            for (int i = 0; i < stores.length; i++)
+            {
+                File graph = new File(stores[i], getBaseName(output) + ".tgr");
+                if (graph.isFile()) graph.delete();
+            }
+        }
+        synchronized (InputOutput.allOriginalFilenames)
+        {
+            InputOutput.allOriginalFilenames.remove(getBaseName(output));
+        }
+    }
+
+    /** hasOutput: Returns 'true' if the tokenized file of an entry exists or
+     * a text graph with the same name in a directory of the community.
+     * @param entry : the manifest data of a source file (Entry)
+     * @param communityDir : the directory of the community (File)
+     * @return boolean 'true' when some output of the file is found.
+     */
+    private static boolean hasOutput(Entry entry, File communityDir)
+    {
+        File output = new File(entry.mOutputPath);
+        if (output.exists()) return true;
+        File[] stores = communityDir.listFiles();
+        if (stores == null) return false;
+        for (int i = 0; i < stores.length; i++)
+        {
+            if (new File(stores[i], getBaseName(output) + ".tgr").isFile())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** getBaseName: Getter returns the name of a file without its suffix.
+     * @param file : the file (File)
+     * @return the name without suffix (String)
+     */
+    private static String getBaseName(File file)
+    {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    /** retireDeleted: Retires and removes the entries of all source files that
+     * no longer exist.
+     * @param communityDir : the directory of the community (File)
+     * @return the number of retired files (int)
+     */
+    public synchronized int retireDeleted(File communityDir)
+    {
+        int retired = 0;
+        Iterator entry_itr = mEntries.keySet().iterator();
+        while (entry_itr.hasNext())
+        {
+            String path = (String) entry_itr.next();
+            if (!new File(path).exists())
+            {
+                retire(path, communityDir);
+                entry_itr.remove();
+                retired++;
+            }
+        }
+        return retired;
+    }
+
+    /** getContentHash: Computes the SHA-256 hash of the content of a file.
+     * @param file : the file (File)
+     * @return the hash in hexadecimal notation (String)
+     * @throws IOException
+     */
+    private static String getContentHash(File file) throws IOException
+    {
+        try (InputStream in = new FileInputStream(file))
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[65536];
+            int read;
+            while ((read = in.read(buffer)) != -1) digest.update(buffer, 0, read);
+            StringBuilder hex = new StringBuilder();
+            byte[] hash = digest.digest();
+            for (int i = 0; i < hash.length; i++)
+            {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException(e);
+        }
+    }
+}
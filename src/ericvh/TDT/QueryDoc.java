@@ -50,10 +50,10 @@ public class QueryDoc
         while(arc_itr.hasNext())
         {
             // Retrieves elements from the arc set.
-            String arcKey = arc_itr.next().toString();
-            // Parses the arc string into two vertices.
-            Integer vrtxA = Integer.valueOf(arcKey.substring(0, arcKey.indexOf("*")));
-            Integer vrtxB = Integer.valueOf(arcKey.substring(arcKey.indexOf("*") + 1));
+            long arcKey = ArcKey.valueOf(arc_itr.next());
+            // Parses the arc key into two vertices.
+            Integer vrtxA = ArcKey.getVertex1(arcKey);
+            Integer vrtxB = ArcKey.getVertex2(arcKey);
             boolean isInfoArc = true;
             double weightA;
             double weightB;
@@ -29,8 +29,6 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.BorderFactory;
@@ -139,11 +137,10 @@ public class QueryInput extends JFrame
     private static boolean mRequestLimitMessage;
     // Miscellaneous
     private InputOutput io = new InputOutput();
-    private LabelTable labels = new LabelTable();
+    private LabelDictionary labels;
     private final DefaultHighlightPainter painter = 
             new DefaultHighlightPainter(Color.yellow);
     private final String separator = System.getProperty("file.separator");
-    private final Pattern stringP = Pattern.compile("\\s(.*?)\\s |(\\d)+");
     // String with community name now in view.
     private final String community = ApplicationManager.getCommunity();
     // String with the full path to the query result data. ApplicationManager 
@@ -554,8 +551,8 @@ public class QueryInput extends JFrame
                 // treatment.
                 mArcMap = new HashMap();
                 
-                labels = io.readLTable(ApplicationManager.getWorkPath()+ 
-                        separator + "AllLabels.lbls");
+                // The memory-mapped label dictionary, opened once per network.
+                labels = ApplicationManager.getLabelDictionary();
                 // Generates a five word random string to start a 'serendipity' 
                 // search.
                 if(mAssign == 4) // && text.equals("*random*"))
@@ -610,17 +607,14 @@ public class QueryInput extends JFrame
                             mUnknownTokenSet.add(token);
                             zeroLabel++;
                         }
-                        String positions = tmpMap.get(token).toString();
-                        positionList = new ArrayList();
+                        PositionList positions = (PositionList) tmpMap.get(token);
+                        positionList = new ArrayList(positions.size());
                         t += token + " [";
-                        // Regex pattern.
-                        Matcher matcher = stringP.matcher(positions); 
-                        while (matcher.find())
+                        for (int i = 0; i < positions.size(); i++)
                         {
-                            currentPosition = Integer.parseInt(matcher.group());
+                            currentPosition = positions.get(i);
                             positionList.add(currentPosition);
                             t += "" + currentPosition + ", ";
-                            currentPosition = 0;
                         }
                         t = t.substring(0, t.lastIndexOf(","));
                         t += "]\n";
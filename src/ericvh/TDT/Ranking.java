@@ -0,0 +1,272 @@
+package ericvh.TDT;
+
+import java.util.Arrays;
+
+
+/** Class Ranking orders identifiers (a token-id, an arc key or an index in an
+ * array) on a score from high to low. Equal scores are ordered on the
+ * identifier, the lowest first.
+ * A bounded ranking keeps only the k highest scores in a heap with the lowest
+ * kept score on top: a new score replaces the top when it is higher. Ranking
+ * n scores costs O(n log k) time and O(k) memory.
+ * An unbounded ranking keeps all scores. The order is made by a heap with the
+ * highest score on top that is taken apart only as far as the ranks are asked
+ * (partial sort): the first m ranks of n scores cost O(n + m log n).
+ * Scores are added first; once a rank is asked no scores can be added.
+ */
+public class Ranking
+{
+    // The highest number of scores kept, Integer.MAX_VALUE when unbounded.
+    private final int mLimit;
+    // Scores and identifiers in parallel: a heap while scores are added,
+    // the ordered ranks once they are asked.
+    private double[] mScores;
+    private long[] mIds;
+    // The number of scores kept.
+    private int mSize;
+    // The number of ranks in order; in an unbounded ranking the others are
+    // still in the heap.
+    private int mRanked;
+    // 'true' once a rank is asked.
+    private boolean mOrdered;
+    // Unbounded: the ordered ranks, taken from the heap in mScores and mIds.
+    private double[] mRankScores;
+    private long[] mRankIds;
+
+    /** Constructor
+     * @param limit : the number of highest scores to keep (int), 0 or less
+     * keeps all scores.
+     */
+    public Ranking(int limit)
+    {
+        mLimit = limit > 0 ? limit : Integer.MAX_VALUE;
+        int capacity = Math.min(mLimit, 64);
+        mScores = new double[capacity];
+        mIds = new long[capacity];
+    }
+
+    /** add: Adds an identifier with its score. In a bounded ranking the score
+     * is dropped when the ranking is full and the score is not higher than
+     * the lowest score kept.
+     * @param id : the identifier (long)
+     * @param score : the score (double)
+     */
+    public void add(long id, double score)
+    {
+        if (mOrdered) throw new IllegalStateException("Ranking already ordered");
+        if (mLimit == Integer.MAX_VALUE)
+        {
+            grow();
+            mScores[mSize] = score;
+            mIds[mSize] = id;
+            mSize++;
+        }
+        else if (mSize < mLimit)
+        {
+            grow();
+            mScores[mSize] = score;
+            mIds[mSize] = id;
+            mSize++;
+            siftUpLowest(mSize - 1);
+        }
+        else if (higher(score, id, mScores[0], mIds[0]))
+        {
+            mScores[0] = score;
+            mIds[0] = id;
+            siftDownLowest(0, mSize);
+        }
+    }
+
+    /** size: Returns the number of scores kept.
+     * @return the number of ranks (int)
+     */
+    public int size()
+    {
+        return mSize;
+    }
+
+    /** getId: Getter returns the identifier at a rank.
+     * @param rank : the rank, 0 is the highest score (int)
+     * @return the identifier (long)
+     */
+    public long getId(int rank)
+    {
+        order(rank);
+        return mRankIds[rank];
+    }
+
+    /** getScore: Getter returns the score at a rank.
+     * @param rank : the rank, 0 is the highest score (int)
+     * @return the score (double)
+     */
+    public double getScore(int rank)
+    {
+        order(rank);
+        return mRankScores[rank];
+    }
+
+    /** getIds: Getter returns all identifiers from the highest score to the
+     * lowest.
+     * @return the identifiers (long[])
+     */
+    public long[] getIds()
+    {
+        if (mSize > 0) order(mSize - 1);
+        return mSize == 0 ? new long[0] : Arrays.copyOf(mRankIds, mSize);
+    }
+
+    /** getScores: Getter returns all scores from high to low.
+     * @return the scores (double[])
+     */
+    public double[] getScores()
+    {
+        if (mSize > 0) order(mSize - 1);
+        return mSize == 0 ? new double[0] : Arrays.copyOf(mRankScores, mSize);
+    }
+
+    /** order: Puts the ranks up to this rank in order. A bounded ranking is
+     * sorted in full the first time.
+     * @param rank : the rank needed (int)
+     */
+    private void order(int rank)
+    {
+        if (rank < 0 || rank >= mSize)
+        {
+            throw new IndexOutOfBoundsException("Rank " + rank + " of " + mSize);
+        }
+        if (!mOrdered)
+        {
+            mOrdered = true;
+            if (mLimit == Integer.MAX_VALUE)
+            {
+                // Builds the heap with the highest score on top.
+                for (int i = mSize / 2 - 1; i >= 0; i--) siftDownHighest(i, mSize);
+                mRankScores = new double[mSize];
+                mRankIds = new long[mSize];
+            }
+            else
+            {
+                // Heapsort: the lowest score on top goes to the end.
+                for (int end = mSize - 1; end > 0; end--)
+                {
+                    swap(0, end);
+                    siftDownLowest(0, end);
+                }
+                mRankScores = mScores;
+                mRankIds = mIds;
+                mRanked = mSize;
+            }
+        }
+        // Takes the highest scores from the heap up to this rank.
+        while (mRanked <= rank)
+        {
+            int heapSize = mSize - mRanked;
+            mRankScores[mRanked] = mScores[0];
+            mRankIds[mRanked] = mIds[0];
+            mRanked++;
+            mScores[0] = mScores[heapSize - 1];
+            mIds[0] = mIds[heapSize - 1];
+            siftDownHighest(0, heapSize - 1);
+        }
+        if (mRanked == mSize && mLimit == Integer.MAX_VALUE)
+        {
+            // The heap is empty.
+            mScores = mRankScores;
+            mIds = mRankIds;
+        }
+    }
+
+    /** higher: Returns 'true' if the first score ranks before the second.
+     * @param score1 : the first score (double)
+     * @param id1 : the identifier of the first score (long)
+     * @param score2 : the second score (double)
+     * @param id2 : the identifier of the second score (long)
+     * @return boolean 'true' for a higher score or an equal score with a
+     * lower identifier.
+     */
+    private static boolean higher(double score1, long id1, double score2,
+            long id2)
+    {
+        int c = Double.compare(score1, score2);
+        return c > 0 || (c == 0 && id1 < id2);
+    }
+
+    /** siftUpLowest: Moves an entry up the heap with the lowest score on top.
+     * @param i : the place of the entry (int)
+     */
+    private void siftUpLowest(int i)
+    {
+        while (i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            if (!higher(mScores[parent], mIds[parent], mScores[i], mIds[i]))
+            {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    /** siftDownLowest: Moves an entry down the heap with the lowest score on
+     * top.
+     * @param i : the place of the entry (int)
+     * @param size : the size of the heap (int)
+     */
+    private void siftDownLowest(int i, int size)
+    {
+        while (true)
+        {
+            int child = 2 * i + 1;
+            if (child >= size) return;
+            if (child + 1 < size && higher(mScores[child], mIds[child],
+                    mScores[child + 1], mIds[child + 1])) child++;
+            if (!higher(mScores[i], mIds[i], mScores[child], mIds[child])) return;
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    /** siftDownHighest: Moves an entry down the heap with the highest score
+     * on top.
+     * @param i : the place of the entry (int)
+     * @param size : the size of the heap (int)
+     */
+    private void siftDownHighest(int i, int size)
+    {
+        while (true)
+        {
+            int child = 2 * i + 1;
+            if (child >= size) return;
+            if (child + 1 < size && higher(mScores[child + 1], mIds[child + 1],
+                    mScores[child], mIds[child])) child++;
+            if (!higher(mScores[child], mIds[child], mScores[i], mIds[i])) return;
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    /** swap: Swaps two entries of the heap.
+     * @param i : the place of the first entry (int)
+     * @param j : the place of the second entry (int)
+     */
+    private void swap(int i, int j)
+    {
+        double score = mScores[i];
+        mScores[i] = mScores[j];
+        mScores[j] = score;
+        long id = mIds[i];
+        mIds[i] = mIds[j];
+        mIds[j] = id;
+    }
+
+    /** grow: Makes room for one more score.
+     */
+    private void grow()
+    {
+        if (mSize < mScores.length) return;
+        int capacity = (int) Math.min((long) mLimit, mScores.length * 2L);
+        mScores = Arrays.copyOf(mScores, Math.max(capacity, mSize + 1));
+        mIds = Arrays.copyOf(mIds, mScores.length);
+    }
+}
@@ -68,9 +68,8 @@ public class Reconstructor
             String docLabel = ApplicationManager.getDocTable().getFilename(docNr) 
                     + " (" + docNr + ")";
             reconstructedText.append(headLine).append(docLabel).append('\n');
-            List arcs = mArcsTable.getArcsInDoc(mArcsMap, docNr);
-            // Sorts the arcs on their position in the text.
-            List sortedArcs = ArcsTable.sortArcsOnPosition(arcs);
+            // The arcs in the order of their position in the text.
+            List sortedArcs = mArcsTable.getArcsInDoc(mArcsMap, docNr);
             // Composes the text String.
             Iterator arc_itr = sortedArcs.listIterator();
             reconstruct:
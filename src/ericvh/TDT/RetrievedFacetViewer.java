@@ -214,7 +214,7 @@ public class RetrievedFacetViewer extends JPanel
      * seed document ('query') and the dataGraph.
      * Uses the facetArcMap, a LinkedHashMap with first a tokenCount as
      * key (Integer) then a second HashMap as value with a global facet 
-     * key (Integer) and a LinkedHashSet of arc-keys (String) as value.
+     * key (Integer) and a LinkedHashSet of arc-keys (Long) as value.
      * @return JPanel with shared topical facet list (JScrollPane with JList)
      * and negative facet list (JScrollPane with JList).
      */
@@ -472,7 +472,7 @@ public class RetrievedFacetViewer extends JPanel
     
     /** getKeywords: Returns a selected maximum of keywords that semantically
      * defined this topical facet.
-     * @param arcSet : SortedSet of arc-keys (String) from a topical facet.
+     * @param arcSet : SortedSet of arc-keys (Long) from a topical facet.
      * @param maxWords : the maximum number (int) of arcs per string to return.
      * @return String with keywords.
      */
@@ -485,12 +485,10 @@ public class RetrievedFacetViewer extends JPanel
         Iterator arc_itr = arcSet.iterator();
         while(arc_itr.hasNext() && arcCount <= maxWords)
         {
-            String arcKey = arc_itr.next().toString();
-            Integer label1 = Integer.valueOf(arcKey.substring(0, arcKey
-                    .indexOf("*")));
+            long arcKey = ArcKey.valueOf(arc_itr.next());
+            Integer label1 = ArcKey.getVertex1(arcKey);
             labelList.add(label1);
-            Integer label2 = Integer.valueOf(arcKey.substring(arcKey
-                    .indexOf("*") + 1));
+            Integer label2 = ArcKey.getVertex2(arcKey);
             labelList.add(label2);
             arcCount++;
         }
@@ -53,7 +53,7 @@ public class SemanticUnit implements Serializable
      * is updated. Called by TopicMaker.
      * @param unitKey : the common key to the maps (Integer).
      * @param docSet : a set of doc-ids (SortedSet with Integer).
-     * @param arcSet : a LinkedHashSet of arc keys (String).
+     * @param arcSet : a LinkedHashSet of arc keys (Long).
      * @param infoValue : the combined info value of the arcs in the arc set (double).
      */
     public void addUnit(Integer unitKey, SortedSet docSet, LinkedHashSet arcSet,
@@ -68,7 +68,7 @@ public class SemanticUnit implements Serializable
     /** addArcs: Adds a LinkedHashSet of arcs to an existing entry in the 
      * SemanticUnit.
      * @param unitKey : a sequential key to the maps (Integer).
-     * @param arcSet : a LinkedHashSet of arc keys (String).
+     * @param arcSet : a LinkedHashSet of arc keys (Long).
      */
     public void addArcs(Integer unitKey, LinkedHashSet arcSet)
     {
@@ -193,7 +193,7 @@ public class SemanticUnit implements Serializable
     
     /** getArcSet: Returns the arc set linked to this key.
      * @param unitKey : the common key (Integer) to the maps in the SemanticUnit.
-     * @return a LinkedHashSet with all arc-keys (String).
+     * @return a LinkedHashSet with all arc-keys (Long).
      */
     public LinkedHashSet getArcSet(Integer unitKey)
     {
@@ -1,8 +1,9 @@
 package ericvh.TDT;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
 
@@ -16,17 +17,24 @@ import java.util.Map;
  * The arcs have a weight (info importance) and a direction (incoming or outgoing
  * with respect to the vertex they connect). Arcs allow travelling from one vertex
  * to another and from one document to another.
+ * The arcs are kept in a LongHashMap with the ArcKey of the arc as key. A graph
+ * saved by an earlier version, with the arcs in a HashMap with "v1*v2" keys, is
+ * converted when it is read.
  * @author  Eric Van Horenbeeck
  */
 public class TextGraph implements Serializable
 {
+    // Fixed to the value of the earlier versions: their text graphs (*.tgr)
+    // stay readable.
+    private static final long serialVersionUID = 6282088435500408685L;
     // Map with counter of a token in each text. Key: token index; value: 
     // counting the appearences of a token in this document.
     private Map mTokenCountMap;
     // Unique document number identifying this graph.
     private int mDocNr;
-    // Map with the arcs found in this document.
-    private Map mArcsMap;
+    // Map with the arcs found in this document. Key: arc key (long), value: 
+    // the arc (Arc).
+    private LongHashMap mArcsMap;
     
     /** Default Constructor
      */
@@ -39,7 +47,7 @@ public class TextGraph implements Serializable
     public TextGraph(int docNr)
     {
         mTokenCountMap = new HashMap();
-        mArcsMap = new HashMap();
+        mArcsMap = new LongHashMap();
         mDocNr = docNr;
     }
     
@@ -88,18 +96,18 @@ public class TextGraph implements Serializable
     }
     
     /** addArc: Adds a new arc the the map.
-     * @param arcIdx : the arc index (String) made from the indices of its vertices.
+     * @param arcIdx : the arc index (long) made from the indices of its vertices.
      * @param arc : the new arc.
      */
-    public void addArc(String arcIdx, Arc arc)
+    public void addArc(long arcIdx, Arc arc)
     {
         mArcsMap.put(arcIdx, arc);
     }
     
     /** addAllArcs: Adds a map with arcs to this map.
-     * @param arcs : a HashMap with arcs.
+     * @param arcs : a LongHashMap with arcs.
      */
-    public void addAllArcs(Map arcs)
+    public void addAllArcs(LongHashMap arcs)
     {
         mArcsMap.putAll(arcs);
     }
@@ -110,54 +118,44 @@ public class TextGraph implements Serializable
      */
     public boolean containsArc(Arc a)
     {
-        return mArcsMap.containsValue(a);
+        return a.equals(mArcsMap.get(a.getArcId()));
     }
     
     /** containsArcIndex: Returns 'true' if the arc map contains an element 
      * identified by this index.
-     * @param arcIdx : the arc index (String)
+     * @param arcIdx : the arc index (long)
      * @return boolean 'true' if map contains this arc
      */
-    public boolean containsArcIndex(String arcIdx)
+    public boolean containsArcIndex(long arcIdx)
     {
         return mArcsMap.containsKey(arcIdx);
     }
     
     /** getArcKey: Returns the key of an arc if found in this collection.
      * @param arc : arc being processed.
-     * @return the key of this element (String).
+     * @return the key of this element (long) or -1 if not found.
      */
-    public String getArcKey(Arc arc)
+    public long getArcKey(Arc arc)
     {
-        Arc currentArc;
-        String key = "";
-        Iterator arc_itr = mArcsMap.keySet().iterator();
-        search:
-            while(arc_itr.hasNext())
-            {
-                key = arc_itr.next().toString();
-                currentArc = (Arc) mArcsMap.get(key);
-                if(arc.equals(currentArc)) break;
-                else key ="";
-            }
-            return key;
+        if (containsArc(arc)) return arc.getArcId();
+        else return -1;
     }
     
     /** getThisArc: Getter returns the arc identified by this arc index.
-     * @param arcIdx : the arc index (String)
+     * @param arcIdx : the arc index (long)
      * @return an arc identified by its index
      */
-    public Arc getThisArc(String arcIdx)
+    public Arc getThisArc(long arcIdx)
     {
         return (Arc) mArcsMap.get(arcIdx);
     }
     
     /** getAllArcIndices: Getter of all indices in this arcsMap.
-     * @return Object array with all the arc indices (String) attributed so far.
+     * @return array with all the arc indices (long) attributed so far.
      */
-    public Object [] getAllArcIndices()
+    public long [] getAllArcIndices()
     {
-        return mArcsMap.keySet().toArray();
+        return mArcsMap.keys();
     }
     
     /** arcsMapIsEmpty: Checks whether this arcsTable has any elements.
@@ -177,25 +175,13 @@ public class TextGraph implements Serializable
     }
     
     /** getFullArcsMap: Getter returns all the arcs in this graph.
-     * @return  HashMap with arcs. Key: arcID (String), value: arc (Arc).
+     * @return LongHashMap with arcs. Key: arcID (long), value: arc (Arc).
      */
-    public Map getFullArcsMap()
+    public LongHashMap getFullArcsMap()
     {
         return mArcsMap;
     }
     
-    /** getArcKey: Getter returns the key of an arc in this graph made with
-     * the indices of the two connecting vertices.
-     * @param vrtxIndx1 : first point of the arc (int)
-     * @param vrtxIndx2 : second point of the arc (int)
-     * @return arc key (String)
-     */
-    private String getArcKey(int vrtxIndx1, int vrtxIndx2)
-    {
-        String key = vrtxIndx1 + "*" + vrtxIndx2;
-        return key;
-    }
-    
     /** getArc: Getter returns an arc in this graph identified by its key or 'null'.
      * @param vrtxIndx1 : vertex to the left of the arc (int).
      * @param vrtxIndx2 : vertex to the right of the arc (int).
@@ -203,9 +189,23 @@ public class TextGraph implements Serializable
      */
     public Arc getArc(int vrtxIndx1, int vrtxIndx2)
     {
-        String key = getArcKey(vrtxIndx1, vrtxIndx2);
-        if(mArcsMap.containsKey(key)) return ((Arc) mArcsMap.get(key));
-        else return null;
+        return (Arc) mArcsMap.get(ArcKey.makeKey(vrtxIndx1, vrtxIndx2));
+    }
+    
+    /** readObject: Reads a text graph, converting the arcs map with String 
+     * keys of an earlier version.
+     * @param in : the input stream (ObjectInputStream)
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException,
+            ClassNotFoundException
+    {
+        ObjectInputStream.GetField fields = in.readFields();
+        mTokenCountMap = (Map) fields.get("mTokenCountMap", null);
+        mDocNr = fields.get("mDocNr", 0);
+        Object arcs = fields.get("mArcsMap", null);
+        if (arcs != null) mArcsMap = ArcKey.toArcMap(arcs);
     }
     
 }
@@ -3,13 +3,23 @@ package ericvh.TDT;
 import org.apache.tika.Tika;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MimeTypes;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
 import org.xml.sax.SAXException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class TikaParser uses Tika to detect the document type and to parse its content.
+ * All the state belonging to one file lives in the parse call itself, so a
+ * single instance can be shared by the workers of the ParallelPreprocessor.
  *
  * @author Eric Van Horenbeeck Created on 17 maart 2022
  */
@@ -18,13 +28,8 @@ public class TikaParser
     // The Apache Tika dependency.
     private final Tika tika;
     private final GraphTime graphDate = new GraphTime();
-    private String docDate = "";
-    private String docSource = "";
-    private String source ="";
-    private static String filePath= "";
-    private static int docCounter;
-    private String docNo ="";
-    private String suffix ="";
+    // Sequential document number, shared by all workers.
+    private static final AtomicInteger docCounter = new AtomicInteger();
     MimeTypes mimeRegistry = TikaConfig.getDefaultConfig().getMimeRepository();
     /**
      * Constructor
@@ -35,48 +40,117 @@ public class TikaParser
     }
 
     /**
-     * parse: Parsing method called by the ApplicationManager.
+     * parse: Parsing method called by the ApplicationManager. The tokenized
+     * file goes to the current data directory and gets the next sequential
+     * document number.
      *
      * @param path : the filepath (String)
+     * @return the full path of the tokenized file (String)
      * @throws java.io.IOException
      * @throws org.xml.sax.SAXException
      * @throws org.apache.tika.exception.TikaException
      */
-    public void parse(String path) throws IOException, SAXException, TikaException
+    public String parse(String path) throws IOException, SAXException, TikaException
     {
-        filePath = path;
-        source = getSource().trim();
-        String text = tika.parseToString(new File(filePath));
-        if (text.length() < 2 )
+        return parse(path, ApplicationManager.getDataPath(),
+                docCounter.incrementAndGet());
+    }
+
+    /**
+     * parse: Parses one file and hands the text to WorkFiles. Used directly by
+     * the ParallelPreprocessor that attributes the document numbers itself in
+     * the order of the file selection.
+     *
+     * @param path : the filepath (String)
+     * @param dataPath : the directory receiving the tokenized file (String)
+     * @param docNumber : the sequential number of this document (int)
+     * @return the full path of the tokenized file (String)
+     * @throws java.io.IOException
+     * @throws org.xml.sax.SAXException
+     * @throws org.apache.tika.exception.TikaException
+     */
+    public String parse(String path, String dataPath, int docNumber)
+            throws IOException, SAXException, TikaException
+    {
+        String source = getSource(path).trim();
+        String fileName = getDate(path) + "_" + source + getdocNo(docNumber);
+        WorkFiles workFile;
+        if (ApplicationManager.getStreamingStatus())
         {
-            text = "NO_TEXT";
-            suffix = "emp";
-        } // The suffix for a normal tokenized files is *.tok.
+            workFile = streamToTokenizer(path, fileName, dataPath, docNumber);
+        }
         else
         {
-            suffix = "tok";
+            String text = tika.parseToString(new File(path));
+            if (text.length() < 2 )
+            {
+                workFile = new WorkFiles("NO_TEXT", fileName + ".emp", dataPath,
+                        path, docNumber);
+            } // The suffix for a normal tokenized files is *.tok.
+            else
+            {
+                workFile = new WorkFiles(text, fileName + ".tok", dataPath, path,
+                        docNumber);
+            }
         }
-        String fileName = getDate() + "_" + source + getdocNo() + "." + suffix;
-        WorkFiles workFile = new WorkFiles(text, fileName);
         workFile.extract();
-        docNo = "";
+        return workFile.getOutputPath();
+    }
+
+    /**
+     * streamToTokenizer: Parses a file with the Tika SAX events and feeds the
+     * text chunk by chunk to a Tokenizer, without building the document text
+     * as one String. Embedded documents (attachments, archive entries) are
+     * parsed as with Tika.parseToString.
+     *
+     * @param path : the filepath (String)
+     * @param fileName : the internal filename without suffix (String)
+     * @param dataPath : the directory receiving the tokenized file (String)
+     * @param docNumber : the sequential number of this document (int)
+     * @return the WorkFiles instance ready to extract the tokens (WorkFiles)
+     * @throws java.io.IOException
+     * @throws org.xml.sax.SAXException
+     * @throws org.apache.tika.exception.TikaException
+     */
+    private WorkFiles streamToTokenizer(String path, String fileName,
+            String dataPath, int docNumber) throws IOException, SAXException,
+            TikaException
+    {
+        File file = new File(path);
+        Tokenizer tok = new Tokenizer();
+        TokenizingContentHandler handler = new TokenizingContentHandler(tok,
+                tika.getMaxStringLength());
+        Parser parser = tika.getParser();
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, parser);
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, file.getName());
+        try (InputStream stream = TikaInputStream.get(file.toPath(), metadata))
+        {
+            parser.parse(stream, new BodyContentHandler(handler), metadata,
+                    context);
+        }
+        if (handler.getCharCount() < 2)
+        {
+            return new WorkFiles("NO_TEXT", fileName + ".emp", dataPath, path,
+                    docNumber);
+        }
+        return new WorkFiles(tok, fileName + ".tok", dataPath, path, docNumber);
     }
-    
+
     /**
      * getDate: Getter returns the document date. If no date is found in the text,
      * the last modified file date is returned, when that fails it's today's date.
      *
+     * @param filePath : the file being processed (String)
      * @return document date as String
      */
-    private String getDate()
+    private String getDate(String filePath)
     {
+        String docDate = graphDate.getModifiedDate(filePath);
         if (docDate.equals(""))
         {
-            docDate = graphDate.getModifiedDate(filePath);
-            if (docDate.equals(""))
-            {
-                docDate = graphDate.getDateNow();
-            }
+            docDate = graphDate.getDateNow();
         }
         return docDate;
     }
@@ -85,25 +159,20 @@ public class TikaParser
      * getSource: Getter of the source of this file. Sets the filename when no source
      * was found in the text and no shortname is available.
      *
+     * @param filePath : the file being processed (String)
      * @return sourcename of the document (String)
      */
-    private String getSource()
+    private String getSource(String filePath)
     {
+        String docSource;
         String shortName = ApplicationManager.getShortName();
-        String longName = ApplicationManager.getLongName();
-        if (docSource.equals(""))
+        // Gets the file name if no source is found in text.
+        if (shortName.hashCode() == 1088)
         {
-            // Gets the file name if no source is found in text.
-            if (shortName.hashCode() == 1088)
-            {
-                docSource = filePath.substring(filePath.lastIndexOf("/") + 1,
-                        filePath.lastIndexOf("."));
-            } // Uses the shortname if available when no source is found.
-            else
-            {
-                docSource = shortName;
-            }
-        } else if (docSource.trim().equals(longName))
+            docSource = filePath.substring(filePath.lastIndexOf("/") + 1,
+                    filePath.lastIndexOf("."));
+        } // Uses the shortname if available when no source is found.
+        else
         {
             docSource = shortName;
         }
@@ -111,26 +180,38 @@ public class TikaParser
     }
 
     /**
-     * getdocNo: Getter of the document id, sets a default number when id is empty.
+     * getdocNo: Getter of the document id.
      *
+     * @param docNumber : the sequential number of this document (int)
      * @return document id as String.
      */
-    private String getdocNo()
+    private String getdocNo(int docNumber)
     {
-        docCounter++;
-        // Sequential number if no docNo is available in the document.
-        if (docNo.equals(""))
-        {
-            docNo = String.valueOf(docCounter);
-        }
-        return docNo.trim();
+        return String.valueOf(docNumber).trim();
+    }
+
+    /**
+     * reserveDocNumbers: Reserves a block of consecutive document numbers for
+     * a batch of files, so that a parallel run numbers the files in the order
+     * of the selection whatever the order in which they are processed.
+     *
+     * @param count : the number of files in the batch (int)
+     * @return the number preceding the first number of the block (int)
+     */
+    public static int reserveDocNumbers(int count)
+    {
+        return docCounter.getAndAdd(count);
     }
-    
-        /** getPath: Getter returns the full filepath being processed.
-     * @return this filepath (String)
+
+    /**
+     * advanceDocCounter: Makes sure that the next document numbers come after
+     * this number, used when an incremental Preprocess adds to the tokenized
+     * files of a previous session.
+     *
+     * @param docNumber : the highest document number in use (int)
      */
-    public static String getPath()
+    public static void advanceDocCounter(int docNumber)
     {
-        return filePath;
+        docCounter.accumulateAndGet(docNumber, Math::max);
     }
 }
@@ -1,55 +1,82 @@
 package ericvh.TDT;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.io.Serializable;
 
 
-/** Class TokenCount is the central repostory of all token counters in all 
- * the documents of this dataGraph. It is composed by the ApplicationManager 
+/** Class TokenCount is the central repostory of all token counters in all
+ * the documents of this dataGraph. It is composed by the ApplicationManager
  * with data from the individual textGraph.
+ * The counters are kept in a sparse token by document matrix (compressed
+ * rows): the row of a token-id starts at mRowStart[tokenId] and holds the
+ * sorted document numbers with their count in two parallel arrays. The counts
+ * of a textGraph are first collected in a pending list and put in the rows
+ * when a count is asked for.
  * @author  Eric Van Horenbeeck
  * Created on 20 september 2004, 11:11
  */
 public class TokenCount implements Serializable
 {
-    // Document identifier.
-    private Integer mDocInt;
-    // Map with the token counters.
-    private final Map mTokenCount;
-    
+    // Start of the row of every token-id in mDocNrs and mCounts; the row of
+    // token-id t ends at mRowStart[t + 1].
+    private int[] mRowStart;
+    // Document numbers, sorted within every row.
+    private int[] mDocNrs;
+    // Token counts, parallel to mDocNrs.
+    private int[] mCounts;
+    // Counts added since the rows were made: token-id, doc number and count
+    // of every entry.
+    private transient int[] mAddTokens;
+    private transient int[] mAddDocs;
+    private transient int[] mAddCounts;
+    private transient int mAddSize;
+
     /** Constructor
      */
     public TokenCount()
     {
-        mTokenCount = new HashMap();
+        mRowStart = new int[1];
+        mDocNrs = new int[0];
+        mCounts = new int[0];
+        mAddTokens = new int[1024];
+        mAddDocs = new int[1024];
+        mAddCounts = new int[1024];
     }
-    
-    /** addTokenCountMap: Adds a map of token counts from a textGraph to this 
-     * central token count dictionary. The incoming map has a tokenId as key 
-     * and the counting as value. The final map has the doc-id as key and a map 
-     * of token-ids and their counts as value.
+
+    /** addTokenCountMap: Adds a map of token counts from a textGraph to this
+     * central token count dictionary. The incoming map has a tokenId as key
+     * and the counting as value. A document added twice keeps the counts of
+     * the last map.
      * @param docNr : the unique document identifier (int)
      * @param tc : the map from a single textgraph with tokenId as key and count
      * as value
      */
-    public void addTokenCountMap(int docNr, Map tc)
+    public synchronized void addTokenCountMap(int docNr, Map tc)
     {
-        mDocInt = docNr;
-        Integer tokenId;
-        Map tmpMap = new HashMap();
-        Iterator tc_itr = tc.keySet().iterator();
+        if (mAddSize + tc.size() > mAddTokens.length)
+        {
+            int capacity = Math.max(mAddTokens.length * 2, mAddSize + tc.size());
+            mAddTokens = Arrays.copyOf(mAddTokens, capacity);
+            mAddDocs = Arrays.copyOf(mAddDocs, capacity);
+            mAddCounts = Arrays.copyOf(mAddCounts, capacity);
+        }
+        Iterator tc_itr = tc.entrySet().iterator();
         while(tc_itr.hasNext())
         {
-            tokenId = (Integer) tc_itr.next();
-            if(mTokenCount.containsKey(tokenId)) tmpMap = (HashMap) mTokenCount
-                    .get(tokenId);
-            tmpMap.put(mDocInt,tc.get(tokenId));
-            mTokenCount.put(tokenId, tmpMap);
+            Map.Entry entry = (Map.Entry) tc_itr.next();
+            mAddTokens[mAddSize] = (Integer) entry.getKey();
+            mAddDocs[mAddSize] = docNr;
+            mAddCounts[mAddSize] = (Integer) entry.getValue();
+            mAddSize++;
         }
     }
-    
+
     /** getTokenCount: Getter returns the count of a specific token in a document.
      * @param docNr : the unique document identifier (int)
      * @param tokenId : the unique token identifier (Integer)
@@ -57,19 +84,162 @@ public class TokenCount implements Serializable
      */
     public int getTokenCount(int docNr, Integer tokenId)
     {
-        mDocInt = docNr;
-        Map tmpMap = (HashMap) mTokenCount.get(tokenId);
-        return ((Integer) tmpMap.get(mDocInt));
+        return getTokenCount(docNr, tokenId.intValue());
+    }
+
+    /** getTokenCount: Getter returns the count of a specific token in a
+     * document, by a binary search in the row of the token.
+     * @param docNr : the unique document identifier (int)
+     * @param tokenId : the unique token identifier (int)
+     * @return token-type counter in a document (int), 0 if the token is not
+     * counted in this document.
+     */
+    public int getTokenCount(int docNr, int tokenId)
+    {
+        if (mAddSize > 0) freeze();
+        if (tokenId < 0 || tokenId >= mRowStart.length - 1) return 0;
+        int i = Arrays.binarySearch(mDocNrs, mRowStart[tokenId],
+                mRowStart[tokenId + 1], docNr);
+        return i < 0 ? 0 : mCounts[i];
     }
-    
-    /** getTokenCountMap: Getter returns the full map of token counts with 
-     * the docNr as key and a second map as value. In the second map the token
-     * id is key and the token count is value.
+
+    /** getTokenCountMap: Getter returns the full map of token counts with
+     * the token id as key and a second map as value. In the second map the
+     * docNr is key and the token count is value. The map is a copy made from
+     * the matrix.
      * @return the full map with countings of all tokens per document
      */
     public Map getTokenCountMap()
     {
-        return mTokenCount;
+        if (mAddSize > 0) freeze();
+        Map tokenCount = new HashMap();
+        for (int t = 0; t < mRowStart.length - 1; t++)
+        {
+            if (mRowStart[t] == mRowStart[t + 1]) continue;
+            Map docMap = new HashMap();
+            for (int i = mRowStart[t]; i < mRowStart[t + 1]; i++)
+            {
+                docMap.put(mDocNrs[i], mCounts[i]);
+            }
+            tokenCount.put(t, docMap);
+        }
+        return tokenCount;
+    }
+
+    /** freeze: Puts the pending counts in the rows of the matrix. The entries
+     * are placed by a counting pass over the token-ids; a row with documents
+     * not added in ascending order is sorted afterwards.
+     */
+    public synchronized void freeze()
+    {
+        if (mAddSize == 0) return;
+        int rows = mRowStart.length - 1;
+        for (int i = 0; i < mAddSize; i++)
+        {
+            if (mAddTokens[i] >= rows) rows = mAddTokens[i] + 1;
+        }
+        // Counts the entries of every row, old and pending.
+        int[] rowStart = new int[rows + 1];
+        for (int t = 0; t < mRowStart.length - 1; t++)
+        {
+            rowStart[t + 1] = mRowStart[t + 1] - mRowStart[t];
+        }
+        for (int i = 0; i < mAddSize; i++) rowStart[mAddTokens[i] + 1]++;
+        for (int t = 0; t < rows; t++) rowStart[t + 1] += rowStart[t];
+        int[] docNrs = new int[rowStart[rows]];
+        int[] counts = new int[rowStart[rows]];
+        int[] fill = Arrays.copyOf(rowStart, rows);
+        for (int t = 0; t < mRowStart.length - 1; t++)
+        {
+            int length = mRowStart[t + 1] - mRowStart[t];
+            System.arraycopy(mDocNrs, mRowStart[t], docNrs, fill[t], length);
+            System.arraycopy(mCounts, mRowStart[t], counts, fill[t], length);
+            fill[t] += length;
+        }
+        for (int i = 0; i < mAddSize; i++)
+        {
+            int slot = fill[mAddTokens[i]]++;
+            docNrs[slot] = mAddDocs[i];
+            counts[slot] = mAddCounts[i];
+        }
+        mAddSize = 0;
+        mAddTokens = new int[1024];
+        mAddDocs = new int[1024];
+        mAddCounts = new int[1024];
+        // Sorts the rows that are not ascending and drops the documents that
+        // were added more than once.
+        int removed = 0;
+        for (int t = 0; t < rows; t++)
+        {
+            int start = rowStart[t];
+            int end = rowStart[t + 1];
+            rowStart[t] = start - removed;
+            boolean ascending = true;
+            for (int i = start + 1; i < end && ascending; i++)
+            {
+                ascending = docNrs[i - 1] < docNrs[i];
+            }
+            if (ascending)
+            {
+                if (removed > 0)
+                {
+                    System.arraycopy(docNrs, start, docNrs, start - removed,
+                            end - start);
+                    System.arraycopy(counts, start, counts, start - removed,
+                            end - start);
+                }
+                continue;
+            }
+            // Document number (high int) and place in the row (low int); the
+            // last place of a document holds its latest count.
+            long[] order = new long[end - start];
+            for (int i = start; i < end; i++)
+            {
+                order[i - start] = ((long) docNrs[i] << 32) | (i - start);
+            }
+            Arrays.sort(order);
+            int[] rowCounts = Arrays.copyOfRange(counts, start, end);
+            int out = start - removed;
+            for (int k = 0; k < order.length; k++)
+            {
+                int doc = (int) (order[k] >> 32);
+                if (k + 1 < order.length && (int) (order[k + 1] >> 32) == doc)
+                {
+                    continue;
+                }
+                docNrs[out] = doc;
+                counts[out] = rowCounts[(int) order[k]];
+                out++;
+            }
+            removed += (end - start) - (out - (start - removed));
+        }
+        rowStart[rows] = docNrs.length - removed;
+        mRowStart = rowStart;
+        mDocNrs = removed == 0 ? docNrs : Arrays.copyOf(docNrs, rowStart[rows]);
+        mCounts = removed == 0 ? counts : Arrays.copyOf(counts, rowStart[rows]);
+    }
+
+    /** writeObject: Writes the matrix with the pending counts put in the rows.
+     * @param out : the output stream (ObjectOutputStream)
+     * @throws IOException
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        freeze();
+        out.defaultWriteObject();
+    }
+
+    /** readObject: Reads the matrix and makes an empty pending list.
+     * @param in : the input stream (ObjectInputStream)
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException,
+            ClassNotFoundException
+    {
+        in.defaultReadObject();
+        mAddTokens = new int[1024];
+        mAddDocs = new int[1024];
+        mAddCounts = new int[1024];
     }
-    
 }
@@ -0,0 +1,360 @@
+package ericvh.TDT;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+
+/** Class TokenSegment is the binary form of a tokenized (*.tok) document. The
+ * file starts with a magic number and a format version. A dictionary follows
+ * with the token-types of the document; a token-type is referred to by its
+ * varint index in this dictionary. Each entry holds the label as a varint
+ * length and its UTF-8 bytes, the number of occurrences and the positions in
+ * the text, delta- and varint-encoded. Version 1 files, with the label in
+ * the modified UTF-8 of writeUTF (at most 64KB), are still read. The
+ * file ends with the DocStats fields: maximum frequency, total tokens and
+ * total token-types as fixed ints.
+ * Read back, the document is a position-ordered int array of dictionary
+ * indices, ready for the NetworkBuilder without any TextToken objects. The
+ * same form is made in memory from the Tokenizer map by fromMap.
+ * Tokenized files in the older text format are recognized by the missing
+ * magic number and are read by InputOutput.makeTokenArray.
+ */
+public class TokenSegment
+{
+    // "TOKB": identifies a binary tokenized file.
+    public static final int MAGIC = 0x544F4B42;
+    // Version of the binary format.
+    public static final int VERSION = 2;
+    // Version with labels written by writeUTF.
+    private static final int VERSION_UTF = 1;
+    // The token-types of the document, indexed by dictionary id.
+    private final String[] mTypes;
+    // The positions in the text, in ascending order.
+    private final int[] mPositions;
+    // The dictionary id of the token at each position.
+    private final int[] mTypeIds;
+    // The file statistics.
+    private final int mMaxFrequency;
+    private final int mTotTokens;
+    private final int mTotTypes;
+
+    /** Constructor
+     * @param types : the token-types, indexed by dictionary id (String[])
+     * @param positions : the positions in ascending order (int[])
+     * @param typeIds : the dictionary id at each position (int[])
+     * @param maxFreq : the highest frequency of a token (int)
+     * @param totTokens : the total number of tokens (int)
+     * @param totTypes : the total number of token-types (int)
+     */
+    private TokenSegment(String[] types, int[] positions, int[] typeIds,
+            int maxFreq, int totTokens, int totTypes)
+    {
+        this.mTypes = types;
+        this.mPositions = positions;
+        this.mTypeIds = typeIds;
+        this.mMaxFrequency = maxFreq;
+        this.mTotTokens = totTokens;
+        this.mTotTypes = totTypes;
+    }
+
+    /** write: Saves a map with the token-types and their positions in the
+     * binary format. The file is written under a temporary name and renamed
+     * when it is complete, so a failed write leaves no partial file behind.
+     * @param outMap : token-type (Key) and PositionList (Value) (Map)
+     * @param fileName : the full path of the file to write (String)
+     * @param totTokens : total number of tokens in this document (int)
+     * @param totTypes : total number of token-types in this document (int)
+     * @throws IOException
+     */
+    public static void write(Map outMap, String fileName, int totTokens,
+            int totTypes) throws IOException
+    {
+        int maxFreq = 0;
+        File file = new File(fileName);
+        File tmp = new File(fileName + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tmp))))
+        {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            writeVarInt(out, outMap.size());
+            Iterator map_itr = outMap.entrySet().iterator();
+            while (map_itr.hasNext())
+            {
+                Map.Entry entry = (Map.Entry) map_itr.next();
+                int[] positions = toPositions(entry.getValue());
+                byte[] label = entry.getKey().toString().getBytes(
+                        StandardCharsets.UTF_8);
+                writeVarInt(out, label.length);
+                out.write(label);
+                writeVarInt(out, positions.length);
+                int previous = 0;
+                for (int i = 0; i < positions.length; i++)
+                {
+                    // Zigzag encoding keeps an occasional negative delta short.
+                    int delta = positions[i] - previous;
+                    writeVarInt(out, (delta << 1) ^ (delta >> 31));
+                    previous = positions[i];
+                }
+                if (positions.length > maxFreq) maxFreq = positions.length;
+            }
+            out.writeInt(maxFreq);
+            out.writeInt(totTokens);
+            out.writeInt(totTypes);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            tmp.delete();
+            throw e;
+        }
+        Files.move(tmp.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** read: Reads a binary tokenized file. The occurrences are sorted on
+     * their position in the text; occurrences with the same position keep the
+     * order of the dictionary. Positions below 1 are skipped, as in the text
+     * format reader.
+     * @param file : the binary tokenized file (File)
+     * @return the decoded document (TokenSegment)
+     * @throws IOException when the file is not in the binary format
+     */
+    public static TokenSegment read(File file) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file))))
+        {
+            if (in.readInt() != MAGIC)
+            {
+                throw new IOException("Not a binary tokenized file: " + file);
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION && version != VERSION_UTF)
+            {
+                throw new IOException("Unknown tokenized file version " + version
+                        + ": " + file);
+            }
+            int typeCount = readVarInt(in);
+            String[] types = new String[typeCount];
+            // Position (high int) and dictionary id (low int) of all tokens.
+            long[] occurrences = new long[16];
+            int size = 0;
+            for (int t = 0; t < typeCount; t++)
+            {
+                if (version == VERSION_UTF) types[t] = in.readUTF();
+                else
+                {
+                    byte[] label = new byte[readVarInt(in)];
+                    in.readFully(label);
+                    types[t] = new String(label, StandardCharsets.UTF_8);
+                }
+                int count = readVarInt(in);
+                int position = 0;
+                for (int i = 0; i < count; i++)
+                {
+                    int zigzag = readVarInt(in);
+                    position += (zigzag >>> 1) ^ -(zigzag & 1);
+                    if (position > 0)
+                    {
+                        if (size == occurrences.length)
+                        {
+                            occurrences = Arrays.copyOf(occurrences, size * 2);
+                        }
+                        occurrences[size++] = ((long) position << 32) | t;
+                    }
+                }
+            }
+            return sortOccurrences(types, occurrences, size, in.readInt(),
+                    in.readInt(), in.readInt());
+        }
+    }
+
+    /** fromMap: Makes the decoded form of a document directly from the map of
+     * the Tokenizer, without writing a file. Gives the same result as write
+     * followed by read.
+     * @param outMap : token-type (Key) and PositionList (Value) (Map)
+     * @param totTokens : total number of tokens in this document (int)
+     * @param totTypes : total number of token-types in this document (int)
+     * @return the document (TokenSegment)
+     */
+    public static TokenSegment fromMap(Map outMap, int totTokens, int totTypes)
+    {
+        int maxFreq = 0;
+        String[] types = new String[outMap.size()];
+        long[] occurrences = new long[Math.max(16, totTokens)];
+        int size = 0;
+        int t = 0;
+        Iterator map_itr = outMap.entrySet().iterator();
+        while (map_itr.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) map_itr.next();
+            int[] positions = toPositions(entry.getValue());
+            types[t] = entry.getKey().toString();
+            for (int i = 0; i < positions.length; i++)
+            {
+                if (positions[i] > 0)
+                {
+                    if (size == occurrences.length)
+                    {
+                        occurrences = Arrays.copyOf(occurrences, size * 2);
+                    }
+                    occurrences[size++] = ((long) positions[i] << 32) | t;
+                }
+            }
+            if (positions.length > maxFreq) maxFreq = positions.length;
+            t++;
+        }
+        return sortOccurrences(types, occurrences, size, maxFreq, totTokens,
+                totTypes);
+    }
+
+    /** sortOccurrences: Sorts the packed occurrences on position and splits
+     * them in the arrays of positions and dictionary ids.
+     * @param types : the token-types, indexed by dictionary id (String[])
+     * @param occurrences : position (high int) and dictionary id (low int) of
+     * the tokens (long[])
+     * @param size : the number of occurrences in use (int)
+     * @param maxFreq : the highest frequency of a token (int)
+     * @param totTokens : the total number of tokens (int)
+     * @param totTypes : the total number of token-types (int)
+     * @return the document (TokenSegment)
+     */
+    private static TokenSegment sortOccurrences(String[] types,
+            long[] occurrences, int size, int maxFreq, int totTokens,
+            int totTypes)
+    {
+        Arrays.sort(occurrences, 0, size);
+        int[] positions = new int[size];
+        int[] typeIds = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            positions[i] = (int) (occurrences[i] >>> 32);
+            typeIds[i] = (int) occurrences[i];
+        }
+        return new TokenSegment(types, positions, typeIds, maxFreq, totTokens,
+                totTypes);
+    }
+
+    /** isBinary: Returns 'true' if this file starts with the magic number of
+     * the binary format.
+     * @param file : a tokenized file (File)
+     * @return boolean 'true' for a binary file, 'false' for the text format.
+     * @throws IOException
+     */
+    public static boolean isBinary(File file) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file)))
+        {
+            return in.readInt() == MAGIC;
+        }
+        catch (EOFException e)
+        {
+            return false;
+        }
+    }
+
+    /** toPositions: Returns the positions held by a value of the Tokenizer
+     * map, either a PositionList or its ", "-separated String form.
+     * @param value : the positions of one token (Object)
+     * @return the positions (int[])
+     */
+    private static int[] toPositions(Object value)
+    {
+        if (value instanceof PositionList)
+        {
+            return ((PositionList) value).toArray();
+        }
+        String[] parts = value.toString().split(",");
+        int[] positions = new int[parts.length];
+        for (int i = 0; i < parts.length; i++)
+        {
+            positions[i] = Integer.parseInt(parts[i].trim());
+        }
+        return positions;
+    }
+
+    /** writeVarInt: Writes an int in 7-bit groups, low group first; the high
+     * bit of a byte is set when more bytes follow.
+     * @param out : the output stream (DataOutputStream)
+     * @param value : the value to write, taken as unsigned (int)
+     * @throws IOException
+     */
+    static void writeVarInt(DataOutputStream out, int value)
+            throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /** readVarInt: Reads an int written by writeVarInt.
+     * @param in : the input stream (DataInputStream)
+     * @return the value (int)
+     * @throws IOException
+     */
+    private static int readVarInt(DataInputStream in) throws IOException
+    {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do
+        {
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /** getTypes: Getter returns the dictionary with the token-types.
+     * @return the token-types indexed by dictionary id (String[])
+     */
+    public String[] getTypes()
+    {
+        return mTypes;
+    }
+
+    /** getTypeIds: Getter returns the dictionary id of the tokens in the order
+     * of their position in the text.
+     * @return array of dictionary ids (int[])
+     */
+    public int[] getTypeIds()
+    {
+        return mTypeIds;
+    }
+
+    /** getPositions: Getter returns the positions of the tokens in ascending
+     * order, parallel to getTypeIds.
+     * @return array of positions (int[])
+     */
+    public int[] getPositions()
+    {
+        return mPositions;
+    }
+
+    /** getDocStats: Returns the file statistics with the filename.
+     * @param fileName : the name of the tokenized file (String)
+     * @return the statistics of this document (DocStats)
+     */
+    public DocStats getDocStats(String fileName)
+    {
+        return new DocStats(mMaxFrequency, mTotTokens, mTotTypes, 0, fileName);
+    }
+}
@@ -1,33 +1,84 @@
 package ericvh.TDT;
 
 import java.text.BreakIterator;
+import java.text.StringCharacterIterator;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 
 /** Class Tokenizer looks for word boundaries and non-string tokens. Returns a map
  * with the alphanumeric token and a list of positions in the text of that token.
+ * The positions are kept in a PositionList; its toString gives the positions
+ * in the ", "-separated format of the tokenized files.
+ * Two engines find the word boundaries: the BreakIterator of the locale, or a
+ * fast scanner selected in the GUI. The scanner looks up each character in a
+ * class table and keeps index ranges; only the words become Strings. Where a
+ * character may join or split words depending on its neighbours (e.g. '.' in
+ * '3.5', the apostrophe in "don't") or belongs to a script outside the table,
+ * the text up to the next certain boundary is handed to the BreakIterator, so
+ * both engines deliver the same tokens and positions.
  * @author Eric Van Horenbeeck
  * Created on 26 mei 2004, 12:57
  */
 public class Tokenizer
 {
     // Loads the locale for this file. Is used by the breakIterator.
-    private final Locale currentLocale = ApplicationManager.getThisLocale();
+    private final Locale currentLocale;
     // A constant representing tokens of the type 'Integer'.
-    private final int DIGIT_TOKEN = 1;
+    private static final int DIGIT_TOKEN = 1;
     // A constant representing operator and grouping tokens e.g.: (+,-).
-    private final int OPERATOR_TOKEN = 2;
+    private static final int OPERATOR_TOKEN = 2;
     // A constant representing tokens of the type 'Separator' e.g.: */.
-    private final int SEPARATOR_TOKEN = 3;
-    private final char[] digits = {'1','2','3','4','5','6','7','8','9','0'};
-    private final char[] operators =
+    private static final int SEPARATOR_TOKEN = 3;
+    private static final char[] digits = {'1','2','3','4','5','6','7','8','9','0'};
+    private static final char[] operators =
     {'*','+','-', '<', '>', '/','=', '%', '^','{','(',')','}','[',']','$','�','�'};
     // Separators include blank and tab
-    private final char[] separators = {',',':','#','\\','.','"','!','?',' ',' '};
-    private final int[] nonStringTypes = {DIGIT_TOKEN, OPERATOR_TOKEN, 
+    private static final char[] separators = {',',':','#','\\','.','"','!','?',' ',' '};
+    private static final int[] nonStringTypes = {DIGIT_TOKEN, OPERATOR_TOKEN, 
         SEPARATOR_TOKEN};
-    private final char[][] tokens = {digits, operators, separators};
+    private static final char[][] tokens = {digits, operators, separators};
+    // Character classes of the fast scanner. A character of the class OTHER
+    // is left to the BreakIterator.
+    private static final byte CLASS_OTHER = 0;
+    // Letters and digits: a run of them is one word.
+    private static final byte CLASS_WORD = 1;
+    // Blank and tab: a run of them is one non-string token.
+    private static final byte CLASS_SPACE = 2;
+    // Punctuation that is always a token on its own.
+    private static final byte CLASS_PUNCT = 3;
+    private static final String PUNCTUATION = "!()*+/:;<=>?@[\\]^`{|}~"
+            + "\u00A1\u00A6\u00A7\u00A8\u00A9\u00AB\u00AC\u00AE\u00AF\u00B0"
+            + "\u00B1\u00B4\u00B6\u00B7\u00B8\u00BB\u00BF\u00D7\u00F7";
+    // The class table covers Basic Latin up to Latin Extended-B.
+    private static final int TABLE_SIZE = 0x250;
+    private static final byte[] charClass = new byte[TABLE_SIZE];
+    // The non-string type of the characters in the class table.
+    private static final byte[] charNonStringType = new byte[TABLE_SIZE];
+    static
+    {
+        for (int c = 0; c < TABLE_SIZE; c++)
+        {
+            if (Character.isLetterOrDigit(c)) charClass[c] = CLASS_WORD;
+        }
+        charClass[' '] = CLASS_SPACE;
+        charClass['\t'] = CLASS_SPACE;
+        for (int i = 0; i < PUNCTUATION.length(); i++)
+        {
+            charClass[PUNCTUATION.charAt(i)] = CLASS_PUNCT;
+        }
+        // The last type listed for a character wins, as in nonStringType.
+        for (int j = 0; j < nonStringTypes.length; j++)
+        {
+            for (int i = 0; i < tokens[j].length; i++)
+            {
+                if (tokens[j][i] < TABLE_SIZE)
+                {
+                    charNonStringType[tokens[j][i]] = (byte) nonStringTypes[j];
+                }
+            }
+        }
+    }
     private String tokenType = "";
     private String shortType = "";
     private char currentChar = ' ';
@@ -48,64 +99,235 @@ public class Tokenizer
     private int shift = 0;
     // Counts shifted positions in this text.
     private int totalShift = 0;
-    // A map with each token-type and its occurrences.
+    // A map with each token-type (interned) and a PositionList with its 
+    // occurrences.
     private final Map mWordMap;
     // Include or exclude digits in the tokenized text. Set by the user in the GUI.
     private final boolean includeDigits = true;
+    // Streamed text not yet tokenized: the tail of the last chunk from the
+    // last word boundary before its last whitespace, that may continue in the
+    // next chunk.
+    private final StringBuilder mPending = new StringBuilder();
+    // Pending text without whitespace is tokenized anyway beyond this length.
+    private static final int MAX_PENDING = 65536;
+    // BreakIterator reused for the streamed chunks and by the fast scanner.
+    private BreakIterator mChunkIterator;
+    // 'true' when the fast scanner finds the word boundaries. Thai needs the
+    // dictionary of its BreakIterator.
+    private final boolean mFastScan;
     
     /** Constructor
+     * Takes the locale and the tokenizing engine from the user selections.
      */
     public Tokenizer()
     {
+        this(ApplicationManager.getThisLocale(),
+                ApplicationManager.getFastTokenizerStatus());
+    }
+    
+    /** Constructor
+     * @param locale : the locale of the BreakIterator (Locale)
+     * @param fastScan : 'true' to find the word boundaries with the fast
+     * scanner (boolean)
+     */
+    Tokenizer(Locale locale, boolean fastScan)
+    {
+        currentLocale = locale;
+        mFastScan = fastScan && !currentLocale.getLanguage().equals("th");
         mWordMap = new HashMap();
     }
     
     /** extractTokens: Dispatching method called from WorkFiles and QueryInput.
      * @param text : a parsed textfile ready to be tokenized (String)
      * @param max : the maximum number of tokens to extract (int).
-     * @return a map (HashMap) with all words and a stringBuffer with their 
+     * @return a map (HashMap) with all words and a PositionList with their 
      * positions in the text.
      * todo add end-of-line (EOF) token where appropriate. Use BreakIterator.getSentenceInstance
      */
     public Map extractTokens(String text, int max)
     {
-        BreakIterator wordIterator = BreakIterator.getWordInstance(currentLocale);
-        extractWords(text, wordIterator, max);
+        extractText(text, max);
         return mWordMap;
     }
     
-    /** extractWords: Central tokenizing method.
+    /** appendText: Incremental tokenizing of a streamed text, called for each
+     * chunk of characters delivered by the parser. The text is tokenized up 
+     * to the last word boundary reported by the BreakIterator before the last
+     * whitespace; the rest is kept until the next chunk. A segment can run on
+     * across whitespace (e.g. a no-break space followed by a blank), so only
+     * a boundary of the BreakIterator gives the same result as tokenizing the
+     * whole text at once. The one-letter concatenation state (see 
+     * checkTokenLength) is carried over from chunk to chunk.
+     * @param chunk : array holding the characters (char[])
+     * @param start : the start position in the array (int)
+     * @param length : the number of characters to read (int)
+     * @param max : the maximum number of tokens to extract (int).
+     */
+    public void appendText(char[] chunk, int start, int length, int max)
+    {
+        mPending.append(chunk, start, length);
+        int size = mPending.length();
+        int cut = size;
+        // Looks for the start of the last run of whitespace.
+        while (cut > 0 && !Character.isWhitespace(mPending.charAt(cut - 1))) cut--;
+        while (cut > 0 && Character.isWhitespace(mPending.charAt(cut - 1))) cut--;
+        if (cut == 0 && size <= MAX_PENDING) return;
+        String text = mPending.toString();
+        BreakIterator boundaries = getChunkIterator();
+        boundaries.setText(text);
+        // The last boundary up to the whitespace, or else the boundary before
+        // the last segment of an overlong pending text.
+        if (cut > 0) cut = boundaries.isBoundary(cut) ? cut : boundaries.preceding(cut);
+        else cut = boundaries.preceding(size);
+        if (cut == BreakIterator.DONE || cut == 0)
+        {
+            if (size <= MAX_PENDING) return;
+            cut = size;
+        }
+        extractText(text.substring(0, cut), max);
+        mPending.delete(0, cut);
+    }
+    
+    /** finishText: Tokenizes what remains of a streamed text after the last 
+     * chunk was received by appendText.
+     * @param max : the maximum number of tokens to extract (int).
+     * @return a map (HashMap) with all words and a PositionList with their 
+     * positions in the text.
+     */
+    public Map finishText(int max)
+    {
+        if (mPending.length() > 0)
+        {
+            extractText(mPending.toString(), max);
+            mPending.setLength(0);
+        }
+        return mWordMap;
+    }
+    
+    /** extractText: Hands a text to the selected tokenizing engine.
+     * @param target : the text to analyze (String)
+     * @param max : the maximum number of tokens to extract (int).
+     */
+    private void extractText(String target, int max)
+    {
+        if (mFastScan) scanWords(target, max);
+        else extractWords(target, 0, target.length(), getChunkIterator(), max);
+    }
+    
+    /** getChunkIterator: Getter returns the BreakIterator of the locale, made
+     * on first use.
+     * @return the word BreakIterator (BreakIterator)
+     */
+    private BreakIterator getChunkIterator()
+    {
+        if (mChunkIterator == null)
+        {
+            mChunkIterator = BreakIterator.getWordInstance(currentLocale);
+        }
+        return mChunkIterator;
+    }
+    
+    /** scanWords: Fast tokenizing engine. A run of letters and digits is a
+     * word, a run of blanks and tabs or a punctuation mark is a non-string
+     * token. A segment touching a character of the class OTHER is tokenized by
+     * the BreakIterator, from the start of that segment up to the next place
+     * where two known characters of a different class meet.
      * @param target : the text to analyze (String)
+     * @param max : the maximum number of tokens to extract (int).
+     */
+    private void scanWords(String target, int max)
+    {
+        int length = target.length();
+        int start = 0;
+        while (start < length)
+        {
+            byte type = getCharClass(target.charAt(start));
+            int end = start + 1;
+            if (type == CLASS_WORD || type == CLASS_SPACE)
+            {
+                while (end < length && getCharClass(target.charAt(end)) == type) end++;
+            }
+            if (type == CLASS_OTHER || (end < length
+                    && getCharClass(target.charAt(end)) == CLASS_OTHER))
+            {
+                while (end < length && !isCertainBoundary(target, end)) end++;
+                extractWords(target, start, end, getChunkIterator(), max);
+            }
+            else if (type == CLASS_WORD)
+            {
+                // The position in the text.
+                mPosition++;
+                checkTokenLength(target.substring(start, end), max);
+            }
+            else
+            {
+                // Position in the text of non-string token.
+                mPosition++;
+                setNonStringToken(nonStringType(target.charAt(start)));
+            }
+            start = end;
+        }
+    }
+    
+    /** isCertainBoundary: Returns 'true' if the BreakIterator always puts a
+     * word boundary before this index, whatever the text around it.
+     * @param target : the text to analyze (String)
+     * @param index : index in the text, above 0 (int)
+     * @return boolean 'true' for a certain boundary.
+     */
+    private static boolean isCertainBoundary(String target, int index)
+    {
+        byte before = getCharClass(target.charAt(index - 1));
+        byte after = getCharClass(target.charAt(index));
+        if (before == CLASS_OTHER || after == CLASS_OTHER) return false;
+        return before != after || before == CLASS_PUNCT;
+    }
+    
+    /** getCharClass: Getter returns the class of a character for the fast 
+     * scanner.
+     * @param cr : a character of the text (char)
+     * @return the class of the character (byte)
+     */
+    private static byte getCharClass(char cr)
+    {
+        return cr < TABLE_SIZE ? charClass[cr] : CLASS_OTHER;
+    }
+    
+    /** extractWords: Central tokenizing method, finds the word boundaries in a
+     * range of the text with the BreakIterator.
+     * @param target : the text to analyze (String)
+     * @param begin : the start index of the range (int)
+     * @param stop : the end index of the range, exclusive (int)
      * @param wordIterator : BreakIterator class instance to find word boundaries
      * @param max : the maximum number of tokens to extract (int).
      */
-    private void extractWords(String target, BreakIterator wordIterator, int max)
+    private void extractWords(String target, int begin, int stop,
+            BreakIterator wordIterator, int max)
     {
 //        if ( target == null || (target != null && target.length() == 0))
 //            throw new RuntimeException("Not a valid text in Tokenizer");
         
-        wordIterator.setText(target);
+        wordIterator.setText(new StringCharacterIterator(target, begin, stop, begin));
         int start = wordIterator.first();
         int end = wordIterator.next();
         
         while (end != BreakIterator.DONE)
         {
-            String word = target.substring(start,end);
             // To leave out all digits, replace next if-instruction with:
             // 'if(Character.isLetter(codePoint))'
             // Also add instructions on line 103-104 (see below).
-            int codePoint = (int)word.charAt(0);
+            int codePoint = (int)target.charAt(start);
             if (Character.isLetterOrDigit(codePoint))
             {
                 // The position in the text.
                 mPosition++;
-                checkTokenLength(word, max);
+                checkTokenLength(target.substring(start, end), max);
             }
             else
             {
                 // Position in the text of non-string token.
                 mPosition++;
-                setNonStringToken(nonStringType(word.charAt(0)));
+                setNonStringToken(nonStringType(target.charAt(start)));
                 // To add all digits as one token-type (#d) remove comment slashes 
                 // on the next two lines and change line 90 (see above):
                 
@@ -162,7 +384,7 @@ public class Tokenizer
         else QueryInput.getLimitMessage();
     }
     
-    /** addToWordMap: Constructs a map with a token as key and a string of 
+    /** addToWordMap: Constructs a map with a token as key and a list of 
      * positions of this token as value.
      * @param word : token found in the text (String)
      * @param index : position of the word occurrence in the text (int)
@@ -170,22 +392,16 @@ public class Tokenizer
     private void addToWordMap(String word, int index)
     {
         String type = word.toLowerCase();
-        String position = String.valueOf(index);
-        // Token already in the list: adds its position only.
-        if(mWordMap.containsKey(type))
+        PositionList positionList = (PositionList) mWordMap.get(type);
+        // New token found: adds token-type and its position in the text.
+        if(positionList == null)
         {
-            // List with positions in this text so far.
-            Object positionList = mWordMap.get(type);
-            StringBuffer posBuffer1 = new StringBuffer(positionList.toString());
-            posBuffer1.append(", ").append(position);
-            mWordMap.put(type, posBuffer1);
-        }
-        else // New token found: adds token-type and its position in the text.
-        {
-            StringBuffer posBuffer2 = new StringBuffer(position);
-            mWordMap.put(type, posBuffer2);
+            positionList = new PositionList();
+            mWordMap.put(type.intern(), positionList);
             mTotType++;
         }
+        // Token already in the list: adds its position only.
+        positionList.add(index);
     }
     
     /** getTokenTypeCount: Getter returns total number of tokens and types in this 
@@ -200,12 +416,18 @@ public class Tokenizer
     }
     
     /** nonStringType: A filter to classify non-alpha tokens into three groups:
-     * digits, operators and  separators.
+     * digits, operators and  separators. Characters of the class table are
+     * looked up, others are searched in the token arrays.
      * @param cr : a non-alpha character
      * @return the type of non-alpha token (int)
      */
     private int nonStringType(char cr)
     {
+        if (cr < TABLE_SIZE)
+        {
+            if (charNonStringType[cr] != 0) currentChar = cr;
+            return charNonStringType[cr];
+        }
         int thisType = 0;
         for (int j = 0;j < nonStringTypes.length;j++)
         {
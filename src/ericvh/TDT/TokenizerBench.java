@@ -0,0 +1,342 @@
+package ericvh.TDT;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/** Class TokenizerBench is a stand-alone benchmark of the Tokenizer on a
+ * news-like text. It compares keeping the positions of the tokens in a
+ * PositionList with the former StringBuffer that was copied for every new
+ * position, on the same token stream, and times the tokenizing of the whole
+ * text with the BreakIterator and with the fast scanner. Every timing is the
+ * best of a number of runs.
+ * The text is read from a file, repeated up to the size asked, or else
+ * generated: sentences of words from a vocabulary of VOCABULARY made-up words
+ * with Zipf frequencies, capitalized names, numbers, amounts and dates,
+ * abbreviations, contractions, hyphenated words, quotes and parentheses, and
+ * paragraphs.
+ * Run it with: java ericvh.TDT.TokenizerBench [megabytes] [language] [file]
+ */
+public class TokenizerBench
+{
+    // The number of different words of the generated text.
+    private static final int VOCABULARY = 40000;
+    // Syllables of the generated words.
+    private static final String[] SYLLABLES = {"ba", "con", "de", "el", "for",
+        "gan", "hu", "in", "ju", "ka", "lo", "ment", "na", "o", "pre", "qui",
+        "re", "st", "tion", "un", "ver", "wa", "xi", "ya", "ze", "th", "ing",
+        "ous", "al", "er", "ly", "sch", "ch", "ph", "ed", "es"};
+    // Abbreviations and contractions of the generated text.
+    private static final String[] ABBREVIATIONS = {"U.S.", "U.N.", "Mr.",
+        "Mrs.", "Dr.", "Inc.", "Corp.", "Jan.", "Sept.", "e.g.", "i.e.",
+        "a.m.", "p.m.", "don't", "it's", "won't", "they're", "O'Neill"};
+    // Short words that start a sentence or connect its parts.
+    private static final String[] FUNCTION_WORDS = {"the", "of", "and", "to",
+        "a", "in", "that", "is", "for", "on", "said", "with", "was", "as", "by"};
+    // The number of timed runs.
+    private static final int RUNS = 7;
+
+    /** main: Entry point of the benchmark.
+     * @param args : the size of the text in megabytes (default 1) and the
+     * language of the locale (default the default locale) (String).
+     */
+    public static void main(String[] args)
+    {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        Locale locale = args.length > 1 ? new Locale(args[1]) : Locale.getDefault();
+        String text;
+        if (args.length > 2)
+        {
+            try
+            {
+                text = repeatText(new String(Files.readAllBytes(Paths.get(
+                        args[2])), StandardCharsets.UTF_8), megabytes << 20);
+            }
+            catch (IOException e)
+            {
+                System.err.println("Cannot read " + args[2] + ": " + e);
+                return;
+            }
+        }
+        else text = sampleText(new Random(7), megabytes << 20);
+        benchPositions(locale, text);
+        benchEngines(locale, text);
+    }
+
+    /** benchPositions: Times adding the positions of all tokens of the text
+     * to a PositionList and to a StringBuffer copied at each position, and
+     * tokenizing the text with the BreakIterator.
+     * @param locale : the locale of the BreakIterator (Locale)
+     * @param text : the text (String)
+     */
+    static void benchPositions(Locale locale, String text)
+    {
+        Map wordMap = new Tokenizer(locale, false).extractTokens(text, 0);
+        String[] stream = toTokenStream(wordMap);
+        long best = Long.MAX_VALUE;
+        Map lists = null;
+        for (int run = 0; run < RUNS; run++)
+        {
+            long start = System.nanoTime();
+            lists = new HashMap();
+            for (int i = 1; i < stream.length; i++)
+            {
+                if (stream[i] == null) continue;
+                PositionList positions = (PositionList) lists.get(stream[i]);
+                if (positions == null)
+                {
+                    positions = new PositionList();
+                    lists.put(stream[i], positions);
+                }
+                positions.add(i);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println("PositionList: " + millis(best) + " ms");
+        best = Long.MAX_VALUE;
+        Map buffers = null;
+        for (int run = 0; run < RUNS; run++)
+        {
+            long start = System.nanoTime();
+            buffers = new HashMap();
+            for (int i = 1; i < stream.length; i++)
+            {
+                if (stream[i] == null) continue;
+                Object positions = buffers.get(stream[i]);
+                // The former Tokenizer.addToWordMap.
+                StringBuffer posBuffer = positions == null
+                        ? new StringBuffer(String.valueOf(i))
+                        : new StringBuffer(positions.toString()).append(", ")
+                                .append(String.valueOf(i));
+                buffers.put(stream[i], posBuffer);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println("StringBuffer copy: " + millis(best) + " ms");
+        System.out.println("Same positions: " + sameValues(lists, buffers));
+        best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++)
+        {
+            long start = System.nanoTime();
+            new Tokenizer(locale, false).extractTokens(text, 0);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println("Tokenizing " + text.length() + " characters: "
+                + millis(best) + " ms, " + wordMap.size() + " token-types");
+    }
+
+    /** benchEngines: Times tokenizing the text with the BreakIterator and
+     * with the fast scanner.
+     * @param locale : the locale of the BreakIterator (Locale)
+     * @param text : the text (String)
+     */
+    static void benchEngines(Locale locale, String text)
+    {
+        boolean[] engines = {false, true};
+        for (int e = 0; e < engines.length; e++)
+        {
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++)
+            {
+                long start = System.nanoTime();
+                new Tokenizer(locale, engines[e]).extractTokens(text, 0);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.println((engines[e] ? "Fast scanner: " : "BreakIterator: ")
+                    + millis(best) + " ms, " + (text.length() * 1000L
+                    / Math.max(1, best)) + " million characters/s");
+        }
+    }
+
+    /** sampleText: Makes a news-like text of sentences and paragraphs. The
+     * words come from a vocabulary of VOCABULARY made-up words, the word of
+     * rank r about 1/r as frequent as the most frequent one; between them
+     * are names, numbers, abbreviations and hyphenated words.
+     * @param random : source of the words (Random)
+     * @param length : the minimum length of the text (int)
+     * @return the text (String)
+     */
+    static String sampleText(Random random, int length)
+    {
+        String[] vocabulary = makeVocabulary(random);
+        StringBuilder text = new StringBuilder(length + 256);
+        int sentences = 0;
+        while (text.length() < length)
+        {
+            int words = 6 + random.nextInt(25);
+            boolean quoted = random.nextInt(12) == 0;
+            if (quoted) text.append('"');
+            for (int w = 0; w < words; w++)
+            {
+                if (w > 0) text.append(random.nextInt(9) == 0 ? ", " : " ");
+                String word = sampleWord(random, vocabulary, w == 0);
+                if (w == 0) word = Character.toUpperCase(word.charAt(0))
+                        + word.substring(1);
+                if (w > 0 && w < words - 1 && random.nextInt(40) == 0)
+                {
+                    text.append('(').append(word).append(')');
+                }
+                else text.append(word);
+            }
+            int end = random.nextInt(20);
+            text.append(end == 0 ? '?' : end == 1 ? '!' : '.');
+            if (quoted) text.append('"');
+            text.append(++sentences % (3 + random.nextInt(5)) == 0 ? "\n\n"
+                    : " ");
+        }
+        return text.toString();
+    }
+
+    /** makeVocabulary: Makes VOCABULARY different words of two to four
+     * syllables.
+     * @param random : source of the syllables (Random)
+     * @return the words, the most frequent first (String[])
+     */
+    private static String[] makeVocabulary(Random random)
+    {
+        Set seen = new HashSet();
+        String[] vocabulary = new String[VOCABULARY];
+        System.arraycopy(FUNCTION_WORDS, 0, vocabulary, 0, FUNCTION_WORDS.length);
+        int n = FUNCTION_WORDS.length;
+        while (n < VOCABULARY)
+        {
+            StringBuilder word = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            for (int i = 0; i < syllables; i++)
+            {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            if (seen.add(word.toString())) vocabulary[n++] = word.toString();
+        }
+        return vocabulary;
+    }
+
+    /** sampleWord: Picks the next word: mostly a word of the vocabulary, now
+     * and then a name, a number, an abbreviation or a hyphenated word.
+     * @param random : source of the word (Random)
+     * @param vocabulary : the words, the most frequent first (String[])
+     * @param first : 'true' for the first word of a sentence (boolean)
+     * @return the word (String)
+     */
+    private static String sampleWord(Random random, String[] vocabulary,
+            boolean first)
+    {
+        int kind = random.nextInt(100);
+        if (first && kind < 30) return FUNCTION_WORDS[random.nextInt(3)];
+        if (kind < 8)
+        {
+            String name = zipfWord(random, vocabulary);
+            return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+        switch (kind)
+        {
+            case 8: return String.valueOf(1950 + random.nextInt(60));
+            case 9: return String.valueOf(random.nextInt(1000));
+            case 10: return random.nextInt(100) + "." + random.nextInt(10) + "%";
+            case 11: return "$" + (1 + random.nextInt(999)) + ","
+                    + (100 + random.nextInt(900));
+            case 12: return (1 + random.nextInt(12)) + "/"
+                    + (1 + random.nextInt(28)) + "/" + (2000 + random.nextInt(10));
+            case 13:
+            case 14: return ABBREVIATIONS[random.nextInt(ABBREVIATIONS.length)];
+            case 15: return zipfWord(random, vocabulary) + "-"
+                    + zipfWord(random, vocabulary);
+            case 16: return zipfWord(random, vocabulary) + "'s";
+            default: return zipfWord(random, vocabulary);
+        }
+    }
+
+    /** zipfWord: Picks a word of the vocabulary, the word of rank r with a
+     * chance of about 1/r.
+     * @param random : source of the word (Random)
+     * @param vocabulary : the words, the most frequent first (String[])
+     * @return the word (String)
+     */
+    private static String zipfWord(Random random, String[] vocabulary)
+    {
+        int rank = (int) Math.pow(vocabulary.length + 1, random.nextDouble()) - 1;
+        return vocabulary[Math.min(vocabulary.length - 1, rank)];
+    }
+
+    /** repeatText: Repeats a text up to a length, separated by a paragraph.
+     * @param text : the text, not empty (String)
+     * @param length : the minimum length (int)
+     * @return the text (String)
+     */
+    static String repeatText(String text, int length)
+    {
+        StringBuilder repeated = new StringBuilder(length + text.length() + 2);
+        while (repeated.length() < length) repeated.append(text).append("\n\n");
+        return repeated.toString();
+    }
+
+    /** toTokenStream: Puts the tokens of a word map back at their position.
+     * @param wordMap : token-type (Key) and PositionList (Value) (Map)
+     * @return the token at each position, null where there is none (String[])
+     */
+    private static String[] toTokenStream(Map wordMap)
+    {
+        int last = 0;
+        List entries = new ArrayList(wordMap.entrySet());
+        for (int e = 0; e < entries.size(); e++)
+        {
+            int[] positions = ((PositionList) ((Map.Entry) entries.get(e))
+                    .getValue()).toArray();
+            for (int i = 0; i < positions.length; i++)
+            {
+                last = Math.max(last, positions[i]);
+            }
+        }
+        String[] stream = new String[last + 1];
+        for (int e = 0; e < entries.size(); e++)
+        {
+            Map.Entry entry = (Map.Entry) entries.get(e);
+            int[] positions = ((PositionList) entry.getValue()).toArray();
+            for (int i = 0; i < positions.length; i++)
+            {
+                if (positions[i] > 0) stream[positions[i]] = (String) entry.getKey();
+            }
+        }
+        return stream;
+    }
+
+    /** sameValues: Returns 'true' if both maps have the same keys and the
+     * same text for each value.
+     * @param first : a map (Map)
+     * @param second : a map (Map)
+     * @return boolean 'true' when the maps are the same.
+     */
+    private static boolean sameValues(Map first, Map second)
+    {
+        if (!first.keySet().equals(second.keySet())) return false;
+        Iterator key_itr = first.keySet().iterator();
+        while (key_itr.hasNext())
+        {
+            Object key = key_itr.next();
+            if (!first.get(key).toString().equals(second.get(key).toString()))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** millis: Converts nanoseconds to milliseconds.
+     * @param nanos : the time in nanoseconds (long)
+     * @return the time in milliseconds (long)
+     */
+    static long millis(long nanos)
+    {
+        return nanos / 1000000L;
+    }
+}
@@ -0,0 +1,209 @@
+package ericvh.TDT;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/** Class TokenizerCheck is a stand-alone check of the Tokenizer. Random texts
+ * built from characters that are known to be difficult for the word
+ * boundaries (no-break space, zero width space, line ends, apostrophes,
+ * periods between digits, ...) are tokenized at once and streamed in chunks
+ * of random length, and both results are compared. The fast scanner is
+ * compared with the BreakIterator on the same random texts and on a sample
+ * corpus of news-like words. In every comparison the tokens, their positions
+ * and the token and type counts must be the same.
+ * Run it with: java ericvh.TDT.TokenizerCheck [texts] [language]
+ */
+public class TokenizerCheck
+{
+    // Characters the random texts are made of.
+    private static final String ALPHABET = "ab Z1 2\u00e9\u00ff\u0100\u0249\t\n\r"
+            + ".,'\"-_$%#@&()!?;:/\u00ad\u00b7\u00a0\u0301\u200b\u2019\u00b2"
+            + "\u00bd\u4e2d\u0436\u05d0x y";
+    // The maximum length of a random text.
+    private static final int MAX_TEXT = 24;
+    // The number of differences printed in full.
+    private static final int SHOWN = 10;
+    // Words of the sample corpus.
+    private static final String[] CORPUS_WORDS = {"The", "U.S.A.", "don't",
+        "3.5", "1,000", "$5", "5%", "e-mail", "na\u00efve", "caf\u00e9",
+        "Z\u00fcrich", "(see", "p.", "12)", "\u00abquote\u00bb", "\u2014",
+        "\u2019s", "x", "a", "b", "co-op", "#1", "@home",
+        "\u0395\u03bb\u03bb\u03ac\u03b4\u03b1", "\u4e2d\u6587", "\r\n",
+        "\n", "  ", "\t"};
+    // The number of words in the sample corpus.
+    private static final int CORPUS_SIZE = 200000;
+
+    /** main: Entry point of the check.
+     * @param args : the number of random texts (default 200000) and the
+     * language of the locale (default the default locale) (String).
+     */
+    public static void main(String[] args)
+    {
+        int texts = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        Locale locale = args.length > 1 ? new Locale(args[1]) : Locale.getDefault();
+        int failures = checkStreaming(locale, false, texts, new Random(42));
+        failures += checkStreaming(locale, true, texts, new Random(42));
+        failures += checkEngines(locale, texts, new Random(42));
+        System.out.println(failures == 0 ? "OK" : failures + " differences");
+        if (failures > 0) System.exit(1);
+    }
+
+    /** checkStreaming: Compares tokenizing random texts at once with
+     * tokenizing them in chunks by appendText and finishText.
+     * @param locale : the locale of the BreakIterator (Locale)
+     * @param fastScan : 'true' for the fast scanner (boolean)
+     * @param texts : the number of random texts (int)
+     * @param random : source of the texts and the chunk lengths (Random)
+     * @return the number of texts with a different result (int)
+     */
+    private static int checkStreaming(Locale locale, boolean fastScan, int texts,
+            Random random)
+    {
+        int failures = 0;
+        for (int i = 0; i < texts; i++)
+        {
+            String text = randomText(random, 1 + random.nextInt(MAX_TEXT));
+            Tokenizer whole = new Tokenizer(locale, fastScan);
+            String expected = describe(whole, whole.extractTokens(text, 0));
+            Tokenizer streamed = new Tokenizer(locale, fastScan);
+            char[] chars = text.toCharArray();
+            int start = 0;
+            while (start < chars.length)
+            {
+                int length = Math.min(chars.length - start, 1 + random.nextInt(8));
+                streamed.appendText(chars, start, length, 0);
+                start += length;
+            }
+            String found = describe(streamed, streamed.finishText(0));
+            if (!expected.equals(found))
+            {
+                if (failures++ < SHOWN)
+                {
+                    System.out.println("Streamed " + (fastScan ? "fast scan"
+                            : "BreakIterator") + " differs for " + escape(text)
+                            + "\n whole:    " + expected + "\n streamed: " + found);
+                }
+            }
+        }
+        System.out.println((fastScan ? "Fast scan" : "BreakIterator")
+                + ", streamed against whole: " + texts + " texts, "
+                + failures + " differences");
+        return failures;
+    }
+
+    /** checkEngines: Compares the fast scanner with the BreakIterator on
+     * random texts and on a sample corpus, tokenized at once and streamed.
+     * @param locale : the locale of the BreakIterator (Locale)
+     * @param texts : the number of random texts (int)
+     * @param random : source of the texts and the chunk lengths (Random)
+     * @return the number of texts with a different result (int)
+     */
+    private static int checkEngines(Locale locale, int texts, Random random)
+    {
+        int failures = 0;
+        for (int i = 0; i < texts; i++)
+        {
+            String text = randomText(random, 1 + random.nextInt(MAX_TEXT));
+            String expected = tokenize(locale, false, text);
+            String found = tokenize(locale, true, text);
+            if (!expected.equals(found))
+            {
+                if (failures++ < SHOWN)
+                {
+                    System.out.println("Fast scan differs for " + escape(text)
+                            + "\n BreakIterator: " + expected
+                            + "\n fast scan:     " + found);
+                }
+            }
+        }
+        System.out.println("Fast scan against BreakIterator: " + texts
+                + " texts, " + failures + " differences");
+        StringBuilder corpus = new StringBuilder();
+        for (int i = 0; i < CORPUS_SIZE; i++)
+        {
+            corpus.append(CORPUS_WORDS[random.nextInt(CORPUS_WORDS.length)]);
+            if (random.nextInt(4) > 0) corpus.append(' ');
+        }
+        String expected = tokenize(locale, false, corpus.toString());
+        boolean whole = expected.equals(tokenize(locale, true, corpus.toString()));
+        Tokenizer streamed = new Tokenizer(locale, true);
+        char[] chars = corpus.toString().toCharArray();
+        int start = 0;
+        while (start < chars.length)
+        {
+            int length = Math.min(chars.length - start, 1 + random.nextInt(64));
+            streamed.appendText(chars, start, length, 0);
+            start += length;
+        }
+        boolean chunked = expected.equals(describe(streamed,
+                streamed.finishText(0)));
+        System.out.println("Sample corpus of " + chars.length + " characters, "
+                + "fast scan against BreakIterator: whole " + (whole ? "same"
+                : "differs") + ", streamed " + (chunked ? "same" : "differs"));
+        if (!whole) failures++;
+        if (!chunked) failures++;
+        return failures;
+    }
+
+    /** tokenize: Tokenizes a text at once.
+     * @param locale : the locale of the BreakIterator (Locale)
+     * @param fastScan : 'true' for the fast scanner (boolean)
+     * @param text : the text (String)
+     * @return the result in the form of describe (String)
+     */
+    private static String tokenize(Locale locale, boolean fastScan, String text)
+    {
+        Tokenizer tokenizer = new Tokenizer(locale, fastScan);
+        return describe(tokenizer, tokenizer.extractTokens(text, 0));
+    }
+
+    /** randomText: Makes a random text of the characters in the alphabet.
+     * @param random : source of the characters (Random)
+     * @param length : the length of the text (int)
+     * @return the text (String)
+     */
+    static String randomText(Random random, int length)
+    {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+        {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    /** describe: Writes the result of a Tokenizer in a comparable form.
+     * @param tokenizer : the Tokenizer that made the map (Tokenizer)
+     * @param wordMap : the tokens and their PositionList (Map)
+     * @return the sorted tokens with their positions and the counts (String)
+     */
+    static String describe(Tokenizer tokenizer, Map wordMap)
+    {
+        Map sorted = new TreeMap();
+        Iterator word_itr = wordMap.entrySet().iterator();
+        while (word_itr.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) word_itr.next();
+            sorted.put(entry.getKey(), entry.getValue().toString());
+        }
+        return sorted + " " + Arrays.toString(tokenizer.getTokenTypeCount());
+    }
+
+    /** escape: Writes the characters of a text as unicode escapes.
+     * @param text : the text (String)
+     * @return the escaped text (String)
+     */
+    static String escape(String text)
+    {
+        StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < text.length(); i++)
+        {
+            escaped.append(String.format("\\u%04x", (int) text.charAt(i)));
+        }
+        return escaped.toString();
+    }
+}
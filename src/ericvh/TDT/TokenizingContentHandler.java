@@ -0,0 +1,70 @@
+package ericvh.TDT;
+
+import org.xml.sax.helpers.DefaultHandler;
+
+
+/** Class TokenizingContentHandler receives the text of a document from the
+ * Tika SAX events and passes every chunk of characters directly to an
+ * incremental Tokenizer. The document body is never held in memory as a whole.
+ * Like Tika.parseToString the intake stops at the maximum string length of Tika.
+ */
+public class TokenizingContentHandler extends DefaultHandler
+{
+    // The Tokenizer receiving the chunks.
+    private final Tokenizer mTokenizer;
+    // The maximum number of characters to accept, -1 for no limit.
+    private final int mMaxLength;
+    // The number of characters received so far.
+    private int mCharCount;
+
+    /** Constructor
+     * @param tokenizer : the Tokenizer receiving the text (Tokenizer)
+     * @param maxLength : the maximum number of characters to accept, -1 for
+     * no limit (int)
+     */
+    public TokenizingContentHandler(Tokenizer tokenizer, int maxLength)
+    {
+        this.mTokenizer = tokenizer;
+        this.mMaxLength = maxLength;
+    }
+
+    /** characters: Passes a chunk of text to the Tokenizer.
+     * @param ch : the characters (char[])
+     * @param start : the start position in the array (int)
+     * @param length : the number of characters to read (int)
+     */
+    @Override
+    public void characters(char[] ch, int start, int length)
+    {
+        int accept = length;
+        if (mMaxLength >= 0)
+        {
+            accept = Math.min(length, mMaxLength - mCharCount);
+        }
+        if (accept > 0)
+        {
+            mTokenizer.appendText(ch, start, accept, 0);
+            mCharCount += accept;
+        }
+    }
+
+    /** ignorableWhitespace: The whitespace Tika adds between blocks of text is
+     * passed to the Tokenizer as well, as it is in the text of parseToString.
+     * @param ch : the characters (char[])
+     * @param start : the start position in the array (int)
+     * @param length : the number of characters to read (int)
+     */
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length)
+    {
+        characters(ch, start, length);
+    }
+
+    /** getCharCount: Getter returns the number of characters received.
+     * @return number of characters (int)
+     */
+    public int getCharCount()
+    {
+        return mCharCount;
+    }
+}
@@ -754,11 +754,9 @@ public class TopicRetriever
         Iterator arc_itr = tokenMap.keySet().iterator();
         while(arc_itr.hasNext())
         {
-            String arcKey = arc_itr.next().toString();
-            Integer vOne = Integer.valueOf(arcKey.substring(0, arcKey
-                    .indexOf("*")));
-            Integer vTwo = Integer.valueOf(arcKey.substring(arcKey
-                    .indexOf("*") + 1));
+            long arcKey = ArcKey.valueOf(arc_itr.next());
+            Integer vOne = ArcKey.getVertex1(arcKey);
+            Integer vTwo = ArcKey.getVertex2(arcKey);
             if(!vOne.equals(0)) mTokenSet.add(vOne);
             if(!vTwo.equals(0)) mTokenSet.add(vTwo);
         }
@@ -958,7 +956,7 @@ public class TopicRetriever
     /** getDocArcLists: Returns a list of lists with the doc-ids and arcs used 
      * by the FinalViewer class.
      * @return ArrayList with ArrayLists with a doc-id (Integer) and a LinkedList
-     * with arc-keys (String).
+     * with arc-keys (Long).
      */
     public static List getDocArcLists()
     {
@@ -1010,7 +1008,7 @@ public class TopicRetriever
      * related to a query token.
      * @return SortedMap with with as key the count class (sorted from high to
      * low) and as value a HashMap with the global facet key (Integer) as key 
-     * and a LinkedHashSet as value with arc-keys (String) that defined the
+     * and a LinkedHashSet as value with arc-keys (Long) that defined the
      * topical facet.
      */
     public static SortedMap getFacetArcMap()
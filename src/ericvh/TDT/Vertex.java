@@ -1,6 +1,10 @@
 package ericvh.TDT;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -16,15 +20,30 @@ import java.util.TreeSet;
  * The labels itself are stored by the labelTable class. The vertex knows what 
  * documents it is used in. Vertex has a map with labels-indices of adjacent vertices
  * per document (its neighbors).
+ * The neighbors are kept in primitive arrays: the sorted document numbers, and
+ * for every document an offset into one packed array with the sorted indices of
+ * its neighbors. While the network is built the neighbors go to a Builder; the
+ * vertex is frozen into the arrays before it is read or saved.
  * @author  Eric Van Horenbeeck
  */
 public class Vertex implements Serializable
 {
+    private static final long serialVersionUID = 3918934892917508305L;
     // Map with info value of a token-type. Key is the collection key; value is 
     // the info value of this vertex in this collection.
-    private final Map mTokenInfoValueMap;
-    // Map with vertices adjacent to this vertex. Key: docNr; value: neighbor labels.
-    private final Map mAdjVerticesMap;
+    private Map mTokenInfoValueMap;
+    // The sorted document numbers of this vertex.
+    private int[] mDocNrs;
+    // The neighbors of document mDocNrs[i] start at mAdjOffsets[i] and end
+    // before mAdjOffsets[i + 1] in mAdjIndices.
+    private int[] mAdjOffsets;
+    // The indices of the adjacent vertices, sorted per document.
+    private int[] mAdjIndices;
+    // Collects the neighbors while the network is built, null when frozen.
+    private transient Builder mBuilder;
+    // The sums that gave the info value per collection key (String): the 
+    // documents, the summed frequency and the summed maximum (int[3]).
+    private transient Map mInfoStats;
     
     /** Constructor
      * Vertex keeps a pointer to its immediate left and right neighbors 
@@ -33,8 +52,10 @@ public class Vertex implements Serializable
      */
     public Vertex()
     {
-        mAdjVerticesMap = new HashMap();
         mTokenInfoValueMap = new HashMap();
+        mDocNrs = new int[0];
+        mAdjOffsets = new int[1];
+        mAdjIndices = new int[0];
     }
     
     /** getAllCollectionKeys: Getter returns a set with the keys of the 
@@ -52,12 +73,23 @@ public class Vertex implements Serializable
      */
     public SortedSet getAllVertexDocNrs()
     {
+        if (mBuilder != null) freeze();
         SortedSet docSet = new TreeSet();
-        Iterator key_itr = mAdjVerticesMap.keySet().iterator();
-        while (key_itr.hasNext()) docSet.add(key_itr.next());
+        for (int i = 0; i < mDocNrs.length; i++) docSet.add(mDocNrs[i]);
         return docSet;
     }
       
+    /** getDocNrs: Getter returns the posting list of this vertex: all its 
+     * document numbers in ascending order. The array is shared, it must not be
+     * changed; adding a neighbor makes a new one when next asked for.
+     * @return sorted array with the document numbers (int[])
+     */
+    public int[] getDocNrs()
+    {
+        if (mBuilder != null) freeze();
+        return mDocNrs;
+    }
+    
     /** isInThisDoc: Checks if this vertex appears in this document. Looks in the
      * adjacent vertices map for the key. Every vertex has at least one neighbor
      * (adjacent vertex) at its left or at its right in any meaningful document.
@@ -66,7 +98,8 @@ public class Vertex implements Serializable
      */
     public boolean isInThisDoc(int docNr)
     {
-        return mAdjVerticesMap.containsKey(docNr);
+        if (mBuilder != null) freeze();
+        return Arrays.binarySearch(mDocNrs, docNr) >= 0;
     }
     
     /** setInfoValue: Replaces the initial info value of this token. The initial
@@ -82,6 +115,33 @@ public class Vertex implements Serializable
         this.mTokenInfoValueMap.put(collKey, infoValue);
     }
     
+    /** setInfoStats: Keeps the sums that gave the info value of this 
+     * token-type in a collection, for an incremental Compute Info-value. The
+     * sums are not saved with the vertex, the CollectionTable keeps them.
+     * @param collKey : key to the collection (String).
+     * @param docs : the number of documents of this vertex in the collection 
+     * (int).
+     * @param freq : the summed link (or token) frequency (int).
+     * @param max : the summed maximum links (or tokens) of the documents (int).
+     */
+    public synchronized void setInfoStats(String collKey, int docs, int freq, 
+            int max)
+    {
+        if (mInfoStats == null) mInfoStats = new HashMap();
+        mInfoStats.put(collKey, new int[] {docs, freq, max});
+    }
+    
+    /** getInfoStats: Getter returns the sums kept by setInfoStats.
+     * @param collKey : key to the collection (String).
+     * @return array with the documents, the summed frequency and the summed 
+     * maximum (int[3]), or null.
+     */
+    public synchronized int[] getInfoStats(String collKey)
+    {
+        if (mInfoStats == null) return null;
+        return (int[]) mInfoStats.get(collKey);
+    }
+    
     /** getInfoValue: Getter returns the info value of this token-type inside a 
      * collection.
      * @param collKey : key to the collection (String)
@@ -112,17 +172,15 @@ public class Vertex implements Serializable
     }
     
     /** addAdjVertex: Adds the index from a vertex adjacent to this vertex to 
-     * this document set.
+     * this document set. A frozen vertex is opened again for the additions.
      * @param index : identifies an adjacent vertex (int)
      * @param docNr : unique document number (int)
      */
-    public void addAdjVertex(int index, int docNr)
+    public synchronized void addAdjVertex(int index, int docNr)
     {
-        Set tempSet = new HashSet();
-        Integer docInt = docNr;
-        if(mAdjVerticesMap.containsKey(docInt)) tempSet = getAdjVerticesDoc(docNr);
-        tempSet.add(index);
-        mAdjVerticesMap.put(docInt, tempSet);
+        if (mBuilder == null) mBuilder = new Builder(mDocNrs, mAdjOffsets,
+                mAdjIndices);
+        mBuilder.add(docNr, index);
     }
     
     /** addAllAdjVertices: Adds a map of indices from adjacent vertices to this 
@@ -147,6 +205,28 @@ public class Vertex implements Serializable
         }
     }
     
+    /** merge: Adds the neighbors and the info values of another vertex with
+     * the same label to this vertex. Used to join the vertices of workers that
+     * built different documents.
+     * @param other : a vertex with the same label (Vertex)
+     */
+    public synchronized void merge(Vertex other)
+    {
+        int[] docNrs = other.getDocNrs();
+        int[] offsets = other.mAdjOffsets;
+        int[] adjIndices = other.mAdjIndices;
+        if (mBuilder == null) mBuilder = new Builder(mDocNrs, mAdjOffsets,
+                mAdjIndices);
+        for (int i = 0; i < docNrs.length; i++)
+        {
+            for (int j = offsets[i]; j < offsets[i + 1]; j++)
+            {
+                mBuilder.add(docNrs[i], adjIndices[j]);
+            }
+        }
+        mTokenInfoValueMap.putAll(other.getTokenInfoValueMap());
+    }
+    
     /** getAdjVerticesDoc: Returns a set with vertices (indices) adjacent to 
      * this vertex and belonging to this document.
      * @param docNr : unique document number (int)
@@ -154,17 +234,54 @@ public class Vertex implements Serializable
      */
     public Set getAdjVerticesDoc(int docNr)
     {
-        return (Set) mAdjVerticesMap.get(docNr);
+        int[] adjIndices = getAdjVertexIds(docNr);
+        if (adjIndices == null) return null;
+        Set adjSet = new HashSet(adjIndices.length * 2);
+        for (int i = 0; i < adjIndices.length; i++) adjSet.add(adjIndices[i]);
+        return adjSet;
+    }
+    
+    /** getAdjVertexIds: Returns the sorted indices of the vertices adjacent to 
+     * this vertex in this document.
+     * @param docNr : unique document number (int)
+     * @return array with the indices (int[]) or null if the vertex is not in 
+     * this document.
+     */
+    public int[] getAdjVertexIds(int docNr)
+    {
+        if (mBuilder != null) freeze();
+        int i = Arrays.binarySearch(mDocNrs, docNr);
+        if (i < 0) return null;
+        return Arrays.copyOfRange(mAdjIndices, mAdjOffsets[i], mAdjOffsets[i + 1]);
     }
     
     /** getAdjVerticesMap: Getter returns a map with all vertices adjacent to 
      * this vertex. Key is the document number; value: indices of the adjacent 
-     * vertices (Integer).
+     * vertices (Integer). The map is a copy, changing it leaves the vertex 
+     * untouched.
      * @return Map with indices of all vertices adjacent to this vertex
      */
     public Map getAdjVerticesMap()
     {
-        return mAdjVerticesMap;
+        if (mBuilder != null) freeze();
+        Map adjMap = new HashMap(mDocNrs.length * 2);
+        for (int i = 0; i < mDocNrs.length; i++)
+        {
+            adjMap.put(mDocNrs[i], getAdjVerticesDoc(mDocNrs[i]));
+        }
+        return adjMap;
+    }
+    
+    /** freeze: Moves the neighbors collected by the Builder into the sorted 
+     * arrays. Called when the network is built; reading or saving a vertex 
+     * freezes it as well.
+     */
+    public synchronized void freeze()
+    {
+        if (mBuilder == null) return;
+        Builder builder = mBuilder;
+        mBuilder = null;
+        builder.build(this);
     }
     
     /** getSharedDocs: Getter returns a set with doc-ids from all collections 
@@ -174,9 +291,13 @@ public class Vertex implements Serializable
      */
     public Set getSharedDocs(Vertex otherVertex)
     {
-        Set docsV1 = this.getAllVertexDocNrs();
-        Set docsV2 = otherVertex.getAllVertexDocNrs();
-        return Algorithms.intersect(docsV1, docsV2);
+        int[] docsV1 = this.getDocNrs();
+        int[] docsV2 = otherVertex.getDocNrs();
+        int[] shared = new int[Math.min(docsV1.length, docsV2.length)];
+        int count = Algorithms.intersect(docsV1, docsV2, shared);
+        Set sharedDocs = new HashSet(count * 2);
+        for (int i = 0; i < count; i++) sharedDocs.add(shared[i]);
+        return sharedDocs;
     }
     
     /** getSharedCollections: Getter returns a set with the collections shared 
@@ -189,7 +310,175 @@ public class Vertex implements Serializable
         Set collV1 = this.getAllCollectionKeys();
         Set collV2 = otherVertex.getAllCollectionKeys();
         return Algorithms.intersect(collV1, collV2);
-    } 
+    }
+    
+    /** writeObject: Freezes the vertex before it is written.
+     * @param out : the output stream (ObjectOutputStream)
+     * @throws IOException
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        freeze();
+        out.defaultWriteObject();
+    }
+    
+    /** readObject: Reads a vertex, converting the map with the adjacent 
+     * vertices per document of an earlier version.
+     * @param in : the input stream (ObjectInputStream)
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException,
+            ClassNotFoundException
+    {
+        ObjectInputStream.GetField fields = in.readFields();
+        mTokenInfoValueMap = (Map) fields.get("mTokenInfoValueMap", null);
+        if (fields.getObjectStreamClass().getField("mAdjVerticesMap") == null)
+        {
+            mDocNrs = (int[]) fields.get("mDocNrs", null);
+            mAdjOffsets = (int[]) fields.get("mAdjOffsets", null);
+            mAdjIndices = (int[]) fields.get("mAdjIndices", null);
+            return;
+        }
+        mDocNrs = new int[0];
+        mAdjOffsets = new int[1];
+        mAdjIndices = new int[0];
+        Map adjMap = (Map) fields.get("mAdjVerticesMap", null);
+        if (adjMap != null) addAllAdjVertices(adjMap);
+        freeze();
+    }
+    
+    /** Class Builder collects the neighbors of a vertex per document while the
+     * network is built. The tokens of one document arrive together, so the last
+     * document is looked up first. The neighbors of a document are appended
+     * and made unique when their array is full and when the vertex is frozen.
+     */
+    private static final class Builder
+    {
+        // The document numbers in the order they were added.
+        private int[] mDocs;
+        // The neighbors per document, mCounts[i] of them are used.
+        private int[][] mAdj;
+        private int[] mCounts;
+        // The number of documents.
+        private int mSize;
+        // 'true' while the documents were added in ascending order.
+        private boolean mAscending = true;
+        
+        /** Constructor
+         * Opens the arrays of a frozen vertex again.
+         * @param docNrs : the sorted document numbers (int[])
+         * @param offsets : the offsets of the neighbors per document (int[])
+         * @param adjIndices : the packed neighbors (int[])
+         */
+        Builder(int[] docNrs, int[] offsets, int[] adjIndices)
+        {
+            int capacity = Math.max(4, docNrs.length + 1);
+            mDocs = new int[capacity];
+            mAdj = new int[capacity][];
+            mCounts = new int[capacity];
+            for (int i = 0; i < docNrs.length; i++)
+            {
+                mDocs[i] = docNrs[i];
+                mCounts[i] = offsets[i + 1] - offsets[i];
+                mAdj[i] = Arrays.copyOfRange(adjIndices, offsets[i],
+                        offsets[i] + Math.max(4, mCounts[i]));
+            }
+            mSize = docNrs.length;
+        }
+        
+        /** add: Adds a neighbor of the vertex in this document.
+         * @param docNr : unique document number (int)
+         * @param index : identifies an adjacent vertex (int)
+         */
+        void add(int docNr, int index)
+        {
+            int slot = mSize - 1;
+            // Documents arriving in ascending order need no search.
+            if (slot >= 0 && mAscending && docNr > mDocs[slot]) slot = -1;
+            while (slot >= 0 && mDocs[slot] != docNr) slot--;
+            if (slot < 0)
+            {
+                if (mSize == mDocs.length)
+                {
+                    int capacity = mSize * 2;
+                    mDocs = Arrays.copyOf(mDocs, capacity);
+                    mAdj = Arrays.copyOf(mAdj, capacity);
+                    mCounts = Arrays.copyOf(mCounts, capacity);
+                }
+                if (mSize > 0 && docNr < mDocs[mSize - 1]) mAscending = false;
+                slot = mSize++;
+                mDocs[slot] = docNr;
+                mAdj[slot] = new int[4];
+            }
+            int[] adj = mAdj[slot];
+            int count = mCounts[slot];
+            // The same neighbor follows often, as in repeated phrases.
+            if (count > 0 && adj[count - 1] == index) return;
+            if (count == adj.length)
+            {
+                count = sortUnique(adj, count);
+                // Grows the array when making it unique freed less than a 
+                // quarter.
+                if (count * 4 > adj.length * 3) adj = Arrays.copyOf(adj,
+                        adj.length * 2);
+                mAdj[slot] = adj;
+            }
+            adj[count++] = index;
+            mCounts[slot] = count;
+        }
+        
+        /** build: Fills the arrays of the vertex with the sorted documents and
+         * their sorted, unique neighbors.
+         * @param v : the vertex to fill (Vertex)
+         */
+        void build(Vertex v)
+        {
+            // Orders the slots by document number: doc in the high bits, 
+            // slot in the low bits.
+            long[] order = new long[mSize];
+            for (int i = 0; i < mSize; i++) order[i] = ((long) mDocs[i] << 32) | i;
+            Arrays.sort(order);
+            int total = 0;
+            for (int i = 0; i < mSize; i++)
+            {
+                mCounts[i] = sortUnique(mAdj[i], mCounts[i]);
+                total += mCounts[i];
+            }
+            int[] docNrs = new int[mSize];
+            int[] offsets = new int[mSize + 1];
+            int[] adjIndices = new int[total];
+            int offset = 0;
+            for (int i = 0; i < mSize; i++)
+            {
+                int slot = (int) order[i];
+                docNrs[i] = mDocs[slot];
+                offsets[i] = offset;
+                System.arraycopy(mAdj[slot], 0, adjIndices, offset, mCounts[slot]);
+                offset += mCounts[slot];
+            }
+            offsets[mSize] = offset;
+            v.mDocNrs = docNrs;
+            v.mAdjOffsets = offsets;
+            v.mAdjIndices = adjIndices;
+        }
+        
+        /** sortUnique: Sorts the first elements of an array and removes the 
+         * doubles.
+         * @param a : the array (int[])
+         * @param n : the number of elements used (int)
+         * @return the number of unique elements now at the start (int)
+         */
+        private static int sortUnique(int[] a, int n)
+        {
+            if (n < 2) return n;
+            Arrays.sort(a, 0, n);
+            int unique = 1;
+            for (int i = 1; i < n; i++)
+            {
+                if (a[i] != a[unique - 1]) a[unique++] = a[i];
+            }
+            return unique;
+        }
+    }
 }
-
-
@@ -0,0 +1,242 @@
+package ericvh.TDT;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+
+/** Class VertexWeightTable holds the weight of every vertex in every document
+ * of an ArcsTable: the weight of the first arc in the text of the document
+ * that has the vertex at one of its sides. A second entry per vertex holds
+ * its weight in the document with the lowest number, for a vertex looked up
+ * without a document. The table is made in one pass over the arcs and kept in
+ * open addressing arrays with the document number and the vertex-id packed in
+ * a long key, that grow when they are half full. The arcs of an
+ * OffHeapArcStore are read from its columns, without making their maps.
+ * The table is not changed after its construction; the ArcsTable makes a new
+ * one when the arcs or their weights change.
+ */
+public class VertexWeightTable
+{
+    // Marks an empty slot.
+    private static final long EMPTY = Long.MIN_VALUE;
+    // The document number of the entries without a document.
+    private static final int ANY_DOC = -1;
+    // Packed document number (high int) and vertex-id (low int).
+    private long[] mKeys;
+    // Weights, parallel to mKeys.
+    private double[] mWeights;
+    // Position of the arc that gave the weight, parallel to mKeys; only
+    // used while the table is made.
+    private int[] mPositions;
+    // Slots - 1, the number of slots is a power of two.
+    private int mMask;
+    // The number of entries.
+    private int mSize;
+
+    /** Constructor
+     * Reads the weights of the vertices from the arcs of all documents.
+     * @param arcsMap : HashMap with doc-id (Integer) as key and a LongHashMap
+     * with the arcs of the document as value (Map)
+     */
+    public VertexWeightTable(Map arcsMap)
+    {
+        int[] docNrs = new int[arcsMap.size()];
+        int d = 0;
+        Iterator doc_itr = arcsMap.keySet().iterator();
+        while (doc_itr.hasNext()) docNrs[d++] = (Integer) doc_itr.next();
+        Arrays.sort(docNrs);
+        allocate(1024);
+        OffHeapArcStore store = arcsMap instanceof OffHeapArcStore
+                ? (OffHeapArcStore) arcsMap : null;
+        // Position, vertex-ids and weight of the arcs of a document.
+        int[] positions = new int[0];
+        int[] vertex1 = positions;
+        int[] vertex2 = positions;
+        double[] weights = new double[0];
+        int[] touched = new int[64];
+        for (d = 0; d < docNrs.length; d++)
+        {
+            Integer docInt = docNrs[d];
+            int count = store == null
+                    ? ((LongHashMap) arcsMap.get(docInt)).size()
+                    : store.getArcCount(docInt);
+            if (positions.length < count)
+            {
+                positions = new int[count];
+                vertex1 = new int[count];
+                vertex2 = new int[count];
+                weights = new double[count];
+            }
+            if (store == null)
+            {
+                readArcs((LongHashMap) arcsMap.get(docInt), positions, vertex1,
+                        vertex2, weights);
+            }
+            else store.readColumns(docInt, positions, vertex1, vertex2, weights);
+            if (touched.length < 2 * count) touched = new int[2 * count];
+            int touchedSize = 0;
+            for (int a = 0; a < count; a++)
+            {
+                if (put(docNrs[d], vertex1[a], positions[a], weights[a]))
+                {
+                    touched[touchedSize++] = vertex1[a];
+                }
+                if (vertex2[a] != vertex1[a] && put(docNrs[d], vertex2[a],
+                        positions[a], weights[a]))
+                {
+                    touched[touchedSize++] = vertex2[a];
+                }
+            }
+            // The first document of a vertex gives its weight without a
+            // document.
+            for (int t = 0; t < touchedSize; t++)
+            {
+                int slot = find(pack(ANY_DOC, touched[t]));
+                if (mKeys[slot] == EMPTY)
+                {
+                    double weight = getWeight(docNrs[d], touched[t]);
+                    if (grow()) slot = find(pack(ANY_DOC, touched[t]));
+                    mKeys[slot] = pack(ANY_DOC, touched[t]);
+                    mWeights[slot] = weight;
+                    mSize++;
+                }
+            }
+        }
+        mPositions = null;
+    }
+
+    /** readArcs: Copies the position, the vertex-ids and the weight of the
+     * arcs of a map to arrays.
+     * @param arcMap : the arcs of a document with their arc key (LongHashMap)
+     * @param positions : receives the positions (int[])
+     * @param vertex1 : receives the first vertex-ids (int[])
+     * @param vertex2 : receives the second vertex-ids (int[])
+     * @param weights : receives the weights (double[])
+     */
+    private static void readArcs(LongHashMap arcMap, int[] positions,
+            int[] vertex1, int[] vertex2, double[] weights)
+    {
+        long[] keys = arcMap.keys();
+        for (int k = 0; k < keys.length; k++)
+        {
+            Arc arc = (Arc) arcMap.get(keys[k]);
+            positions[k] = arc.getArcPosition();
+            vertex1[k] = ArcKey.getVertex1(keys[k]);
+            vertex2[k] = ArcKey.getVertex2(keys[k]);
+            weights[k] = arc.getArcWeight();
+        }
+    }
+
+    /** getWeight: Getter returns the weight of a vertex in a document.
+     * @param docNr : the unique document identifier (int)
+     * @param vrtxIdx : the vertex-id (int)
+     * @return the weight (double), 0 if the vertex is not in the document.
+     */
+    public double getWeight(int docNr, int vrtxIdx)
+    {
+        int slot = find(pack(docNr, vrtxIdx));
+        return mKeys[slot] == EMPTY ? 0.0 : mWeights[slot];
+    }
+
+    /** getAnyWeight: Getter returns the weight of a vertex in the document
+     * with the lowest number that has the vertex.
+     * @param vrtxIdx : the vertex-id (int)
+     * @return the weight (double), 0 if the vertex is in no document.
+     */
+    public double getAnyWeight(int vrtxIdx)
+    {
+        return getWeight(ANY_DOC, vrtxIdx);
+    }
+
+    /** size: Returns the number of entries, with and without a document.
+     * @return the number of entries (int)
+     */
+    public int size()
+    {
+        return mSize;
+    }
+
+    /** put: Keeps the weight of an arc for a vertex in a document when the
+     * arc comes before the arc kept so far.
+     * @param docNr : the unique document identifier (int)
+     * @param vrtxIdx : the vertex-id (int)
+     * @param position : the position of an arc with the vertex (int)
+     * @param weight : the weight of the arc (double)
+     * @return boolean 'true' if this is the first arc of the vertex in the
+     * document.
+     */
+    private boolean put(int docNr, int vrtxIdx, int position, double weight)
+    {
+        long key = pack(docNr, vrtxIdx);
+        int slot = find(key);
+        boolean added = mKeys[slot] == EMPTY;
+        if (added && grow()) slot = find(key);
+        if (added || position < mPositions[slot])
+        {
+            mKeys[slot] = key;
+            mWeights[slot] = weight;
+            mPositions[slot] = position;
+            if (added) mSize++;
+        }
+        return added;
+    }
+
+    /** allocate: Makes empty arrays for a number of slots.
+     * @param slots : the number of slots, a power of two (int)
+     */
+    private void allocate(int slots)
+    {
+        mKeys = new long[slots];
+        Arrays.fill(mKeys, EMPTY);
+        mWeights = new double[slots];
+        mPositions = new int[slots];
+        mMask = slots - 1;
+    }
+
+    /** grow: Doubles the slots when one more entry would fill the table over
+     * half, and places the entries again.
+     * @return boolean 'true' if the slots changed.
+     */
+    private boolean grow()
+    {
+        if (2 * (mSize + 1) <= mKeys.length) return false;
+        long[] keys = mKeys;
+        double[] weights = mWeights;
+        int[] positions = mPositions;
+        allocate(2 * keys.length);
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i] == EMPTY) continue;
+            int slot = find(keys[i]);
+            mKeys[slot] = keys[i];
+            mWeights[slot] = weights[i];
+            mPositions[slot] = positions[i];
+        }
+        return true;
+    }
+
+    /** find: Returns the slot of a key, or the empty slot where it belongs.
+     * @param key : the packed key (long)
+     * @return the slot (int)
+     */
+    private int find(long key)
+    {
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 33) & mMask;
+        while (mKeys[slot] != EMPTY && mKeys[slot] != key)
+        {
+            slot = (slot + 1) & mMask;
+        }
+        return slot;
+    }
+
+    /** pack: Packs a document number and a vertex-id in one key.
+     * @param docNr : the unique document identifier (int)
+     * @param vrtxIdx : the vertex-id (int)
+     * @return the key (long)
+     */
+    private static long pack(int docNr, int vrtxIdx)
+    {
+        return ((long) docNr << 32) | (vrtxIdx & 0xffffffffL);
+    }
+}
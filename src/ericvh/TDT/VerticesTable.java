@@ -1,26 +1,37 @@
 package ericvh.TDT;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
 
 
 /** Class VerticesTable is a structure holding the individual vertices in a map
  * and methods to access these data. A vertex is a token-type.
+ * An index with the sorted vertex-ids of every collection and a reverse map
+ * from a vertex (by identity) to its id are made on request; they are not 
+ * saved with the table.
  * @author  Eric Van Horenbeeck
  * Created on 16 september 2004, 15:14
  */
 public class VerticesTable implements Serializable
 {
+    private static final long serialVersionUID = 7518269065753511903L;
     // Map with as key: vertex index (Integer) and as value a vertex.
     private final Map mVerticesMap;
+    // Index with as key: collection key (String) and as value the sorted
+    // vertex-ids (int[]) of the vertices in that collection, null when not 
+    // made or no longer current.
+    private transient Map mCollVertices;
+    // Reverse map with as key: a vertex (compared by identity) and as value
+    // its vertex index (Integer), null when not made or no longer current.
+    private transient IdentityHashMap mVertexIds;
     
     /** Constructor
      */
@@ -29,6 +40,15 @@ public class VerticesTable implements Serializable
         mVerticesMap = new HashMap();
     }
     
+    /** Constructor
+     * Makes a table on an existing map of vertices, that is not copied.
+     * @param vm : the vertices map. Key: vertex index, value: vertex
+     */
+    VerticesTable(Map vm)
+    {
+        mVerticesMap = vm;
+    }
+    
     /** addVerticesMap: Adds the map with all the vertices and their info values 
      * in all documents. Key: vertex index, value: vertex. Called by 
      * the ApplicationManager and GraphAnalyzer.
@@ -37,6 +57,8 @@ public class VerticesTable implements Serializable
     public void addVerticesMap(Map vm)
     {
         mVerticesMap.putAll(vm);
+        mCollVertices = null;
+        mVertexIds = null;
     }
     
     /** getVerticesMap: Getter returns the map with all vertices involved in this 
@@ -72,7 +94,29 @@ public class VerticesTable implements Serializable
      */
     public boolean containsVertex(Vertex v)
     {
-        return mVerticesMap.containsValue(v);
+        return getVertexId(v) >= 0;
+    }
+    
+    /** getVertexId: Getter returns the index that identifies this vertex, 
+     * from the reverse map. The map is made first when there is none or when
+     * the number of vertices changed.
+     * @param v : this vertex
+     * @return the vertex index (int) or -1 if the vertex is not in this map.
+     */
+    public synchronized int getVertexId(Vertex v)
+    {
+        if (mVertexIds == null || mVertexIds.size() != mVerticesMap.size())
+        {
+            mVertexIds = new IdentityHashMap(mVerticesMap.size());
+            Iterator vrtx_itr = mVerticesMap.entrySet().iterator();
+            while (vrtx_itr.hasNext())
+            {
+                Map.Entry entry = (Map.Entry) vrtx_itr.next();
+                mVertexIds.put(entry.getValue(), entry.getKey());
+            }
+        }
+        Integer idx = (Integer) mVertexIds.get(v);
+        return idx == null ? -1 : idx;
     }
     
     /** getFullVerticesMap: Getter returns the full map will all vertices.
@@ -103,12 +147,11 @@ public class VerticesTable implements Serializable
         {
             Integer vrtxId = (Integer) vrtx_itr.next();
             Vertex vrtx = (Vertex) mVerticesMap.get(vrtxId);
-            SortedSet docSet = (TreeSet) vrtx.getAllVertexDocNrs();
-            Iterator doc_itr = docSet.iterator();
-            while(doc_itr.hasNext())
+            int[] docNrs = vrtx.getDocNrs();
+            for (int d = 0; d < docNrs.length; d++)
             {
                 Set tmpSet = new HashSet();
-                Integer docInt = (Integer) doc_itr.next();
+                Integer docInt = docNrs[d];
                 if(docVtrxMap.containsKey(docInt)) tmpSet = (Set) docVtrxMap
                         .get(docInt);
                 tmpSet.add(vrtxId);
@@ -169,6 +212,59 @@ public class VerticesTable implements Serializable
     public void addAllVertices(Map vertices)
     {
         mVerticesMap.putAll(vertices);
+        mCollVertices = null;
+        mVertexIds = null;
+    }
+    
+    /** indexCollections: Makes the index with the vertices of every 
+     * collection in one pass over the vertices. Called by the 
+     * InfoValueCalculator once all vertices have their info values; a 
+     * collection given to a vertex afterwards is not in the index.
+     */
+    public synchronized void indexCollections()
+    {
+        Integer[] vertexIds = (Integer[]) mVerticesMap.keySet().toArray(
+                new Integer[mVerticesMap.size()]);
+        Arrays.sort(vertexIds);
+        Map collVertices = new HashMap();
+        Map sizeMap = new HashMap();
+        for (int i = 0; i < vertexIds.length; i++)
+        {
+            Vertex vrtx = (Vertex) mVerticesMap.get(vertexIds[i]);
+            Iterator coll_itr = vrtx.getAllCollectionKeys().iterator();
+            while (coll_itr.hasNext())
+            {
+                Object collKey = coll_itr.next();
+                int[] ids = (int[]) collVertices.get(collKey);
+                Integer size = (Integer) sizeMap.get(collKey);
+                int n = size == null ? 0 : size;
+                if (ids == null) ids = new int[16];
+                else if (n == ids.length) ids = Arrays.copyOf(ids, n * 2);
+                ids[n] = vertexIds[i];
+                collVertices.put(collKey, ids);
+                sizeMap.put(collKey, n + 1);
+            }
+        }
+        Iterator size_itr = sizeMap.entrySet().iterator();
+        while (size_itr.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) size_itr.next();
+            collVertices.put(entry.getKey(), Arrays.copyOf((int[]) 
+                    collVertices.get(entry.getKey()), (Integer) entry.getValue()));
+        }
+        mCollVertices = collVertices;
+    }
+    
+    /** getCollectionVertices: Getter returns the sorted ids of the vertices 
+     * in a collection. The index is made first when there is none.
+     * @param collKey : key to a collection (String)
+     * @return the vertex-ids (int[]), empty for a collection without vertices.
+     */
+    public synchronized int[] getCollectionVertices(String collKey)
+    {
+        if (mCollVertices == null) indexCollections();
+        int[] ids = (int[]) mCollVertices.get(collKey);
+        return ids == null ? new int[0] : ids;
     }
     
 }
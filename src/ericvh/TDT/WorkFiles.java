@@ -1,9 +1,11 @@
 package ericvh.TDT;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /** Class WorkFiles dispatches the text files after parsing to the Tokenizer
@@ -13,29 +15,79 @@ import java.util.Map;
  */
 public class WorkFiles implements Serializable
 {
-    // The html-parsed text.
+    // The html-parsed text, null when the text was streamed to the Tokenizer.
     private final String mTextPage;
     // The filename.
-    private String mFileName;
+    private final String mFileName;
+    // The directory receiving the tokenized file.
+    private final String mDataPath;
+    // The full path of the original file.
+    private final String mSourcePath;
+    // The sequential number of the document.
+    private final int mDocNumber;
     // Array with total tokens and total types.
     private int[] mTotToken;
     // Tokenized text in a map with its indices.
     private Map mWordMap;
-    // Number of processed files.
-    private static int mCountFiles;
-    private final Tokenizer tok = new Tokenizer();
+    // Number of processed files, shared by all preprocessing workers.
+    private static final AtomicInteger mCountFiles = new AtomicInteger();
+    private final Tokenizer tok;
     private final InputOutput io = new InputOutput();
     
-    /** Constructor called by the NewsParser.
+    /** Constructor called by the TikaParser.
      * @param text : String with the text to tokenize
      * @param fileName : filename used to save the text elements (String)
+     * @param dataPath : directory where the tokenized file is saved (String)
+     * @param sourcePath : full path of the original file (String)
+     * @param docNumber : the sequential number of the document (int)
      */
-    public WorkFiles(String text, String fileName)
+    public WorkFiles(String text, String fileName, String dataPath, 
+            String sourcePath, int docNumber)
     {
         this.mTextPage = text;
         this.mFileName = fileName;
+        this.mDataPath = dataPath;
+        this.mSourcePath = sourcePath;
+        this.mDocNumber = docNumber;
+        tok = new Tokenizer();
         mWordMap = new HashMap();
-        mCountFiles++;
+    }
+    
+    /** Constructor called by the TikaParser when the text was streamed into
+     * the Tokenizer during parsing.
+     * @param tokenizer : Tokenizer holding the streamed text (Tokenizer)
+     * @param fileName : filename used to save the text elements (String)
+     * @param dataPath : directory where the tokenized file is saved (String)
+     * @param sourcePath : full path of the original file (String)
+     * @param docNumber : the sequential number of the document (int)
+     */
+    public WorkFiles(Tokenizer tokenizer, String fileName, String dataPath, 
+            String sourcePath, int docNumber)
+    {
+        this.mTextPage = null;
+        this.mFileName = fileName;
+        this.mDataPath = dataPath;
+        this.mSourcePath = sourcePath;
+        this.mDocNumber = docNumber;
+        tok = tokenizer;
+        mWordMap = new HashMap();
+    }
+    
+    /** getOutputPath: Getter returns the full path of the tokenized file.
+     * @return the path of the '*.tok' or '*.emp' file (String)
+     */
+    public String getOutputPath()
+    {
+        return new File(mDataPath, mFileName).getPath();
+    }
+    
+    /** getFilesProcessed: Getter returns the number of files processed in 
+     * this session.
+     * @return count of processed files (int)
+     */
+    public static int getFilesProcessed()
+    {
+        return mCountFiles.get();
     }
     
     /** extract: This workFile is to be tokenized; total tokens and total 
@@ -48,7 +100,14 @@ public class WorkFiles implements Serializable
         int max = 0;
         try
         {
-            mWordMap = tok.extractTokens(mTextPage, max);
+            if (mTextPage == null)
+            {
+                mWordMap = tok.finishText(max);
+            }
+            else
+            {
+                mWordMap = tok.extractTokens(mTextPage, max);
+            }
             mTotToken = tok.getTokenTypeCount();
         }
         catch(Exception e)
@@ -68,9 +127,23 @@ public class WorkFiles implements Serializable
     {
         try
         {
+            int processed = mCountFiles.incrementAndGet();
             ApplicationManager.clearText();
-            ApplicationManager.showText("* Files processed: " + mCountFiles + " *", 0);
-            io.writeTokenizedText(mWordMap, mFileName, mTotToken[0], mTotToken[1]);
+            ApplicationManager.showText("* Files processed: " + processed + " *", 0);
+            InputOutput.addOriginalFilename(mFileName, mSourcePath);
+            // In the fused mode the tokens go directly to the NetworkBuilder,
+            // the tokenized file is only written when asked for.
+            NetworkFeeder feeder = ApplicationManager.getNetworkFeeder();
+            if (feeder == null || ApplicationManager.getKeepTokStatus())
+            {
+                io.writeTokenizedText(mWordMap, mDataPath, mFileName,
+                        mTotToken[0], mTotToken[1]);
+            }
+            if (feeder != null)
+            {
+                feeder.addDocument(mWordMap, mDataPath, mFileName, mDocNumber,
+                        mTotToken[0], mTotToken[1]);
+            }
         }
         catch (IOException e)
         {
@@ -78,7 +151,6 @@ public class WorkFiles implements Serializable
             e.printStackTrace(System.err);
         }
         mWordMap = null;
-        mFileName = null;
         mTotToken = null;
     }
     